@@ -0,0 +1,599 @@
+/*
+ * FormatosInicializacao
+ *
+ * Descrição geral:
+ * - Compara o tempo de partida com três formatos para os mesmos N eventos (padrão 200 mil):
+ *   o snapshot mapeado em memória (ArquivoSnapshot, versão 2), serialização Java e JSON.
+ * - Serialização e JSON usam registros simples (EventoGravado, ComentarioGravado) com os mesmos
+ *   campos que o snapshot guarda, e remontam cada Evento pelos setters, como faria um leitor
+ *   desses formatos. Nenhuma biblioteca de JSON está em rec/, então o escritor e o leitor de
+ *   JSON daqui são mínimos, escritos à mão (só o que estes arquivos usam).
+ * - "gerar" grava os três arquivos. "ler" carrega um formato e mede até todos os Evento
+ *   estarem prontos e, depois, com todos os comentários tocados; imprime também uma assinatura
+ *   do conteúdo lido, que deve ser igual nos três formatos.
+ * - "comparar" faz tudo: gera os arquivos e lê cada formato em processos novos (JVM fria),
+ *   algumas rodadas, conferindo as assinaturas. Termina com código 1 se elas divergirem.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -cp <classes>:<bibliotecas de rec/> persistencia.FormatosInicializacao comparar <diretório> [eventos] [rodadas]
+ *   java -cp <classes>:<bibliotecas de rec/> persistencia.FormatosInicializacao gerar <diretório> <eventos>
+ *   java -cp <classes>:<bibliotecas de rec/> persistencia.FormatosInicializacao ler <diretório> <mmap|serializacao|json>
+ */
+
+package persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.Comentario;
+import model.Evento;
+import model.Notificacao;
+import model.Usuario;
+
+public class FormatosInicializacao {
+
+	private static final String[] FORMATOS = { "mmap", "serializacao", "json" };
+	private static final String[] CATEGORIAS = { "Educacao", "Jogos", "Negócios", "Esportes", "Festas", "Música",
+			"Tecnologia" };
+	private static final String SERIALIZACAO = "eventos.ser";
+	private static final String JSON = "eventos.json";
+	private static final int BUFFER = 1 << 16;
+
+	private static final int PRIVADO = 1;
+	private static final int ACESSO_LIBERADO = 2;
+
+	record ComentarioGravado(int usuarioId, String texto) implements Serializable {
+	}
+
+	record EventoGravado(int id, int organizadorId, String titulo, String descricao, String local, String imagem,
+			String categoria, String palestrante, String badgePath, String urlVideo, String tipo, long data,
+			int nanosData, long dataCriacao, int nanosCriacao, int flags, int curtidas, int[] participantes,
+			int[] presentes, int[] curtiram, List<String> galeria, List<ComentarioGravado> comentarios)
+			implements Serializable {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Path diretorio = Paths.get(args[1]);
+		switch (args[0]) {
+		case "gerar" -> gerar(diretorio, Integer.parseInt(args[2]));
+		case "ler" -> ler(diretorio, args[2]);
+		case "comparar" -> comparar(diretorio, args.length > 2 ? Integer.parseInt(args[2]) : 200_000,
+				args.length > 3 ? Integer.parseInt(args[3]) : 3);
+		default -> throw new IllegalArgumentException("Modo desconhecido: " + args[0]);
+		}
+	}
+
+	private static void comparar(Path diretorio, int quantidade, int rodadas) throws Exception {
+		gerar(diretorio, quantidade);
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		String assinatura = null;
+		boolean ok = true;
+		for (int rodada = 1; rodada <= rodadas; rodada++) {
+			for (String formato : FORMATOS) {
+				Process processo = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						FormatosInicializacao.class.getName(), "ler", diretorio.toString(), formato)
+						.redirectErrorStream(true).start();
+				try (BufferedReader saida = new BufferedReader(
+						new InputStreamReader(processo.getInputStream(), StandardCharsets.UTF_8))) {
+					String linha;
+					while ((linha = saida.readLine()) != null) {
+						System.out.println("rodada " + rodada + " | " + linha);
+						int posicao = linha.indexOf("assinatura ");
+						if (posicao >= 0) {
+							String lida = linha.substring(posicao + "assinatura ".length());
+							if (assinatura == null) {
+								assinatura = lida;
+							} else if (!assinatura.equals(lida)) {
+								System.err.println("Falha: " + formato + " leu conteúdo diferente (" + lida + ", esperado "
+										+ assinatura + ")");
+								ok = false;
+							}
+						}
+					}
+				}
+				if (processo.waitFor() != 0) {
+					System.err.println("Falha: a leitura de " + formato + " terminou com erro");
+					ok = false;
+				}
+			}
+		}
+		apagar(diretorio);
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Geração
+	// ---------------------------------------------------------------
+
+	private static List<Evento> eventos(int quantidade) {
+		Random aleatorio = new Random(1);
+		LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+		List<Evento> eventos = new ArrayList<>(quantidade);
+		for (int i = 1; i <= quantidade; i++) {
+			Evento evento = new Evento.Builder("Evento " + i + " de " + CATEGORIAS[aleatorio.nextInt(7)],
+					"Descrição do evento número " + i + " com detalhes", base.plusMinutes(aleatorio.nextInt(500_000)),
+					"Fatec Cruzeiro sala " + aleatorio.nextInt(40), usuario(1 + aleatorio.nextInt(6)),
+					"Palestrante " + aleatorio.nextInt(1000)).comImagem("file:/imagens/evento" + (i % 50) + ".jpg")
+					.comCategoria(CATEGORIAS[aleatorio.nextInt(7)]).build();
+			evento.setId(i);
+			evento.setPrivado(aleatorio.nextInt(10) == 0);
+			for (int k = aleatorio.nextInt(4); k > 0; k--) {
+				evento.adicionarParticipante(usuario(1 + aleatorio.nextInt(6)));
+			}
+			for (int participante : evento.getIdsParticipantes()) {
+				if (aleatorio.nextBoolean()) {
+					evento.setPresenca(participante, true);
+				}
+			}
+			if (aleatorio.nextInt(3) == 0) {
+				evento.curtirEvento(usuario(1 + aleatorio.nextInt(6)));
+			}
+			for (int k = aleatorio.nextInt(3); k > 0; k--) {
+				evento.adicionarComentario(new Comentario("Comentário " + k + " do evento " + i, 1 + aleatorio.nextInt(6)));
+			}
+			eventos.add(evento);
+		}
+		return eventos;
+	}
+
+	private static Usuario usuario(int id) {
+		Usuario usuario = new Usuario();
+		usuario.setId(id);
+		return usuario;
+	}
+
+	private static void gerar(Path diretorio, int quantidade) throws IOException {
+		Files.createDirectories(diretorio);
+		apagarArquivos(diretorio);
+		List<Evento> eventos = eventos(quantidade);
+
+		long inicio = System.nanoTime();
+		ArquivoSnapshot.gravar(diretorio, 1, new ArquivoSnapshot.Fonte() {
+			@Override
+			public Collection<Usuario> usuarios() {
+				return List.of();
+			}
+
+			@Override
+			public int ultimoIdEvento() {
+				return quantidade;
+			}
+
+			@Override
+			public void percorrerEventos(Consumer<Evento> visitante) {
+				eventos.forEach(visitante);
+			}
+
+			@Override
+			public void percorrerNotificacoes(BiConsumer<Integer, List<Notificacao>> visitante) {
+			}
+		});
+		relatar("mmap", inicio, ArquivoSnapshot.arquivo(diretorio, 1));
+
+		inicio = System.nanoTime();
+		List<EventoGravado> gravados = new ArrayList<>(quantidade);
+		for (Evento evento : eventos) {
+			gravados.add(gravado(evento));
+		}
+		try (ObjectOutputStream saida = new ObjectOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(diretorio.resolve(SERIALIZACAO)), BUFFER))) {
+			saida.writeObject(gravados);
+		}
+		relatar("serializacao", inicio, diretorio.resolve(SERIALIZACAO));
+
+		inicio = System.nanoTime();
+		try (Writer saida = new BufferedWriter(
+				new OutputStreamWriter(Files.newOutputStream(diretorio.resolve(JSON)), StandardCharsets.UTF_8), BUFFER)) {
+			saida.write('[');
+			for (int i = 0; i < gravados.size(); i++) {
+				if (i > 0) {
+					saida.write(',');
+				}
+				escreverJson(saida, gravados.get(i));
+			}
+			saida.write(']');
+		}
+		relatar("json", inicio, diretorio.resolve(JSON));
+	}
+
+	private static void relatar(String formato, long inicio, Path arquivo) throws IOException {
+		System.out.printf("%-12s gravado em %5d ms, %5.1f MB%n", formato, (System.nanoTime() - inicio) / 1_000_000,
+				Files.size(arquivo) / 1048576.0);
+	}
+
+	private static EventoGravado gravado(Evento evento) {
+		List<ComentarioGravado> comentarios = new ArrayList<>();
+		for (Comentario comentario : evento.getComentarios()) {
+			comentarios.add(new ComentarioGravado(comentario.getUsuarioId(), comentario.getTexto()));
+		}
+		int flags = (evento.isPrivado() ? PRIVADO : 0) | (evento.isAcessoLiberado() ? ACESSO_LIBERADO : 0);
+		return new EventoGravado(evento.getId(), evento.getOrganizador().getId(), evento.getTitulo(),
+				evento.getDescricao(), evento.getLocal(), evento.getImagem(), evento.getCategoria(),
+				evento.getPalestrante(), evento.getBadgePath(), evento.getUrlVideo(), evento.getTipo(),
+				evento.getData().toEpochSecond(ZoneOffset.UTC), evento.getData().getNano(),
+				evento.getDataCriacao().toEpochSecond(ZoneOffset.UTC), evento.getDataCriacao().getNano(), flags, evento.getCurtidas(), evento.getIdsParticipantes(), evento.getIdsPresentes(),
+				evento.getIdsQueCurtiram(), new ArrayList<>(evento.getGaleriaFotos()), comentarios);
+	}
+
+	// ---------------------------------------------------------------
+	// Leitura
+	// ---------------------------------------------------------------
+
+	private static void ler(Path diretorio, String formato) throws Exception {
+		long inicio = System.nanoTime();
+		Map<Integer, Evento> eventos = switch (formato) {
+		case "mmap" -> lerMapeado(diretorio);
+		case "serializacao" -> lerSerializado(diretorio);
+		case "json" -> lerJson(diretorio);
+		default -> throw new IllegalArgumentException("Formato desconhecido: " + formato);
+		};
+		long prontos = (System.nanoTime() - inicio) / 1_000_000;
+		long comentarios = 0;
+		for (Evento evento : eventos.values()) {
+			comentarios += evento.getComentarios().size();
+		}
+		long tocados = (System.nanoTime() - inicio) / 1_000_000;
+		System.out.printf("%-12s %d eventos prontos em %5d ms, %5d ms com os %d comentários tocados; assinatura %016x%n",
+				formato, eventos.size(), prontos, tocados, comentarios, assinatura(eventos));
+	}
+
+	private static Map<Integer, Evento> lerMapeado(Path diretorio) throws IOException {
+		EstadoRecuperado estado = new EstadoRecuperado();
+		ArquivoSnapshot.ler(ArquivoSnapshot.maisRecente(diretorio), estado);
+		return estado.eventos;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<Integer, Evento> lerSerializado(Path diretorio) throws Exception {
+		Map<Integer, Evento> eventos = new HashMap<>();
+		try (ObjectInputStream entrada = new ObjectInputStream(
+				new BufferedInputStream(Files.newInputStream(diretorio.resolve(SERIALIZACAO)), BUFFER))) {
+			for (EventoGravado gravado : (List<EventoGravado>) entrada.readObject()) {
+				eventos.put(gravado.id(), evento(gravado));
+			}
+		}
+		return eventos;
+	}
+
+	private static Map<Integer, Evento> lerJson(Path diretorio) throws IOException {
+		Map<Integer, Evento> eventos = new HashMap<>();
+		LeitorJson leitor = new LeitorJson(Files.readString(diretorio.resolve(JSON)));
+		for (Object valor : leitor.lista(leitor.valor())) {
+			Map<String, Object> objeto = leitor.objeto(valor);
+			List<ComentarioGravado> comentarios = new ArrayList<>();
+			for (Object comentario : leitor.lista(objeto.get("comentarios"))) {
+				Map<String, Object> campos = leitor.objeto(comentario);
+				comentarios.add(new ComentarioGravado(inteiro(campos, "usuarioId"), (String) campos.get("texto")));
+			}
+			List<String> galeria = new ArrayList<>();
+			for (Object foto : leitor.lista(objeto.get("galeria"))) {
+				galeria.add((String) foto);
+			}
+			EventoGravado gravado = new EventoGravado(inteiro(objeto, "id"), inteiro(objeto, "organizador"),
+					(String) objeto.get("titulo"), (String) objeto.get("descricao"), (String) objeto.get("local"),
+					(String) objeto.get("imagem"), (String) objeto.get("categoria"), (String) objeto.get("palestrante"),
+					(String) objeto.get("badgePath"), (String) objeto.get("urlVideo"), (String) objeto.get("tipo"),
+					(Long) objeto.get("data"), inteiro(objeto, "nanosData"), (Long) objeto.get("dataCriacao"),
+					inteiro(objeto, "nanosCriacao"), inteiro(objeto, "flags"),
+					inteiro(objeto, "curtidas"), ids(leitor, objeto.get("participantes")),
+					ids(leitor, objeto.get("presentes")), ids(leitor, objeto.get("curtiram")), galeria, comentarios);
+			eventos.put(gravado.id(), evento(gravado));
+		}
+		return eventos;
+	}
+
+	private static int inteiro(Map<String, Object> objeto, String campo) {
+		return ((Long) objeto.get(campo)).intValue();
+	}
+
+	private static int[] ids(LeitorJson leitor, Object valor) {
+		List<Object> lista = leitor.lista(valor);
+		int[] ids = new int[lista.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = ((Long) lista.get(i)).intValue();
+		}
+		return ids;
+	}
+
+	// Mesma ordem de montagem do ArquivoSnapshot: participantes antes das presenças
+	private static Evento evento(EventoGravado gravado) {
+		Evento evento = new Evento();
+		evento.setId(gravado.id());
+		evento.setOrganizador(usuario(gravado.organizadorId()));
+		evento.setTitulo(gravado.titulo());
+		evento.setDescricao(gravado.descricao());
+		evento.setLocal(gravado.local());
+		evento.setImagem(gravado.imagem());
+		evento.setCategoria(gravado.categoria());
+		evento.setPalestrante(gravado.palestrante());
+		evento.setBadgePath(gravado.badgePath());
+		evento.setUrlVideo(gravado.urlVideo());
+		evento.setTipo(gravado.tipo());
+		evento.setPrivado((gravado.flags() & PRIVADO) != 0);
+		evento.setAcessoLiberado((gravado.flags() & ACESSO_LIBERADO) != 0);
+		evento.setData(LocalDateTime.ofEpochSecond(gravado.data(), gravado.nanosData(), ZoneOffset.UTC));
+		evento.setDataCriacao(LocalDateTime.ofEpochSecond(gravado.dataCriacao(), gravado.nanosCriacao(),
+				ZoneOffset.UTC));
+		for (int id : gravado.participantes()) {
+			evento.adicionarParticipante(usuario(id));
+		}
+		for (int id : gravado.presentes()) {
+			evento.setPresenca(id, true);
+		}
+		for (int id : gravado.curtiram()) {
+			evento.curtirEvento(usuario(id));
+		}
+		evento.setCurtidas(gravado.curtidas());
+		evento.getGaleriaFotos().addAll(gravado.galeria());
+		for (ComentarioGravado comentario : gravado.comentarios()) {
+			evento.adicionarComentario(new Comentario(comentario.texto(), comentario.usuarioId()));
+		}
+		return evento;
+	}
+
+	// Resumo do conteúdo lido, igual nos três formatos quando eles leem o mesmo
+	private static long assinatura(Map<Integer, Evento> eventos) {
+		long assinatura = 0;
+		for (Evento evento : eventos.values()) {
+			long h = evento.getId();
+			h = 31 * h + evento.getOrganizador().getId();
+			h = 31 * h + (evento.getTitulo() + evento.getDescricao() + evento.getLocal() + evento.getImagem()
+					+ evento.getCategoria() + evento.getPalestrante() + evento.getTipo()).hashCode();
+			h = 31 * h + evento.getData().hashCode() + evento.getDataCriacao().hashCode();
+			h = 31 * h + (evento.isPrivado() ? 1 : 0) + (evento.isAcessoLiberado() ? 2 : 0);
+			h = 31 * h + evento.getCurtidas();
+			h = 31 * h + Arrays.hashCode(evento.getIdsParticipantes());
+			h = 31 * h + Arrays.hashCode(evento.getIdsPresentes());
+			h = 31 * h + Arrays.hashCode(evento.getIdsQueCurtiram());
+			h = 31 * h + evento.getGaleriaFotos().hashCode();
+			for (Comentario comentario : evento.getComentarios()) {
+				h = 31 * h + comentario.getTexto().hashCode() + comentario.getUsuarioId();
+			}
+			// Soma: não depende da ordem do mapa
+			assinatura += h * 0x9E3779B97F4A7C15L;
+		}
+		return assinatura;
+	}
+
+	// ---------------------------------------------------------------
+	// JSON mínimo
+	// ---------------------------------------------------------------
+
+	private static void escreverJson(Writer saida, EventoGravado evento) throws IOException {
+		saida.write("{\"id\":" + evento.id() + ",\"organizador\":" + evento.organizadorId());
+		campo(saida, "titulo", evento.titulo());
+		campo(saida, "descricao", evento.descricao());
+		campo(saida, "local", evento.local());
+		campo(saida, "imagem", evento.imagem());
+		campo(saida, "categoria", evento.categoria());
+		campo(saida, "palestrante", evento.palestrante());
+		campo(saida, "badgePath", evento.badgePath());
+		campo(saida, "urlVideo", evento.urlVideo());
+		campo(saida, "tipo", evento.tipo());
+		saida.write(",\"data\":" + evento.data() + ",\"nanosData\":" + evento.nanosData() + ",\"dataCriacao\":"
+				+ evento.dataCriacao() + ",\"nanosCriacao\":" + evento.nanosCriacao() + ",\"flags\":" + evento.flags()
+				+ ",\"curtidas\":" + evento.curtidas());
+		saida.write(",\"participantes\":");
+		escreverIds(saida, evento.participantes());
+		saida.write(",\"presentes\":");
+		escreverIds(saida, evento.presentes());
+		saida.write(",\"curtiram\":");
+		escreverIds(saida, evento.curtiram());
+		saida.write(",\"galeria\":[");
+		for (int i = 0; i < evento.galeria().size(); i++) {
+			if (i > 0) {
+				saida.write(',');
+			}
+			escreverTexto(saida, evento.galeria().get(i));
+		}
+		saida.write("],\"comentarios\":[");
+		for (int i = 0; i < evento.comentarios().size(); i++) {
+			ComentarioGravado comentario = evento.comentarios().get(i);
+			if (i > 0) {
+				saida.write(',');
+			}
+			saida.write("{\"usuarioId\":" + comentario.usuarioId());
+			campo(saida, "texto", comentario.texto());
+			saida.write('}');
+		}
+		saida.write("]}");
+	}
+
+	private static void campo(Writer saida, String nome, String valor) throws IOException {
+		saida.write(",\"" + nome + "\":");
+		escreverTexto(saida, valor);
+	}
+
+	// Escapa só aspas, barra invertida e caracteres de controle; o resto vai como está (UTF-8)
+	private static void escreverTexto(Writer saida, String valor) throws IOException {
+		if (valor == null) {
+			saida.write("null");
+			return;
+		}
+		saida.write('"');
+		for (int i = 0; i < valor.length(); i++) {
+			char c = valor.charAt(i);
+			if (c == '"' || c == '\\') {
+				saida.write('\\');
+				saida.write(c);
+			} else if (c < ' ') {
+				saida.write(String.format("\\u%04x", (int) c));
+			} else {
+				saida.write(c);
+			}
+		}
+		saida.write('"');
+	}
+
+	private static void escreverIds(Writer saida, int[] ids) throws IOException {
+		saida.write('[');
+		for (int i = 0; i < ids.length; i++) {
+			if (i > 0) {
+				saida.write(',');
+			}
+			saida.write(Integer.toString(ids[i]));
+		}
+		saida.write(']');
+	}
+
+	// Leitor recursivo para objetos, listas, textos, inteiros e null: o que escreverJson produz
+	private static final class LeitorJson {
+		private final String texto;
+		private int posicao;
+
+		LeitorJson(String texto) {
+			this.texto = texto;
+		}
+
+		Object valor() {
+			pularEspacos();
+			char c = texto.charAt(posicao);
+			if (c == '{') {
+				return lerObjeto();
+			}
+			if (c == '[') {
+				return lerLista();
+			}
+			if (c == '"') {
+				return lerTexto();
+			}
+			if (texto.startsWith("null", posicao)) {
+				posicao += 4;
+				return null;
+			}
+			int inicio = posicao;
+			while (posicao < texto.length() && (texto.charAt(posicao) == '-' || Character.isDigit(texto.charAt(posicao)))) {
+				posicao++;
+			}
+			if (inicio == posicao) {
+				throw new IllegalArgumentException("Valor JSON inválido na posição " + inicio);
+			}
+			return Long.parseLong(texto, inicio, posicao, 10);
+		}
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> objeto(Object valor) {
+			return (Map<String, Object>) valor;
+		}
+
+		@SuppressWarnings("unchecked")
+		List<Object> lista(Object valor) {
+			return (List<Object>) valor;
+		}
+
+		private Map<String, Object> lerObjeto() {
+			Map<String, Object> objeto = new HashMap<>();
+			posicao++;
+			pularEspacos();
+			if (texto.charAt(posicao) == '}') {
+				posicao++;
+				return objeto;
+			}
+			while (true) {
+				pularEspacos();
+				String nome = lerTexto();
+				pularEspacos();
+				esperar(':');
+				objeto.put(nome, valor());
+				pularEspacos();
+				if (texto.charAt(posicao++) == '}') {
+					return objeto;
+				}
+			}
+		}
+
+		private List<Object> lerLista() {
+			List<Object> lista = new ArrayList<>();
+			posicao++;
+			pularEspacos();
+			if (texto.charAt(posicao) == ']') {
+				posicao++;
+				return lista;
+			}
+			while (true) {
+				lista.add(valor());
+				pularEspacos();
+				if (texto.charAt(posicao++) == ']') {
+					return lista;
+				}
+			}
+		}
+
+		private String lerTexto() {
+			esperar('"');
+			StringBuilder resultado = new StringBuilder();
+			while (true) {
+				char c = texto.charAt(posicao++);
+				if (c == '"') {
+					return resultado.toString();
+				}
+				if (c == '\\') {
+					c = texto.charAt(posicao++);
+					if (c == 'u') {
+						c = (char) Integer.parseInt(texto, posicao, posicao + 4, 16);
+						posicao += 4;
+					}
+				}
+				resultado.append(c);
+			}
+		}
+
+		private void esperar(char esperado) {
+			if (texto.charAt(posicao) != esperado) {
+				throw new IllegalArgumentException("Esperado '" + esperado + "' na posição " + posicao);
+			}
+			posicao++;
+		}
+
+		private void pularEspacos() {
+			while (posicao < texto.length() && texto.charAt(posicao) <= ' ') {
+				posicao++;
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Arquivos
+	// ---------------------------------------------------------------
+
+	private static void apagarArquivos(Path diretorio) throws IOException {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			for (Path arquivo : arquivos.toList()) {
+				Files.delete(arquivo);
+			}
+		}
+	}
+
+	// O snapshot só fica mapeado nos processos de leitura, que já terminaram
+	private static void apagar(Path diretorio) throws IOException {
+		apagarArquivos(diretorio);
+		Files.delete(diretorio);
+	}
+}
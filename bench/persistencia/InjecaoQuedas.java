@@ -0,0 +1,697 @@
+/*
+ * InjecaoQuedas
+ *
+ * Descrição geral:
+ * - Teste de queda da Persistencia (diário + snapshot). Um processo filho recupera os dados,
+ *   imprime o estado recuperado e passa a alterar eventos, curtidas, presenças, comentários,
+ *   notificações e o chat em várias threads, gerando snapshots no meio. O processo pai mata o
+ *   filho com SIGKILL num instante aleatório e, na metade das rodadas, ainda acrescenta lixo
+ *   no fim do último segmento do diário (fim rasgado).
+ * - Na rodada seguinte, o estado recuperado tem que ser exatamente o que o filho confirmou
+ *   (todas as operações confirmadas presentes, nenhuma a mais), admitindo só as operações que
+ *   estavam em andamento na hora da queda.
+ * - Termina com código 1 se alguma rodada divergir.
+ *
+ * Protocolo do filho (uma linha por mensagem, na saída padrão):
+ * - "S ..." estado recuperado, "PRONTO" fim do estado.
+ * - "I <thread> <op>" antes de cada operação e "A <thread> <op>" depois de ela retornar
+ *   (confirmada). Operações: P (participação), C (curtida), R (presença), M (comentário),
+ *   N (notificação), X (remoção de evento), H (mensagem no chat), D (remoção de mensagem),
+ *   L (mão levantada) e CRIAR.
+ * - "SNAP" a cada snapshot.
+ * - Cada thread só mexe nos eventos com id % THREADS igual ao seu número, para a ordem das
+ *   operações de um evento ser a ordem em que foram confirmadas. O chat usa também uma sala
+ *   por thread (id negativo, sem evento), que junta mensagens suficientes para o ChatService
+ *   arquivar segmentos; o total de segmentos arquivados aparece no resumo final.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -cp <classes>:<bibliotecas de rec/> persistencia.InjecaoQuedas <diretório vazio> [rodadas]
+ */
+
+package persistencia;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import model.Comentario;
+import model.Evento;
+import model.Notificacao;
+import model.Usuario;
+import service.ChatService;
+import service.ChatService.MensagemChat;
+import service.EventoService;
+import service.NotificacaoService;
+import service.UsuarioService;
+
+public class InjecaoQuedas {
+
+	private static final int THREADS = 4;
+	private static final int USUARIOS = 56;
+
+	private static PrintStream saida;
+
+	public static void main(String[] args) throws Exception {
+		if (args[0].equals("semear")) {
+			semear(Paths.get(args[1]));
+		} else if (args[0].equals("filho")) {
+			filho(Paths.get(args[1]), Long.parseLong(args[2]));
+		} else {
+			pai(Paths.get(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 30);
+		}
+	}
+
+	// Primeira execução: usuários de teste, mais alguns, e os eventos de exemplo
+	private static void semear(Path diretorio) throws IOException {
+		Persistencia persistencia = Persistencia.getInstance();
+		if (persistencia.iniciar(diretorio)) {
+			throw new IllegalStateException("O diretório precisa estar vazio: " + diretorio);
+		}
+		UsuarioService usuarios = UsuarioService.getInstance();
+		usuarios.carregarUsuariosDeTeste();
+		for (int i = 7; i <= USUARIOS; i++) {
+			Usuario usuario = new Usuario();
+			usuario.setNome("N" + i);
+			usuario.setUsername("user" + i);
+			usuario.setEmail("u" + i + "@x.com");
+			usuario.setSenha("Teste@123");
+			usuarios.cadastrar(usuario);
+		}
+		EventoService.getInstance().carregarEventosDeExemplo();
+		persistencia.fechar();
+	}
+
+	// Filho
+
+	private static synchronized void emitir(String linha) {
+		saida.println(linha);
+		saida.flush();
+	}
+
+	private static void filho(Path diretorio, long semente) throws Exception {
+		saida = new PrintStream(new FileOutputStream(FileDescriptor.out), false);
+		Persistencia persistencia = Persistencia.getInstance();
+		persistencia.iniciar(diretorio);
+		imprimirEstado();
+		emitir("PRONTO");
+
+		EventoService eventos = EventoService.getInstance();
+		Set<Integer> conhecidos = ConcurrentHashMap.newKeySet();
+		eventos.listarTodosEventos().forEach(evento -> conhecidos.add(evento.getId()));
+		for (int t = 0; t < THREADS; t++) {
+			int numero = t;
+			Thread trabalhador = new Thread(() -> alterarParaSempre(numero, semente, conhecidos), "queda-" + t);
+			trabalhador.setDaemon(true);
+			trabalhador.start();
+		}
+		Random aleatorio = new Random(semente);
+		while (true) {
+			Thread.sleep(100 + aleatorio.nextInt(300));
+			persistencia.gerarSnapshot();
+			emitir("SNAP");
+		}
+	}
+
+	private static void alterarParaSempre(int thread, long semente, Set<Integer> conhecidos) {
+		EventoService eventos = EventoService.getInstance();
+		UsuarioService usuarios = UsuarioService.getInstance();
+		Random aleatorio = new Random(semente * 31 + thread);
+		int contador = 0;
+		while (true) {
+			List<Integer> meus = conhecidos.stream().filter(id -> id % THREADS == thread)
+					.filter(id -> eventos.buscarEventoPorId(id) != null).sorted().toList();
+			int sorteio = aleatorio.nextInt(100);
+			if (meus.isEmpty() || sorteio < 6) {
+				String titulo = "t" + thread + "-" + semente + "-" + (contador++);
+				emitir("I CRIAR " + thread + " " + titulo);
+				Evento criado = eventos.criarEvento(new Evento.Builder(titulo, "d",
+						LocalDateTime.now().plusDays(1 + aleatorio.nextInt(30)), "L",
+						usuarios.buscarPorId(1 + aleatorio.nextInt(6)), "P").comCategoria("Cat" + aleatorio.nextInt(5))
+						.build());
+				emitir("A CRIAR " + thread + " " + criado.getId() + " " + titulo);
+				conhecidos.add(criado.getId());
+				continue;
+			}
+			int eventoId = meus.get(aleatorio.nextInt(meus.size()));
+			int usuarioId = 1 + aleatorio.nextInt(USUARIOS);
+			Evento evento = eventos.buscarEventoPorId(eventoId);
+			Usuario usuario = usuarios.buscarPorId(usuarioId);
+			String operacao;
+			if (aleatorio.nextInt(100) < 45) {
+				// Chat: na sala da thread ou no chat de um dos seus eventos
+				Evento sala = aleatorio.nextInt(4) > 0 ? salaDaThread(thread) : evento;
+				ChatService chat = ChatService.getInstancia();
+				List<MensagemChat> ultimas = chat.buscarUltimas(sala.getId(), 30).getMensagens();
+				int tipo = aleatorio.nextInt(100);
+				if (tipo < 8 && !ultimas.isEmpty()) {
+					MensagemChat removida = ultimas.get(aleatorio.nextInt(ultimas.size()));
+					operacao = "D " + sala.getId() + " " + removida.getTexto();
+					emitir("I " + thread + " " + operacao);
+					chat.removerMensagem(sala, removida);
+				} else if (tipo < 15) {
+					operacao = "L " + sala.getId() + " " + usuarioId;
+					emitir("I " + thread + " " + operacao);
+					chat.registrarMaoLevantada(sala, usuarioId);
+				} else {
+					String texto = "h" + thread + "_" + semente + "_" + (contador++);
+					operacao = "H " + sala.getId() + " " + usuarioId + " " + texto;
+					emitir("I " + thread + " " + operacao);
+					chat.adicionarMensagem(sala, usuarioId, texto);
+				}
+			} else if (sorteio < 30) {
+				boolean participa = aleatorio.nextBoolean();
+				operacao = "P " + eventoId + " " + usuarioId + " " + participa;
+				emitir("I " + thread + " " + operacao);
+				if (participa) {
+					eventos.adicionarParticipante(eventoId, usuarioId);
+				} else {
+					eventos.removerParticipante(eventoId, usuarioId);
+				}
+			} else if (sorteio < 55) {
+				boolean curte = aleatorio.nextBoolean();
+				operacao = "C " + eventoId + " " + usuarioId + " " + curte;
+				emitir("I " + thread + " " + operacao);
+				if (curte) {
+					eventos.tentarCurtirEvento(evento, usuario);
+				} else {
+					eventos.tentarDescurtirEvento(evento, usuario);
+				}
+			} else if (sorteio < 65) {
+				operacao = "R " + eventoId + " " + usuarioId;
+				emitir("I " + thread + " " + operacao);
+				eventos.marcarPresenca(eventoId, usuarioId);
+			} else if (sorteio < 85) {
+				String texto = "c" + thread + "_" + (contador++);
+				operacao = "M " + eventoId + " " + usuarioId + " " + texto;
+				emitir("I " + thread + " " + operacao);
+				eventos.adicionarComentarioAoEvento(eventoId, new Comentario(texto, usuarioId));
+			} else if (sorteio < 97) {
+				// Notificações também por dono: usuário com id % THREADS igual ao da thread
+				int destino = usuarioId - (usuarioId % THREADS) + thread;
+				if (destino < 1) {
+					destino += THREADS;
+				}
+				if (destino > USUARIOS) {
+					destino -= THREADS;
+				}
+				String texto = "n" + thread + "_" + (contador++);
+				operacao = "N " + destino + " " + texto;
+				emitir("I " + thread + " " + operacao);
+				NotificacaoService.getInstance().registrarNotificacao(destino,
+						new Notificacao(texto, LocalDateTime.now(), false, Notificacao.Tipo.HISTORICO, "s"));
+			} else {
+				operacao = "X " + eventoId;
+				emitir("I " + thread + " " + operacao);
+				eventos.removerEvento(eventoId);
+			}
+			emitir("A " + thread + " " + operacao);
+		}
+	}
+
+	private static Evento salaDaThread(int thread) {
+		Evento sala = new Evento();
+		sala.setId(-1 - thread);
+		return sala;
+	}
+
+	private static void imprimirEstado() {
+		EventoService eventos = EventoService.getInstance();
+		for (Evento evento : eventos.listarTodosEventos()) {
+			StringBuilder linha = new StringBuilder("S E ").append(evento.getId()).append(' ').append(evento.getTitulo());
+			linha.append(" p=").append(juntar(evento.getIdsParticipantes()));
+			linha.append(" c=").append(juntar(evento.getIdsQueCurtiram()));
+			linha.append(" n=").append(evento.getCurtidas());
+			linha.append(" r=").append(juntar(evento.getIdsPresentes()));
+			linha.append(" m=").append(evento.getComentarios().stream()
+					.map(comentario -> comentario.getUsuarioId() + ":" + comentario.getTexto())
+					.collect(Collectors.joining(",")));
+			Usuario organizador = evento.getOrganizador();
+			linha.append(" org=").append(organizador == null ? "-" : organizador.getId() + ":" + organizador.getNome());
+			emitir(linha.toString());
+		}
+		for (Usuario usuario : UsuarioService.getInstance().getUsuarios()) {
+			emitir("S U " + usuario.getId() + " " + usuario.getUsername() + " " + usuario.getEmail());
+		}
+		NotificacaoService.getInstance().percorrerNotificacoes((usuarioId, notificacoes) -> {
+			if (!notificacoes.isEmpty()) {
+				emitir("S N " + usuarioId + " "
+						+ notificacoes.stream().map(Notificacao::getMensagem).collect(Collectors.joining(",")));
+			}
+		});
+		ChatService chat = ChatService.getInstancia();
+		List<Integer> salas = new ArrayList<>();
+		chat.percorrerSalas(sala -> salas.add(sala.getEventoId()));
+		for (int salaId : salas) {
+			Evento sala = new Evento();
+			sala.setId(salaId);
+			StringBuilder linha = new StringBuilder("S H ").append(salaId);
+			linha.append(" m=").append(chat.getMensagens(sala).stream()
+					.map(mensagem -> mensagem.getUsuarioId() + ":" + mensagem.getTexto())
+					.collect(Collectors.joining(",")));
+			StringBuilder quantidades = new StringBuilder();
+			StringBuilder maos = new StringBuilder();
+			for (int usuarioId = 1; usuarioId <= USUARIOS; usuarioId++) {
+				int mensagens = chat.getQuantidadeMensagens(salaId, usuarioId);
+				if (mensagens > 0) {
+					quantidades.append(quantidades.isEmpty() ? "" : ",").append(usuarioId).append(':').append(mensagens);
+				}
+				int levantadas = chat.getQuantidadeMaosLevantadas(salaId, usuarioId);
+				if (levantadas > 0) {
+					maos.append(maos.isEmpty() ? "" : ",").append(usuarioId).append(':').append(levantadas);
+				}
+			}
+			linha.append(" q=").append(quantidades).append(" l=").append(maos);
+			emitir(linha.toString());
+		}
+		emitir("S ULTIMO " + eventos.getUltimoIdEvento());
+	}
+
+	private static String juntar(int[] ids) {
+		int[] ordenados = ids.clone();
+		Arrays.sort(ordenados);
+		return Arrays.stream(ordenados).mapToObj(Integer::toString).collect(Collectors.joining(","));
+	}
+
+	private static String juntar(Collection<Integer> ids) {
+		return ids.stream().map(Object::toString).collect(Collectors.joining(","));
+	}
+
+	// Pai: modelo do estado esperado, montado só com as confirmações do filho
+
+	private static final class EventoEsperado {
+		String titulo;
+		String organizador;
+		int curtidas;
+		final TreeSet<Integer> participantes = new TreeSet<>();
+		final TreeSet<Integer> curtiram = new TreeSet<>();
+		final TreeSet<Integer> presentes = new TreeSet<>();
+		final List<String> comentarios = new ArrayList<>();
+
+		EventoEsperado copia() {
+			EventoEsperado copia = new EventoEsperado();
+			copia.titulo = titulo;
+			copia.organizador = organizador;
+			copia.curtidas = curtidas;
+			copia.participantes.addAll(participantes);
+			copia.curtiram.addAll(curtiram);
+			copia.presentes.addAll(presentes);
+			copia.comentarios.addAll(comentarios);
+			return copia;
+		}
+
+		String linha(int id) {
+			return "E " + id + " " + titulo + " p=" + juntar(participantes) + " c=" + juntar(curtiram) + " n=" + curtidas
+					+ " r=" + juntar(presentes) + " m=" + String.join(",", comentarios) + " org=" + organizador;
+		}
+	}
+
+	private static final class SalaEsperada {
+		final List<String> mensagens = new ArrayList<>();
+		final TreeMap<Integer, Integer> maos = new TreeMap<>();
+
+		SalaEsperada copia() {
+			SalaEsperada copia = new SalaEsperada();
+			copia.mensagens.addAll(mensagens);
+			copia.maos.putAll(maos);
+			return copia;
+		}
+
+		// As quantidades de mensagens por usuário saem da própria lista: conferem os contadores
+		String linha(int id) {
+			TreeMap<Integer, Integer> quantidades = new TreeMap<>();
+			for (String mensagem : mensagens) {
+				quantidades.merge(Integer.parseInt(mensagem.substring(0, mensagem.indexOf(':'))), 1, Integer::sum);
+			}
+			return "H " + id + " m=" + String.join(",", mensagens) + " q=" + contagem(quantidades) + " l="
+					+ contagem(maos);
+		}
+
+		private static String contagem(Map<Integer, Integer> contagem) {
+			return contagem.entrySet().stream().map(par -> par.getKey() + ":" + par.getValue())
+					.collect(Collectors.joining(","));
+		}
+	}
+
+	private static final class Estado {
+		final TreeMap<Integer, EventoEsperado> eventos = new TreeMap<>();
+		final TreeMap<Integer, SalaEsperada> salas = new TreeMap<>();
+		final TreeMap<Integer, List<String>> notificacoes = new TreeMap<>();
+		final List<String> usuarios = new ArrayList<>();
+		// Linhas do chat como o filho as imprimiu (só no estado recuperado)
+		final TreeMap<Integer, String> linhasChat = new TreeMap<>();
+
+		Estado copia() {
+			Estado copia = new Estado();
+			eventos.forEach((id, evento) -> copia.eventos.put(id, evento.copia()));
+			notificacoes.forEach((id, lista) -> copia.notificacoes.put(id, new ArrayList<>(lista)));
+			salas.forEach((id, sala) -> copia.salas.put(id, sala.copia()));
+			copia.usuarios.addAll(usuarios);
+			return copia;
+		}
+
+		void aplicar(String[] operacao) {
+			EventoEsperado evento = operacao[0].equals("N") ? null : eventos.get(Integer.parseInt(operacao[1]));
+			switch (operacao[0]) {
+			case "P" -> {
+				if (evento != null) {
+					int usuarioId = Integer.parseInt(operacao[2]);
+					if (Boolean.parseBoolean(operacao[3])) {
+						evento.participantes.add(usuarioId);
+					} else {
+						// Sair do evento apaga a presença
+						evento.participantes.remove(usuarioId);
+						evento.presentes.remove(usuarioId);
+					}
+				}
+			}
+			case "C" -> {
+				if (evento != null) {
+					int usuarioId = Integer.parseInt(operacao[2]);
+					if (Boolean.parseBoolean(operacao[3])) {
+						if (evento.curtiram.add(usuarioId)) {
+							evento.curtidas++;
+						}
+					} else if (evento.curtiram.remove(usuarioId)) {
+						evento.curtidas = Math.max(0, evento.curtidas - 1);
+					}
+				}
+			}
+			case "R" -> {
+				// Só participantes ficam presentes
+				int usuarioId = Integer.parseInt(operacao[2]);
+				if (evento != null && evento.participantes.contains(usuarioId)) {
+					evento.presentes.add(usuarioId);
+				}
+			}
+			case "M" -> {
+				if (evento != null) {
+					evento.comentarios.add(operacao[2] + ":" + operacao[3]);
+				}
+			}
+			case "N" -> notificacoes.computeIfAbsent(Integer.parseInt(operacao[1]), k -> new ArrayList<>())
+					.add(operacao[2]);
+			case "X" -> eventos.remove(Integer.parseInt(operacao[1]));
+			case "H" -> sala(operacao[1]).mensagens.add(operacao[2] + ":" + operacao[3]);
+			case "D" -> sala(operacao[1]).mensagens.removeIf(mensagem -> mensagem.endsWith(":" + operacao[2]));
+			case "L" -> sala(operacao[1]).maos.merge(Integer.parseInt(operacao[2]), 1, Integer::sum);
+			default -> throw new IllegalStateException("Operação desconhecida: " + operacao[0]);
+			}
+		}
+
+		SalaEsperada sala(String id) {
+			return salas.computeIfAbsent(Integer.parseInt(id), k -> new SalaEsperada());
+		}
+	}
+
+	private static Estado lerEstado(List<String> linhas) {
+		Estado estado = new Estado();
+		for (String linha : linhas) {
+			String[] partes = linha.split(" ", 4);
+			if (partes[1].equals("E")) {
+				String resto = linha.substring(4);
+				int id = Integer.parseInt(resto.substring(0, resto.indexOf(' ')));
+				int inicioCampos = resto.indexOf(" p=");
+				EventoEsperado evento = new EventoEsperado();
+				evento.titulo = resto.substring(resto.indexOf(' ') + 1, inicioCampos);
+				for (String campo : resto.substring(inicioCampos + 1).split(" (?=[pcnrmo][a-z]*=)")) {
+					String chave = campo.substring(0, campo.indexOf('='));
+					String valor = campo.substring(campo.indexOf('=') + 1);
+					switch (chave) {
+					case "p" -> evento.participantes.addAll(ids(valor));
+					case "c" -> evento.curtiram.addAll(ids(valor));
+					case "r" -> evento.presentes.addAll(ids(valor));
+					case "n" -> evento.curtidas = Integer.parseInt(valor);
+					case "m" -> {
+						if (!valor.isEmpty()) {
+							evento.comentarios.addAll(Arrays.asList(valor.split(",")));
+						}
+					}
+					case "org" -> evento.organizador = valor;
+					default -> {
+					}
+					}
+				}
+				estado.eventos.put(id, evento);
+			} else if (partes[1].equals("N")) {
+				estado.notificacoes.put(Integer.parseInt(partes[2]), new ArrayList<>(Arrays.asList(partes[3].split(","))));
+			} else if (partes[1].equals("U")) {
+				estado.usuarios.add(linha);
+			} else if (partes[1].equals("H")) {
+				// "S H <sala> m=... q=... l=...": q é conferido na comparação, pela linha
+				SalaEsperada sala = estado.sala(partes[2]);
+				String[] campos = partes[3].split(" ");
+				String mensagens = campos[0].substring(2);
+				if (!mensagens.isEmpty()) {
+					sala.mensagens.addAll(Arrays.asList(mensagens.split(",")));
+				}
+				String maos = campos[2].substring(2);
+				for (String par : maos.isEmpty() ? new String[0] : maos.split(",")) {
+					sala.maos.put(Integer.parseInt(par.substring(0, par.indexOf(':'))),
+							Integer.parseInt(par.substring(par.indexOf(':') + 1)));
+				}
+				estado.linhasChat.put(Integer.parseInt(partes[2]), linha.substring(2));
+			}
+		}
+		return estado;
+	}
+
+	private static List<Integer> ids(String valor) {
+		return valor.isEmpty() ? List.of() : Arrays.stream(valor.split(",")).map(Integer::parseInt).toList();
+	}
+
+	private static void pai(Path diretorio, int rodadas) throws Exception {
+		String java = ProcessHandle.current().info().command().orElse("java");
+		String classpath = System.getProperty("java.class.path");
+		if (Files.exists(diretorio)) {
+			try (Stream<Path> arquivos = Files.list(diretorio)) {
+				for (Path arquivo : arquivos.toList()) {
+					Files.delete(arquivo);
+				}
+			}
+		}
+		Process semeadura = new ProcessBuilder(java, "-cp", classpath, InjecaoQuedas.class.getName(), "semear",
+				diretorio.toString()).inheritIO().start();
+		if (semeadura.waitFor() != 0) {
+			throw new IllegalStateException("Falha ao semear " + diretorio);
+		}
+
+		Random aleatorio = new Random(42);
+		// Confirmado: só operações confirmadas; emVoo: confirmadas mais as que estavam em andamento
+		Estado confirmado = null;
+		Estado emVoo = null;
+		Set<String> criacoesEmVoo = Set.of();
+		long confirmacoes = 0;
+		long snapshots = 0;
+		long fimsRasgados = 0;
+		long maiorRecuperacao = 0;
+		int divergencias = 0;
+		for (int rodada = 0; rodada <= rodadas; rodada++) {
+			Process filho = new ProcessBuilder(java, "-Xmx1g", "-cp", classpath, InjecaoQuedas.class.getName(), "filho",
+					diretorio.toString(), Long.toString(aleatorio.nextLong() & 0xffff))
+					.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			BufferedReader entrada = new BufferedReader(new InputStreamReader(filho.getInputStream()));
+			List<String> linhasEstado = new ArrayList<>();
+			long inicio = System.nanoTime();
+			String linha;
+			while ((linha = entrada.readLine()) != null && !linha.equals("PRONTO")) {
+				linhasEstado.add(linha);
+			}
+			maiorRecuperacao = Math.max(maiorRecuperacao, (System.nanoTime() - inicio) / 1_000_000);
+			if (linha == null) {
+				throw new IllegalStateException("O filho morreu durante a recuperação");
+			}
+			Estado recuperado = lerEstado(linhasEstado);
+
+			if (confirmado != null) {
+				List<String> erros = comparar(confirmado, emVoo, criacoesEmVoo, recuperado);
+				if (!erros.isEmpty()) {
+					divergencias++;
+					System.out.println("Rodada " + rodada + " divergiu:");
+					erros.stream().limit(20).forEach(System.out::println);
+				}
+			}
+			if (rodada == rodadas) {
+				filho.destroyForcibly();
+				filho.waitFor();
+				break;
+			}
+
+			// Deixa o filho alterar por um tempo aleatório e o mata com SIGKILL
+			Estado atual = recuperado.copia();
+			Map<Integer, String[]> andamento = new HashMap<>();
+			Map<Integer, String> criacoes = new HashMap<>();
+			long prazo = System.currentTimeMillis() + 200 + aleatorio.nextInt(1200);
+			Thread carrasco = new Thread(() -> {
+				try {
+					Thread.sleep(Math.max(0, prazo - System.currentTimeMillis()));
+				} catch (InterruptedException e) {
+					// Mata antes do prazo
+				}
+				filho.toHandle().destroyForcibly();
+			});
+			carrasco.start();
+			while ((linha = entrada.readLine()) != null) {
+				if (linha.equals("SNAP")) {
+					snapshots++;
+					continue;
+				}
+				String[] partes = linha.split(" ");
+				if (partes[0].equals("I")) {
+					if (partes[1].equals("CRIAR")) {
+						criacoes.put(Integer.parseInt(partes[2]), partes[3]);
+					} else {
+						andamento.put(Integer.parseInt(partes[1]), Arrays.copyOfRange(partes, 2, partes.length));
+					}
+				} else if (partes[0].equals("A")) {
+					confirmacoes++;
+					if (partes[1].equals("CRIAR")) {
+						criacoes.remove(Integer.parseInt(partes[2]));
+						EventoEsperado criado = new EventoEsperado();
+						criado.titulo = partes[4];
+						criado.organizador = "?";
+						atual.eventos.put(Integer.parseInt(partes[3]), criado);
+					} else {
+						andamento.remove(Integer.parseInt(partes[1]));
+						atual.aplicar(Arrays.copyOfRange(partes, 2, partes.length));
+					}
+				}
+			}
+			filho.waitFor();
+			carrasco.join();
+			confirmado = atual;
+			emVoo = atual.copia();
+			for (String[] operacao : andamento.values()) {
+				emVoo.aplicar(operacao);
+			}
+			criacoesEmVoo = new HashSet<>(criacoes.values());
+
+			if (aleatorio.nextBoolean() && rasgarFim(diretorio, aleatorio)) {
+				fimsRasgados++;
+			}
+		}
+		long segmentosChat = 0;
+		if (Files.isDirectory(diretorio.resolve("chat"))) {
+			try (Stream<Path> arquivos = Files.walk(diretorio.resolve("chat"))) {
+				segmentosChat = arquivos.filter(arquivo -> arquivo.toString().endsWith(".seg")).count();
+			}
+		}
+		System.out.printf("rodadas=%d operações confirmadas=%d snapshots=%d fins rasgados=%d divergências=%d "
+				+ "segmentos de chat=%d maior recuperação=%d ms%n", rodadas, confirmacoes, snapshots, fimsRasgados,
+				divergencias, segmentosChat, maiorRecuperacao);
+		if (divergencias > 0) {
+			System.exit(1);
+		}
+	}
+
+	// Lixo no fim do segmento mais novo; às vezes com um tamanho plausível e CRC errado
+	private static boolean rasgarFim(Path diretorio, Random aleatorio) throws IOException {
+		Path ultimo;
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			ultimo = arquivos.filter(arquivo -> arquivo.toString().endsWith(".log")).max(Comparator.naturalOrder())
+					.orElse(null);
+		}
+		if (ultimo == null) {
+			return false;
+		}
+		byte[] lixo = new byte[1 + aleatorio.nextInt(40)];
+		aleatorio.nextBytes(lixo);
+		if (aleatorio.nextBoolean() && lixo.length >= 4) {
+			lixo[0] = 0;
+			lixo[1] = 0;
+			lixo[2] = 0;
+			lixo[3] = 20;
+		}
+		Files.write(ultimo, lixo, StandardOpenOption.APPEND);
+		return true;
+	}
+
+	private static List<String> comparar(Estado confirmado, Estado emVoo, Set<String> criacoesEmVoo,
+			Estado recuperado) {
+		List<String> erros = new ArrayList<>();
+		Set<Integer> ids = new TreeSet<>(confirmado.eventos.keySet());
+		ids.addAll(emVoo.eventos.keySet());
+		ids.addAll(recuperado.eventos.keySet());
+		for (int id : ids) {
+			EventoEsperado lido = recuperado.eventos.get(id);
+			String linhaLida = lido == null ? null : lido.linha(id);
+			String linhaConfirmada = linhaEsperada(confirmado.eventos.get(id), id, lido);
+			String linhaEmVoo = linhaEsperada(emVoo.eventos.get(id), id, lido);
+			if (Objects.equals(linhaLida, linhaConfirmada) || Objects.equals(linhaLida, linhaEmVoo)) {
+				continue;
+			}
+			// Criação em andamento na queda pode ter chegado ao disco
+			if (linhaConfirmada == null && linhaEmVoo == null && criacoesEmVoo.contains(lido.titulo)
+					&& lido.participantes.isEmpty() && lido.comentarios.isEmpty()) {
+				continue;
+			}
+			erros.add("evento " + id + "\n  confirmado: " + linhaConfirmada + "\n  em voo:     " + linhaEmVoo
+					+ "\n  recuperado: " + linhaLida);
+		}
+		Set<Integer> usuarios = new TreeSet<>(confirmado.notificacoes.keySet());
+		usuarios.addAll(emVoo.notificacoes.keySet());
+		usuarios.addAll(recuperado.notificacoes.keySet());
+		for (int usuarioId : usuarios) {
+			List<String> lidas = recuperado.notificacoes.getOrDefault(usuarioId, List.of());
+			if (!lidas.equals(confirmado.notificacoes.getOrDefault(usuarioId, List.of()))
+					&& !lidas.equals(emVoo.notificacoes.getOrDefault(usuarioId, List.of()))) {
+				erros.add("notificações de " + usuarioId + "\n  confirmadas: "
+						+ confirmado.notificacoes.getOrDefault(usuarioId, List.of()) + "\n  recuperadas: " + lidas);
+			}
+		}
+		Set<Integer> salas = new TreeSet<>(confirmado.salas.keySet());
+		salas.addAll(emVoo.salas.keySet());
+		salas.addAll(recuperado.linhasChat.keySet());
+		for (int salaId : salas) {
+			String lida = recuperado.linhasChat.getOrDefault(salaId, new SalaEsperada().linha(salaId));
+			String linhaConfirmada = confirmado.salas.getOrDefault(salaId, new SalaEsperada()).linha(salaId);
+			String linhaEmVoo = emVoo.salas.getOrDefault(salaId, new SalaEsperada()).linha(salaId);
+			if (!lida.equals(linhaConfirmada) && !lida.equals(linhaEmVoo)) {
+				erros.add("chat " + salaId + "\n  confirmado: " + resumir(linhaConfirmada) + "\n  em voo:     "
+						+ resumir(linhaEmVoo) + "\n  recuperado: " + resumir(lida));
+			}
+		}
+		if (!confirmado.usuarios.equals(recuperado.usuarios)) {
+			erros.add("usuários diferentes");
+		}
+		return erros;
+	}
+
+	// Salas com milhares de mensagens: só o fim da linha interessa
+	private static String resumir(String linha) {
+		return linha.length() > 300 ? "..." + linha.substring(linha.length() - 300) : linha;
+	}
+
+	// Eventos criados pelo filho não trazem o organizador na confirmação; vale o recuperado
+	private static String linhaEsperada(EventoEsperado esperado, int id, EventoEsperado lido) {
+		if (esperado == null) {
+			return null;
+		}
+		String linha = esperado.linha(id);
+		return "?".equals(esperado.organizador) && lido != null ? linha.replace("org=?", "org=" + lido.organizador)
+				: linha;
+	}
+}
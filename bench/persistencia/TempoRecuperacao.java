@@ -0,0 +1,140 @@
+/*
+ * TempoRecuperacao
+ *
+ * Descrição geral:
+ * - Mede o reinício com dados salvos: quanto Persistencia.iniciar() leva para carregar o
+ *   snapshot, reaplicar o fim do diário e montar os índices dos serviços.
+ * - "gerar" monta N eventos em memória, grava um snapshot e depois acrescenta operações ao
+ *   diário a partir de 8 threads (mede também a vazão do group commit). Sai com halt(), como
+ *   uma queda: sem snapshot final, o fim do diário precisa ser reaplicado.
+ * - "recuperar" mede o iniciar() num processo novo.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -cp <classes>:<bibliotecas de rec/> persistencia.TempoRecuperacao gerar <diretório> <eventos> <operações>
+ *   java -cp <classes>:<bibliotecas de rec/> persistencia.TempoRecuperacao recuperar <diretório>
+ */
+
+package persistencia;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import model.Comentario;
+import model.Evento;
+import model.Usuario;
+import service.EventoService;
+import service.UsuarioService;
+
+public class TempoRecuperacao {
+
+	private static final int THREADS = 8;
+	private static final String[] CATEGORIAS = { "Educacao", "Jogos", "Negócios", "Esportes", "Festas", "Música",
+			"Tecnologia" };
+	private static final String[] PALAVRAS = { "Feira", "Maratona", "Workshop", "Palestra", "Encontro", "Campeonato",
+			"Festival", "Curso", "Show", "Hackathon" };
+
+	public static void main(String[] args) throws Exception {
+		Path diretorio = Paths.get(args[1]);
+		if (args[0].equals("gerar")) {
+			gerar(diretorio, Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+		} else {
+			recuperar(diretorio);
+		}
+		Runtime.getRuntime().halt(0);
+	}
+
+	private static void gerar(Path diretorio, int quantidade, int operacoes) throws Exception {
+		if (Files.exists(diretorio)) {
+			try (Stream<Path> arquivos = Files.list(diretorio)) {
+				for (Path arquivo : arquivos.toList()) {
+					Files.delete(arquivo);
+				}
+			}
+		}
+		UsuarioService usuarios = UsuarioService.getInstance();
+		usuarios.carregarUsuariosDeTeste();
+		EventoService eventos = EventoService.getInstance();
+		List<Usuario> todos = usuarios.getUsuarios();
+		LocalDateTime base = LocalDateTime.now();
+		Random aleatorio = new Random(1);
+		long inicio = System.nanoTime();
+		for (int i = 0; i < quantidade; i++) {
+			Evento evento = new Evento.Builder(
+					PALAVRAS[aleatorio.nextInt(PALAVRAS.length)] + " de " + CATEGORIAS[aleatorio.nextInt(7)] + " " + i,
+					"Descrição do evento número " + i + " com detalhes", base.plusMinutes(aleatorio.nextInt(500_000)),
+					"Fatec Cruzeiro sala " + aleatorio.nextInt(40), todos.get(aleatorio.nextInt(todos.size())),
+					"Palestrante " + aleatorio.nextInt(1000)).comImagem("file:/imagens/evento" + (i % 50) + ".jpg")
+					.comCategoria(CATEGORIAS[aleatorio.nextInt(7)]).build();
+			eventos.criarEvento(evento);
+			for (int k = aleatorio.nextInt(4); k > 0; k--) {
+				eventos.adicionarParticipante(evento.getId(), 1 + aleatorio.nextInt(6));
+			}
+			if (aleatorio.nextInt(3) == 0) {
+				eventos.tentarCurtirEvento(evento, todos.get(aleatorio.nextInt(todos.size())));
+			}
+			if (aleatorio.nextInt(5) == 0) {
+				eventos.adicionarComentarioAoEvento(evento.getId(), new Comentario("Comentário " + i, 1 + aleatorio.nextInt(6)));
+			}
+		}
+		System.out.printf("%d eventos montados em memória em %d ms%n", quantidade, (System.nanoTime() - inicio) / 1_000_000);
+
+		Persistencia persistencia = Persistencia.getInstance();
+		persistencia.iniciar(diretorio);
+		inicio = System.nanoTime();
+		persistencia.gerarSnapshot();
+		System.out.printf("snapshot gravado em %d ms%n", (System.nanoTime() - inicio) / 1_000_000);
+
+		inicio = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		int porThread = operacoes / THREADS;
+		List<Future<?>> tarefas = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int numero = t;
+			tarefas.add(executor.submit(() -> {
+				Random local = new Random(numero);
+				for (int i = 0; i < porThread; i++) {
+					int id = 1 + local.nextInt(quantidade);
+					switch (local.nextInt(3)) {
+					case 0 -> eventos.adicionarParticipante(id, 1 + local.nextInt(6));
+					case 1 -> eventos.adicionarComentarioAoEvento(id, new Comentario("fim " + i, 1 + local.nextInt(6)));
+					default -> eventos.criarEvento(new Evento.Builder("Novo " + numero + " " + i, "d",
+							base.plusDays(local.nextInt(90)), "L", todos.get(local.nextInt(todos.size())), "P")
+							.comCategoria(CATEGORIAS[local.nextInt(7)]).build());
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> tarefa : tarefas) {
+			tarefa.get();
+		}
+		executor.shutdown();
+		long milissegundos = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+		System.out.printf("fim do diário: %d operações duráveis de %d threads em %d ms (%.0f op/s)%n", porThread * THREADS,
+				THREADS, milissegundos, porThread * THREADS * 1000.0 / milissegundos);
+		System.out.println("eventos: " + eventos.listarTodosEventos().size());
+	}
+
+	private static void recuperar(Path diretorio) throws Exception {
+		long inicio = System.nanoTime();
+		boolean recuperado = Persistencia.getInstance().iniciar(diretorio);
+		long milissegundos = (System.nanoTime() - inicio) / 1_000_000;
+		EventoService eventos = EventoService.getInstance();
+		System.out.printf("recuperado=%s eventos=%d usuários=%d em %d ms%n", recuperado, eventos.listarTodosEventos().size(),
+				UsuarioService.getInstance().getUsuarios().size(), milissegundos);
+		// A primeira pesquisa espera o índice de texto montado em segundo plano
+		inicio = System.nanoTime();
+		int encontrados = eventos.contarEventos("hackathon", null);
+		System.out.printf("primeira pesquisa (%d eventos) respondida %d ms depois%n", encontrados,
+				(System.nanoTime() - inicio) / 1_000_000);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * DesempenhoModeracao
+ *
+ * Descrição geral:
+ * - Mede quanto o FiltroModeracao acrescenta a cada mensagem do chat: nanossegundos por
+ *   moderar() em mensagens típicas (~60 caracteres de português, 2% com um termo bloqueado),
+ *   com listas de 20, 1.000 e 10.000 termos.
+ * - Não há JMH no projeto (nem ferramenta de build para baixá-lo), então o laço imita o que o
+ *   JMH faria: aquecimento separado, várias medições, resultado acumulado num "sumidouro"
+ *   impresso no fim para o JIT não descartar o trabalho. Mostra a mediana e o pior valor.
+ * - Antes de medir, confere o comportamento do filtro (acentos, maiúsculas, palavra inteira,
+ *   links, mesma instância quando não há termo) e termina com código 1 se algo falhar.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -cp <classes>:<bibliotecas de rec/>:src service.DesempenhoModeracao [medições]
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class DesempenhoModeracao {
+
+	private static final int MENSAGENS = 1024;
+	private static final int AQUECIMENTO = 2_000_000;
+	private static final int POR_MEDICAO = 1_000_000;
+	private static final String[] PALAVRAS = { "que", "show", "incrível", "essa", "apresentação", "galera", "alguém",
+			"sabe", "horário", "próxima", "palestra", "muito", "bom", "concordo", "pergunta" };
+
+	private static long sumidouro;
+
+	public static void main(String[] args) {
+		int medicoes = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		FiltroModeracao filtro = FiltroModeracao.getInstance();
+		conferir(filtro);
+
+		for (int quantidade : new int[] { 20, 1_000, 10_000 }) {
+			Random aleatorio = new Random(quantidade);
+			filtro.definirTermos(termosAleatorios(aleatorio, quantidade));
+			String[] mensagens = mensagensTipicas(aleatorio);
+
+			for (int i = 0; i < AQUECIMENTO; i++) {
+				sumidouro += filtro.moderar(mensagens[i & (MENSAGENS - 1)]).length();
+			}
+			double[] resultados = new double[medicoes];
+			for (int m = 0; m < medicoes; m++) {
+				long inicio = System.nanoTime();
+				for (int i = 0; i < POR_MEDICAO; i++) {
+					sumidouro += filtro.moderar(mensagens[i & (MENSAGENS - 1)]).length();
+				}
+				resultados[m] = (System.nanoTime() - inicio) / (double) POR_MEDICAO;
+			}
+			Arrays.sort(resultados);
+			System.out.printf("%6d termos: mediana %.0f ns/mensagem, pior %.0f ns/mensagem%n", quantidade,
+					resultados[medicoes / 2], resultados[medicoes - 1]);
+		}
+		System.out.println("(sumidouro " + sumidouro + ")");
+	}
+
+	private static List<String> termosAleatorios(Random aleatorio, int quantidade) {
+		List<String> termos = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade - 1; i++) {
+			StringBuilder termo = new StringBuilder();
+			for (int tamanho = 4 + aleatorio.nextInt(8); tamanho > 0; tamanho--) {
+				termo.append((char) ('a' + aleatorio.nextInt(26)));
+			}
+			termos.add(termo.toString());
+		}
+		termos.add("idiota");
+		return termos;
+	}
+
+	private static String[] mensagensTipicas(Random aleatorio) {
+		String[] mensagens = new String[MENSAGENS];
+		for (int i = 0; i < mensagens.length; i++) {
+			StringBuilder mensagem = new StringBuilder();
+			while (mensagem.length() < 60) {
+				mensagem.append(PALAVRAS[aleatorio.nextInt(PALAVRAS.length)]).append(' ');
+			}
+			if (i % 50 == 0) {
+				mensagem.append("idiota");
+			}
+			mensagens[i] = mensagem.toString();
+		}
+		return mensagens;
+	}
+
+	private static void conferir(FiltroModeracao filtro) {
+		filtro.definirTermos(List.of("idiota", "otário", "filho da puta"));
+		esperar(filtro, "seu IDIOTA!", "seu ******!");
+		esperar(filtro, "Otario demais", "****** demais");
+		esperar(filtro, "filho da puta", "***** ** ****");
+		esperar(filtro, "xidiota idiotax", "xidiota idiotax");
+		esperar(filtro, "veja www.x.com/abc agora", "veja [link removido] agora");
+		esperar(filtro, "https://a.b ok", "[link removido] ok");
+		String limpa = "tudo certo por aqui";
+		if (filtro.moderar(limpa) != limpa) {
+			falhar("mensagem sem termo deveria voltar a mesma instância");
+		}
+	}
+
+	private static void esperar(FiltroModeracao filtro, String texto, String esperado) {
+		String moderado = filtro.moderar(texto);
+		if (!moderado.equals(esperado)) {
+			falhar("\"" + texto + "\" virou \"" + moderado + "\", esperado \"" + esperado + "\"");
+		}
+	}
+
+	private static void falhar(String mensagem) {
+		System.err.println("Falha: " + mensagem);
+		System.exit(1);
+	}
+}
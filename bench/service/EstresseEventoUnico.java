@@ -0,0 +1,218 @@
+/*
+ * EstresseEventoUnico
+ *
+ * Descrição geral:
+ * - Teste de estresse do EventoService com muitas threads sobre um único evento (privado):
+ *   entrar, sair, marcar presença, curtir e descurtir, sempre pela API do serviço, como fazem a
+ *   thread do JavaFX e a do servidor HTTP de presença.
+ * - Cada thread conta as operações que o serviço confirmou (retorno true). Uma thread leitora
+ *   fica listando e pesquisando durante o teste; qualquer exceção dela conta como falha.
+ * - No fim confere as invariantes:
+ *   participantes = entradas - saídas (por usuário), nos índices de participação e de acesso
+ *   também; presentes contidos nos participantes; curtidas = conjunto de quem curtiu =
+ *   curtidas - descurtidas confirmadas = entrada do evento no ranking.
+ * - Termina com código 1 se alguma invariante falhar.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -cp <classes>:<bibliotecas de rec/>:src service.EstresseEventoUnico [threads] [operações por thread]
+ */
+
+package service;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import model.Evento;
+import model.Usuario;
+
+public class EstresseEventoUnico {
+
+	private static final int USUARIOS = 32;
+
+	private static int falhas;
+
+	public static void main(String[] args) throws InterruptedException {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int operacoes = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+		UsuarioService usuarios = UsuarioService.getInstance();
+		EventoService servico = EventoService.getInstance();
+		Usuario[] participantes = new Usuario[USUARIOS];
+		for (int i = 0; i < USUARIOS; i++) {
+			Usuario usuario = new Usuario();
+			usuario.setNome("Estresse " + i);
+			usuario.setUsername("estresse" + i);
+			usuario.setEmail("estresse" + i + "@teste.com");
+			if (!usuarios.completarCadastro(usuario)) {
+				throw new IllegalStateException("Não foi possível cadastrar " + usuario.getUsername());
+			}
+			participantes[i] = usuario;
+		}
+		Evento evento = new Evento.Builder("Evento do estresse", "Muitas threads", LocalDateTime.now().plusDays(1),
+				"Auditório", participantes[0], "Palestrante").comCategoria("Tecnologia").build();
+		evento.setPrivado(true);
+		servico.criarEvento(evento);
+		int eventoId = evento.getId();
+
+		// Por usuário: entradas - saídas e curtidas - descurtidas confirmadas pelo serviço
+		AtomicIntegerArray participacao = new AtomicIntegerArray(USUARIOS);
+		AtomicIntegerArray curtidas = new AtomicIntegerArray(USUARIOS);
+		AtomicInteger presencas = new AtomicInteger();
+		AtomicInteger errosLeitura = new AtomicInteger();
+		AtomicBoolean terminou = new AtomicBoolean();
+		CountDownLatch largada = new CountDownLatch(1);
+
+		List<Thread> trabalhadores = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			trabalhadores.add(new Thread(() -> {
+				aguardar(largada);
+				ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+				for (int i = 0; i < operacoes; i++) {
+					int indice = aleatorio.nextInt(USUARIOS);
+					Usuario usuario = participantes[indice];
+					switch (aleatorio.nextInt(5)) {
+					case 0 -> {
+						if (servico.adicionarParticipante(eventoId, usuario.getId())) {
+							participacao.incrementAndGet(indice);
+						}
+					}
+					case 1 -> {
+						if (servico.removerParticipante(eventoId, usuario.getId())) {
+							participacao.decrementAndGet(indice);
+						}
+					}
+					case 2 -> {
+						servico.marcarPresenca(eventoId, usuario.getId());
+						presencas.incrementAndGet();
+					}
+					case 3 -> {
+						if (servico.tentarCurtirEvento(evento, usuario)) {
+							curtidas.incrementAndGet(indice);
+						}
+					}
+					default -> {
+						if (servico.tentarDescurtirEvento(evento, usuario)) {
+							curtidas.decrementAndGet(indice);
+						}
+					}
+					}
+				}
+			}, "estresse-" + t));
+		}
+		Thread leitora = new Thread(() -> {
+			aguardar(largada);
+			while (!terminou.get()) {
+				try {
+					evento.getParticipantes();
+					evento.getIdsPresentes();
+					servico.listarEventosPorCurtidas(participantes[1], 10, null);
+					servico.pesquisarEventos("estresse", participantes[1], 10, null);
+					servico.contarEventosPorCategoria("", participantes[1]);
+				} catch (RuntimeException e) {
+					errosLeitura.incrementAndGet();
+					e.printStackTrace();
+				}
+			}
+		}, "estresse-leitora");
+		// Mensagens de "Presença registrada" do serviço não interessam aqui
+		PrintStream saida = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+		long inicio = System.nanoTime();
+		trabalhadores.forEach(Thread::start);
+		leitora.start();
+		largada.countDown();
+		for (Thread trabalhador : trabalhadores) {
+			trabalhador.join();
+		}
+		terminou.set(true);
+		leitora.join();
+		long milissegundos = (System.nanoTime() - inicio) / 1_000_000;
+		System.setOut(saida);
+
+		System.out.printf("%d threads x %d operações sobre o evento %d em %d ms (%d presenças pedidas)%n", threads,
+				operacoes, eventoId, milissegundos, presencas.get());
+		conferir(errosLeitura.get() == 0, "a thread leitora teve " + errosLeitura.get() + " exceções");
+
+		int[] idsParticipantes = evento.getIdsParticipantes();
+		int[] idsPresentes = evento.getIdsPresentes();
+		int[] idsCurtiram = evento.getIdsQueCurtiram();
+		int esperadosParticipantes = 0;
+		int esperadasCurtidas = 0;
+		for (int i = 0; i < USUARIOS; i++) {
+			int usuarioId = participantes[i].getId();
+			int liquido = participacao.get(i);
+			conferir(liquido == 0 || liquido == 1, "usuário " + usuarioId + ": entradas - saídas = " + liquido);
+			boolean participa = liquido == 1;
+			esperadosParticipantes += participa ? 1 : 0;
+			conferir(contem(idsParticipantes, usuarioId) == participa,
+					"usuário " + usuarioId + ": participa = " + !participa + ", esperado " + participa);
+			conferir(servico.isParticipante(eventoId, usuarioId) == participa,
+					"usuário " + usuarioId + ": isParticipante diverge do esperado");
+			boolean noIndice = servico.listarEventosDoParticipante(usuarioId).stream().anyMatch(e -> e.getId() == eventoId);
+			conferir(noIndice == participa, "usuário " + usuarioId + ": índice de participação diverge");
+			// Evento privado: vê quem participa ou organiza
+			boolean ve = participa || i == 0;
+			conferir(servico.contarEventos("", participantes[i]) == (ve ? 1 : 0),
+					"usuário " + usuarioId + ": índice de acesso diverge");
+
+			int curtidasLiquidas = curtidas.get(i);
+			conferir(curtidasLiquidas == 0 || curtidasLiquidas == 1,
+					"usuário " + usuarioId + ": curtidas - descurtidas = " + curtidasLiquidas);
+			esperadasCurtidas += curtidasLiquidas;
+			conferir(contem(idsCurtiram, usuarioId) == (curtidasLiquidas == 1),
+					"usuário " + usuarioId + ": conjunto de curtidas diverge");
+		}
+		conferir(idsParticipantes.length == esperadosParticipantes,
+				"participantes: " + idsParticipantes.length + ", esperado " + esperadosParticipantes);
+		conferir(evento.getParticipantes().size() == esperadosParticipantes, "getParticipantes() diverge dos ids");
+		for (int presente : idsPresentes) {
+			conferir(contem(idsParticipantes, presente), "usuário " + presente + " presente sem participar");
+		}
+		conferir(evento.getCurtidas() == idsCurtiram.length,
+				"contador de curtidas " + evento.getCurtidas() + " e conjunto " + idsCurtiram.length);
+		conferir(evento.getCurtidas() == esperadasCurtidas,
+				"contador de curtidas " + evento.getCurtidas() + ", esperado " + esperadasCurtidas);
+		conferir(servico.getCurtidasNoRanking(eventoId) == evento.getCurtidas(),
+				"ranking com " + servico.getCurtidasNoRanking(eventoId) + " curtidas, evento com " + evento.getCurtidas());
+		long noRanking = servico.listarEventosPorCurtidas().stream().filter(e -> e.getId() == eventoId).count();
+		conferir(noRanking == 1, "evento aparece " + noRanking + " vezes no ranking");
+
+		System.out.printf("participantes %d, presentes %d, curtidas %d%n", idsParticipantes.length, idsPresentes.length,
+				idsCurtiram.length);
+		if (falhas > 0) {
+			System.err.println(falhas + " invariantes violadas");
+			System.exit(1);
+		}
+		System.out.println("invariantes ok");
+		System.exit(0);
+	}
+
+	private static boolean contem(int[] ids, int id) {
+		return Arrays.stream(ids).anyMatch(i -> i == id);
+	}
+
+	private static void conferir(boolean condicao, String mensagem) {
+		if (!condicao) {
+			falhas++;
+			System.err.println("Falha: " + mensagem);
+		}
+	}
+
+	private static void aguardar(CountDownLatch largada) {
+		try {
+			largada.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
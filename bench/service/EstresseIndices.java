@@ -0,0 +1,137 @@
+/*
+ * EstresseIndices
+ *
+ * Descrição geral:
+ * - Teste de estresse dos índices do EventoService (IndiceParticipacao, IndiceCategoriaEventos e
+ *   IndiceTextoEventos) sob escrita concorrente.
+ * - Cada thread cuida só dos próprios eventos, como acontece com as travas por evento, mas todas
+ *   mexem nas mesmas chaves compartilhadas (poucos usuários, duas categorias, dois termos). É
+ *   nessas chaves que um conjunto pode ser esvaziado e tirado do mapa por uma thread enquanto
+ *   outra acrescenta nele.
+ * - Logo depois de cada inclusão, e de novo no fim, confere que o evento está em todas as
+ *   entradas em que deveria estar. Qualquer perda é contada e o processo termina com código 1.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   javac -d /tmp/bench -cp <bibliotecas de rec/> src/model/*.java src/service/*.java ... bench/service/EstresseIndices.java
+ *   java -cp /tmp/bench:<bibliotecas de rec/> service.EstresseIndices [threads] [rodadas]
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Evento;
+
+public class EstresseIndices {
+
+	private static final int EVENTOS_POR_THREAD = 64;
+	private static final int USUARIOS = 4;
+	private static final String[] CATEGORIAS = { "Tecnologia", "Música" };
+	private static final String[] TERMOS = { "abacate", "laranja" };
+
+	public static void main(String[] args) throws InterruptedException {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+		IndiceParticipacao participacao = new IndiceParticipacao();
+		IndiceCategoriaEventos categorias = new IndiceCategoriaEventos();
+		IndiceTextoEventos texto = new IndiceTextoEventos();
+
+		AtomicInteger perdas = new AtomicInteger();
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Thread> trabalhadores = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int primeiro = t * EVENTOS_POR_THREAD + 1;
+			Thread trabalhador = new Thread(() -> {
+				aguardar(largada);
+				ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+				Evento[] eventos = new Evento[EVENTOS_POR_THREAD];
+				for (int i = 0; i < eventos.length; i++) {
+					eventos[i] = new Evento();
+					eventos[i].setId(primeiro + i);
+				}
+				for (int r = 0; r < rodadas; r++) {
+					Evento evento = eventos[aleatorio.nextInt(eventos.length)];
+					int usuarioId = aleatorio.nextInt(USUARIOS);
+					// Só esta thread mexe neste evento: logo depois de indexado ele tem que aparecer
+					participacao.adicionarParticipante(evento.getId(), usuarioId);
+					if (!participacao.eventosDoParticipante(usuarioId).contains(evento.getId())) {
+						perdas.incrementAndGet();
+					}
+					participacao.removerParticipante(evento.getId(), usuarioId);
+					evento.setCategoria(CATEGORIAS[r & 1]);
+					evento.setTitulo(TERMOS[r & 1]);
+					categorias.indexar(evento);
+					texto.indexar(evento);
+					if (!categorias.membros(CATEGORIAS[r & 1]).contains(evento.getId())) {
+						perdas.incrementAndGet();
+					}
+					if (!texto.buscar(TERMOS[r & 1]).containsKey(evento.getId())) {
+						perdas.incrementAndGet();
+					}
+					categorias.remover(evento.getId());
+					texto.remover(evento.getId());
+				}
+				// Estado final conhecido: todo evento participa com todos os usuários e fica na
+				// primeira categoria e no primeiro termo
+				for (Evento evento : eventos) {
+					for (int usuarioId = 0; usuarioId < USUARIOS; usuarioId++) {
+						participacao.adicionarParticipante(evento.getId(), usuarioId);
+					}
+					evento.setCategoria(CATEGORIAS[0]);
+					evento.setTitulo(TERMOS[0]);
+					categorias.indexar(evento);
+					texto.indexar(evento);
+				}
+			}, "estresse-" + t);
+			trabalhadores.add(trabalhador);
+			trabalhador.start();
+		}
+
+		long inicio = System.nanoTime();
+		largada.countDown();
+		for (Thread trabalhador : trabalhadores) {
+			trabalhador.join();
+		}
+		long duracao = System.nanoTime() - inicio;
+
+		int total = threads * EVENTOS_POR_THREAD;
+		int perdidosParticipacao = 0;
+		int perdidosCategoria = 0;
+		int perdidosTexto = 0;
+		for (int id = 1; id <= total; id++) {
+			for (int usuarioId = 0; usuarioId < USUARIOS; usuarioId++) {
+				if (!participacao.eventosDoParticipante(usuarioId).contains(id)) {
+					perdidosParticipacao++;
+				}
+			}
+			if (!categorias.membros(CATEGORIAS[0]).contains(id)) {
+				perdidosCategoria++;
+			}
+			if (!texto.buscar(TERMOS[0]).containsKey(id)) {
+				perdidosTexto++;
+			}
+		}
+
+		System.out.printf("%d threads x %d rodadas em %.0f ms%n", threads, rodadas, duracao / 1e6);
+		System.out.printf("perdas durante as rodadas: %d%n", perdas.get());
+		System.out.printf("participação perdida: %d de %d%n", perdidosParticipacao, total * USUARIOS);
+		System.out.printf("categoria perdida:    %d de %d%n", perdidosCategoria, total);
+		System.out.printf("termo perdido:        %d de %d%n", perdidosTexto, total);
+		if (perdas.get() + perdidosParticipacao + perdidosCategoria + perdidosTexto > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static void aguardar(CountDownLatch largada) {
+		try {
+			largada.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * InsercaoParticipacoes
+ *
+ * Descrição geral:
+ * - Mede os repositórios JDBC contra o H2 de verdade (rec/h2), em um banco em arquivo num
+ *   diretório temporário, apagado no fim.
+ * - Inserção em lote: N participações distintas (padrão 100 mil) em uma chamada de
+ *   JdbcEventoRepository.adicionarParticipacoes (executeBatch em lotes de
+ *   SuporteJdbc.TAMANHO_LOTE, uma transação). Para comparar, 10 mil participações gravadas uma
+ *   a uma (uma transação cada), em outro banco.
+ * - Notificações: JdbcNotificacaoRepository.adicionarParaUsuarios para todos os usuários,
+ *   como faz NotificacaoService.enviarNotificacaoParaParticipantes.
+ * - Confere o banco contra o EventoService, que recebe os mesmos eventos e participações:
+ *   participantes de cada evento, o feed (listarParaUsuario, página a página) e a pesquisa
+ *   de vários usuários e termos, na mesma ordem. Termina com código 1 se algo divergir.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -cp <classes>:<bibliotecas de rec/, inclusive rec/h2>:src service.InsercaoParticipacoes [participações] [eventos]
+ */
+
+package service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import model.Evento;
+import model.Notificacao;
+import model.Permissao;
+import model.Usuario;
+import persistencia.PoolConexoes;
+
+public class InsercaoParticipacoes {
+
+	private static final int USUARIOS = 500;
+	private static final int UMA_A_UMA = 10_000;
+	private static final int PAGINA = 50;
+	private static final String[] CATEGORIAS = { "Educacao", "Jogos", "Negócios", "Esportes", "Festas", "Música",
+			"Tecnologia" };
+	private static final String[] PALAVRAS = { "Feira", "Maratona", "Workshop", "Palestra", "Encontro", "Campeonato",
+			"Festival", "Curso", "Show", "Hackathon" };
+	private static final String[] TERMOS = { "hackathon", "feira tec", "mara", "curso musica", "festival 12",
+			"inexistente" };
+
+	private static int falhas;
+
+	public static void main(String[] args) throws IOException, SQLException {
+		int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int quantidadeEventos = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+		if (quantidade > (long) quantidadeEventos * USUARIOS) {
+			throw new IllegalArgumentException("No máximo " + quantidadeEventos * USUARIOS + " participações distintas");
+		}
+		Path diretorio = Files.createTempDirectory("insercao-participacoes");
+		try {
+			executar(diretorio, quantidade, quantidadeEventos);
+		} finally {
+			apagar(diretorio);
+		}
+		if (falhas > 0) {
+			System.err.println(falhas + " divergências");
+			System.exit(1);
+		}
+		System.out.println("banco e EventoService conferem");
+	}
+
+	private static void executar(Path diretorio, int quantidade, int quantidadeEventos) throws SQLException {
+		UsuarioService usuarios = UsuarioService.getInstance();
+		EventoService servico = EventoService.getInstance();
+		Usuario[] todos = new Usuario[USUARIOS];
+		for (int i = 0; i < USUARIOS; i++) {
+			Usuario usuario = new Usuario();
+			usuario.setNome("Participante " + i);
+			usuario.setUsername("participante" + i);
+			usuario.setEmail("participante" + i + "@teste.com");
+			if (!usuarios.completarCadastro(usuario)) {
+				throw new IllegalStateException("Não foi possível cadastrar " + usuario.getUsername());
+			}
+			todos[i] = usuario;
+		}
+
+		try (PoolConexoes pool = new PoolConexoes(url(diretorio, "lote"), "sa", "", 4);
+				PoolConexoes poolUmaAUma = new PoolConexoes(url(diretorio, "uma-a-uma"), "sa", "", 1)) {
+			JdbcEventoRepository repositorio = new JdbcEventoRepository(pool, usuarios::buscarPorId);
+
+			Random aleatorio = new Random(5);
+			LocalDateTime base = LocalDateTime.of(2026, 1, 1, 9, 0);
+			int[] ids = new int[quantidadeEventos];
+			long inicio = System.nanoTime();
+			for (int i = 0; i < quantidadeEventos; i++) {
+				Evento evento = new Evento.Builder(
+						PALAVRAS[aleatorio.nextInt(PALAVRAS.length)] + " de " + CATEGORIAS[aleatorio.nextInt(7)] + " " + i,
+						"Descrição do evento número " + i, base.plusMinutes(aleatorio.nextInt(200_000)),
+						"Fatec Cruzeiro sala " + aleatorio.nextInt(40), todos[aleatorio.nextInt(USUARIOS)],
+						"Palestrante " + aleatorio.nextInt(100)).comCategoria(CATEGORIAS[aleatorio.nextInt(7)]).build();
+				evento.setPrivado(aleatorio.nextInt(5) == 0);
+				servico.criarEvento(evento);
+				repositorio.salvar(evento);
+				ids[i] = evento.getId();
+			}
+			System.out.printf("%d eventos salvos (com termos de pesquisa) em %d ms%n", quantidadeEventos,
+					(System.nanoTime() - inicio) / 1_000_000);
+
+			// Pares (evento, usuário) distintos
+			int[] eventoIds = new int[quantidade];
+			int[] usuarioIds = new int[quantidade];
+			Set<Long> pares = new HashSet<>();
+			for (int i = 0; i < quantidade;) {
+				int eventoId = ids[aleatorio.nextInt(quantidadeEventos)];
+				int usuarioId = todos[aleatorio.nextInt(USUARIOS)].getId();
+				if (pares.add(((long) eventoId << 32) | usuarioId)) {
+					eventoIds[i] = eventoId;
+					usuarioIds[i] = usuarioId;
+					i++;
+				}
+			}
+
+			inicio = System.nanoTime();
+			repositorio.adicionarParticipacoes(eventoIds, usuarioIds, Permissao.PARTICIPANTE);
+			double segundos = (System.nanoTime() - inicio) / 1e9;
+			System.out.printf("%d participações em lote: %.2f s (%.0f mil/s)%n", quantidade, segundos,
+					quantidade / segundos / 1e3);
+
+			JdbcEventoRepository umaAUma = new JdbcEventoRepository(poolUmaAUma, usuarios::buscarPorId);
+			int amostra = Math.min(UMA_A_UMA, quantidade);
+			inicio = System.nanoTime();
+			for (int i = 0; i < amostra; i++) {
+				umaAUma.adicionarParticipacoes(new int[] { eventoIds[i] }, new int[] { usuarioIds[i] },
+						Permissao.PARTICIPANTE);
+			}
+			segundos = (System.nanoTime() - inicio) / 1e9;
+			System.out.printf("%d participações uma a uma: %.2f s (%.0f mil/s; %.1f s estimados para %d)%n", amostra,
+					segundos, amostra / segundos / 1e3, segundos * quantidade / amostra, quantidade);
+
+			for (int i = 0; i < quantidade; i++) {
+				servico.adicionarParticipante(eventoIds[i], usuarioIds[i]);
+			}
+			conferirParticipantes(repositorio, servico, ids, quantidade);
+			conferirFeed(repositorio, servico, todos, aleatorio);
+			conferirPesquisa(repositorio, servico, todos, aleatorio);
+			notificar(pool, todos);
+		}
+	}
+
+	private static String url(Path diretorio, String nome) {
+		return "jdbc:h2:" + diretorio.resolve(nome).toAbsolutePath() + ";WRITE_DELAY=0";
+	}
+
+	private static void conferirParticipantes(JdbcEventoRepository repositorio, EventoService servico, int[] ids,
+			int quantidade) {
+		long inicio = System.nanoTime();
+		int total = 0;
+		for (int eventoId : ids) {
+			int[] noBanco = repositorio.listarParticipantes(eventoId);
+			int[] emMemoria = servico.buscarEventoPorId(eventoId).getIdsParticipantes().clone();
+			Arrays.sort(emMemoria);
+			total += noBanco.length;
+			conferir(Arrays.equals(noBanco, emMemoria), "participantes do evento " + eventoId + " divergem");
+		}
+		conferir(total == quantidade, "banco com " + total + " participações, esperado " + quantidade);
+		System.out.printf("participantes de %d eventos lidos e conferidos em %d ms%n", ids.length,
+				(System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	private static void conferirFeed(JdbcEventoRepository repositorio, EventoService servico, Usuario[] todos,
+			Random aleatorio) {
+		long[] tempos = new long[21];
+		for (int k = 0; k < tempos.length; k++) {
+			Usuario usuario = k == 0 ? null : todos[aleatorio.nextInt(USUARIOS)];
+			List<Integer> esperado = ids(servico.listarEventosParaUsuario(usuario));
+			List<Integer> lido = new ArrayList<>();
+			Evento ultimo = null;
+			while (true) {
+				long inicio = System.nanoTime();
+				List<Evento> pagina = repositorio.listarParaUsuario(usuario, ultimo, PAGINA);
+				if (ultimo == null) {
+					tempos[k] = System.nanoTime() - inicio;
+				}
+				lido.addAll(ids(pagina));
+				if (pagina.size() < PAGINA) {
+					break;
+				}
+				ultimo = pagina.get(pagina.size() - 1);
+			}
+			conferir(lido.equals(esperado), "feed de " + nome(usuario) + ": " + lido.size() + " eventos no banco, "
+					+ esperado.size() + " no serviço, ou ordem diferente");
+		}
+		Arrays.sort(tempos);
+		System.out.printf("feed de %d usuários conferido; primeira página (%d) no banco: p50 %.2f ms%n", tempos.length,
+				PAGINA, tempos[tempos.length / 2] / 1e6);
+	}
+
+	private static void conferirPesquisa(JdbcEventoRepository repositorio, EventoService servico, Usuario[] todos,
+			Random aleatorio) {
+		List<Long> tempos = new ArrayList<>();
+		for (String termo : TERMOS) {
+			for (int k = 0; k < 5; k++) {
+				Usuario usuario = k == 0 ? null : todos[aleatorio.nextInt(USUARIOS)];
+				List<Integer> esperado = ids(servico.pesquisarEventos(termo, usuario));
+				long inicio = System.nanoTime();
+				List<Integer> lido = ids(repositorio.pesquisar(termo, usuario, 0, Integer.MAX_VALUE));
+				tempos.add(System.nanoTime() - inicio);
+				conferir(lido.equals(esperado), "pesquisa \"" + termo + "\" de " + nome(usuario) + ": " + lido.size()
+						+ " eventos no banco, " + esperado.size() + " no serviço, ou ordem diferente");
+			}
+		}
+		tempos.sort(null);
+		System.out.printf("%d pesquisas conferidas; no banco: p50 %.2f ms%n", tempos.size(),
+				tempos.get(tempos.size() / 2) / 1e6);
+	}
+
+	private static void notificar(PoolConexoes pool, Usuario[] todos) {
+		JdbcNotificacaoRepository notificacoes = new JdbcNotificacaoRepository(pool);
+		int[] destinatarios = Arrays.stream(todos).mapToInt(Usuario::getId).toArray();
+		int rodadas = 200;
+		long inicio = System.nanoTime();
+		for (int i = 0; i < rodadas; i++) {
+			notificacoes.adicionarParaUsuarios(destinatarios, new Notificacao("Aviso " + i, LocalDateTime.now(), false,
+					Notificacao.Tipo.ALERTA, "Organizador"));
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.out.printf("%d notificações (%d avisos a %d usuários) em %.2f s (%.0f mil/s)%n",
+				rodadas * destinatarios.length, rodadas, destinatarios.length, segundos,
+				rodadas * destinatarios.length / segundos / 1e3);
+		List<Notificacao> lidas = notificacoes.listarPorUsuario(destinatarios[0], Notificacao.Tipo.ALERTA);
+		conferir(lidas.size() == rodadas, "usuário com " + lidas.size() + " notificações, esperado " + rodadas);
+		conferir(!lidas.isEmpty() && lidas.get(0).getMensagem().equals("Aviso " + (rodadas - 1)),
+				"a notificação mais recente não vem primeiro");
+	}
+
+	private static List<Integer> ids(List<Evento> eventos) {
+		List<Integer> ids = new ArrayList<>(eventos.size());
+		for (Evento evento : eventos) {
+			ids.add(evento.getId());
+		}
+		return ids;
+	}
+
+	private static String nome(Usuario usuario) {
+		return usuario != null ? usuario.getUsername() : "visitante";
+	}
+
+	private static void conferir(boolean condicao, String mensagem) {
+		if (!condicao) {
+			falhas++;
+			System.err.println("Falha: " + mensagem);
+		}
+	}
+
+	private static void apagar(Path diretorio) throws IOException {
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(arquivo);
+			}
+		}
+	}
+}
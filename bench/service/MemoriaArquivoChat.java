@@ -0,0 +1,184 @@
+/*
+ * MemoriaArquivoChat
+ *
+ * Descrição geral:
+ * - Mede o heap do ChatService com o registro antigo de uma sala arquivado em disco (ArquivoChat):
+ *   N mensagens (padrão 10 milhões, ~50 caracteres cada) numa só sala, heap usado depois de GC e
+ *   tamanho dos segmentos no disco. Deve rodar com heap pequeno (ex.: -Xmx128m); sem o arquivo,
+ *   10 milhões de mensagens não cabem nele.
+ * - Mede também a rolagem para trás: buscarAnteriores(200) a partir de pontos aleatórios (quase
+ *   todos em segmentos arquivados) e buscarUltimas(200).
+ * - Antes, em escala menor (100 mil mensagens e 500 remoções espalhadas entre arquivo e cauda),
+ *   confere getMensagens, a rolagem até o início e os contadores por usuário contra a lista
+ *   esperada, e termina com código 1 se algo divergir.
+ *
+ * Execução (a partir da raiz do projeto; a pasta bench não faz parte do build do aplicativo):
+ *   java -Xmx128m -cp <classes>:<bibliotecas de rec/>:src service.MemoriaArquivoChat [mensagens]
+ */
+
+package service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import model.Evento;
+
+public class MemoriaArquivoChat {
+
+	private static final int SALA_CONFERENCIA = 10;
+	private static final int SALA_MEDICAO = 9;
+	private static final int USUARIOS = 500;
+	private static final int PAGINA = 200;
+	private static final int AMOSTRAS = 2000;
+
+	public static void main(String[] args) throws IOException {
+		int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		ChatService chat = ChatService.getInstancia();
+		Path diretorio = Files.createTempDirectory("memoria-chat");
+		chat.setDiretorioArquivo(diretorio);
+
+		conferir(chat);
+
+		Evento evento = new Evento();
+		evento.setId(SALA_MEDICAO);
+		Random aleatorio = new Random(7);
+		long heapInicial = heapUsado();
+		long inicio = System.nanoTime();
+		for (int i = 0; i < quantidade; i++) {
+			chat.adicionarMensagem(evento, 1 + aleatorio.nextInt(USUARIOS),
+					"Participante " + (i % USUARIOS) + ": mensagem numero " + i + " no chat ao vivo");
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		long heapFinal = heapUsado();
+		System.out.printf("%d mensagens em %.1f s (%.0f mil/s)%n", quantidade, segundos, quantidade / segundos / 1e3);
+		System.out.printf("heap usado depois de GC: %.1f MB antes, %.1f MB depois (máximo %.0f MB)%n",
+				heapInicial / 1048576.0, heapFinal / 1048576.0, Runtime.getRuntime().maxMemory() / 1048576.0);
+		System.out.printf("segmentos no disco: %.0f MB%n", tamanhoEmDisco(diretorio) / 1048576.0);
+
+		long[] tempos = new long[AMOSTRAS];
+		Random pontos = new Random(1);
+		for (int rodada = 0; rodada < 2; rodada++) {
+			for (int i = 0; i < tempos.length; i++) {
+				long antesDe = 1 + pontos.nextInt(quantidade);
+				long t = System.nanoTime();
+				chat.buscarAnteriores(SALA_MEDICAO, antesDe, PAGINA);
+				tempos[i] = System.nanoTime() - t;
+			}
+		}
+		imprimir("buscarAnteriores(" + PAGINA + ") em ponto aleatório", tempos);
+		for (int i = 0; i < tempos.length; i++) {
+			long t = System.nanoTime();
+			chat.buscarUltimas(SALA_MEDICAO, PAGINA);
+			tempos[i] = System.nanoTime() - t;
+		}
+		imprimir("buscarUltimas(" + PAGINA + ")", tempos);
+		apagar(diretorio);
+		System.exit(0);
+	}
+
+	private static void conferir(ChatService chat) {
+		Evento evento = new Evento();
+		evento.setId(SALA_CONFERENCIA);
+		Random aleatorio = new Random(3);
+		List<String> esperado = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			chat.adicionarMensagem(evento, 1 + i % 7, "m" + i);
+			esperado.add("m" + i);
+		}
+		List<ChatService.MensagemChat> todas = chat.buscarDesde(SALA_CONFERENCIA, 0, Integer.MAX_VALUE).getMensagens();
+		Set<String> removidas = new HashSet<>();
+		for (int k = 0; k < 500; k++) {
+			ChatService.MensagemChat mensagem = todas.get(aleatorio.nextInt(todas.size()));
+			if (removidas.add(mensagem.getTexto())) {
+				chat.removerMensagem(evento, mensagem);
+			}
+		}
+		esperado.removeAll(removidas);
+
+		List<String> lidas = new ArrayList<>();
+		for (ChatService.MensagemChat mensagem : chat.getMensagens(evento)) {
+			lidas.add(mensagem.getTexto());
+		}
+		List<String> rolagem = new ArrayList<>();
+		LoteChat lote = chat.buscarUltimas(SALA_CONFERENCIA, PAGINA);
+		while (true) {
+			List<String> pagina = new ArrayList<>();
+			for (ChatService.MensagemChat mensagem : lote.getMensagens()) {
+				pagina.add(mensagem.getTexto());
+			}
+			rolagem.addAll(0, pagina);
+			if (!lote.temMais()) {
+				break;
+			}
+			lote = chat.buscarAnteriores(SALA_CONFERENCIA, lote.getMensagens().get(0).getSequencia(), PAGINA);
+		}
+		int contadas = 0;
+		for (int usuarioId = 1; usuarioId <= 7; usuarioId++) {
+			contadas += chat.getQuantidadeMensagens(SALA_CONFERENCIA, usuarioId);
+		}
+
+		boolean ok = true;
+		ok &= verificar(lidas.equals(esperado), "getMensagens difere da lista esperada");
+		ok &= verificar(rolagem.equals(esperado), "a rolagem até o início difere da lista esperada");
+		ok &= verificar(contadas == esperado.size(), "contadores somam " + contadas + ", esperado " + esperado.size());
+		if (!ok) {
+			System.exit(1);
+		}
+		System.out.println("conferência (100 mil mensagens, 500 remoções): ok");
+	}
+
+	private static boolean verificar(boolean condicao, String mensagem) {
+		if (!condicao) {
+			System.err.println("Falha: " + mensagem);
+		}
+		return condicao;
+	}
+
+	private static long heapUsado() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static long tamanhoEmDisco(Path diretorio) throws IOException {
+		long total = 0;
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+				if (Files.isRegularFile(arquivo)) {
+					total += Files.size(arquivo);
+				}
+			}
+		}
+		return total;
+	}
+
+	// Os segmentos continuam mapeados até o fim do processo: no Windows eles ficam para trás
+	private static void apagar(Path diretorio) throws IOException {
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+				try {
+					Files.deleteIfExists(arquivo);
+				} catch (IOException e) {
+					System.err.println("Não foi possível apagar " + arquivo + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static void imprimir(String descricao, long[] tempos) {
+		Arrays.sort(tempos);
+		System.out.printf("%s: p50 %.0f us, p99 %.0f us%n", descricao, tempos[tempos.length / 2] / 1e3,
+				tempos[tempos.length * 99 / 100] / 1e3);
+	}
+}
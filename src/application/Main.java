@@ -2,6 +2,7 @@ package application;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 
 import com.sun.net.httpserver.HttpServer;
 
@@ -12,16 +13,46 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 import otp.ConfirmacaoHandler;
 import otp.PresencaHandler;
+import persistencia.Persistencia;
+import persistencia.PoolConexoes;
+import service.EventoService;
+import service.FiltroModeracao;
+import service.JdbcNotificacaoRepository;
+import service.NotificacaoService;
 import service.UsuarioService;
 
 public class Main extends Application {
 
 	private HttpServer server;
+	private PoolConexoes banco;
 
 	@Override
 	public void init() throws Exception {
+		// Recupera os dados salvos; os dados de teste só entram na primeira execução. Se os
+		// dados não puderem ser lidos (ou o diário aberto), o aplicativo não abre: sem o diário,
+		// tudo o que fosse feito se perderia ao fechar
+		boolean recuperado;
+		try {
+			recuperado = Persistencia.getInstance().iniciar(Paths.get("dados"));
+		} catch (IOException e) {
+			System.err.println("Erro ao carregar os dados salvos; o aplicativo não será aberto: " + e.getMessage());
+			throw e;
+		}
+		// Notificações ficam no banco embutido (H2 em arquivo; o driver está em rec/h2)
+		banco = new PoolConexoes("jdbc:h2:./dados/banco;WRITE_DELAY=0", "sa", "", 2);
+		NotificacaoService.getInstance().usarRepositorio(new JdbcNotificacaoRepository(banco));
+		// Lista de moderação editável sem reiniciar (sem o arquivo, vale a lista padrão)
+		try {
+			FiltroModeracao.getInstance().observar(Paths.get("dados", "moderacao.txt"));
+		} catch (IOException e) {
+			System.err.println("Erro ao carregar a lista de moderação: " + e.getMessage());
+		}
+		if (!recuperado) {
+			UsuarioService.getInstance().carregarUsuariosDeTeste();
+			EventoService.getInstance().carregarEventosDeExemplo();
+		}
+
 		// Inicia o servidor HTTP na porta 8080 antes da UI aparecer
-		UsuarioService.getInstance().carregarUsuariosDeTeste();
 		try {
 			server = HttpServer.create(new InetSocketAddress(8080), 0);
 			server.createContext("/confirmar", new ConfirmacaoHandler());
@@ -38,6 +69,8 @@ public class Main extends Application {
 
 	@Override
 	public void start(Stage primaryStage) {
+		// Cliques não esperam o fsync do diário (ver Persistencia.dispensarEsperaNaThreadAtual)
+		Persistencia.getInstance().dispensarEsperaNaThreadAtual();
 		try {
 			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/TelaCadastro.fxml"));
 			Parent root = loader.load();
@@ -63,6 +96,10 @@ public class Main extends Application {
 			server.stop(0);
 			System.out.println("Servidor de confirmação parado.");
 		}
+		Persistencia.getInstance().fechar();
+		if (banco != null) {
+			banco.close();
+		}
 	}
 
 	public static void main(String[] args) {
@@ -13,7 +13,11 @@ import javafx.scene.Scene;
 import javafx.geometry.Pos;
 
 
+import model.MensagemDireta;
 import model.Usuario;
+import service.MensagemDiretaService;
+import service.Pagina;
+import service.UsuarioService;
 
 import java.util.*;
 
@@ -28,21 +32,23 @@ public class AmizadeController {
 
 
     private Usuario usuarioLogado;
+    private final UsuarioService usuarioService = UsuarioService.getInstance();
+    private final MensagemDiretaService mensagemService = MensagemDiretaService.getInstance();
+    private static final int MENSAGENS_POR_PAGINA = 50;
 
     private final List<Usuario> amigos = new ArrayList<>();
-    private final Map<String, Usuario> mapaUsuarios = new HashMap<>();
-    private final Map<String, List<String>> historicoChat = new HashMap<>();
+    private Map<String, Usuario> mapaUsuarios = new HashMap<>();
 
     private Usuario amigoSelecionado;
 
     public void setUsuarioLogado(Usuario usuario) {
         this.usuarioLogado = usuario;
-        carregarAmigos(usuarioLogado.getAmigos());
+        carregarAmigos(usuarioService.listarAmigosDoUsuario(usuarioLogado));
     }
 
+    // Usa o mapa recebido (o índice de usernames do UsuarioService) sem copiá-lo
     public void setMapaUsuarios(Map<String, Usuario> usuarios) {
-        this.mapaUsuarios.clear();
-        this.mapaUsuarios.putAll(usuarios);
+        this.mapaUsuarios = usuarios;
     }
 
     public void carregarAmigos(List<Usuario> lista) {
@@ -100,35 +106,63 @@ public class AmizadeController {
         }
     }
 
+    // Abre a conversa só com a última página; as anteriores vêm pelo botão no topo
     private void atualizarChat(Usuario amigo) {
         chatContainer.getChildren().clear();
+        Pagina<MensagemDireta> pagina = mensagemService.ultimasMensagens(usuarioLogado, amigo, MENSAGENS_POR_PAGINA);
+        for (MensagemDireta mensagem : pagina.getItens()) {
+            chatContainer.getChildren().add(criarBalao(mensagem, amigo));
+        }
+        mostrarBotaoAnteriores(amigo, pagina);
+    }
 
-        List<String> mensagens = usuarioLogado.getMensagensCom(amigo.getUsername());
-
-        for (String linha : mensagens) {
-            Label msgLabel = new Label(linha);
-            msgLabel.setWrapText(true);
-            msgLabel.setMaxWidth(300);
-            msgLabel.setStyle("-fx-padding: 8; -fx-background-radius: 10; -fx-font-size: 13px;");
+    private void mostrarBotaoAnteriores(Usuario amigo, Pagina<MensagemDireta> pagina) {
+        if (!pagina.temProxima()) {
+            return;
+        }
+        Button btnAnteriores = new Button("Carregar mensagens anteriores");
+        btnAnteriores.setOnAction(e -> {
+            chatContainer.getChildren().remove(btnAnteriores);
+            Pagina<MensagemDireta> anteriores = mensagemService.mensagensAnteriores(usuarioLogado, amigo,
+                    pagina.getProximoCursor(), MENSAGENS_POR_PAGINA);
+            List<javafx.scene.Node> baloes = new ArrayList<>();
+            for (MensagemDireta mensagem : anteriores.getItens()) {
+                baloes.add(criarBalao(mensagem, amigo));
+            }
+            chatContainer.getChildren().addAll(0, baloes);
+            mostrarBotaoAnteriores(amigo, anteriores);
+        });
+        chatContainer.getChildren().add(0, btnAnteriores);
+    }
 
-            HBox msgBox = new HBox();
-            msgBox.setPadding(new Insets(2));
+    private HBox criarBalao(MensagemDireta mensagem, Usuario amigo) {
+        boolean minha = mensagem.isDe(usuarioLogado);
+        String autor = minha ? "Você" : amigo.getNomeCompleto();
+        Label msgLabel = new Label(autor + ": " + mensagem.getTexto());
+        msgLabel.setWrapText(true);
+        msgLabel.setMaxWidth(300);
+        msgLabel.setStyle("-fx-padding: 8; -fx-background-radius: 10; -fx-font-size: 13px;");
 
-            if (linha.startsWith("Você:")) {
-                msgLabel.setStyle(msgLabel.getStyle() + "-fx-background-color: #ece6ff;");
-                msgBox.setAlignment(Pos.CENTER_RIGHT);
-            } else {
-                msgLabel.setStyle(msgLabel.getStyle() + "-fx-background-color: #ffffff;");
-                msgBox.setAlignment(Pos.CENTER_LEFT);
-            }
+        HBox msgBox = new HBox();
+        msgBox.setPadding(new Insets(2));
 
-            msgBox.getChildren().add(msgLabel);
-            chatContainer.getChildren().add(msgBox);
+        if (minha) {
+            msgLabel.setStyle(msgLabel.getStyle() + "-fx-background-color: #ece6ff;");
+            msgBox.setAlignment(Pos.CENTER_RIGHT);
+        } else {
+            msgLabel.setStyle(msgLabel.getStyle() + "-fx-background-color: #ffffff;");
+            msgBox.setAlignment(Pos.CENTER_LEFT);
         }
+
+        msgBox.getChildren().add(msgLabel);
+        return msgBox;
     }
     
     @FXML
     public void initialize() {
+        // Sugestões enquanto digita; escolher uma abre o mesmo pedido de amizade do botão Buscar
+        SugestoesUsuarios.ativarBusca(txtBuscarUsuario, this::pedirAmizade);
+
         txtMensagem.setOnKeyPressed(event -> {
             switch (event.getCode()) {
                 case ENTER:
@@ -147,14 +181,9 @@ public class AmizadeController {
 
         String msg = txtMensagem.getText().trim();
         if (!msg.isEmpty()) {
-            String linha = "Você: " + msg;
-            usuarioLogado.adicionarMensagem(amigoSelecionado.getUsername(), linha);
-
-            // simulando conversa bidirecional
-            String linhaAmigo = usuarioLogado.getNomeCompleto() + ": " + msg;
-            amigoSelecionado.adicionarMensagem(usuarioLogado.getUsername(), linhaAmigo);
-
-            atualizarChat(amigoSelecionado);
+            // Gravada uma vez para os dois; na tela só entra o balão novo
+            MensagemDireta enviada = mensagemService.enviar(usuarioLogado, amigoSelecionado, msg);
+            chatContainer.getChildren().add(criarBalao(enviada, amigoSelecionado));
             txtMensagem.clear();
         }
     }
@@ -169,19 +198,26 @@ public class AmizadeController {
             return;
         }
 
-        Usuario encontrado = mapaUsuarios.get(busca);
+        // Só o username exato: nomes parecidos e erros de digitação ficam nas sugestões
+        // (SugestoesUsuarios), onde o pedido sai para o usuário escolhido na lista
+        Usuario encontrado = mapaUsuarios.get(busca.startsWith("@") ? busca.substring(1) : busca);
 
         if (encontrado == null) {
-            mostrarAlerta("Usuário não encontrado", Alert.AlertType.WARNING);
+            mostrarAlerta("Usuário não encontrado. Escolha um dos usuários sugeridos abaixo do campo.",
+                    Alert.AlertType.WARNING);
             return;
         }
 
+        pedirAmizade(encontrado);
+    }
+
+    private void pedirAmizade(Usuario encontrado) {
         if (encontrado.equals(usuarioLogado)) {
             mostrarAlerta("Você não pode adicionar a si mesmo", Alert.AlertType.INFORMATION);
             return;
         }
 
-        if (amigos.contains(encontrado)) {
+        if (usuarioService.saoAmigos(usuarioLogado, encontrado)) {
             mostrarAlerta("Esse usuário já é seu amigo", Alert.AlertType.INFORMATION);
             return;
         }
@@ -202,14 +238,14 @@ public class AmizadeController {
         
         Optional<ButtonType> resultado = alert.showAndWait();
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
-            usuarioLogado.enviarPedido(user);
+            usuarioService.enviarPedidoDeAmizade(usuarioLogado, user);
             mostrarAlerta("Pedido enviado para @" + user.getUsername(), Alert.AlertType.INFORMATION);
         }
     }
 
     @FXML
     private void abrirPopupPedidos() {
-        List<Usuario> pedidos = usuarioLogado.getPedidosRecebidos();
+        List<Usuario> pedidos = usuarioService.listarPedidosRecebidos(usuarioLogado);
 
         VBox boxPedidos = new VBox(10);
         boxPedidos.setPadding(new Insets(10));
@@ -221,23 +257,22 @@ public class AmizadeController {
             label.setStyle("-fx-font-size: 14px;");
             boxPedidos.getChildren().add(label);
         } else {
-            // Criar cópia para evitar ConcurrentModificationException se removermos durante iteração
-            for (Usuario remetente : new ArrayList<>(pedidos)) {
+            for (Usuario remetente : pedidos) {
                 HBox pedidoBox = new HBox(10);
                 Label lblNome = new Label(remetente.getNomeCompleto() + " (@" + remetente.getUsername() + ")");
                 Button btnAceitar = new Button("Aceitar");
                 Button btnRejeitar = new Button("Rejeitar");
 
                 btnAceitar.setOnAction(e -> {
-                    usuarioLogado.aceitarPedido(remetente);
-                    carregarAmigos(usuarioLogado.getAmigos());
+                    usuarioService.aceitarPedidoDeAmizade(remetente, usuarioLogado);
+                    carregarAmigos(usuarioService.listarAmigosDoUsuario(usuarioLogado));
                     boxPedidos.getChildren().remove(pedidoBox);
                     mostrarAlerta("Agora vocês são amigos!", Alert.AlertType.INFORMATION);
                     popup.close();
                 });
 
                 btnRejeitar.setOnAction(e -> {
-                    usuarioLogado.getPedidosRecebidos().remove(remetente);
+                    usuarioService.recusarPedidoDeAmizade(remetente, usuarioLogado);
                     boxPedidos.getChildren().remove(pedidoBox);
                 });
 
@@ -253,6 +288,45 @@ public class AmizadeController {
         popup.showAndWait();
     }
 
+    @FXML
+    private void abrirPopupSugestoes() {
+        List<Usuario> sugestoes = usuarioService.sugerirAmigos(usuarioLogado, 10);
+
+        VBox boxSugestoes = new VBox(10);
+        boxSugestoes.setPadding(new Insets(10));
+
+        Stage popup = new Stage();
+
+        if (sugestoes.isEmpty()) {
+            Label label = new Label("Nenhuma sugestão por enquanto: adicione alguns amigos 🙂");
+            label.setStyle("-fx-font-size: 14px;");
+            boxSugestoes.getChildren().add(label);
+        } else {
+            for (Usuario sugerido : sugestoes) {
+                HBox sugestaoBox = new HBox(10);
+                sugestaoBox.setAlignment(Pos.CENTER_LEFT);
+                int emComum = usuarioService.contarAmigosEmComum(usuarioLogado, sugerido);
+                Label lblNome = new Label(sugerido.getNomeCompleto() + " (@" + sugerido.getUsername() + ")\n"
+                        + (emComum == 1 ? "1 amigo em comum" : emComum + " amigos em comum"));
+                Button btnAdicionar = new Button("Adicionar");
+
+                btnAdicionar.setOnAction(e -> {
+                    usuarioService.enviarPedidoDeAmizade(usuarioLogado, sugerido);
+                    boxSugestoes.getChildren().remove(sugestaoBox);
+                });
+
+                sugestaoBox.getChildren().addAll(lblNome, btnAdicionar);
+                boxSugestoes.getChildren().add(sugestaoBox);
+            }
+        }
+
+        popup.getIcons().add(new Image(getClass().getResourceAsStream("/resources/logo/LOGOROXA.png")));
+        popup.initModality(Modality.APPLICATION_MODAL);
+        popup.setTitle("Pessoas que você talvez conheça");
+        popup.setScene(new Scene(new ScrollPane(boxSugestoes), 380, 320));
+        popup.showAndWait();
+    }
+
     private void mostrarAlerta(String msg, Alert.AlertType tipo) {
         Alert alert = new Alert(tipo);
         alert.setHeaderText(null);
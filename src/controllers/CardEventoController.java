@@ -146,6 +146,7 @@ public class CardEventoController {
 	public void setEvento(Evento evento, Usuario usuarioLogado) {
 		this.evento = evento;
 		this.usuarioLogado = SessaoUsuario.getInstance().getUsuario();
+		SugestoesUsuarios.ativarMencoes(txtNovoComentario);
 		inicializarCurtida();
 
 		Usuario organizador = evento.getOrganizador();
@@ -189,7 +190,7 @@ public class CardEventoController {
 		txtTituloEvento.setText(evento.getTitulo());
 		txtDescricaoEvento.setText(evento.getDescricao());
 		txtDataEvento.setText(evento.getData().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-		lblParticipantes.setText(evento.getParticipantes().size() + " participantes");
+		lblParticipantes.setText(evento.getQuantidadeParticipantes() + " participantes");
 		lblLocal.setText(evento.getLocal());
 		lblPalestrante.setText(evento.getPalestrante());
 
@@ -236,7 +237,7 @@ public class CardEventoController {
 		if (organizador != null && organizador.getUsername() != null) {
 		    Tooltip.install(imgPerfilOrganizador, new Tooltip("Ver perfil do organizador"));
 		    imgPerfilOrganizador.setStyle("-fx-cursor: hand;");
-		    imgPerfilOrganizador.setOnMouseClicked(event -> abrirPerfilUsuario(organizador.getUsername()));
+		    imgPerfilOrganizador.setOnMouseClicked(event -> abrirPerfilUsuario(organizador.getId()));
 		}
 	}
 
@@ -470,7 +471,7 @@ public class CardEventoController {
 			btnParticipar.setText(isParticipante ? "Cancelar" : "Participar");
 
 		}
-		lblParticipantes.setText(evento.getParticipantes().size() + " participantes");
+		lblParticipantes.setText(evento.getQuantidadeParticipantes() + " participantes");
 	}
 
 
@@ -679,7 +680,7 @@ public class CardEventoController {
 
 		boolean sucesso;
 		if (jaCurtiu) {
-			sucesso = evento.descurtirEvento(usuarioLogado);
+			sucesso = eventoService.tentarDescurtirEvento(evento, usuarioLogado);
 			if (sucesso) {
 				jaCurtiu = false;
 				Notificacao notificacao = new Notificacao(
@@ -689,7 +690,7 @@ public class CardEventoController {
 				NotificacaoService.getInstance().registrarNotificacao(usuarioLogado.getId(), notificacao);
 			}
 		} else {
-			sucesso = evento.curtirEvento(usuarioLogado);
+			sucesso = eventoService.tentarCurtirEvento(evento, usuarioLogado);
 			if (sucesso) {
 				Notificacao notificacao = new Notificacao(
 						"Você curtiu o evento '" + evento.getTitulo() + "'",
@@ -727,7 +728,7 @@ public class CardEventoController {
 
 	private void inicializarCurtida() {
 		if (usuarioLogado != null) {
-			jaCurtiu = evento.getUsuariosQueCurtiram().contains(usuarioLogado.getId());
+			jaCurtiu = evento.isCurtidoPor(usuarioLogado.getId());
 		} else {
 			jaCurtiu = false;
 		}
@@ -770,7 +771,7 @@ public class CardEventoController {
 				}
 
 				// Adiciona clique na foto para abrir perfil
-				fotoUsuario.setOnMouseClicked(event -> abrirPerfilUsuario(comentario.nomeUsuario));
+				fotoUsuario.setOnMouseClicked(event -> abrirPerfilUsuario(comentario.usuarioId));
 				fotoUsuario.setStyle("-fx-cursor: hand;");
 
 
@@ -785,7 +786,7 @@ public class CardEventoController {
 
 			// Nome do usuário
 			Label nomeLabel = new Label(comentario.nomeUsuario);
-			nomeLabel.setOnMouseClicked(event -> abrirPerfilUsuario(comentario.nomeUsuario));
+			nomeLabel.setOnMouseClicked(event -> abrirPerfilUsuario(comentario.usuarioId));
 			nomeLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 12px; -fx-text-fill: #3a6cd1; -fx-cursor: hand;");
 
 
@@ -834,11 +835,13 @@ public class CardEventoController {
 
 	private static class ComentarioComUsuario {
 		String texto;
+		int usuarioId;
 		String nomeUsuario;
 		String fotoUsuario;
 
 		public ComentarioComUsuario(String texto, Usuario usuario) {
 			this.texto = texto;
+			this.usuarioId = usuario.getId();
 			this.nomeUsuario = usuario.getUsername() != null ? usuario.getUsername() : usuario.getNome();
 			this.fotoUsuario = usuario.getCaminhoFotoPerfil();
 		}
@@ -858,8 +861,10 @@ public class CardEventoController {
 		carregarComentarios();
 	}
 
-	private void abrirPerfilUsuario(String nomeUsuario) {
-		Usuario usuarioVisualizado = usuarioService.buscarPorUsername(nomeUsuario);
+	// Pelo id do autor ou organizador, nunca pelo nome exibido: um nome sem username exato não
+	// pode abrir o perfil de outra pessoa
+	private void abrirPerfilUsuario(int usuarioId) {
+		Usuario usuarioVisualizado = usuarioService.buscarPorId(usuarioId);
 		if (usuarioVisualizado == null) {
 			mostrarAlerta("Usuário não encontrado.");
 			return;
@@ -13,6 +13,7 @@ import javafx.geometry.Pos;
 
 import model.Usuario;
 import model.Badge;
+import service.UsuarioService;
 
 import java.io.File;
 import java.io.InputStream;
@@ -31,6 +32,7 @@ public class PerfilUsuarioController {
 
     private Usuario usuarioVisualizado; // usuário do perfil aberto
     private Usuario usuarioLogado;      // usuário logado no sistema
+    private final UsuarioService usuarioService = UsuarioService.getInstance();
 
     private static final String ICONE_PADRAO_PATH_1 = "/profile/badge.png";
     private static final String ICONE_PADRAO_PATH_2 = "/resources/profile/badge.png";
@@ -141,19 +143,22 @@ public class PerfilUsuarioController {
         if (usuarioVisualizado.equals(usuarioLogado)) {
             btnEnviarPedido.setDisable(true);
             btnEnviarPedido.setText("Este é você");
-        } else if (usuarioLogado.getAmigos().contains(usuarioVisualizado)) {
+        } else if (usuarioService.saoAmigos(usuarioLogado, usuarioVisualizado)) {
             btnEnviarPedido.setDisable(true);
             btnEnviarPedido.setText("Já é seu amigo");
-        } else if (usuarioLogado.getPedidosEnviados().contains(usuarioVisualizado)) {
+        } else if (usuarioService.temPedidoDeAmizade(usuarioLogado, usuarioVisualizado)) {
             btnEnviarPedido.setDisable(true);
             btnEnviarPedido.setText("Pedido enviado");
-        } else if (usuarioLogado.getPedidosRecebidos().contains(usuarioVisualizado)) {
+        } else if (usuarioService.temPedidoDeAmizade(usuarioVisualizado, usuarioLogado)) {
             btnEnviarPedido.setDisable(true);
             btnEnviarPedido.setText("Pedido recebido");
         } else {
             btnEnviarPedido.setDisable(false);
             btnEnviarPedido.setText("Enviar Pedido de Amizade");
         }
+        int emComum = usuarioService.contarAmigosEmComum(usuarioLogado, usuarioVisualizado);
+        btnEnviarPedido.setTooltip(emComum > 0 && !usuarioVisualizado.equals(usuarioLogado)
+                ? new Tooltip(emComum == 1 ? "1 amigo em comum" : emComum + " amigos em comum") : null);
         btnEnviarPedido.setVisible(true);
     }
 
@@ -163,7 +168,7 @@ public class PerfilUsuarioController {
             return;
         }
 
-        usuarioLogado.enviarPedido(usuarioVisualizado);
+        usuarioService.enviarPedidoDeAmizade(usuarioLogado, usuarioVisualizado);
         atualizarBotaoPedido();
 
         Alert alerta = new Alert(Alert.AlertType.INFORMATION);
@@ -0,0 +1,124 @@
+/*
+ * Sugestões de usuários enquanto se digita, em um menu logo abaixo do campo de texto.
+ *
+ * Responsabilidades principais:
+ * - ativarMencoes(): autocompletar de @menções em comentários e no chat; ao escolher um usuário,
+ *   o "@trecho" digitado é trocado por "@username "
+ * - ativarBusca(): busca de usuários pelo texto inteiro do campo (busca de amigos); ao escolher,
+ *   o usuário é entregue a quem ativou
+ *
+ * As sugestões vêm de UsuarioService.buscarUsuarios() (prefixo do username ou do nome, com
+ * tolerância a erros de digitação, amigos e eventos em comum primeiro). A busca leva dezenas de
+ * microssegundos, então roda direto na thread do JavaFX a cada tecla.
+ */
+
+package controllers;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+import model.Usuario;
+import service.UsuarioService;
+import session.SessaoUsuario;
+
+public final class SugestoesUsuarios {
+
+	private static final int MAXIMO_SUGESTOES = 6;
+	private static final String CHAVE_PROPRIEDADE = "sugestoesUsuarios";
+
+	private final TextField campo;
+	private final boolean mencoes;
+	private final Consumer<Usuario> aoEscolher;
+	private final ContextMenu menu = new ContextMenu();
+
+	private SugestoesUsuarios(TextField campo, boolean mencoes, Consumer<Usuario> aoEscolher) {
+		this.campo = campo;
+		this.mencoes = mencoes;
+		this.aoEscolher = aoEscolher;
+		campo.textProperty().addListener((obs, antigo, novo) -> atualizar());
+		campo.caretPositionProperty().addListener((obs, antiga, nova) -> atualizar());
+		campo.focusedProperty().addListener((obs, antes, agora) -> {
+			if (!agora) {
+				menu.hide();
+			}
+		});
+	}
+
+	public static void ativarMencoes(TextField campo) {
+		ativar(campo, true, null);
+	}
+
+	public static void ativarBusca(TextField campo, Consumer<Usuario> aoEscolher) {
+		ativar(campo, false, aoEscolher);
+	}
+
+	// Um campo reaproveitado (setEvento chamado de novo no mesmo card) não ganha um segundo menu
+	private static void ativar(TextField campo, boolean mencoes, Consumer<Usuario> aoEscolher) {
+		if (!campo.getProperties().containsKey(CHAVE_PROPRIEDADE)) {
+			campo.getProperties().put(CHAVE_PROPRIEDADE, new SugestoesUsuarios(campo, mencoes, aoEscolher));
+		}
+	}
+
+	private void atualizar() {
+		String texto = campo.getText() == null ? "" : campo.getText();
+		int cursor = Math.min(campo.getCaretPosition(), texto.length());
+		int inicio = mencoes ? inicioMencao(texto, cursor) : 0;
+		String consulta = inicio < 0 ? "" : texto.substring(inicio, mencoes ? cursor : texto.length()).trim();
+		if (consulta.isEmpty() || (mencoes && consulta.equals("@"))) {
+			menu.hide();
+			return;
+		}
+
+		Usuario logado = SessaoUsuario.getInstance().getUsuario();
+		List<Usuario> encontrados = UsuarioService.getInstance().buscarUsuarios(consulta, logado, MAXIMO_SUGESTOES);
+		if (encontrados.isEmpty()) {
+			menu.hide();
+			return;
+		}
+		menu.getItems().clear();
+		for (Usuario usuario : encontrados) {
+			MenuItem item = new MenuItem("@" + usuario.getUsername() + " — " + usuario.getNomeCompleto());
+			item.setOnAction(e -> escolher(usuario, inicio, cursor));
+			menu.getItems().add(item);
+		}
+		if (!menu.isShowing()) {
+			menu.show(campo, Side.BOTTOM, 0, 0);
+		}
+	}
+
+	private void escolher(Usuario usuario, int inicio, int cursor) {
+		menu.hide();
+		if (!mencoes) {
+			aoEscolher.accept(usuario);
+			return;
+		}
+		String texto = campo.getText();
+		String mencao = "@" + usuario.getUsername() + " ";
+		campo.setText(texto.substring(0, inicio) + mencao + texto.substring(Math.min(cursor, texto.length())));
+		campo.positionCaret(inicio + mencao.length());
+	}
+
+	/**
+	 * Posição do "@" da menção que está sendo digitada antes do cursor, ou -1. O "@" precisa
+	 * estar no início do texto ou depois de um espaço (e-mails não abrem sugestões).
+	 */
+	static int inicioMencao(String texto, int cursor) {
+		int i = cursor;
+		while (i > 0 && parteDeUsername(texto.charAt(i - 1))) {
+			i--;
+		}
+		if (i == 0 || texto.charAt(i - 1) != '@') {
+			return -1;
+		}
+		int arroba = i - 1;
+		return arroba == 0 || Character.isWhitespace(texto.charAt(arroba - 1)) ? arroba : -1;
+	}
+
+	private static boolean parteDeUsername(char letra) {
+		return Character.isLetterOrDigit(letra) || letra == '.' || letra == '_' || letra == '-';
+	}
+}
@@ -19,7 +19,7 @@
  * - Redimensionamento: Ajuste de layout responsivo
  * 
  * Fluxos principais:
- * - onBtCadastrarUsuario(): Processa e valida o cadastro inicial
+ * - onBtCadastrarUsuario(): Processa e valida o cadastro inicial (o hash da senha roda em segundo plano)
  * - onBtnEntrar(): Navegação para tela de login
  * - initialize(): Configuração inicial dos componentes
  * - toggleSenhaVisibility(): Alterna a visibilidade do campo de senha principal
@@ -35,6 +35,7 @@
 package controllers;
 
 import java.io.IOException;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -119,22 +120,37 @@ public class TelaCadastroController {
 			return;
 		}
 
-		for (Usuario u : usuarioService.getUsuarios()) {
-			if (u.getEmail().equalsIgnoreCase(email)) {
-				a.mostrarAlerta("Erro de Cadastro", "Email já cadastrado. Tente novamente");
-				return;
-			}
+		if (!usuarioService.isEmailDisponivel(email, null)) {
+			a.mostrarAlerta("Erro de Cadastro", "Email já cadastrado. Tente novamente");
+			return;
+		}
+
+		if (!usuarioService.isUsernameDisponivel(userName, null)) {
+			a.mostrarAlerta("Erro de Cadastro", "Nome de usuário já cadastrado. Tente outro");
+			return;
 		}
 
-		Usuario novo = usuarioService.iniciarCadastro(nome, sobrenome, userName, email, senha);
+		// O hash da senha é calculado fora da thread do JavaFX
+		Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+		btnConfirma.setDisable(true);
+		usuarioService.iniciarCadastroAsync(nome, sobrenome, userName, email, senha)
+				.whenComplete((novo, erro) -> Platform.runLater(() -> {
+					btnConfirma.setDisable(false);
+					concluirCadastro(stage, novo, erro, nome, email);
+				}));
+	}
 
-		if (novo == null) {
+	private void concluirCadastro(Stage stage, Usuario novo, Throwable erro, String nome, String email) {
+		Alertas a = new Alertas();
+		if (erro != null) {
+			a.mostrarAlerta("Erro", "Não foi possível concluir o cadastro agora. Tente novamente.");
+			return;
+		}
+		if (novo == null || !usuarioService.completarCadastro(novo)) {
 			a.mostrarAlerta("Erro", "Dados inválidos para cadastro");
 			return;
 		}
 
-		usuarioService.completarCadastro(novo);
-
 		EmailConfirmationService.iniciarConfirmacaoEmail(email, nome);
 		a.mostrarAlerta("Cadastro efetuado", "Um e-mail de confirmação foi enviado para " + email
 				+ ". Por favor, confirme seu e-mail antes de acessar o sistema.");
@@ -142,7 +158,6 @@ public class TelaCadastroController {
 		try {
 			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/TelaLogin.fxml"));
 			Parent root = loader.load();
-			Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 			stage.setScene(new Scene(root, stage.getWidth(), stage.getHeight()));
 			stage.show();
 		} catch (IOException e) {
@@ -141,11 +141,9 @@ public class TelaCriarEventoController {
 			evento.setTipo(cbTipoEvento.getValue());
 
 			eventoService.criarEvento(evento);
-			usuarioLogado.organizarEvento(evento);
 
 			// Adiciona o organizador como participante com presença confirmada
-			evento.adicionarParticipante(usuarioLogado);
-			usuarioLogado.participarEvento(evento);
+			eventoService.adicionarParticipante(evento.getId(), usuarioLogado.getId());
 			eventoService.marcarPresenca(evento.getId(), usuarioLogado.getId());
 
 			txtTitulo.getScene().getWindow().hide();
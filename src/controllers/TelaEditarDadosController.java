@@ -19,6 +19,7 @@
  * Validações implementadas:
  * - Campos obrigatórios
  * - Formato de email válido
+ * - E-mail e nome de usuário não pertencentes a outra conta
  * - Formato de telefone válido
  * - Idade mínima (14 anos)
  * 
@@ -104,15 +105,21 @@ public class TelaEditarDadosController {
 			return;
 		}
 
-		usuarioLogado.setNome(nome);
-		usuarioLogado.setUsername(username);
+		if (!usuarioService.isUsernameDisponivel(username, usuarioLogado)) {
+			mostrarAlerta("Nome de usuário em uso", "Esse nome de usuário já pertence a outra conta.",
+					Alert.AlertType.WARNING);
+			return;
+		}
 
-		if (usuarioLogado.getCpf() != null) {
-			String telefone = txtTelefone.getText();
-			String email = txtEmail.getText();
-			String genero = cbGenero.getValue();
-			LocalDate dataNascimento = datePickerDataNascimento.getValue();
+		// Todas as validações vêm antes de qualquer alteração: o Usuario é o mesmo objeto guardado
+		// no UsuarioService, e uma troca de username ou e-mail só é reindexada em completarCadastro()
+		boolean completo = usuarioLogado.getCpf() != null;
+		String telefone = txtTelefone.getText();
+		String email = txtEmail.getText();
+		String genero = cbGenero.getValue();
+		LocalDate dataNascimento = datePickerDataNascimento.getValue();
 
+		if (completo) {
 			if (telefone.isEmpty() || email.isEmpty() || genero == null || dataNascimento == null) {
 				mostrarAlerta("Campos obrigatórios", "Todos os campos devem ser preenchidos.", Alert.AlertType.WARNING);
 				return;
@@ -123,6 +130,11 @@ public class TelaEditarDadosController {
 				return;
 			}
 
+			if (!usuarioService.isEmailDisponivel(email, usuarioLogado)) {
+				mostrarAlerta("E-mail em uso", "Esse e-mail já pertence a outra conta.", Alert.AlertType.WARNING);
+				return;
+			}
+
 			if (!usuarioService.validarTelefone(telefone)) {
 				mostrarAlerta("Telefone inválido", "Digite um telefone válido com 10 ou 11 dígitos.",
 						Alert.AlertType.WARNING);
@@ -133,7 +145,20 @@ public class TelaEditarDadosController {
 				mostrarAlerta("Data inválida", "Usuário deve ter pelo menos 14 anos.", Alert.AlertType.WARNING);
 				return;
 			}
+		}
 
+		// Valores atuais, para desfazer se completarCadastro() recusar (ex.: o username foi
+		// tomado por outra conta depois da conferência acima)
+		String nomeAnterior = usuarioLogado.getNome();
+		String usernameAnterior = usuarioLogado.getUsername();
+		String telefoneAnterior = usuarioLogado.getTelefone();
+		String emailAnterior = usuarioLogado.getEmail();
+		String generoAnterior = usuarioLogado.getGenero();
+		LocalDate dataNascimentoAnterior = usuarioLogado.getDataNascimento();
+
+		usuarioLogado.setNome(nome);
+		usuarioLogado.setUsername(username);
+		if (completo) {
 			usuarioLogado.setTelefone(telefone);
 			usuarioLogado.setEmail(email);
 			usuarioLogado.setGenero(genero);
@@ -154,6 +179,12 @@ public class TelaEditarDadosController {
 			Stage stage = (Stage) btnSalvar.getScene().getWindow();
 			stage.close();
 		} else {
+			usuarioLogado.setNome(nomeAnterior);
+			usuarioLogado.setUsername(usernameAnterior);
+			usuarioLogado.setTelefone(telefoneAnterior);
+			usuarioLogado.setEmail(emailAnterior);
+			usuarioLogado.setGenero(generoAnterior);
+			usuarioLogado.setDataNascimento(dataNascimentoAnterior);
 			mostrarAlerta("Erro", "Erro ao salvar dados. Tente novamente.", Alert.AlertType.ERROR);
 		}
 	}
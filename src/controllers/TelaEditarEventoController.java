@@ -22,7 +22,8 @@
  * - Confirmação para exclusão
  * 
  * Fluxos principais:
- * - handleEditarEvento(): Salva as alterações no evento
+ * - handleEditarEvento(): Salva as alterações no evento como uma EdicaoEvento, conferindo a versão
+ *   lida ao abrir a tela; se o evento mudou nesse meio tempo, recarrega os campos e avisa
  * - handleExcluirEvento(): Remove o evento com confirmação
  * - handleSelecionarImagem(): Abre diálogo para seleção de imagem
  * 
@@ -46,11 +47,13 @@ import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
 import javafx.stage.FileChooser;
+import model.EdicaoEvento;
 import model.Evento;
 import model.Notificacao;
 import model.Usuario;
 import service.EventoService;
 import service.NotificacaoService;
+import service.ResultadoEdicao;
 
 public class TelaEditarEventoController {
 	
@@ -69,6 +72,7 @@ public class TelaEditarEventoController {
 	private Usuario usuarioLogado;
 	private EventoService eventoService = EventoService.getInstance();
 	private Evento evento;
+	private long versaoLida;
 
 	public void setUsuarioLogado(Usuario usuario) {
 		this.usuarioLogado = usuario;
@@ -77,6 +81,7 @@ public class TelaEditarEventoController {
 	public void setEvento(Evento evento) {
 		this.evento = evento;
 		if (evento != null) {
+			versaoLida = evento.getVersao();
 			preencherCamposComEvento(evento);
 		}
 	}
@@ -160,19 +165,26 @@ public class TelaEditarEventoController {
 			java.time.LocalTime hora = java.time.LocalTime.parse(horaTexto);
 			LocalDateTime dataHora = LocalDateTime.of(dateData.getValue(), hora);
 
-			evento.setTitulo(txtTitulo.getText());
-			evento.setDescricao(txtDescricao.getText());
-			evento.setData(dataHora);
-			evento.setLocal(txtLocal.getText());
-			evento.setImagem(txtImagem.getText());
-			evento.setCategoria(cbCategoria.getValue());
-			evento.setPrivado(checkPrivado.isSelected());
-			evento.setPalestrante(txtPalestrante.getText());
-			evento.setTipo(cbTipo.getValue());
-			evento.setBadgePath(txtBadge.getText());
-
-
-			eventoService.atualizarEvento(evento);
+			EdicaoEvento edicao = new EdicaoEvento().comTitulo(txtTitulo.getText())
+					.comDescricao(txtDescricao.getText()).comData(dataHora).comLocal(txtLocal.getText())
+					.comImagem(txtImagem.getText()).comCategoria(cbCategoria.getValue())
+					.comPrivado(checkPrivado.isSelected()).comPalestrante(txtPalestrante.getText())
+					.comTipo(cbTipo.getValue()).comBadgePath(txtBadge.getText());
+
+			ResultadoEdicao resultado = eventoService.editarEvento(evento.getId(), versaoLida, edicao);
+			if (resultado.getSituacao() == ResultadoEdicao.Situacao.VERSAO_DESATUALIZADA) {
+				Alert alert = new Alert(Alert.AlertType.WARNING);
+				alert.setTitle("Evento alterado");
+				alert.setHeaderText("O evento foi alterado enquanto você editava");
+				alert.setContentText("Os campos foram recarregados com os dados atuais. Revise e salve novamente.");
+				alert.showAndWait();
+				setEvento(eventoService.buscarEventoPorId(evento.getId()));
+				return;
+			}
+			if (!resultado.isAplicada()) {
+				txtTitulo.getScene().getWindow().hide();
+				return;
+			}
 
 			Notificacao notificacao = new Notificacao("Você editou o evento '" + evento.getTitulo() + "'",
 					LocalDateTime.now(), false, Notificacao.Tipo.HISTORICO, "Sistema");
@@ -30,8 +30,6 @@
 
 package controllers;
 
-import java.time.LocalDateTime;
-
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -39,7 +37,6 @@ import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextArea;
 import javafx.stage.Stage;
 import model.Evento;
-import model.Notificacao;
 import model.Usuario;
 import otp.EmailSender;
 import service.NotificacaoService;
@@ -75,12 +72,12 @@ public class TelaEnviarNotificacaoController {
 			return;
 		}
 
-		for (Usuario participante : evento.getParticipantes()) {
-			Notificacao notificacao = new Notificacao(mensagem, LocalDateTime.now(), enviarPorEmail,
-					Notificacao.Tipo.ALERTA, organizador.getNome());
-			NotificacaoService.getInstance().registrarNotificacao(participante.getId(), notificacao);
+		// Uma notificação para todos os participantes, gravada em lote
+		NotificacaoService.getInstance().enviarNotificacaoParaParticipantes(evento.getId(), mensagem, enviarPorEmail,
+				organizador.getNome());
 
-			if (enviarPorEmail) {
+		if (enviarPorEmail) {
+			for (Usuario participante : evento.getParticipantes()) {
 				try {
 					EmailSender.sendEmail(participante.getEmail(), "Notificação sobre o evento: " + evento.getTitulo(),
 							mensagem);
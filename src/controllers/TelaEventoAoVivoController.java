@@ -3,7 +3,7 @@
  * Inicializa o WebEngine do WebView. Preparação básica da interface.
  * 
  * setEvento(Evento)
- * Define o evento atual e o usuário logado. Carrega o histórico de mensagens com base no evento. Utiliza List<MensagemChat>, Map<String, Boolean> e Set<String>.
+ * Define o evento atual e o usuário logado. Carrega a última página do chat (ChatService.buscarUltimas) e assina as próximas mensagens. Utiliza List<MensagemChat>, Map<String, Boolean> e Set<String>.
  * 
  * handleToggleAcesso()
  * Alterna o estado de acesso (liberado/trancado) para o evento e atualiza visualmente o botão correspondente.
@@ -11,8 +11,11 @@
  * atualizarBotaoAcesso()
  * Altera o texto e estilo do botão de acordo com o estado atual do acesso do evento.
  * 
- * startChatAutoRefresh()
- * Cria um Timeline (JavaFX) que atualiza o chat automaticamente a cada 3 segundos. Utiliza List e iteração para preencher o chat.
+ * mostrarBotaoAnteriores(LoteChat)
+ * Botão no topo do chat que carrega a página anterior (ChatService.buscarAnteriores), mesmo que já esteja arquivada em disco, e a insere acima das mensagens exibidas.
+ * 
+ * assinarChat(long desde)
+ * Assina o chat do evento no ChatService a partir da última sequência carregada. Cada lote chega na thread do JavaFX e só acrescenta as mensagens novas e tira as removidas (lápides), sem recriar o chat inteiro.
  * 
  * mostrarSemVideo()
  * Exibe uma mensagem de "Vídeo indisponível" no WebView, com HTML personalizado.
@@ -27,10 +30,7 @@
  * Extrai o ID do vídeo do YouTube de diferentes tipos de URL. Uso de manipulação de `String`.
  * 
  * handleEnviarMensagem()
- * Envia a mensagem digitada para o chat usando ChatService e atualiza a interface.
- * 
- * refreshMensagens()
- * Atualiza a exibição das mensagens no VBox de mensagens. Utiliza List.
+ * Envia a mensagem digitada para o chat usando ChatService; ela volta para a tela pela assinatura, como as dos outros participantes.
  * 
  * adicionarMensagemNaInterface(MensagemChat)
  * Interpreta e exibe diferentes tipos de mensagens (mão levantada, ACK, texto comum). Uso de estruturas:
@@ -38,7 +38,7 @@
  * - `Map<String, Boolean>` para destacar mensagens de usuários aguardando resposta.
  * 
  * handleSairEvento()
- * Encerra o evento ao vivo. Para o refresh automático e fecha a janela.
+ * Encerra o evento ao vivo. Cancela a assinatura do chat e fecha a janela.
  * 
  * handleLevantarMao()
  * Envia uma mensagem especial "[HAND_RAISE]" para o organizador. Exibe alerta para o participante.
@@ -47,25 +47,25 @@
  * - List<MensagemChat>: para armazenar e percorrer o histórico de mensagens.
  * - Set<String>: para armazenar nomes que já receberam ACK (evita duplicação).
  * - Map<String, Boolean>: para controlar o destaque de mensagens aguardando resposta.
+ * - Map<Long, HBox>: balão exibido de cada mensagem, pela sequência, para as remoções.
  */
 
 package controllers;
 
 import java.io.File;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -77,12 +77,14 @@ import javafx.scene.text.Text;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
-import javafx.util.Duration;
+import model.EdicaoEvento;
 import model.Evento;
 import model.Notificacao;
 import model.Usuario;
 import service.ChatService;
 import service.ChatService.MensagemChat;
+import service.EventoService;
+import service.LoteChat;
 import service.NotificacaoService;
 import session.SessaoUsuario;
 
@@ -101,7 +103,10 @@ public class TelaEventoAoVivoController {
 	private Evento evento;
 	private Usuario usuario;
 	private WebEngine webEngine;
-	private Timeline chatRefresh;
+	private static final int MENSAGENS_POR_PAGINA = 200;
+	private ChatService.Assinatura assinaturaChat;
+	// Balão de cada mensagem exibida, para tirar quando chega a lápide da remoção
+	private final Map<Long, HBox> linhasPorSequencia = new HashMap<>();
 	Usuario usuarioLogado = SessaoUsuario.getInstance().getUsuario();
 
 	private Set<String> handAckRecebidos = new HashSet<>();
@@ -109,6 +114,7 @@ public class TelaEventoAoVivoController {
 
 	public void initialize() {
 		webEngine = webView.getEngine();
+		SugestoesUsuarios.ativarMencoes(campoMensagem);
 	}
 
 	public void setEvento(Evento evento) {
@@ -129,14 +135,12 @@ public class TelaEventoAoVivoController {
 		handAckRecebidos.clear();
 
 		mensagensContainer.getChildren().clear();
+		linhasPorSequencia.clear();
 
-		List<MensagemChat> mensagens = ChatService.getInstancia().getMensagens(evento);
-		for (MensagemChat msg : mensagens) {
-			String texto = msg.getTexto();
-			if (texto.startsWith("[HAND_ACK] ")) {
-				String nomeAck = texto.replace("[HAND_ACK] ", "");
-				handAckRecebidos.add(nomeAck);
-			}
+		// Só a última página; o resto do histórico (talvez já no disco) vem pelo botão no topo
+		LoteChat historico = ChatService.getInstancia().buscarUltimas(evento.getId(), MENSAGENS_POR_PAGINA);
+		for (MensagemChat msg : historico.getMensagens()) {
+			marcarAckAntigo(msg);
 			adicionarMensagemNaInterface(msg);
 
 			Notificacao notificacao = new Notificacao("Você comentou '" + msg + "no evento" + evento.getTitulo() + "'",
@@ -151,12 +155,47 @@ public class TelaEventoAoVivoController {
 			mostrarSemVideo();
 		}
 
-		startChatAutoRefresh();
+		mostrarBotaoAnteriores(historico);
+		assinarChat(historico.getUltimaSequencia());
+	}
+
+	private void mostrarBotaoAnteriores(LoteChat pagina) {
+		if (!pagina.temMais() || pagina.getMensagens().isEmpty()) {
+			return;
+		}
+		long primeira = pagina.getMensagens().get(0).getSequencia();
+		Button btnAnteriores = new Button("Carregar mensagens anteriores");
+		btnAnteriores.setOnAction(e -> {
+			mensagensContainer.getChildren().remove(btnAnteriores);
+			LoteChat anteriores = ChatService.getInstancia().buscarAnteriores(evento.getId(), primeira,
+					MENSAGENS_POR_PAGINA);
+			// Os balões são montados no fim, como os demais, e levados para o topo
+			int antes = mensagensContainer.getChildren().size();
+			for (MensagemChat msg : anteriores.getMensagens()) {
+				marcarAckAntigo(msg);
+				adicionarMensagemNaInterface(msg);
+			}
+			List<Node> baloes = new ArrayList<>(
+					mensagensContainer.getChildren().subList(antes, mensagensContainer.getChildren().size()));
+			mensagensContainer.getChildren().remove(antes, mensagensContainer.getChildren().size());
+			mensagensContainer.getChildren().addAll(0, baloes);
+			mostrarBotaoAnteriores(anteriores);
+		});
+		mensagensContainer.getChildren().add(0, btnAnteriores);
+	}
+
+	// Atendimentos que já estavam no histórico não abrem o alerta de novo
+	private void marcarAckAntigo(MensagemChat msg) {
+		String texto = msg.getTexto();
+		if (texto.startsWith("[HAND_ACK] ")) {
+			handAckRecebidos.add(texto.replace("[HAND_ACK] ", ""));
+		}
 	}
 
 	@FXML
 	private void handleToggleAcesso() {
-		evento.setAcessoLiberado(!evento.isAcessoLiberado());
+		EventoService.getInstance().editarEvento(evento.getId(),
+				new EdicaoEvento().comAcessoLiberado(!evento.isAcessoLiberado()));
 		atualizarBotaoAcesso();
 	}
 
@@ -170,21 +209,19 @@ public class TelaEventoAoVivoController {
 		}
 	}
 
-	private void startChatAutoRefresh() {
-		chatRefresh = new Timeline(new KeyFrame(Duration.seconds(3), event -> {
-			List<MensagemChat> mensagens = ChatService.getInstancia().getMensagens(evento);
-			mensagensContainer.getChildren().clear();
-			for (MensagemChat msg : mensagens) {
-				String texto = msg.getTexto();
-				if (texto.startsWith("[HAND_ACK] ")) {
-					String nomeAck = texto.replace("[HAND_ACK] ", "");
-					handAckRecebidos.add(nomeAck);
+	// Só o que chegou depois do histórico, em lotes na thread do JavaFX
+	private void assinarChat(long desde) {
+		assinaturaChat = ChatService.getInstancia().assinar(evento.getId(), desde, Platform::runLater, lote -> {
+			for (Long removida : lote.getRemovidas()) {
+				HBox linha = linhasPorSequencia.remove(removida);
+				if (linha != null) {
+					mensagensContainer.getChildren().remove(linha);
 				}
+			}
+			for (MensagemChat msg : lote.getMensagens()) {
 				adicionarMensagemNaInterface(msg);
 			}
-		}));
-		chatRefresh.setCycleCount(Animation.INDEFINITE);
-		chatRefresh.play();
+		});
 	}
 
 	private void mostrarSemVideo() {
@@ -207,13 +244,13 @@ public class TelaEventoAoVivoController {
 			if (arquivo != null) {
 				String caminho = arquivo.toURI().toString();
 				carregarVideo(caminho);
-				evento.setUrlVideo(caminho);
+				EventoService.getInstance().editarEvento(evento.getId(), new EdicaoEvento().comUrlVideo(caminho));
 			} else {
 				mostrarSemVideo();
 			}
 
 		} else {
-			evento.setUrlVideo(url);
+			EventoService.getInstance().editarEvento(evento.getId(), new EdicaoEvento().comUrlVideo(url));
 			carregarVideo(url);
 		}
 	}
@@ -279,15 +316,6 @@ public class TelaEventoAoVivoController {
 		if (!msg.isEmpty()) {
 			ChatService.getInstancia().adicionarMensagem(evento, usuario.getId(), usuario.getNome() + ": " + msg);
 			campoMensagem.clear();
-			refreshMensagens();
-		}
-	}
-
-	private void refreshMensagens() {
-		List<MensagemChat> mensagens = ChatService.getInstancia().getMensagens(evento);
-		mensagensContainer.getChildren().clear();
-		for (MensagemChat msg : mensagens) {
-			adicionarMensagemNaInterface(msg);
 		}
 	}
 
@@ -297,6 +325,7 @@ public class TelaEventoAoVivoController {
 		linhaMensagem.setSpacing(10);
 		linhaMensagem.setAlignment(Pos.CENTER_LEFT);
 		linhaMensagem.setPadding(new Insets(5));
+		linhasPorSequencia.put(mensagem.getSequencia(), linhaMensagem);
 
 		if (texto.startsWith("[HAND_RAISE] ")) {
 			String nomeSolicitante = texto.replace("[HAND_RAISE] ", "");
@@ -373,8 +402,8 @@ public class TelaEventoAoVivoController {
 
 	@FXML
 	private void handleSairEvento() {
-		if (chatRefresh != null) {
-			chatRefresh.stop();
+		if (assinaturaChat != null) {
+			assinaturaChat.cancelar();
 		}
 		webEngine.load(null);
 		webView.getScene().getWindow().hide();
@@ -384,7 +413,7 @@ public class TelaEventoAoVivoController {
 	private void handleLevantarMao() {
 		String msg = "[HAND_RAISE] " + usuario.getNome();
 		ChatService.getInstancia().adicionarMensagem(evento, usuario.getId(), msg);
-		refreshMensagens();
+		ChatService.getInstancia().registrarMaoLevantada(evento, usuario.getId());
 		Alert alert = new Alert(Alert.AlertType.INFORMATION, "Você levantou a mão! Aguarde o organizador.");
 		alert.showAndWait();
 	}
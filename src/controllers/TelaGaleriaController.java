@@ -60,6 +60,7 @@ import javafx.stage.Stage;
 import model.Evento;
 import model.Notificacao;
 import model.Usuario;
+import service.EventoService;
 import service.NotificacaoService;
 
 public class TelaGaleriaController {
@@ -233,6 +234,7 @@ public class TelaGaleriaController {
 						evento.getGaleriaFotos().remove(caminho);
 						curtidasPorImagem.remove(caminho);
 						comentariosPorImagem.remove(caminho);
+						EventoService.getInstance().atualizarEvento(evento);
 						carregarFotos();
 					});
 					vbox.getChildren().add(btnExcluir);
@@ -285,6 +287,7 @@ public class TelaGaleriaController {
 			}
 
 			if (adicionou) {
+				EventoService.getInstance().atualizarEvento(evento);
 				carregarFotos();
 				mostrarMensagem("Imagem(ns) adicionada(s) com sucesso!");
 			} else {
@@ -7,10 +7,10 @@
  * 
  * onBtnLogar(ActionEvent)
  * Fluxo principal de login do usuário:
- * - Recupera e valida credenciais (usuário/senha) via `UsuarioService`.
+ * - Valida as credenciais via `UsuarioService.autenticar()`, em segundo plano (botão desabilitado
+ *   até a resposta); o resultado volta para a thread do JavaFX com `Platform.runLater`.
  * - Verifica se o e-mail está confirmado via `EmailTokenStore`.
  * - Em caso de sucesso:
- *   - Recupera o usuário completo.
  *   - Salva o usuário na sessão (`SessaoUsuario`).
  *   - Carrega a `TelaMenu.fxml` e inicia nova cena com os dados do usuário.
  * - Em caso de falha:
@@ -37,6 +37,7 @@ package controllers;
 
 import java.io.IOException;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -94,10 +95,10 @@ public class TelaLoginController {
 	/*
 	 * onBtnLogar(ActionEvent)
 	 * Fluxo principal de login do usuário:
-	 * - Recupera e valida credenciais (usuário/senha) via `UsuarioService`.
+	 * - Valida as credenciais via `UsuarioService.autenticar()`, em segundo plano (botão desabilitado
+	 *   até a resposta); o resultado volta para a thread do JavaFX com `Platform.runLater`.
 	 * - Verifica se o e-mail está confirmado via `EmailTokenStore`.
 	 * - Em caso de sucesso:
-	 *   - Recupera o usuário completo.
 	 *   - Salva o usuário na sessão (`SessaoUsuario`).
 	 *   - Carrega a `TelaMenu.fxml` e inicia nova cena com os dados do usuário.
 	 * - Em caso de falha:
@@ -109,14 +110,28 @@ public class TelaLoginController {
 		String email = txtUsuarioLogin.getText();
 		String senha = txtSenhaLogin.isVisible() ? txtSenhaLogin.getText() : txtSenhaLoginVisible.getText();
 
-		if (usuarioService.fazerLogin(email, senha)) {
+		// A conferência da senha é lenta de propósito: roda fora da thread do JavaFX
+		Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+		btnLogar.setDisable(true);
+		usuarioService.autenticar(email, senha).whenComplete((usuario, erro) -> Platform.runLater(() -> {
+			btnLogar.setDisable(false);
+			if (erro != null) {
+				a.mostrarAlerta("Erro!!", "Não foi possível entrar agora. Tente novamente.");
+			} else {
+				concluirLogin(stage, usuario, email);
+			}
+		}));
+	}
+
+	private void concluirLogin(Stage stage, Usuario usuario, String email) {
+		Alertas a = new Alertas();
+		if (usuario != null) {
 			if (!EmailTokenStore.isEmailConfirmed(email)) {
 				a.mostrarAlerta("Acesso negado", "Você precisa confirmar seu e-mail antes de acessar.");
 				return;
 			}
 
 			try {
-				Usuario usuario = usuarioService.getUsuarioPorEmail(email);
 				FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/TelaMenu.fxml"));
 				Parent root = loader.load();
 
@@ -124,7 +139,6 @@ public class TelaLoginController {
 				controller.setUsuarioLogado(usuario);
 				SessaoUsuario.getInstance().setUsuario(usuario);
 
-				Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 				stage.setScene(new Scene(root, stage.getWidth(), stage.getHeight()));
 				stage.show();
 			} catch (IOException e) {
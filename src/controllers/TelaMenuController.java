@@ -11,10 +11,29 @@
  * - Carrega eventos disponíveis para o usuário.
  * 
  * carregarEventos()
- * - Recupera a lista de eventos via `EventoService` com base no usuário logado.
- * - Para cada evento, gera dinamicamente um card visual com `criarCardEvento()`.
+ * - Exibe o feed do usuário logado, paginado, via `EventoService`.
+ *
+ * exibirPaginado(Function<String, Pagina<Evento>>), carregarProximaPagina()
+ * - Mostram a primeira página de uma consulta e, ao rolar até o fim, pedem a próxima com o cursor
+ *   devolvido pela anterior. Só os cards da página nova são criados.
  * - Exibe mensagem informativa se nenhum evento for encontrado.
  *
+ * assinarAlteracoes(), aplicarAlteracoes(Set<Integer>)
+ * - Assina o `BarramentoAlteracoes` ao definir o usuário. Quando um evento exibido muda (edição,
+ *   participantes, presença, curtidas, comentários), só o card dele é recriado, no mesmo lugar; se
+ *   foi removido ou o usuário perdeu o acesso, o card sai da lista. Eventos novos aparecem no
+ *   próximo recarregamento.
+ * - Se o assinante ficar para trás e perder alterações, recarrega a lista inteira.
+ * - A assinatura é cancelada quando a tela sai de cena.
+ *
+ * atualizarBarraCategorias(String)
+ * - Monta os botões de categoria com a quantidade de eventos do resultado exibido.
+ * - As contagens vêm do índice de categorias do `EventoService`, sem carregar os eventos.
+ *
+ * filtrarPorCategoria(String termo, String categoria)
+ * - Exibe os eventos da pesquisa atual que são da categoria escolhida e que o usuário pode ver,
+ *   os mesmos contados no botão.
+ *
  * criarCardEvento(Evento)
  * - Carrega visual do evento via `CardEvento.fxml`.
  * - Injeta o controller com o evento e o usuário logado.
@@ -34,11 +53,11 @@
  * - Exibe resultado filtrado ou mensagem se nenhum for encontrado.
  *
  * handleListarPor()
- * - Exibe um diálogo de confirmação perguntando como o usuário deseja listar os eventos (por curtidas ou por data).
+ * - Exibe um diálogo de confirmação perguntando como o usuário deseja listar os eventos (por curtidas, em alta ou por data).
  * - Dispara métodos de listagem conforme a opção escolhida.
  *
- * listarEventosPorCurtidas()
- * - Lista eventos ordenados por quantidade de curtidas.
+ * listarRanking(boolean)
+ * - Lista o ranking por curtidas ou "em alta" (curtidas e comentários recentes), paginado.
  *
  * listarTodosEventos()
  * - Lista todos os eventos sem filtro, ordenados por data (padrão).
@@ -76,10 +95,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -94,25 +119,37 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import model.Evento;
+import model.Permissao;
 import model.Usuario;
+import service.Alteracao;
+import service.AssinanteAlteracoes;
+import service.BarramentoAlteracoes;
 import service.EventoService;
+import service.Pagina;
 import service.UsuarioService;
 import session.SessaoUsuario;
 
 public class TelaMenuController {
 	private UsuarioService usuarioService = UsuarioService.getInstance();
 	private EventoService eventoService = EventoService.getInstance();
+	private static final int TAMANHO_PAGINA = 20;
+	private Function<String, Pagina<Evento>> consultaAtual;
+	private String proximoCursor;
 	private Usuario usuarioLogado;
+	private final Map<Integer, Node> cardsPorEvento = new HashMap<>();
+	private AssinanteAlteracoes assinante;
 	private int contadorCliques = 0;
 
 	@FXML private Text txtUserName;
 	@FXML private Button btnCriarEvento;
 	@FXML private Button btnPerfil;
 	@FXML private VBox containerEventos;
+	@FXML private HBox barraCategorias;
 	@FXML private TextField campoPesquisa;
 	@FXML private VBox testeVbox;
 	@FXML private ScrollPane scrollPane;
@@ -159,6 +196,13 @@ public class TelaMenuController {
 		// Configura o campo de pesquisa para buscar ao pressionar Enter
 		campoPesquisa.setOnAction(event -> handlePesquisarEventos());
 
+		// Carrega a próxima página ao chegar perto do fim da rolagem
+		scrollPane.vvalueProperty().addListener((obs, antigo, novo) -> {
+			if (novo.doubleValue() >= scrollPane.getVmax() * 0.9) {
+				carregarProximaPagina();
+			}
+		});
+
 	}
 
 	private String selecionarFraseAleatoria(List<String> frases) {
@@ -174,7 +218,67 @@ public class TelaMenuController {
 		atualizarInterfaceUsuario();
 		atualizarFotoPerfilOrganizador(usuarioLogado.getCaminhoFotoPerfil());
 		carregarEventos();
-		
+		assinarAlteracoes();
+	}
+
+	private void assinarAlteracoes() {
+		if (assinante != null) {
+			return;
+		}
+		assinante = new AssinanteAlteracoes() {
+			@Override
+			protected void processar(List<Alteracao> lote) {
+				Set<Integer> alterados = new HashSet<>();
+				for (Alteracao alteracao : lote) {
+					switch (alteracao.getTipo()) {
+					case EVENTO_ATUALIZADO, EVENTO_REMOVIDO, PARTICIPANTE_ADICIONADO, PARTICIPANTE_REMOVIDO,
+							PRESENCA_MARCADA, CURTIDA_ALTERADA, COMENTARIO_ADICIONADO -> alterados.add(alteracao.getEventoId());
+					default -> {
+					}
+					}
+				}
+				if (!alterados.isEmpty()) {
+					Platform.runLater(() -> aplicarAlteracoes(alterados));
+				}
+			}
+
+			@Override
+			protected void ressincronizar() {
+				Platform.runLater(() -> {
+					if (containerEventos.getScene() != null) {
+						carregarEventos();
+					}
+				});
+			}
+		};
+		BarramentoAlteracoes.getInstance().assinar(assinante);
+	}
+
+	// Recria só os cards exibidos que mudaram, na mesma posição
+	private void aplicarAlteracoes(Set<Integer> eventosAlterados) {
+		if (containerEventos.getScene() == null) {
+			assinante.cancelar();
+			return;
+		}
+		for (Integer eventoId : eventosAlterados) {
+			Node antigo = cardsPorEvento.get(eventoId);
+			if (antigo == null) {
+				continue;
+			}
+			int posicao = containerEventos.getChildren().indexOf(antigo);
+			Evento evento = eventoService.buscarEventoPorId(eventoId);
+			if (posicao < 0) {
+				cardsPorEvento.remove(eventoId);
+			} else if (evento == null
+					|| eventoService.getPermissao(eventoId, usuarioLogado.getId()) == Permissao.NENHUMA) {
+				containerEventos.getChildren().remove(posicao);
+				cardsPorEvento.remove(eventoId);
+			} else {
+				Node novo = criarCardEvento(evento);
+				containerEventos.getChildren().set(posicao, novo);
+				cardsPorEvento.put(eventoId, novo);
+			}
+		}
 	}
 	
 
@@ -186,21 +290,47 @@ public class TelaMenuController {
 	}
 
 	public void carregarEventos() {
+		atualizarBarraCategorias("");
+		exibirPaginado(cursor -> eventoService.listarEventosParaUsuario(usuarioLogado, TAMANHO_PAGINA, cursor));
+	}
+
+	private void exibirPaginado(Function<String, Pagina<Evento>> consulta) {
 		containerEventos.getChildren().clear();
+		cardsPorEvento.clear();
+		scrollPane.setVvalue(0);
+		consultaAtual = consulta;
 
-		List<Evento> eventos = eventoService.listarEventosParaUsuario(usuarioLogado);
+		Pagina<Evento> pagina = consulta.apply(null);
+		proximoCursor = pagina.getProximoCursor();
 
-		if (eventos.isEmpty()) {
+		if (pagina.getItens().isEmpty()) {
 			Text txtNenhumEvento = new Text("Nenhum evento encontrado");
 			txtNenhumEvento.setStyle("-fx-fill: #666; -fx-font-size: 14px;");
 			containerEventos.getChildren().add(txtNenhumEvento);
 		} else {
-			for (Evento evento : eventos) {
-				containerEventos.getChildren().add(criarCardEvento(evento));
+			for (Evento evento : pagina.getItens()) {
+				adicionarCard(evento);
 			}
 		}
 	}
 
+	private void carregarProximaPagina() {
+		if (consultaAtual == null || proximoCursor == null) {
+			return;
+		}
+		Pagina<Evento> pagina = consultaAtual.apply(proximoCursor);
+		proximoCursor = pagina.getProximoCursor();
+		for (Evento evento : pagina.getItens()) {
+			adicionarCard(evento);
+		}
+	}
+
+	private void adicionarCard(Evento evento) {
+		Node card = criarCardEvento(evento);
+		containerEventos.getChildren().add(card);
+		cardsPorEvento.put(evento.getId(), card);
+	}
+
 	private Node criarCardEvento(Evento evento) {
 		try {
 			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/CardEvento.fxml"));
@@ -282,20 +412,31 @@ public class TelaMenuController {
 	@FXML
 	private void handlePesquisarEventos() {
 		String termo = campoPesquisa.getText().trim();
-		containerEventos.getChildren().clear();
 
-		List<Evento> eventos = termo.isEmpty() ? eventoService.listarEventosParaUsuario(usuarioLogado)
-				: eventoService.pesquisarEventos(termo, usuarioLogado);
+		atualizarBarraCategorias(termo);
+		exibirPaginado(cursor -> eventoService.pesquisarEventos(termo, usuarioLogado, TAMANHO_PAGINA, cursor));
+	}
 
-		if (eventos.isEmpty()) {
-			Text txtNenhumResultado = new Text("Nenhum evento encontrado");
-			txtNenhumResultado.setStyle("-fx-fill: #666; -fx-font-size: 14px;");
-			containerEventos.getChildren().add(txtNenhumResultado);
-		} else {
-			for (Evento evento : eventos) {
-				containerEventos.getChildren().add(criarCardEvento(evento));
-			}
-		}
+	private void atualizarBarraCategorias(String termo) {
+		barraCategorias.getChildren().clear();
+
+		Button btnTodas = new Button("Todas (" + eventoService.contarEventos(termo, usuarioLogado) + ")");
+		btnTodas.getStyleClass().add("branco-btn");
+		btnTodas.setOnAction(e -> handlePesquisarEventos());
+		barraCategorias.getChildren().add(btnTodas);
+
+		eventoService.contarEventosPorCategoria(termo, usuarioLogado).forEach((categoria, quantidade) -> {
+			Button btnCategoria = new Button(categoria + " (" + quantidade + ")");
+			btnCategoria.getStyleClass().add("branco-btn");
+			btnCategoria.setOnAction(e -> filtrarPorCategoria(termo, categoria));
+			barraCategorias.getChildren().add(btnCategoria);
+		});
+	}
+
+	// Mesmo termo usado na contagem do botão, então a lista aberta tem a quantidade mostrada
+	private void filtrarPorCategoria(String termo, String categoria) {
+		exibirPaginado(
+				cursor -> eventoService.pesquisarEventos(termo, categoria, usuarioLogado, TAMANHO_PAGINA, cursor));
 	}
 
 	private void mostrarAlerta(String mensagem) {
@@ -343,10 +484,11 @@ public class TelaMenuController {
 		alert.setContentText("Escolha o critério:");
 
 		ButtonType buttonPorCurtidas = new ButtonType("Por Curtidas");
+		ButtonType buttonEmAlta = new ButtonType("Em Alta");
 		ButtonType buttonPorData = new ButtonType("Por Data");
 		ButtonType buttonCancelar = new ButtonType("Cancelar", ButtonBar.ButtonData.CANCEL_CLOSE);
 
-		alert.getButtonTypes().setAll(buttonPorCurtidas, buttonPorData, buttonCancelar);
+		alert.getButtonTypes().setAll(buttonPorCurtidas, buttonEmAlta, buttonPorData, buttonCancelar);
 		
 		Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
 		stage.getIcons().add(new Image(getClass().getResourceAsStream("/resources/logo/LOGOROXA.png")));
@@ -354,7 +496,9 @@ public class TelaMenuController {
 
 		alert.showAndWait().ifPresent(response -> {
 			if (response == buttonPorCurtidas) {
-				listarEventosPorCurtidas();
+				listarRanking(false);
+			} else if (response == buttonEmAlta) {
+				listarRanking(true);
 			} else if (response == buttonPorData) {
 				listarTodosEventos();
 			}
@@ -362,36 +506,13 @@ public class TelaMenuController {
 		});
 	}
 
-	private void listarEventosPorCurtidas() {
-		containerEventos.getChildren().clear();
-
-		List<Evento> eventos = eventoService.listarEventosPorCurtidas();
-
-		if (eventos.isEmpty()) {
-			Text txtNenhumEvento = new Text("Nenhum evento encontrado");
-			txtNenhumEvento.setStyle("-fx-fill: #666; -fx-font-size: 14px;");
-			containerEventos.getChildren().add(txtNenhumEvento);
-		} else {
-			for (Evento evento : eventos) {
-				containerEventos.getChildren().add(criarCardEvento(evento));
-			}
-		}
+	private void listarRanking(boolean emAlta) {
+		exibirPaginado(cursor -> emAlta ? eventoService.listarEventosEmAlta(usuarioLogado, TAMANHO_PAGINA, cursor)
+				: eventoService.listarEventosPorCurtidas(usuarioLogado, TAMANHO_PAGINA, cursor));
 	}
 
 	private void listarTodosEventos() {
-		containerEventos.getChildren().clear();
-
-		List<Evento> eventos = eventoService.listarTodosEventos();
-
-		if (eventos.isEmpty()) {
-			Text txtNenhumEvento = new Text("Nenhum evento encontrado");
-			txtNenhumEvento.setStyle("-fx-fill: #666; -fx-font-size: 14px;");
-			containerEventos.getChildren().add(txtNenhumEvento);
-		} else {
-			for (Evento evento : eventos) {
-				containerEventos.getChildren().add(criarCardEvento(evento));
-			}
-		}
+		exibirPaginado(cursor -> eventoService.listarTodosEventos(TAMANHO_PAGINA, cursor));
 	}
 
 	public void atualizarFotoPerfilOrganizador(String caminhoFoto) {
@@ -119,7 +119,7 @@ public class TelaParticipantesEventoController {
 				continue;
 			}
 			boolean presente = eventoService.getPresenca(evento.getId(), u.getId());
-			String permissao = eventoService.getPermissao(evento.getId(), u.getId());
+			String permissao = eventoService.getPermissao(evento.getId(), u.getId()).getDescricao();
 			listaOriginal.add(new UsuarioPresenca(u, presente, permissao));
 		}
 
@@ -226,6 +226,7 @@ public class TelaPerfilController {
 		if (file != null) {
 			String caminho = file.getAbsolutePath();
 			usuarioLogado.setCaminhoFotoPerfil(caminho); // Armazena caminho no objeto
+			usuarioService.completarCadastro(usuarioLogado); // Salva a alteração
 			SessaoUsuario.getInstance().setUsuario(usuarioLogado); // <- ATUALIZA NA SESSÃO
 
 			System.out.println("[DEBUG] Caminho da foto perfil do usuário: " + usuarioLogado.getCaminhoFotoPerfil());
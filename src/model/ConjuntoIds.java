@@ -0,0 +1,154 @@
+/*
+ * Classe ConjuntoIds – conjunto compacto de ids (int) usado pelo Evento para guardar participantes.
+ *
+ * Estruturas de dados e conceitos utilizados:
+ * - Tabela hash de endereçamento aberto sobre um int[] (sondagem linear), sem objetos Integer.
+ * - Capacidade sempre potência de 2, mantida com no máximo 50% de ocupação.
+ * - Remoção por deslocamento para trás, sem marcadores de "apagado".
+ *
+ * Métodos principais:
+ *
+ * - adicionar(int id), remover(int id), contem(int id)
+ *   Operações em O(1) médio; retornam se o conjunto foi alterado / se o id existe.
+ *
+ * - tamanho()
+ *   Quantidade de ids no conjunto.
+ *
+ * - paraArray()
+ *   Cópia ordenada dos ids.
+ *
+ * - paraCada(IntConsumer acao)
+ *   Visita os ids (sem ordem definida) sem copiar a tabela.
+ *
+ * - limpar()
+ *   Remove todos os ids.
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class ConjuntoIds {
+
+	private static final int VAZIO = Integer.MIN_VALUE;
+	private static final int CAPACIDADE_INICIAL = 8;
+
+	private int[] tabela;
+	private int tamanho;
+
+	public ConjuntoIds() {
+		this.tabela = novaTabela(CAPACIDADE_INICIAL);
+	}
+
+	public boolean adicionar(int id) {
+		if (id == VAZIO) {
+			throw new IllegalArgumentException("Id inválido: " + id);
+		}
+		int posicao = posicao(id);
+		if (tabela[posicao] == id) {
+			return false;
+		}
+		tabela[posicao] = id;
+		tamanho++;
+		if (tamanho * 2 > tabela.length) {
+			redimensionar(tabela.length * 2);
+		}
+		return true;
+	}
+
+	public boolean remover(int id) {
+		int vaga = posicao(id);
+		if (tabela[vaga] != id || id == VAZIO) {
+			return false;
+		}
+		tabela[vaga] = VAZIO;
+		tamanho--;
+
+		// Desloca para trás os elementos seguintes do mesmo agrupamento
+		int mascara = tabela.length - 1;
+		int atual = vaga;
+		while (true) {
+			atual = (atual + 1) & mascara;
+			int valor = tabela[atual];
+			if (valor == VAZIO) {
+				return true;
+			}
+			int ideal = espalhar(valor) & mascara;
+			boolean podeFicar = vaga <= atual ? (vaga < ideal && ideal <= atual) : (vaga < ideal || ideal <= atual);
+			if (!podeFicar) {
+				tabela[vaga] = valor;
+				tabela[atual] = VAZIO;
+				vaga = atual;
+			}
+		}
+	}
+
+	public boolean contem(int id) {
+		return id != VAZIO && tabela[posicao(id)] == id;
+	}
+
+	public int tamanho() {
+		return tamanho;
+	}
+
+	public boolean isVazio() {
+		return tamanho == 0;
+	}
+
+	public int[] paraArray() {
+		int[] ids = new int[tamanho];
+		int i = 0;
+		for (int valor : tabela) {
+			if (valor != VAZIO) {
+				ids[i++] = valor;
+			}
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	public void paraCada(IntConsumer acao) {
+		for (int valor : tabela) {
+			if (valor != VAZIO) {
+				acao.accept(valor);
+			}
+		}
+	}
+
+	public void limpar() {
+		tabela = novaTabela(CAPACIDADE_INICIAL);
+		tamanho = 0;
+	}
+
+	// Posição do id, ou da vaga vazia onde ele entraria
+	private int posicao(int id) {
+		int mascara = tabela.length - 1;
+		int i = espalhar(id) & mascara;
+		while (tabela[i] != VAZIO && tabela[i] != id) {
+			i = (i + 1) & mascara;
+		}
+		return i;
+	}
+
+	private void redimensionar(int capacidade) {
+		int[] antiga = tabela;
+		tabela = novaTabela(capacidade);
+		for (int valor : antiga) {
+			if (valor != VAZIO) {
+				tabela[posicao(valor)] = valor;
+			}
+		}
+	}
+
+	private static int espalhar(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int[] novaTabela(int capacidade) {
+		int[] tabela = new int[capacidade];
+		Arrays.fill(tabela, VAZIO);
+		return tabela;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * EdicaoEvento
+ *
+ * Descrição geral:
+ * - Edição parcial de um Evento: guarda só os campos que devem mudar, para serem
+ *   aplicados no próprio registro (sem trocar a instância) pelo
+ *   EventoService.editarEvento().
+ * - Montada com métodos encadeados, como o Evento.Builder:
+ *   new EdicaoEvento().comTitulo("...").comData(...).
+ *
+ * Estruturas principais:
+ * - Campo: os campos editáveis, cada um com a leitura e a escrita no Evento.
+ * - valores: EnumMap com o novo valor de cada campo informado (null é um valor válido).
+ *
+ * Métodos e funcionalidades:
+ *
+ * aplicar(Evento evento)
+ * - Escreve no evento os valores diferentes dos atuais e retorna os campos que
+ *   realmente mudaram (vazio se nada mudou).
+ *
+ * getCampos()
+ * - Campos informados na edição, mudem ou não.
+ */
+
+package model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public final class EdicaoEvento {
+
+	public enum Campo {
+		TITULO(Evento::getTitulo, (e, v) -> e.setTitulo((String) v)),
+		DESCRICAO(Evento::getDescricao, (e, v) -> e.setDescricao((String) v)),
+		DATA(Evento::getData, (e, v) -> e.setData((LocalDateTime) v)),
+		LOCAL(Evento::getLocal, (e, v) -> e.setLocal((String) v)),
+		IMAGEM(Evento::getImagem, (e, v) -> e.setImagem((String) v)),
+		CATEGORIA(Evento::getCategoria, (e, v) -> e.setCategoria((String) v)),
+		PRIVADO(Evento::isPrivado, (e, v) -> e.setPrivado((Boolean) v)),
+		PALESTRANTE(Evento::getPalestrante, (e, v) -> e.setPalestrante((String) v)),
+		TIPO(Evento::getTipo, (e, v) -> e.setTipo((String) v)),
+		BADGE(Evento::getBadgePath, (e, v) -> e.setBadgePath((String) v)),
+		URL_VIDEO(Evento::getUrlVideo, (e, v) -> e.setUrlVideo((String) v)),
+		ACESSO_LIBERADO(Evento::isAcessoLiberado, (e, v) -> e.setAcessoLiberado((Boolean) v));
+
+		private final Function<Evento, Object> leitura;
+		private final BiConsumer<Evento, Object> escrita;
+
+		Campo(Function<Evento, Object> leitura, BiConsumer<Evento, Object> escrita) {
+			this.leitura = leitura;
+			this.escrita = escrita;
+		}
+	}
+
+	private final Map<Campo, Object> valores = new EnumMap<>(Campo.class);
+
+	public EdicaoEvento comTitulo(String titulo) {
+		return com(Campo.TITULO, titulo);
+	}
+
+	public EdicaoEvento comDescricao(String descricao) {
+		return com(Campo.DESCRICAO, descricao);
+	}
+
+	public EdicaoEvento comData(LocalDateTime data) {
+		return com(Campo.DATA, data);
+	}
+
+	public EdicaoEvento comLocal(String local) {
+		return com(Campo.LOCAL, local);
+	}
+
+	public EdicaoEvento comImagem(String imagem) {
+		return com(Campo.IMAGEM, imagem);
+	}
+
+	public EdicaoEvento comCategoria(String categoria) {
+		return com(Campo.CATEGORIA, categoria);
+	}
+
+	public EdicaoEvento comPrivado(boolean privado) {
+		return com(Campo.PRIVADO, privado);
+	}
+
+	public EdicaoEvento comPalestrante(String palestrante) {
+		return com(Campo.PALESTRANTE, palestrante);
+	}
+
+	public EdicaoEvento comTipo(String tipo) {
+		return com(Campo.TIPO, tipo);
+	}
+
+	public EdicaoEvento comBadgePath(String badgePath) {
+		return com(Campo.BADGE, badgePath);
+	}
+
+	public EdicaoEvento comUrlVideo(String urlVideo) {
+		return com(Campo.URL_VIDEO, urlVideo);
+	}
+
+	public EdicaoEvento comAcessoLiberado(boolean acessoLiberado) {
+		return com(Campo.ACESSO_LIBERADO, acessoLiberado);
+	}
+
+	private EdicaoEvento com(Campo campo, Object valor) {
+		valores.put(campo, valor);
+		return this;
+	}
+
+	public Set<Campo> getCampos() {
+		return Collections.unmodifiableSet(valores.keySet());
+	}
+
+	public boolean isVazia() {
+		return valores.isEmpty();
+	}
+
+	public EnumSet<Campo> aplicar(Evento evento) {
+		EnumSet<Campo> alterados = EnumSet.noneOf(Campo.class);
+		for (Map.Entry<Campo, Object> valor : valores.entrySet()) {
+			Campo campo = valor.getKey();
+			if (!Objects.equals(campo.leitura.apply(evento), valor.getValue())) {
+				campo.escrita.accept(evento, valor.getValue());
+				alterados.add(campo);
+			}
+		}
+		return alterados;
+	}
+}
@@ -3,28 +3,45 @@
  * Métodos/Fluxos principais criados:
  *
  * - getParticipantes(), setParticipantes(List<Usuario>)  
- *   Usa um ArrayList para armazenar os participantes do evento.
+ *   Os participantes são guardados apenas pelo id, em um ConjuntoIds (int[] com hash aberto).
+ *   getParticipantes() é uma visão montada sob demanda (e guardada até a próxima alteração),
+ *   resolvendo os ids pelo resolvedor de usuários que o EventoService entrega ao registrar o
+ *   evento (setResolvedorUsuarios). Antes disso, pedir a lista de um evento com participantes
+ *   é erro (IllegalStateException), e não uma lista vazia. A visão guardada leva o número da
+ *   alteração dos ids com que foi montada e só é servida enquanto esse número for o atual.
  *
- * - adicionarParticipante(Usuario), removerParticipante(Usuario)  
- *   Manipula um ArrayList para adicionar ou remover participantes, evitando duplicação.
+ * - adicionarParticipante(Usuario), removerParticipante(Usuario), isParticipante(int usuarioId)  
+ *   Operações O(1) sobre o ConjuntoIds, sem usar Usuario.equals.
  *
- * - getQuantidadeParticipantes()  
- *   Retorna o tamanho do ArrayList de participantes.
+ * - getQuantidadeParticipantes(), getIdsParticipantes()  
+ *   Retornam o tamanho e uma cópia ordenada dos ids de participantes.
  *
- * - setPresenca(int usuarioId, boolean presente), getPresenca(int usuarioId)  
- *   Utiliza um HashMap para mapear o ID do usuário à sua presença (true/false).
+ * - setPresenca(int usuarioId, boolean presente), getPresenca(int usuarioId), getIdsPresentes()  
+ *   Utiliza um segundo ConjuntoIds com os ids dos usuários presentes. Só participantes ficam
+ *   presentes: a presença de quem não participa é recusada (setPresenca retorna false) e sair
+ *   do evento apaga a presença, na mesma trava de escrita.
  *
- * - curtirEvento(Usuario), descurtirEvento(Usuario)  
- *   Usa um HashSet para registrar os usuários que curtiram, garantindo que não curtam mais de uma vez.
+ * - curtirEvento(Usuario), descurtirEvento(Usuario), isCurtidoPor(int usuarioId)  
+ *   Usa um ConjuntoIds para registrar os usuários que curtiram, garantindo que não curtam mais de uma vez.
  *
- * - getUsuariosQueCurtiram()  
- *   Retorna o conjunto imutável de usuários que curtiram (HashSet).
+ * - getUsuariosQueCurtiram(), getIdsQueCurtiram()  
+ *   Retornam uma cópia imutável (ou um array ordenado) dos ids de quem curtiu.
  *
  * - getCurtidasPorImagem(), getComentariosPorImagem()  
  *   Armazena curtidas (HashMap<String, Integer>) e comentários por imagem (HashMap<String, List<String>>).
  *
  * - getComentarios(), adicionarComentario(Comentario)  
- *   Armazena comentários do evento em um ArrayList.
+ *   Armazena comentários do evento em uma CopyOnWriteArrayList (leitura sem trava, escrita rara).
+ *
+ * - setCarregadorComentarios(Supplier<List<Comentario>>)  
+ *   Na recuperação do snapshot, os comentários ficam no arquivo mapeado e só viram objetos no
+ *   primeiro acesso.
+ *
+ * Concorrência:
+ * - Participantes, presenças e curtidas são protegidos por uma StampedLock do próprio evento:
+ *   alterações usam a trava de escrita e as consultas tentam primeiro uma leitura otimista,
+ *   só bloqueando se houver uma escrita concorrente.
+ * - Operações que também mexem nos índices do EventoService são serializadas lá, por evento.
  *
  * - getGaleriaFotos()  
  *   Retorna uma lista de imagens (ArrayList<String>) adicionadas ao evento.
@@ -49,12 +66,16 @@
  * - isAcessoLiberado(), setAcessoLiberado(boolean)  
  *   Indica se o conteúdo do evento está liberado para os participantes.
  *
- * - getCurtidas(), curtir()  
- *   Retorna ou incrementa o número total de curtidas do evento.
+ * - getCurtidas(), curtir(), setCurtidas(int)  
+ *   Retorna, incrementa ou restaura (na recuperação dos dados salvos) o número total de curtidas do evento.
  *
  * - Builder (classe interna)  
  *   Utiliza o padrão de projeto *Builder* para criação de eventos com métodos encadeados (ex: comImagem(), comCategoria(), build()).
  *
+ * - getVersao(), avancarVersao()  
+ *   Versão dos dados descritivos, usada pelo EventoService.editarEvento() para recusar edições
+ *   feitas sobre dados antigos (compare-and-set). Só existe em memória: recomeça em 0 ao reiniciar.
+ *
  * - toString()  
  *   Representação textual do evento com os dados mais relevantes.
  */
@@ -63,13 +84,18 @@ package model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class Evento {
 	private int id;
@@ -90,20 +116,43 @@ public class Evento {
 	private Map<String, Integer> curtidasPorImagem = new HashMap<>();
 	private Map<String, List<String>> comentariosPorImagem = new HashMap<>();
 
-	private int curtidas;
+	private volatile int curtidas;
+
+	// Avança a cada edição dos dados descritivos (ver EdicaoEvento)
+	private volatile long versao;
 
 	private boolean privado;
 
-	// Comentarios de eventos
-	private List<Comentario> comentarios = new ArrayList<>();
+	// Comentarios de eventos; os salvos em snapshot só são lidos no primeiro acesso
+	private final List<Comentario> comentarios = new CopyOnWriteArrayList<>();
+	private volatile Supplier<List<Comentario>> comentariosPendentes;
 
 	// Controle de vídeo e acesso
 	private String urlVideo;
 	private boolean acessoLiberado = false;
 
-	// Participantes e presença
-	private List<Usuario> participantes = new ArrayList<>();
-	private Map<Integer, Boolean> presencas = new HashMap<>();
+	// Participantes, presença e curtidas (por id de usuário), protegidos por "trava"
+	private final StampedLock trava = new StampedLock();
+	private final ConjuntoIds participantes = new ConjuntoIds();
+	private final ConjuntoIds presentes = new ConjuntoIds();
+	private final ConjuntoIds curtiram = new ConjuntoIds();
+	// Avança (na trava de escrita) a cada mudança nos participantes; a lista montada guarda em
+	// que valor foi montada, então uma lista feita com ids antigos nunca é servida
+	private volatile long alteracoesParticipantes;
+	private volatile ParticipantesMontados participantesMaterializados;
+
+	private static final class ParticipantesMontados {
+		final long alteracao;
+		final List<Usuario> lista;
+
+		ParticipantesMontados(long alteracao, List<Usuario> lista) {
+			this.alteracao = alteracao;
+			this.lista = lista;
+		}
+	}
+
+	// Converte id -> Usuario ao montar getParticipantes(); entregue pelo EventoService
+	private volatile IntFunction<Usuario> resolvedorUsuarios;
 
 	// Construtores
 	public Evento() {
@@ -123,6 +172,17 @@ public class Evento {
 	}
 
 	// Getters e Setters - Dados principais
+	public long getVersao() {
+		return versao;
+	}
+
+	/**
+	 * Chamado pelo EventoService, na trava do evento, depois de cada edição.
+	 */
+	public long avancarVersao() {
+		return ++versao;
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -204,42 +264,140 @@ public class Evento {
 	}
 
 	// Getters e Setters - Participantes
+	public void setResolvedorUsuarios(IntFunction<Usuario> resolvedor) {
+		resolvedorUsuarios = Objects.requireNonNull(resolvedor, "Resolvedor não pode ser nulo");
+	}
+
 	public List<Usuario> getParticipantes() {
-		return participantes;
+		ParticipantesMontados montados = participantesMaterializados;
+		if (montados != null && montados.alteracao == alteracoesParticipantes) {
+			return montados.lista;
+		}
+		// Ids e alteração lidos juntos, na mesma leitura protegida pela trava
+		long[] alteracao = new long[1];
+		int[] ids = ler(() -> {
+			alteracao[0] = alteracoesParticipantes;
+			return participantes.paraArray();
+		});
+		IntFunction<Usuario> resolvedor = resolvedorUsuarios;
+		if (resolvedor == null && ids.length > 0) {
+			throw new IllegalStateException("Evento " + id + " não registrado no EventoService: participantes sem resolvedor");
+		}
+		List<Usuario> montada = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			Usuario usuario = resolvedor.apply(id);
+			if (usuario != null) {
+				montada.add(usuario);
+			}
+		}
+		List<Usuario> lista = Collections.unmodifiableList(montada);
+		participantesMaterializados = new ParticipantesMontados(alteracao[0], lista);
+		return lista;
 	}
 
 	public void setParticipantes(List<Usuario> participantes) {
-		this.participantes = participantes;
+		long stamp = trava.writeLock();
+		try {
+			this.participantes.limpar();
+			for (Usuario usuario : participantes) {
+				this.participantes.adicionar(usuario.getId());
+			}
+			alteracoesParticipantes++;
+		} finally {
+			trava.unlockWrite(stamp);
+		}
 	}
 
 	public boolean adicionarParticipante(Usuario usuario) {
 		Objects.requireNonNull(usuario, "Usuário não pode ser nulo");
-		if (!participantes.contains(usuario)) {
-			participantes.add(usuario);
-			return true;
+		long stamp = trava.writeLock();
+		try {
+			if (participantes.adicionar(usuario.getId())) {
+				alteracoesParticipantes++;
+				return true;
+			}
+			return false;
+		} finally {
+			trava.unlockWrite(stamp);
 		}
-		return false;
 	}
 
 	public boolean removerParticipante(Usuario usuario) {
 		Objects.requireNonNull(usuario, "Usuário não pode ser nulo");
-		return participantes.remove(usuario);
+		long stamp = trava.writeLock();
+		try {
+			if (participantes.remover(usuario.getId())) {
+				presentes.remover(usuario.getId());
+				alteracoesParticipantes++;
+				return true;
+			}
+			return false;
+		} finally {
+			trava.unlockWrite(stamp);
+		}
+	}
+
+	public boolean isParticipante(int usuarioId) {
+		return ler(() -> participantes.contem(usuarioId));
+	}
+
+	public int[] getIdsParticipantes() {
+		return ler(participantes::paraArray);
 	}
 
 	public int getQuantidadeParticipantes() {
-		if (participantes == null) {
-			throw new IllegalStateException("Lista de participantes não inicializada");
-		}
-		return participantes.size();
+		return ler(participantes::tamanho);
 	}
 
 	// Getters e Setters - Presença
-	public void setPresenca(int usuarioId, boolean presente) {
-		presencas.put(usuarioId, presente);
+	public boolean setPresenca(int usuarioId, boolean presente) {
+		long stamp = trava.writeLock();
+		try {
+			if (!presente) {
+				presentes.remover(usuarioId);
+				return true;
+			}
+			if (!participantes.contem(usuarioId)) {
+				return false;
+			}
+			presentes.adicionar(usuarioId);
+			return true;
+		} finally {
+			trava.unlockWrite(stamp);
+		}
 	}
 
 	public boolean getPresenca(int usuarioId) {
-		return presencas.getOrDefault(usuarioId, false);
+		return ler(() -> presentes.contem(usuarioId));
+	}
+
+	public int getQuantidadePresentes() {
+		return ler(presentes::tamanho);
+	}
+
+	public int[] getIdsPresentes() {
+		return ler(presentes::paraArray);
+	}
+
+	// Leitura otimista: só pega a trava de leitura se uma escrita aconteceu no meio
+	private <T> T ler(Supplier<T> leitura) {
+		long stamp = trava.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				T valor = leitura.get();
+				if (trava.validate(stamp)) {
+					return valor;
+				}
+			} catch (RuntimeException e) {
+				// Estado lido no meio de uma escrita; refaz com a trava de leitura
+			}
+		}
+		stamp = trava.readLock();
+		try {
+			return leitura.get();
+		} finally {
+			trava.unlockRead(stamp);
+		}
 	}
 
 	// Getters e Setters - Controle e vídeo
@@ -305,27 +463,40 @@ public class Evento {
 		return curtidas;
 	}
 
-	public void curtir() {
-		this.curtidas++;
+	public void setCurtidas(int curtidas) {
+		long stamp = trava.writeLock();
+		try {
+			this.curtidas = curtidas;
+		} finally {
+			trava.unlockWrite(stamp);
+		}
 	}
 
-	private Set<Integer> usuariosQueCurtiram = new HashSet<>();
+	public void curtir() {
+		long stamp = trava.writeLock();
+		try {
+			this.curtidas++;
+		} finally {
+			trava.unlockWrite(stamp);
+		}
+	}
 
 	public boolean curtirEvento(Usuario usuario) {
 		if (usuario == null) {
 			throw new IllegalArgumentException("Usuário não pode ser nulo");
 		}
 
-		// Verifica se o usuário já curtiu
-		if (usuariosQueCurtiram.contains(usuario.getId())) {
-			return false; // já curtiu, não conta de novo
+		long stamp = trava.writeLock();
+		try {
+			// Já curtiu: não conta de novo
+			if (!curtiram.adicionar(usuario.getId())) {
+				return false;
+			}
+			this.curtidas++; // atualiza o contador
+			return true;
+		} finally {
+			trava.unlockWrite(stamp);
 		}
-
-		// Registra a curtida
-		usuariosQueCurtiram.add(usuario.getId());
-		this.curtidas++; // atualiza o contador
-
-		return true; // sucesso na curtida
 	}
 
 	public boolean descurtirEvento(Usuario usuario) {
@@ -333,18 +504,29 @@ public class Evento {
 			throw new IllegalArgumentException("Usuário não pode ser nulo");
 		}
 
-		if (usuariosQueCurtiram.remove(usuario.getId())) {
-			this.curtidas--;
-			if (this.curtidas < 0) {
-				this.curtidas = 0; // garantir que não fique negativo
+		long stamp = trava.writeLock();
+		try {
+			if (curtiram.remover(usuario.getId())) {
+				this.curtidas = Math.max(0, this.curtidas - 1); // garantir que não fique negativo
+				return true;
 			}
-			return true;
+			return false;
+		} finally {
+			trava.unlockWrite(stamp);
 		}
-		return false;
+	}
+
+	public boolean isCurtidoPor(int usuarioId) {
+		return ler(() -> curtiram.contem(usuarioId));
+	}
+
+	public int[] getIdsQueCurtiram() {
+		return ler(curtiram::paraArray);
 	}
 
 	public Set<Integer> getUsuariosQueCurtiram() {
-		return Collections.unmodifiableSet(usuariosQueCurtiram);
+		int[] ids = ler(curtiram::paraArray);
+		return Collections.unmodifiableSet(Arrays.stream(ids).boxed().collect(Collectors.toSet()));
 	}
 
 	public static class Builder {
@@ -372,12 +554,35 @@ public class Evento {
 	}
 
 	public List<Comentario> getComentarios() {
+		carregarComentariosPendentes();
 		return comentarios;
 	}
 
 	public void adicionarComentario(Comentario comentario) {
+		carregarComentariosPendentes();
 		comentarios.add(comentario);
 	}
+
+	/**
+	 * Registra de onde ler os comentários já salvos; a leitura só acontece no
+	 * primeiro acesso a getComentarios() ou adicionarComentario().
+	 */
+	public void setCarregadorComentarios(Supplier<List<Comentario>> carregador) {
+		this.comentariosPendentes = carregador;
+	}
+
+	private void carregarComentariosPendentes() {
+		if (comentariosPendentes == null) {
+			return;
+		}
+		synchronized (comentarios) {
+			Supplier<List<Comentario>> carregador = comentariosPendentes;
+			if (carregador != null) {
+				comentarios.addAll(0, carregador.get());
+				comentariosPendentes = null;
+			}
+		}
+	}
 	
 	public String getBadgePath() {
 	    return badgePath;
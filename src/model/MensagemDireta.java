@@ -0,0 +1,58 @@
+/*
+ * Classe MensagemDireta – uma mensagem da conversa privada entre dois amigos.
+ *
+ * Estruturas de dados utilizadas:
+ * - Id do remetente (int), instante do envio (epoch em milissegundos), texto e posição da
+ *   mensagem na conversa (sequencia, a partir de 0).
+ * - A conversa guarda cada mensagem uma vez só, em arrays; objetos MensagemDireta são criados
+ *   apenas para a página lida (MensagemDiretaService).
+ *
+ * Métodos principais:
+ * - getRemetenteId(), getTexto(), getSequencia()
+ *
+ * - getEnviadaEm()
+ *   Instante do envio no fuso do sistema.
+ *
+ * - isDe(Usuario usuario)
+ *   Indica se a mensagem foi enviada pelo usuário (para alinhar o balão na tela).
+ */
+
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public class MensagemDireta {
+	private final int remetenteId;
+	private final long enviadaEmMillis;
+	private final String texto;
+	private final long sequencia;
+
+	public MensagemDireta(int remetenteId, long enviadaEmMillis, String texto, long sequencia) {
+		this.remetenteId = remetenteId;
+		this.enviadaEmMillis = enviadaEmMillis;
+		this.texto = texto;
+		this.sequencia = sequencia;
+	}
+
+	public int getRemetenteId() {
+		return remetenteId;
+	}
+
+	public LocalDateTime getEnviadaEm() {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(enviadaEmMillis), ZoneId.systemDefault());
+	}
+
+	public String getTexto() {
+		return texto;
+	}
+
+	public long getSequencia() {
+		return sequencia;
+	}
+
+	public boolean isDe(Usuario usuario) {
+		return usuario != null && usuario.getId() == remetenteId;
+	}
+}
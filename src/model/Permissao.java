@@ -0,0 +1,34 @@
+/*
+ * Enum Permissao – nível de acesso de um usuário a um evento.
+ *
+ * Valores:
+ * - ORGANIZADOR: usuário que organiza o evento.
+ * - PARTICIPANTE: usuário inscrito no evento (ou qualquer usuário, em eventos públicos).
+ * - NENHUMA: sem acesso ao evento privado.
+ *
+ * Métodos principais:
+ *
+ * - getDescricao()  
+ *   Retorna o texto exibido na tabela de participantes e no CSV ("organizador", "participante", "nenhuma").
+ */
+
+package model;
+
+public enum Permissao {
+	ORGANIZADOR("organizador"), PARTICIPANTE("participante"), NENHUMA("nenhuma");
+
+	private final String descricao;
+
+	Permissao(String descricao) {
+		this.descricao = descricao;
+	}
+
+	public String getDescricao() {
+		return descricao;
+	}
+
+	@Override
+	public String toString() {
+		return descricao;
+	}
+}
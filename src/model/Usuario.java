@@ -1,16 +1,20 @@
 /*
- * Classe Usuario – representa um usuário do sistema com seus dados pessoais,
- * informações de login e eventos que organiza ou participa.
+ * Classe Usuario – representa um usuário do sistema com seus dados pessoais
+ * e informações de login.
  *
  * Estruturas e conceitos utilizados:
  * - Armazena atributos como nome, email, senha, telefone, CPF, gênero e data de nascimento.
- * - Utiliza listas do tipo ArrayList para gerenciar eventos organizados e eventos participados.
- * - Usa Collections.unmodifiableList() para proteger a integridade das listas retornadas.
+ * - Os eventos que o usuário organiza ou participa não ficam aqui: a relação é mantida
+ *   pelo EventoService (listarEventosDoParticipante(), listarEventosDoOrganizador()).
+ * - Amizades e pedidos de amizade também não: ficam no UsuarioService, por id
+ *   (listarAmigosDoUsuario(), enviarPedidoDeAmizade(), sugerirAmigos()...).
+ * - Nem as conversas com os amigos, guardadas uma vez para os dois lados no
+ *   MensagemDiretaService.
  *
  * Métodos principais:
  *
  * - Usuario()  
- *   Construtor padrão que inicializa as listas de eventos organizados e participando.
+ *   Construtor padrão.
  *
  * - Usuario(String nome, String sobrenome, String username, String email, String senha)  
  *   Construtor com campos obrigatórios, valida dados essenciais e define imagem padrão de perfil.
@@ -18,15 +22,6 @@
  * - Getters e Setters  
  *   Acessam e modificam os dados pessoais do usuário como nome, email, senha, telefone, CPF, etc.
  *
- * - getEventosParticipando(), getEventosOrganizados()  
- *   Retornam listas imutáveis com os eventos em que o usuário participa ou organiza.
- *
- * - participarEvento(Evento), cancelarParticipacao(Evento)  
- *   Adiciona ou remove um evento da lista de participações do usuário.
- *
- * - organizarEvento(Evento)  
- *   Registra um evento como organizado pelo usuário e define o organizador no evento.
- *
  * - getNomeCompleto()  
  *   Retorna nome completo concatenando nome e sobrenome.
  *
@@ -45,10 +40,7 @@ package model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 public class Usuario {
@@ -64,14 +56,10 @@ public class Usuario {
 	private String genero;
 	private LocalDate dataNascimento;
 	private LocalDateTime dataCriacao;
-	private final List<Evento> eventosParticipando;
-	private final List<Evento> eventosOrganizados;
 	private String caminhoFotoPerfil;
 	
 
 	public Usuario() {
-		this.eventosParticipando = new ArrayList<>();
-		this.eventosOrganizados = new ArrayList<>();
 	}
 
 	public Usuario(String nome, String sobrenome, String username, String email, String senha) {
@@ -168,58 +156,6 @@ public class Usuario {
 		this.dataNascimento = dataNascimento; // Pode ser nulo se não for obrigatório
 	}
 
-	// Métodos para gerenciamento de eventos
-
-	
-	public List<Evento> getEventosParticipando() {
-		return Collections.unmodifiableList(eventosParticipando);
-	}
-
-	
-	public List<Evento> getEventosOrganizados() {
-		return Collections.unmodifiableList(eventosOrganizados);
-	}
-
-	
-	public boolean participarEvento(Evento evento) {
-		if (evento == null) {
-			throw new IllegalArgumentException("Evento não pode ser nulo");
-		}
-		if (!eventosParticipando.contains(evento)) {
-			eventosParticipando.add(evento);
-			return true;
-		}
-		return false;
-	}
-
-	
-	public boolean cancelarParticipacao(Evento evento) {
-		if (evento == null) {
-			throw new IllegalArgumentException("Evento não pode ser nulo");
-		}
-		boolean removido = eventosParticipando.remove(evento);
-		if (removido) {
-			evento.removerParticipante(this);
-		}
-		return removido;
-	}
-
-	
-	public boolean organizarEvento(Evento evento) {
-		if (evento == null) {
-			throw new IllegalArgumentException("Evento não pode ser nulo");
-		}
-		if (!eventosOrganizados.contains(evento)) {
-			eventosOrganizados.add(evento);
-			if (evento.getOrganizador() != this) {
-				evento.setOrganizador(this);
-			}
-			return true;
-		}
-		return false;
-	}
-
-	
 	public String getNomeCompleto() {
 		return (nome != null ? nome : "") + (sobrenome != null ? " " + sobrenome : "");
 	}
@@ -281,55 +217,5 @@ public class Usuario {
 	public void setDataCriacao(LocalDateTime dataCriacao) {
 	    this.dataCriacao = dataCriacao;
 	}
-	
-	//SISTEMA DE AMIZADE
-	private List<Usuario> amigos = new ArrayList<>();
-	private List<Usuario> pedidosEnviados = new ArrayList<>();
-	private List<Usuario> pedidosRecebidos = new ArrayList<>();
-
-	public List<Usuario> getAmigos() {
-	    return amigos;
-	}
-
-	public List<Usuario> getPedidosEnviados() {
-	    return pedidosEnviados;
-	}
-
-	public List<Usuario> getPedidosRecebidos() {
-	    return pedidosRecebidos;
-	}
-
-	public void enviarPedido(Usuario destino) {
-	    if (!pedidosEnviados.contains(destino) && !amigos.contains(destino)) {
-	        pedidosEnviados.add(destino);
-	        destino.pedidosRecebidos.add(this);
-	    }
-	}
-
-	public void aceitarPedido(Usuario remetente) {
-	    if (pedidosRecebidos.remove(remetente)) {
-	        amigos.add(remetente);
-	        remetente.getAmigos().add(this);
-	        remetente.getPedidosEnviados().remove(this);
-	    }
-	}
-	// Dentro de Usuario.java
-
-	// Mapa que guarda o histórico de mensagens por amigo (username)
-	private Map<String, List<String>> historicoMensagens = new HashMap<>();
-
-	public Map<String, List<String>> getHistoricoMensagens() {
-	    return historicoMensagens;
-	}
-
-	public void adicionarMensagem(String usernameAmigo, String mensagem) {
-	    historicoMensagens.computeIfAbsent(usernameAmigo, k -> new ArrayList<>()).add(mensagem);
-	}
-
-	public List<String> getMensagensCom(String usernameAmigo) {
-	    return historicoMensagens.getOrDefault(usernameAmigo, new ArrayList<>());
-	}
-
-
 
 }
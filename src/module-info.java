@@ -11,6 +11,8 @@ module evenMoreFun {
 	requires javafx.media;
 	requires javafx.web;
 	requires java.desktop;
+	requires java.sql;
+	requires com.h2database;
 	requires itextpdf;
 
 	opens application to javafx.graphics, javafx.fxml;
@@ -6,7 +6,7 @@
  *
  * 2 Validação do e-mail informado:
  *    - Loop que solicita o e-mail até que seja encontrado na lista de usuários cadastrados.
- *    - Percorre a lista de usuários com getUsuarios() para comparar o e-mail digitado.
+ *    - Busca o usuário pelo e-mail digitado com getUsuarioPorEmail().
  *    - Caso e-mail não seja encontrado, exibe mensagem de erro e repete o pedido.
  *
  * 3 Geração e envio do código OTP:
@@ -30,8 +30,7 @@
  *    - Se a senha não for válida, repete a solicitação até uma senha válida ser fornecida.
  *
  * 6 Criptografia e atualização da senha:
- *    - Utiliza BasicPasswordEncryptor do Jasypt para criptografar a senha em hash seguro.
- *    - Atualiza o objeto Usuario com a senha criptografada.
+ *    - Usa UsuarioService.atualizarSenha(), que gera o hash no formato atual e salva o usuário.
  *    - Exibe mensagem de sucesso.
  *
  * 7 Finalização:
@@ -44,7 +43,7 @@
  * - Geração de OTP para autenticação temporária.
  * - Envio de e-mail com Jakarta Mail (via EmailSender).
  * - Validação de senha com regras customizadas (implementadas em UsuarioService).
- * - Criptografia com Jasypt (BasicPasswordEncryptor).
+ * - Criptografia com Jasypt (via UsuarioService).
  */
 
 
@@ -72,12 +71,7 @@ public class OTPValidation {
 			System.out.print("Digite seu e-mail: ");
 			email = scanner.nextLine();
 
-			for (Usuario u : usuarioService.getUsuarios()) {
-				if (u.getEmail().equalsIgnoreCase(email)) {
-					usuarioEncontrado = u;
-					break;
-				}
-			}
+			usuarioEncontrado = usuarioService.getUsuarioPorEmail(email);
 
 			if (usuarioEncontrado == null) {
 				System.out.println("E-mail não encontrado no sistema. Tente novamente.");
@@ -130,8 +124,7 @@ public class OTPValidation {
 		}
 
 		// criptografa e atualiza
-		String hash = new org.jasypt.util.password.BasicPasswordEncryptor().encryptPassword(novaSenha);
-		usuarioEncontrado.setSenha(hash);
+		usuarioService.atualizarSenha(usuarioEncontrado.getEmail(), novaSenha);
 
 		System.out.println("Senha atualizada com sucesso!");
 
@@ -0,0 +1,297 @@
+/*
+ * ArquivoChat
+ *
+ * Descrição geral:
+ * - Parte antiga do registro do chat de um evento (ChatService), tirada do heap e gravada
+ *   em segmentos no disco. O ChatService mantém em memória só a cauda recente e lê o resto
+ *   daqui quando alguém rola o chat para trás ou uma assinatura ficou para trás.
+ * - Cada segmento é lido mapeado em memória (MappedByteBuffer): as páginas ficam no cache
+ *   do sistema operacional, fora do heap, e só as mensagens lidas viram objetos.
+ * - Os segmentos são duráveis (arquivo temporário, fsync e rename atômico): com a
+ *   Persistencia iniciada, o snapshot do chat (ArquivoSnapshotChat) guarda só a cauda que
+ *   ainda não veio para cá, e na recuperação os segmentos são reabertos com reabrir().
+ *
+ * Formato do segmento "chat-<primeira sequência>.seg" (inteiros big-endian):
+ * - Cabeçalho (24 bytes): mágico "EMCH", versão, primeira sequência, quantidade de
+ *   entradas e posição do índice.
+ * - Entradas, na ordem das sequências: tipo (1 byte); mensagem: usuarioId, tamanho e
+ *   bytes UTF-8 do texto; remoção: sequência da mensagem removida (long).
+ * - Índice esparso: posição de uma a cada PASSO_INDICE entradas. Também fica no heap
+ *   (int[] pequeno), então achar uma sequência custa no máximo PASSO_INDICE - 1 entradas
+ *   puladas.
+ *
+ * Métodos e funcionalidades:
+ *
+ * abrir(Path diretorio)
+ * - Cria o diretório do arquivo (um por evento) vazio, apagando segmentos que sobraram nele.
+ *
+ * reabrir(Path diretorio, long ate)
+ * - Mapeia os segmentos já gravados, desde a sequência 1. Para no primeiro que falte ou
+ *   não seja válido, e apaga dali em diante, assim como os que passam de "ate" (entradas
+ *   cujo registro no diário se perdeu na queda).
+ *
+ * gravarSegmento(long primeira, int quantidade, boolean[] remocoes, int[] usuarios, String[] textos,
+ *                long[] removidas)
+ * - Grava as entradas [primeira, primeira + quantidade), faz o fsync e mapeia o segmento. remocoes[i] diz
+ *   o tipo da entrada: remoção (usa removidas[i]) ou mensagem (usa usuarios[i] e textos[i],
+ *   que não pode ser null). As sequências precisam continuar as do segmento anterior.
+ *
+ * ler(long de, long ate, Leitor leitor)
+ * - Entrega as entradas com sequência em [de, ate), em ordem, ao leitor.
+ *
+ * getProximaSequencia(), getTamanhoEmDisco()
+ * - Sequência seguinte à última arquivada e bytes gravados.
+ *
+ * Concorrência:
+ * - Métodos sincronizados; as leituras usam get absoluto sobre o buffer mapeado.
+ */
+
+package persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public final class ArquivoChat {
+
+	static final int MAGICO = 0x454D4348; // "EMCH"
+	static final int VERSAO = 1;
+
+	private static final int TAMANHO_CABECALHO = 24;
+	private static final int PASSO_INDICE = 64;
+	private static final byte MENSAGEM = 0;
+	private static final byte REMOCAO = 1;
+
+	/**
+	 * Recebe as entradas lidas do arquivo.
+	 */
+	public interface Leitor {
+		void mensagem(long sequencia, int usuarioId, String texto);
+
+		void remocao(long sequencia, long removida);
+	}
+
+	private static final class Segmento {
+		final long primeira;
+		final int quantidade;
+		final MappedByteBuffer dados;
+		final int[] indice;
+
+		Segmento(long primeira, int quantidade, MappedByteBuffer dados, int[] indice) {
+			this.primeira = primeira;
+			this.quantidade = quantidade;
+			this.dados = dados;
+			this.indice = indice;
+		}
+	}
+
+	private final Path diretorio;
+	private final List<Segmento> segmentos = new ArrayList<>();
+	private long proximaSequencia = 1;
+	private long tamanhoEmDisco;
+
+	private ArquivoChat(Path diretorio) {
+		this.diretorio = diretorio;
+	}
+
+	public static ArquivoChat abrir(Path diretorio) throws IOException {
+		Files.createDirectories(diretorio);
+		try (Stream<Path> antigos = Files.list(diretorio)) {
+			for (Path antigo : (Iterable<Path>) antigos::iterator) {
+				String nome = antigo.getFileName().toString();
+				if (nome.endsWith(".seg") || nome.endsWith(".seg.tmp")) {
+					Files.deleteIfExists(antigo);
+				}
+			}
+		}
+		return new ArquivoChat(diretorio);
+	}
+
+	public static ArquivoChat reabrir(Path diretorio, long ate) throws IOException {
+		Files.createDirectories(diretorio);
+		List<Path> gravados = new ArrayList<>();
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			for (Path gravado : (Iterable<Path>) arquivos::iterator) {
+				String nome = gravado.getFileName().toString();
+				if (nome.endsWith(".seg")) {
+					gravados.add(gravado);
+				} else if (nome.endsWith(".seg.tmp")) {
+					Files.deleteIfExists(gravado);
+				}
+			}
+		}
+		gravados.sort(null);
+		ArquivoChat arquivo = new ArquivoChat(diretorio);
+		boolean descartar = false;
+		for (Path gravado : gravados) {
+			if (!descartar) {
+				descartar = !arquivo.mapear(gravado, ate);
+			}
+			if (descartar) {
+				System.err.println("Segmento do chat descartado: " + gravado);
+				Files.deleteIfExists(gravado);
+			}
+		}
+		return arquivo;
+	}
+
+	// Mapeia o segmento se ele continuar o anterior e terminar até "ate"
+	private boolean mapear(Path gravado, long ate) throws IOException {
+		MappedByteBuffer dados;
+		try (FileChannel canal = FileChannel.open(gravado, StandardOpenOption.READ)) {
+			long tamanho = canal.size();
+			if (tamanho < TAMANHO_CABECALHO || tamanho > Integer.MAX_VALUE) {
+				return false;
+			}
+			dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+		}
+		int quantidade = dados.getInt(16);
+		int posicaoIndice = dados.getInt(20);
+		int[] indice = new int[(quantidade + PASSO_INDICE - 1) / PASSO_INDICE];
+		if (dados.getInt(0) != MAGICO || dados.getInt(4) != VERSAO || dados.getLong(8) != proximaSequencia
+				|| quantidade <= 0 || proximaSequencia + quantidade > ate
+				|| (long) posicaoIndice + 4L * indice.length != dados.capacity()) {
+			return false;
+		}
+		for (int i = 0; i < indice.length; i++) {
+			indice[i] = dados.getInt(posicaoIndice + 4 * i);
+		}
+		segmentos.add(new Segmento(proximaSequencia, quantidade, dados, indice));
+		proximaSequencia += quantidade;
+		tamanhoEmDisco += dados.capacity();
+		return true;
+	}
+
+	public synchronized void gravarSegmento(long primeira, int quantidade, boolean[] remocoes, int[] usuarios,
+			String[] textos, long[] removidas) throws IOException {
+		if (primeira != proximaSequencia) {
+			throw new IllegalArgumentException(
+					"Segmento começa em " + primeira + ", mas o arquivo termina antes de " + proximaSequencia);
+		}
+		byte[][] bytes = new byte[quantidade][];
+		long tamanho = TAMANHO_CABECALHO;
+		for (int i = 0; i < quantidade; i++) {
+			if (remocoes[i]) {
+				tamanho += 1 + 8;
+			} else if (textos[i] == null) {
+				throw new IllegalArgumentException("Mensagem sem texto na sequência " + (primeira + i));
+			} else {
+				bytes[i] = textos[i].getBytes(StandardCharsets.UTF_8);
+				tamanho += 1 + 4 + 4 + bytes[i].length;
+			}
+		}
+		int[] indice = new int[(quantidade + PASSO_INDICE - 1) / PASSO_INDICE];
+		tamanho += 4L * indice.length;
+		if (tamanho > Integer.MAX_VALUE) {
+			throw new IOException("Segmento de chat maior que o limite de 2 GB");
+		}
+
+		ByteBuffer saida = ByteBuffer.allocate((int) tamanho);
+		saida.position(TAMANHO_CABECALHO);
+		for (int i = 0; i < quantidade; i++) {
+			if (i % PASSO_INDICE == 0) {
+				indice[i / PASSO_INDICE] = saida.position();
+			}
+			if (remocoes[i]) {
+				saida.put(REMOCAO).putLong(removidas[i]);
+			} else {
+				saida.put(MENSAGEM).putInt(usuarios[i]).putInt(bytes[i].length).put(bytes[i]);
+			}
+		}
+		int posicaoIndice = saida.position();
+		for (int posicao : indice) {
+			saida.putInt(posicao);
+		}
+		saida.putInt(0, MAGICO).putInt(4, VERSAO).putLong(8, primeira).putInt(16, quantidade).putInt(20, posicaoIndice);
+		saida.flip();
+
+		// O snapshot do chat deixa de guardar estas entradas, então o segmento precisa estar no
+		// disco inteiro e com o nome definitivo antes de elas saírem do heap
+		Path arquivo = diretorio.resolve(String.format("chat-%016d.seg", primeira));
+		Path temporario = diretorio.resolve(arquivo.getFileName() + ".tmp");
+		try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (saida.hasRemaining()) {
+				canal.write(saida);
+			}
+			canal.force(true);
+		}
+		Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+		Diario.sincronizarDiretorio(diretorio);
+		MappedByteBuffer dados;
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+		}
+		segmentos.add(new Segmento(primeira, quantidade, dados, indice));
+		proximaSequencia = primeira + quantidade;
+		tamanhoEmDisco += tamanho;
+	}
+
+	public synchronized void ler(long de, long ate, Leitor leitor) {
+		long fim = Math.min(ate, proximaSequencia);
+		long sequencia = Math.max(de, 1);
+		for (int s = segmentoDe(sequencia); s >= 0 && s < segmentos.size() && sequencia < fim; s++) {
+			Segmento segmento = segmentos.get(s);
+			int deslocamento = (int) (sequencia - segmento.primeira);
+			int posicao = segmento.indice[deslocamento / PASSO_INDICE];
+			for (int i = deslocamento - deslocamento % PASSO_INDICE; i < deslocamento; i++) {
+				posicao = pular(segmento.dados, posicao);
+			}
+			long ultimaDoSegmento = Math.min(fim, segmento.primeira + segmento.quantidade);
+			for (; sequencia < ultimaDoSegmento; sequencia++) {
+				posicao = entregar(segmento.dados, posicao, sequencia, leitor);
+			}
+		}
+	}
+
+	public synchronized long getProximaSequencia() {
+		return proximaSequencia;
+	}
+
+	public synchronized long getTamanhoEmDisco() {
+		return tamanhoEmDisco;
+	}
+
+	// Os segmentos são contíguos e ordenados pela primeira sequência
+	private int segmentoDe(long sequencia) {
+		int inicio = 0;
+		int fim = segmentos.size() - 1;
+		while (inicio <= fim) {
+			int meio = (inicio + fim) >>> 1;
+			Segmento segmento = segmentos.get(meio);
+			if (sequencia < segmento.primeira) {
+				fim = meio - 1;
+			} else if (sequencia >= segmento.primeira + segmento.quantidade) {
+				inicio = meio + 1;
+			} else {
+				return meio;
+			}
+		}
+		return -1;
+	}
+
+	private static int pular(MappedByteBuffer dados, int posicao) {
+		return dados.get(posicao) == REMOCAO ? posicao + 1 + 8 : posicao + 1 + 4 + 4 + dados.getInt(posicao + 5);
+	}
+
+	private static int entregar(MappedByteBuffer dados, int posicao, long sequencia, Leitor leitor) {
+		if (dados.get(posicao) == REMOCAO) {
+			leitor.remocao(sequencia, dados.getLong(posicao + 1));
+			return posicao + 1 + 8;
+		}
+		int usuarioId = dados.getInt(posicao + 1);
+		byte[] texto = new byte[dados.getInt(posicao + 5)];
+		dados.get(posicao + 9, texto);
+		leitor.mensagem(sequencia, usuarioId, new String(texto, StandardCharsets.UTF_8));
+		return posicao + 9 + texto.length;
+	}
+}
@@ -0,0 +1,488 @@
+/*
+ * ArquivoSnapshot
+ *
+ * Descrição geral:
+ * - Snapshot binário do estado completo (usuários, eventos e notificações), gravado
+ *   periodicamente pela Persistencia. Na recuperação ele é carregado e só os segmentos
+ *   do diário a partir do seu número são reaplicados.
+ * - O arquivo "snapshot-<segmento>.bin" cobre todos os segmentos anteriores a <segmento>.
+ * - É lido mapeado em memória (MappedByteBuffer): nada é interpretado campo a campo em
+ *   um stream. Os registros têm tamanho fixo, os textos ficam numa tabela à parte e as
+ *   relações são ids. Textos e comentários só viram objetos quando alguém os acessa.
+ *
+ * Formato (versão 2, inteiros big-endian, arquivo limitado a 2 GB):
+ * - Cabeçalho (48 bytes): mágico "EMFS", versão, segmento, CRC32C de tudo o que vem
+ *   depois, último id de evento gerado, quantidades de usuários, eventos, notificações e
+ *   textos, posição da área de listas e posição da tabela de textos.
+ * - Usuários (64 bytes cada): id, índices dos textos, nascimento e data de criação.
+ * - Eventos (88 bytes cada): id, organizador, índices dos textos, flags, curtidas,
+ *   quantidade de comentários, posição das listas do evento, data e data de criação.
+ * - Notificações (32 bytes cada, agrupadas por usuário e em ordem de chegada).
+ * - Listas: para cada evento, participantes, presentes, quem curtiu e galeria (quantidade
+ *   + ids) seguidos dos comentários (usuarioId, texto).
+ * - Textos: deslocamentos int[quantidade + 1] e os bytes UTF-8 (ver TabelaTextos).
+ *   Textos que costumam se repetir são gravados uma vez só.
+ * - Datas: segundos (long, Long.MIN_VALUE para null) e nanos (int) em UTC.
+ *
+ * Métodos e funcionalidades:
+ *
+ * gravar(Path diretorio, long segmento, Fonte fonte)
+ * - Monta as seções em memória, grava em um arquivo temporário com FileChannel, faz
+ *   fsync e renomeia atomicamente; uma queda no meio nunca deixa um snapshot pela metade
+ *   com o nome definitivo.
+ *
+ * maisRecente(Path diretorio), ler(Path arquivo, EstadoRecuperado estado)
+ * - Localizam e carregam o snapshot, validando o CRC. Retorna o segmento coberto.
+ *
+ * apagarAnteriores(Path diretorio, long segmento)
+ * - Remove snapshots e segmentos do diário já cobertos pelo snapshot informado. Um
+ *   snapshot ainda mapeado que o sistema não deixe apagar fica para a próxima vez.
+ */
+
+package persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import model.Comentario;
+import model.Evento;
+import model.Notificacao;
+import model.Usuario;
+
+final class ArquivoSnapshot {
+
+	static final int MAGICO = 0x454D4653; // "EMFS"
+	static final int VERSAO = 2;
+
+	private static final int TAMANHO_CABECALHO = 48;
+	private static final int POSICAO_CRC = 16;
+	private static final int TAMANHO_USUARIO = 64;
+	private static final int TAMANHO_EVENTO = 88;
+	private static final int TAMANHO_NOTIFICACAO = 32;
+
+	private static final int PRIVADO = 1;
+	private static final int ACESSO_LIBERADO = 2;
+	private static final int POR_EMAIL = 1;
+
+	/**
+	 * De onde vem o estado a gravar; os eventos e as notificações são percorridos
+	 * pelos próprios serviços, que sabem como lê-los de forma consistente.
+	 */
+	interface Fonte {
+		Collection<Usuario> usuarios();
+
+		int ultimoIdEvento();
+
+		void percorrerEventos(Consumer<Evento> visitante);
+
+		void percorrerNotificacoes(BiConsumer<Integer, List<Notificacao>> visitante);
+	}
+
+	// Seção em montagem: ByteBuffer que dobra de capacidade quando enche
+	private static final class Secao {
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+
+		ByteBuffer reservar(int bytes) {
+			if (buffer.remaining() < bytes) {
+				long capacidade = Math.max(2L * buffer.capacity(), (long) buffer.position() + bytes);
+				if (capacidade > Integer.MAX_VALUE) {
+					throw new IllegalStateException("Snapshot maior que o limite de 2 GB");
+				}
+				ByteBuffer maior = ByteBuffer.allocate((int) capacidade);
+				maior.put(buffer.flip());
+				buffer = maior;
+			}
+			return buffer;
+		}
+
+		int tamanho() {
+			return buffer.position();
+		}
+
+		ByteBuffer conteudo() {
+			return buffer.duplicate().flip();
+		}
+	}
+
+	// Tabela de textos em montagem; ver TabelaTextos para a leitura
+	private static final class Textos {
+		private final Map<String, Integer> compartilhados = new HashMap<>();
+		private final Secao deslocamentos = new Secao();
+		private final Secao bytes = new Secao();
+		private int quantidade;
+
+		Textos() {
+			deslocamentos.reservar(Integer.BYTES).putInt(0);
+		}
+
+		// Textos que quase nunca se repetem (título, descrição, comentários)
+		int unico(String texto) {
+			if (texto == null) {
+				return TabelaTextos.NULO;
+			}
+			byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+			bytes.reservar(utf8.length).put(utf8);
+			deslocamentos.reservar(Integer.BYTES).putInt(bytes.tamanho());
+			return quantidade++;
+		}
+
+		// Textos que se repetem entre registros (categoria, local, imagens...)
+		int compartilhado(String texto) {
+			if (texto == null) {
+				return TabelaTextos.NULO;
+			}
+			Integer indice = compartilhados.get(texto);
+			if (indice == null) {
+				indice = unico(texto);
+				compartilhados.put(texto, indice);
+			}
+			return indice;
+		}
+	}
+
+	private ArquivoSnapshot() {
+	}
+
+	static Path arquivo(Path diretorio, long segmento) {
+		return diretorio.resolve(String.format("snapshot-%016d.bin", segmento));
+	}
+
+	static void gravar(Path diretorio, long segmento, Fonte fonte) throws IOException {
+		Textos textos = new Textos();
+		Secao usuarios = new Secao();
+		Secao eventos = new Secao();
+		Secao notificacoes = new Secao();
+		Secao listas = new Secao();
+
+		int ultimoIdEvento = fonte.ultimoIdEvento();
+		int quantidadeUsuarios = 0;
+		for (Usuario usuario : List.copyOf(fonte.usuarios())) {
+			escreverUsuario(usuarios.reservar(TAMANHO_USUARIO), usuario, textos);
+			quantidadeUsuarios++;
+		}
+		fonte.percorrerEventos(evento -> escreverEvento(eventos.reservar(TAMANHO_EVENTO), listas, evento, textos));
+		fonte.percorrerNotificacoes((usuarioId, lista) -> {
+			for (Notificacao notificacao : lista) {
+				escreverNotificacao(notificacoes.reservar(TAMANHO_NOTIFICACAO), usuarioId, notificacao, textos);
+			}
+		});
+
+		ByteBuffer[] secoes = { usuarios.conteudo(), eventos.conteudo(), notificacoes.conteudo(), listas.conteudo(),
+				textos.deslocamentos.conteudo(), textos.bytes.conteudo() };
+		long tamanhoTotal = TAMANHO_CABECALHO;
+		CRC32C crc = new CRC32C();
+		for (ByteBuffer secao : secoes) {
+			tamanhoTotal += secao.remaining();
+			crc.update(secao.duplicate());
+		}
+		if (tamanhoTotal > Integer.MAX_VALUE) {
+			throw new IOException("Snapshot maior que o limite de 2 GB");
+		}
+		int posicaoListas = TAMANHO_CABECALHO + usuarios.tamanho() + eventos.tamanho() + notificacoes.tamanho();
+		int posicaoTextos = posicaoListas + listas.tamanho();
+
+		ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+		cabecalho.putInt(MAGICO).putInt(VERSAO).putLong(segmento).putInt((int) crc.getValue());
+		cabecalho.putInt(ultimoIdEvento).putInt(quantidadeUsuarios).putInt(eventos.tamanho() / TAMANHO_EVENTO)
+				.putInt(notificacoes.tamanho() / TAMANHO_NOTIFICACAO).putInt(textos.quantidade);
+		cabecalho.putInt(posicaoListas).putInt(posicaoTextos).flip();
+
+		Path definitivo = arquivo(diretorio, segmento);
+		Path temporario = diretorio.resolve(definitivo.getFileName() + ".tmp");
+		try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer[] arquivo = new ByteBuffer[secoes.length + 1];
+			arquivo[0] = cabecalho;
+			System.arraycopy(secoes, 0, arquivo, 1, secoes.length);
+			for (long restante = tamanhoTotal; restante > 0;) {
+				restante -= canal.write(arquivo);
+			}
+			canal.force(true);
+		}
+		Files.move(temporario, definitivo, StandardCopyOption.ATOMIC_MOVE);
+		Diario.sincronizarDiretorio(diretorio);
+	}
+
+	private static void escreverUsuario(ByteBuffer saida, Usuario usuario, Textos textos) {
+		int inicio = saida.position();
+		saida.putInt(usuario.getId());
+		saida.putInt(textos.compartilhado(usuario.getUsername()));
+		saida.putInt(textos.compartilhado(usuario.getNome()));
+		saida.putInt(textos.compartilhado(usuario.getSobrenome()));
+		saida.putInt(textos.unico(usuario.getEmail()));
+		saida.putInt(textos.unico(usuario.getSenha()));
+		saida.putInt(textos.unico(usuario.getTelefone()));
+		saida.putInt(textos.unico(usuario.getCpf()));
+		saida.putInt(textos.compartilhado(usuario.getGenero()));
+		saida.putInt(textos.compartilhado(usuario.getCaminhoFotoPerfil()));
+		LocalDate nascimento = usuario.getDataNascimento();
+		saida.putLong(nascimento != null ? nascimento.toEpochDay() : Long.MIN_VALUE);
+		escreverData(saida, usuario.getDataCriacao());
+		saida.position(inicio + TAMANHO_USUARIO);
+	}
+
+	private static void escreverEvento(ByteBuffer saida, Secao listas, Evento evento, Textos textos) {
+		int inicio = saida.position();
+		List<Comentario> comentarios = evento.getComentarios();
+		saida.putInt(evento.getId());
+		saida.putInt(evento.getOrganizador() != null ? evento.getOrganizador().getId() : 0);
+		saida.putInt(textos.unico(evento.getTitulo()));
+		saida.putInt(textos.unico(evento.getDescricao()));
+		saida.putInt(textos.compartilhado(evento.getLocal()));
+		saida.putInt(textos.compartilhado(evento.getImagem()));
+		saida.putInt(textos.compartilhado(evento.getCategoria()));
+		saida.putInt(textos.compartilhado(evento.getPalestrante()));
+		saida.putInt(textos.compartilhado(evento.getBadgePath()));
+		saida.putInt(textos.compartilhado(evento.getUrlVideo()));
+		saida.putInt(textos.compartilhado(evento.getTipo()));
+		saida.putInt((evento.isPrivado() ? PRIVADO : 0) | (evento.isAcessoLiberado() ? ACESSO_LIBERADO : 0));
+		saida.putInt(evento.getCurtidas());
+		saida.putInt(comentarios.size());
+		saida.putInt(listas.tamanho());
+		escreverData(saida, evento.getData());
+		escreverData(saida, evento.getDataCriacao());
+		saida.position(inicio + TAMANHO_EVENTO);
+
+		escreverIds(listas, evento.getIdsParticipantes());
+		escreverIds(listas, evento.getIdsPresentes());
+		escreverIds(listas, evento.getIdsQueCurtiram());
+		List<String> galeria = evento.getGaleriaFotos();
+		ByteBuffer saidaListas = listas.reservar((1 + galeria.size() + 2 * comentarios.size()) * Integer.BYTES);
+		saidaListas.putInt(galeria.size());
+		for (String foto : galeria) {
+			saidaListas.putInt(textos.compartilhado(foto));
+		}
+		for (Comentario comentario : comentarios) {
+			saidaListas.putInt(comentario.getUsuarioId());
+			saidaListas.putInt(textos.unico(comentario.getTexto()));
+		}
+	}
+
+	private static void escreverNotificacao(ByteBuffer saida, int usuarioId, Notificacao notificacao,
+			Textos textos) {
+		int inicio = saida.position();
+		saida.putInt(usuarioId);
+		saida.putInt(textos.unico(notificacao.getMensagem()));
+		saida.putInt(textos.compartilhado(notificacao.getRemetente()));
+		Notificacao.Tipo tipo = notificacao.getTipo();
+		saida.putInt((notificacao.isPorEmail() ? POR_EMAIL : 0) | (tipo != null ? (tipo.ordinal() + 1) << 8 : 0));
+		escreverData(saida, notificacao.getDataHora());
+		saida.position(inicio + TAMANHO_NOTIFICACAO);
+	}
+
+	private static void escreverIds(Secao secao, int[] ids) {
+		ByteBuffer saida = secao.reservar((ids.length + 1) * Integer.BYTES);
+		saida.putInt(ids.length);
+		for (int id : ids) {
+			saida.putInt(id);
+		}
+	}
+
+	private static void escreverData(ByteBuffer saida, LocalDateTime data) {
+		saida.putLong(data != null ? data.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+		saida.putInt(data != null ? data.getNano() : 0);
+	}
+
+	/**
+	 * Snapshot de maior segmento no diretório, ou null se não houver nenhum.
+	 */
+	static Path maisRecente(Path diretorio) throws IOException {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			return arquivos.filter(a -> a.getFileName().toString().matches("snapshot-\\d{16}\\.bin"))
+					.max((a, b) -> a.getFileName().compareTo(b.getFileName())).orElse(null);
+		}
+	}
+
+	static long ler(Path arquivo, EstadoRecuperado estado) throws IOException {
+		ByteBuffer dados;
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			long tamanho = canal.size();
+			if (tamanho < TAMANHO_CABECALHO || tamanho > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot com tamanho inválido: " + arquivo);
+			}
+			// O mapeamento continua válido depois de fechar o canal
+			dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+		}
+		if (dados.getInt(0) != MAGICO || dados.getInt(4) != VERSAO) {
+			throw new IOException("Snapshot com formato desconhecido: " + arquivo);
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(dados.slice(TAMANHO_CABECALHO, dados.capacity() - TAMANHO_CABECALHO));
+		if (dados.getInt(POSICAO_CRC) != (int) crc.getValue()) {
+			throw new IOException("Snapshot corrompido (CRC): " + arquivo);
+		}
+		try {
+			lerConteudo(dados, estado);
+		} catch (RuntimeException e) {
+			throw new IOException("Snapshot corrompido: " + arquivo, e);
+		}
+		return dados.getLong(8);
+	}
+
+	private static void lerConteudo(ByteBuffer dados, EstadoRecuperado estado) {
+		ByteBuffer entrada = dados.duplicate().position(POSICAO_CRC + Integer.BYTES);
+		estado.ultimoIdEvento = entrada.getInt();
+		int quantidadeUsuarios = entrada.getInt();
+		int quantidadeEventos = entrada.getInt();
+		int quantidadeNotificacoes = entrada.getInt();
+		int quantidadeTextos = entrada.getInt();
+		int posicaoListas = entrada.getInt();
+		TabelaTextos textos = new TabelaTextos(dados, entrada.getInt(), quantidadeTextos);
+
+		for (int i = 0; i < quantidadeUsuarios; i++) {
+			Usuario usuario = lerUsuario(entrada.position(TAMANHO_CABECALHO + i * TAMANHO_USUARIO), textos);
+			estado.usuarios.put(usuario.getId(), usuario);
+		}
+
+		int posicaoEventos = TAMANHO_CABECALHO + quantidadeUsuarios * TAMANHO_USUARIO;
+		ByteBuffer listas = dados.duplicate();
+		for (int i = 0; i < quantidadeEventos; i++) {
+			Evento evento = lerEvento(entrada.position(posicaoEventos + i * TAMANHO_EVENTO), listas, posicaoListas,
+					textos, estado);
+			estado.eventos.put(evento.getId(), evento);
+		}
+
+		int posicaoNotificacoes = posicaoEventos + quantidadeEventos * TAMANHO_EVENTO;
+		for (int i = 0; i < quantidadeNotificacoes; i++) {
+			entrada.position(posicaoNotificacoes + i * TAMANHO_NOTIFICACAO);
+			int usuarioId = entrada.getInt();
+			estado.notificacoes(usuarioId).add(lerNotificacao(entrada, textos));
+		}
+	}
+
+	private static Usuario lerUsuario(ByteBuffer entrada, TabelaTextos textos) {
+		Usuario usuario = new Usuario();
+		usuario.setId(entrada.getInt());
+		usuario.setUsername(textos.texto(entrada.getInt()));
+		usuario.setNome(textos.texto(entrada.getInt()));
+		usuario.setSobrenome(textos.texto(entrada.getInt()));
+		usuario.setEmail(textos.texto(entrada.getInt()));
+		String senha = textos.texto(entrada.getInt());
+		if (senha != null) {
+			usuario.setSenha(senha);
+		}
+		usuario.setTelefone(textos.texto(entrada.getInt()));
+		usuario.setCpf(textos.texto(entrada.getInt()));
+		usuario.setGenero(textos.texto(entrada.getInt()));
+		String foto = textos.texto(entrada.getInt());
+		if (foto != null) {
+			usuario.setCaminhoFotoPerfil(foto);
+		}
+		long nascimento = entrada.getLong();
+		usuario.setDataNascimento(nascimento != Long.MIN_VALUE ? LocalDate.ofEpochDay(nascimento) : null);
+		usuario.setDataCriacao(lerData(entrada));
+		return usuario;
+	}
+
+	private static Evento lerEvento(ByteBuffer entrada, ByteBuffer listas, int posicaoListas, TabelaTextos textos,
+			EstadoRecuperado estado) {
+		Evento evento = new Evento();
+		evento.setId(entrada.getInt());
+		int organizadorId = entrada.getInt();
+		evento.setOrganizador(organizadorId != 0 ? estado.referencia(organizadorId) : null);
+		evento.setTitulo(textos.texto(entrada.getInt()));
+		evento.setDescricao(textos.texto(entrada.getInt()));
+		evento.setLocal(textos.texto(entrada.getInt()));
+		evento.setImagem(textos.texto(entrada.getInt()));
+		evento.setCategoria(textos.texto(entrada.getInt()));
+		evento.setPalestrante(textos.texto(entrada.getInt()));
+		evento.setBadgePath(textos.texto(entrada.getInt()));
+		evento.setUrlVideo(textos.texto(entrada.getInt()));
+		evento.setTipo(textos.texto(entrada.getInt()));
+		int flags = entrada.getInt();
+		evento.setPrivado((flags & PRIVADO) != 0);
+		evento.setAcessoLiberado((flags & ACESSO_LIBERADO) != 0);
+		int curtidas = entrada.getInt();
+		int quantidadeComentarios = entrada.getInt();
+		listas.position(posicaoListas + entrada.getInt());
+		evento.setData(lerData(entrada));
+		evento.setDataCriacao(lerData(entrada));
+
+		for (int i = listas.getInt(); i > 0; i--) {
+			evento.adicionarParticipante(estado.referencia(listas.getInt()));
+		}
+		for (int i = listas.getInt(); i > 0; i--) {
+			evento.setPresenca(listas.getInt(), true);
+		}
+		for (int i = listas.getInt(); i > 0; i--) {
+			evento.curtirEvento(estado.referencia(listas.getInt()));
+		}
+		evento.setCurtidas(curtidas);
+		List<String> galeria = evento.getGaleriaFotos();
+		for (int i = listas.getInt(); i > 0; i--) {
+			galeria.add(textos.texto(listas.getInt()));
+		}
+		if (quantidadeComentarios > 0) {
+			evento.setCarregadorComentarios(lerComentarios(listas.duplicate(), quantidadeComentarios, textos));
+		}
+		return evento;
+	}
+
+	// Leitura adiada: o buffer é uma cópia própria, posicionada no primeiro comentário
+	private static Supplier<List<Comentario>> lerComentarios(ByteBuffer entrada, int quantidade,
+			TabelaTextos textos) {
+		return () -> {
+			List<Comentario> comentarios = new ArrayList<>(quantidade);
+			for (int i = 0; i < quantidade; i++) {
+				int usuarioId = entrada.getInt();
+				comentarios.add(new Comentario(textos.texto(entrada.getInt()), usuarioId));
+			}
+			return comentarios;
+		};
+	}
+
+	private static Notificacao lerNotificacao(ByteBuffer entrada, TabelaTextos textos) {
+		String mensagem = textos.texto(entrada.getInt());
+		String remetente = textos.texto(entrada.getInt());
+		int flags = entrada.getInt();
+		int tipo = (flags >>> 8) - 1;
+		return new Notificacao(mensagem, lerData(entrada), (flags & POR_EMAIL) != 0,
+				tipo >= 0 ? Notificacao.Tipo.values()[tipo] : null, remetente);
+	}
+
+	private static LocalDateTime lerData(ByteBuffer entrada) {
+		long segundos = entrada.getLong();
+		int nanos = entrada.getInt();
+		return segundos != Long.MIN_VALUE ? LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC) : null;
+	}
+
+	static void apagarAnteriores(Path diretorio, long segmento) throws IOException {
+		for (long anterior : Diario.listarSegmentos(diretorio)) {
+			if (anterior < segmento) {
+				Files.deleteIfExists(Diario.arquivoSegmento(diretorio, anterior));
+			}
+		}
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+				String nome = arquivo.getFileName().toString();
+				if (nome.matches("snapshot-\\d{16}\\.bin(\\.tmp)?") && Long.parseLong(nome.substring(9, 25)) < segmento) {
+					try {
+						Files.deleteIfExists(arquivo);
+					} catch (IOException e) {
+						// No Windows um arquivo ainda mapeado não pode ser apagado
+						System.err.println("Snapshot antigo mantido até a próxima limpeza: " + nome);
+					}
+				}
+			}
+		}
+	}
+}
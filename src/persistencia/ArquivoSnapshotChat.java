@@ -0,0 +1,207 @@
+/*
+ * ArquivoSnapshotChat
+ *
+ * Descrição geral:
+ * - Parte do snapshot com o chat dos eventos, em um arquivo ao lado do ArquivoSnapshot:
+ *   "chat-<segmento>.bin" cobre os mesmos segmentos do diário que "snapshot-<segmento>.bin".
+ * - É gravado antes do snapshot principal, que continua sendo o ponto de confirmação: um
+ *   "chat-" sem o "snapshot-" do mesmo segmento (queda no meio) é ignorado e apagado na
+ *   limpeza seguinte. Snapshots anteriores ao chat durável não têm o arquivo; aí o chat
+ *   começa vazio.
+ * - Guarda só o que está no heap de cada sala (SalaChatGravada); a parte arquivada já está
+ *   gravada nos segmentos do ArquivoChat.
+ *
+ * Formato (versão 1, inteiros big-endian):
+ * - Cabeçalho (24 bytes): mágico "EMCS", versão, segmento, CRC32C de tudo o que vem
+ *   depois e quantidade de salas.
+ * - Para cada sala: eventoId, primeira sequência da cauda, quantidade de entradas e as
+ *   entradas (tipo; mensagem: usuarioId e texto; remoção: sequência removida), seguidas
+ *   das sequências removidas e dos pares (usuarioId, quantidade) de mensagens e de mãos
+ *   levantadas.
+ *
+ * Métodos e funcionalidades:
+ *
+ * gravar(Path diretorio, long segmento, Consumer<Consumer<SalaChatGravada>> salas)
+ * - Arquivo temporário, fsync e rename atômico, como o ArquivoSnapshot.
+ *
+ * ler(Path diretorio, long segmento, EstadoRecuperado estado)
+ * - Carrega as salas do snapshot do segmento, se o arquivo existir, validando o CRC.
+ *
+ * apagarAnteriores(Path diretorio, long segmento)
+ * - Remove os arquivos de segmentos anteriores.
+ */
+
+package persistencia;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+final class ArquivoSnapshotChat {
+
+	static final int MAGICO = 0x454D4353; // "EMCS"
+	static final int VERSAO = 1;
+
+	private static final int TAMANHO_CABECALHO = 24;
+	private static final int POSICAO_CRC = 16;
+	private static final byte MENSAGEM = 0;
+	private static final byte REMOCAO = 1;
+
+	private ArquivoSnapshotChat() {
+	}
+
+	static Path arquivo(Path diretorio, long segmento) {
+		return diretorio.resolve(String.format("chat-%016d.bin", segmento));
+	}
+
+	static void gravar(Path diretorio, long segmento, Consumer<Consumer<SalaChatGravada>> salas) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream saida = new DataOutputStream(bytes);
+		int[] quantidade = new int[1];
+		try {
+			salas.accept(sala -> {
+				try {
+					escreverSala(saida, sala);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				quantidade[0]++;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		saida.flush();
+
+		ByteBuffer conteudo = ByteBuffer.wrap(bytes.toByteArray());
+		CRC32C crc = new CRC32C();
+		crc.update(conteudo.duplicate());
+		ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+		cabecalho.putInt(MAGICO).putInt(VERSAO).putLong(segmento).putInt((int) crc.getValue()).putInt(quantidade[0])
+				.flip();
+
+		Path definitivo = arquivo(diretorio, segmento);
+		Path temporario = diretorio.resolve(definitivo.getFileName() + ".tmp");
+		try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer[] arquivo = { cabecalho, conteudo };
+			for (long restante = TAMANHO_CABECALHO + conteudo.remaining(); restante > 0;) {
+				restante -= canal.write(arquivo);
+			}
+			canal.force(true);
+		}
+		Files.move(temporario, definitivo, StandardCopyOption.ATOMIC_MOVE);
+		Diario.sincronizarDiretorio(diretorio);
+	}
+
+	private static void escreverSala(DataOutputStream saida, SalaChatGravada sala) throws IOException {
+		saida.writeInt(sala.getEventoId());
+		saida.writeLong(sala.getPrimeiraSequencia());
+		saida.writeInt((int) (sala.getProximaSequencia() - sala.getPrimeiraSequencia()));
+		try {
+			sala.percorrer(new ArquivoChat.Leitor() {
+				@Override
+				public void mensagem(long sequencia, int usuarioId, String texto) {
+					try {
+						saida.writeByte(MENSAGEM);
+						saida.writeInt(usuarioId);
+						CodecRegistros.escreverTexto(saida, texto);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+
+				@Override
+				public void remocao(long sequencia, long removida) {
+					try {
+						saida.writeByte(REMOCAO);
+						saida.writeLong(removida);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		saida.writeInt(sala.getRemovidas().size());
+		for (long removida : sala.getRemovidas()) {
+			saida.writeLong(removida);
+		}
+		escreverContagem(saida, sala.getMensagensPorUsuario());
+		escreverContagem(saida, sala.getMaosPorUsuario());
+	}
+
+	private static void escreverContagem(DataOutputStream saida, Map<Integer, Integer> contagem) throws IOException {
+		saida.writeInt(contagem.size());
+		for (Map.Entry<Integer, Integer> par : contagem.entrySet()) {
+			saida.writeInt(par.getKey());
+			saida.writeInt(par.getValue());
+		}
+	}
+
+	static void ler(Path diretorio, long segmento, EstadoRecuperado estado) throws IOException {
+		Path arquivo = arquivo(diretorio, segmento);
+		if (!Files.exists(arquivo)) {
+			return;
+		}
+		byte[] dados = Files.readAllBytes(arquivo);
+		ByteBuffer cabecalho = ByteBuffer.wrap(dados);
+		if (dados.length < TAMANHO_CABECALHO || cabecalho.getInt(0) != MAGICO || cabecalho.getInt(4) != VERSAO) {
+			throw new IOException("Snapshot do chat com formato desconhecido: " + arquivo);
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(dados, TAMANHO_CABECALHO, dados.length - TAMANHO_CABECALHO);
+		if (cabecalho.getInt(POSICAO_CRC) != (int) crc.getValue()) {
+			throw new IOException("Snapshot do chat corrompido (CRC): " + arquivo);
+		}
+		DataInputStream entrada = new DataInputStream(
+				new ByteArrayInputStream(dados, TAMANHO_CABECALHO, dados.length - TAMANHO_CABECALHO));
+		for (int s = cabecalho.getInt(POSICAO_CRC + Integer.BYTES); s > 0; s--) {
+			SalaChatGravada sala = new SalaChatGravada(entrada.readInt(), entrada.readLong());
+			for (int i = entrada.readInt(); i > 0; i--) {
+				if (entrada.readByte() == REMOCAO) {
+					sala.acrescentarRemocao(entrada.readLong());
+				} else {
+					int usuarioId = entrada.readInt();
+					sala.acrescentarMensagem(usuarioId, CodecRegistros.lerTexto(entrada));
+				}
+			}
+			for (int i = entrada.readInt(); i > 0; i--) {
+				sala.getRemovidas().add(entrada.readLong());
+			}
+			lerContagem(entrada, sala.getMensagensPorUsuario());
+			lerContagem(entrada, sala.getMaosPorUsuario());
+			estado.salasChat.put(sala.getEventoId(), sala);
+		}
+	}
+
+	private static void lerContagem(DataInputStream entrada, Map<Integer, Integer> contagem) throws IOException {
+		for (int i = entrada.readInt(); i > 0; i--) {
+			contagem.put(entrada.readInt(), entrada.readInt());
+		}
+	}
+
+	static void apagarAnteriores(Path diretorio, long segmento) throws IOException {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+				String nome = arquivo.getFileName().toString();
+				if (nome.matches("chat-\\d{16}\\.bin(\\.tmp)?") && Long.parseLong(nome.substring(5, 21)) < segmento) {
+					Files.deleteIfExists(arquivo);
+				}
+			}
+		}
+	}
+}
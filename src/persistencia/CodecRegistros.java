@@ -0,0 +1,227 @@
+/*
+ * CodecRegistros
+ *
+ * Descrição geral:
+ * - Codificação binária compartilhada pelo Diario (registros de mutação) e pelo
+ *   ArquivoSnapshot (estado completo).
+ * - Textos são gravados como tamanho + bytes UTF-8 (-1 para null), datas como
+ *   segundos e nanos em UTC, e relações sempre por id.
+ *
+ * Tipos de registro do diário (todos são atribuições, então reaplicar é seguro):
+ * - USUARIO_SALVO: dados completos do usuário.
+ * - EVENTO_SALVO: dados descritivos e galeria do evento (sem participantes, curtidas ou comentários).
+ * - EVENTO_REMOVIDO: id do evento.
+ * - PARTICIPACAO, PRESENCA, CURTIDA: (eventoId, usuarioId, ativo).
+ * - COMENTARIO: (eventoId, posição, usuarioId, texto); só entra se a posição ainda estiver livre.
+ * - NOTIFICACAO: (usuarioId, posição, notificação), com a mesma regra de posição.
+ * - MENSAGEM_CHAT: (eventoId, sequência, usuarioId, texto); REMOCAO_CHAT: (eventoId,
+ *   sequência, sequência removida, usuarioId do remetente). Só entram se a sequência for a
+ *   próxima do chat do evento.
+ * - MAOS_LEVANTADAS: (eventoId, usuarioId, total de mãos levantadas).
+ *
+ * Métodos principais:
+ *
+ * escreverUsuario(), lerUsuario(), escreverEvento(), lerEvento()
+ * - Campos de Usuario e os campos descritivos de Evento (o id do evento é lido por quem
+ *   chama, para localizar o evento já existente).
+ *
+ * escreverNotificacao(), lerNotificacao()
+ * - Campos de Notificacao.
+ *
+ * escreverTexto(), lerTexto(), escreverData(), lerData(), escreverIds(), lerIds()
+ * - Primitivas usadas pelos registros e pelo snapshot.
+ */
+
+package persistencia;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import model.Evento;
+import model.Notificacao;
+import model.Usuario;
+
+final class CodecRegistros {
+
+	static final byte USUARIO_SALVO = 1;
+	static final byte EVENTO_SALVO = 2;
+	static final byte EVENTO_REMOVIDO = 3;
+	static final byte PARTICIPACAO = 4;
+	static final byte PRESENCA = 5;
+	static final byte CURTIDA = 6;
+	static final byte COMENTARIO = 7;
+	static final byte NOTIFICACAO = 8;
+	static final byte MENSAGEM_CHAT = 9;
+	static final byte REMOCAO_CHAT = 10;
+	static final byte MAOS_LEVANTADAS = 11;
+
+	private CodecRegistros() {
+	}
+
+	static void escreverUsuario(DataOutput saida, Usuario usuario) throws IOException {
+		saida.writeInt(usuario.getId());
+		escreverTexto(saida, usuario.getUsername());
+		escreverTexto(saida, usuario.getNome());
+		escreverTexto(saida, usuario.getSobrenome());
+		escreverTexto(saida, usuario.getEmail());
+		escreverTexto(saida, usuario.getSenha());
+		escreverTexto(saida, usuario.getTelefone());
+		escreverTexto(saida, usuario.getCpf());
+		escreverTexto(saida, usuario.getGenero());
+		LocalDate nascimento = usuario.getDataNascimento();
+		saida.writeLong(nascimento != null ? nascimento.toEpochDay() : Long.MIN_VALUE);
+		escreverData(saida, usuario.getDataCriacao());
+		escreverTexto(saida, usuario.getCaminhoFotoPerfil());
+	}
+
+	static Usuario lerUsuario(DataInput entrada) throws IOException {
+		Usuario usuario = new Usuario();
+		usuario.setId(entrada.readInt());
+		usuario.setUsername(lerTexto(entrada));
+		usuario.setNome(lerTexto(entrada));
+		usuario.setSobrenome(lerTexto(entrada));
+		usuario.setEmail(lerTexto(entrada));
+		String senha = lerTexto(entrada);
+		if (senha != null) {
+			usuario.setSenha(senha);
+		}
+		usuario.setTelefone(lerTexto(entrada));
+		usuario.setCpf(lerTexto(entrada));
+		usuario.setGenero(lerTexto(entrada));
+		long nascimento = entrada.readLong();
+		usuario.setDataNascimento(nascimento != Long.MIN_VALUE ? LocalDate.ofEpochDay(nascimento) : null);
+		usuario.setDataCriacao(lerData(entrada));
+		String foto = lerTexto(entrada);
+		if (foto != null) {
+			usuario.setCaminhoFotoPerfil(foto);
+		}
+		return usuario;
+	}
+
+	static void escreverEvento(DataOutput saida, Evento evento) throws IOException {
+		saida.writeInt(evento.getId());
+		saida.writeInt(evento.getOrganizador() != null ? evento.getOrganizador().getId() : 0);
+		escreverTexto(saida, evento.getTitulo());
+		escreverTexto(saida, evento.getDescricao());
+		escreverTexto(saida, evento.getLocal());
+		escreverTexto(saida, evento.getImagem());
+		escreverTexto(saida, evento.getCategoria());
+		escreverTexto(saida, evento.getPalestrante());
+		escreverTexto(saida, evento.getBadgePath());
+		escreverTexto(saida, evento.getUrlVideo());
+		escreverTexto(saida, evento.getTipo());
+		escreverData(saida, evento.getData());
+		escreverData(saida, evento.getDataCriacao());
+		saida.writeByte((evento.isPrivado() ? 1 : 0) | (evento.isAcessoLiberado() ? 2 : 0));
+		List<String> galeria = evento.getGaleriaFotos();
+		saida.writeInt(galeria.size());
+		for (String foto : galeria) {
+			escreverTexto(saida, foto);
+		}
+	}
+
+	/**
+	 * Lê, depois do id, os campos descritivos para dentro de {@code evento} (novo
+	 * ou já existente); o organizador é resolvido pelo id.
+	 */
+	static void lerEvento(DataInput entrada, Evento evento, IntFunction<Usuario> usuarios) throws IOException {
+		int organizadorId = entrada.readInt();
+		evento.setOrganizador(organizadorId != 0 ? usuarios.apply(organizadorId) : null);
+		evento.setTitulo(lerTexto(entrada));
+		evento.setDescricao(lerTexto(entrada));
+		evento.setLocal(lerTexto(entrada));
+		evento.setImagem(lerTexto(entrada));
+		evento.setCategoria(lerTexto(entrada));
+		evento.setPalestrante(lerTexto(entrada));
+		evento.setBadgePath(lerTexto(entrada));
+		evento.setUrlVideo(lerTexto(entrada));
+		evento.setTipo(lerTexto(entrada));
+		evento.setData(lerData(entrada));
+		evento.setDataCriacao(lerData(entrada));
+		int flags = entrada.readByte();
+		evento.setPrivado((flags & 1) != 0);
+		evento.setAcessoLiberado((flags & 2) != 0);
+		List<String> galeria = evento.getGaleriaFotos();
+		galeria.clear();
+		for (int i = entrada.readInt(); i > 0; i--) {
+			galeria.add(lerTexto(entrada));
+		}
+	}
+
+	static void escreverNotificacao(DataOutput saida, Notificacao notificacao) throws IOException {
+		escreverTexto(saida, notificacao.getMensagem());
+		escreverData(saida, notificacao.getDataHora());
+		saida.writeBoolean(notificacao.isPorEmail());
+		saida.writeByte(notificacao.getTipo() != null ? notificacao.getTipo().ordinal() : -1);
+		escreverTexto(saida, notificacao.getRemetente());
+	}
+
+	static Notificacao lerNotificacao(DataInput entrada) throws IOException {
+		String mensagem = lerTexto(entrada);
+		LocalDateTime dataHora = lerData(entrada);
+		boolean porEmail = entrada.readBoolean();
+		int tipo = entrada.readByte();
+		String remetente = lerTexto(entrada);
+		return new Notificacao(mensagem, dataHora, porEmail, tipo >= 0 ? Notificacao.Tipo.values()[tipo] : null,
+				remetente);
+	}
+
+	static void escreverTexto(DataOutput saida, String texto) throws IOException {
+		if (texto == null) {
+			saida.writeInt(-1);
+			return;
+		}
+		byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+		saida.writeInt(bytes.length);
+		saida.write(bytes);
+	}
+
+	static String lerTexto(DataInput entrada) throws IOException {
+		int tamanho = entrada.readInt();
+		if (tamanho < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[tamanho];
+		entrada.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void escreverData(DataOutput saida, LocalDateTime data) throws IOException {
+		if (data == null) {
+			saida.writeLong(Long.MIN_VALUE);
+			return;
+		}
+		saida.writeLong(data.toEpochSecond(ZoneOffset.UTC));
+		saida.writeInt(data.getNano());
+	}
+
+	static LocalDateTime lerData(DataInput entrada) throws IOException {
+		long segundos = entrada.readLong();
+		if (segundos == Long.MIN_VALUE) {
+			return null;
+		}
+		return LocalDateTime.ofEpochSecond(segundos, entrada.readInt(), ZoneOffset.UTC);
+	}
+
+	static void escreverIds(DataOutput saida, int[] ids) throws IOException {
+		saida.writeInt(ids.length);
+		for (int id : ids) {
+			saida.writeInt(id);
+		}
+	}
+
+	static int[] lerIds(DataInput entrada) throws IOException {
+		int[] ids = new int[entrada.readInt()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = entrada.readInt();
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ * Diario
+ *
+ * Descrição geral:
+ * - Diário de mutações (write-ahead log) só de acréscimo. Cada alteração confirmada
+ *   pelos serviços vira um registro aqui antes de ser considerada gravada.
+ * - Os arquivos são segmentos numerados "diario-<segmento>.log". Um snapshot cobre
+ *   todos os segmentos anteriores ao seu número, que então podem ser apagados.
+ *
+ * Formato:
+ * - Cabeçalho do segmento: mágico "EMFJ", versão e número do segmento.
+ * - Registro: [int tamanho][int crc32c][byte tipo][dados]. O CRC cobre tipo e dados,
+ *   então um registro cortado ao meio por uma queda é reconhecido e descartado.
+ *
+ * Métodos e funcionalidades:
+ *
+ * abrir(Path diretorio, long segmento)
+ * - Cria um segmento novo e inicia a thread gravadora.
+ *
+ * acrescentar(byte tipo, byte[] dados, int tamanho)
+ * - Copia o registro para o lote pendente e retorna seu número de sequência. Não faz IO.
+ *
+ * aguardarDurabilidade(long sequencia)
+ * - Bloqueia até o registro estar no disco (fsync).
+ *
+ * rotacionar()
+ * - Fecha o segmento atual e passa a gravar no próximo; retorna o número do novo.
+ *
+ * reproduzir(Path diretorio, long aPartirDe, LeitorRegistros leitor)
+ * - Lê, em ordem, os registros dos segmentos a partir do informado. Cada segmento é lido
+ *   até o primeiro registro inválido e truncado ali (fim rasgado por uma queda).
+ *
+ * Técnicas utilizadas:
+ * - Group commit: enquanto a thread gravadora faz o fsync de um lote, os novos registros
+ *   se acumulam no outro buffer e vão todos no próximo fsync. Com muitas threads
+ *   gravando, o custo do fsync é dividido entre elas.
+ * - Dois buffers alternados, trocados sob o monitor do diário; o IO acontece fora dele.
+ */
+
+package persistencia;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+final class Diario implements Closeable {
+
+	static final int MAGICO = 0x454D464A; // "EMFJ"
+	static final int VERSAO = 1;
+	private static final int TAMANHO_CABECALHO = 16;
+	private static final int CABECALHO_REGISTRO = 9;
+	private static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024 * 1024;
+
+	interface LeitorRegistros {
+		void aplicar(byte tipo, DataInput dados) throws IOException;
+	}
+
+	private final Path diretorio;
+	private final Thread gravador;
+	private final CRC32C crc = new CRC32C();
+
+	// Usados só pela thread gravadora (e por close(), depois dela terminar)
+	private FileChannel canal;
+
+	// Protegidos pelo monitor do diário
+	private byte[] pendente = new byte[64 * 1024];
+	private int tamanhoPendente;
+	private byte[] livre = new byte[64 * 1024];
+	private long ultimaSequencia;
+	private long sequenciaDuravel;
+	private long segmentoAtual;
+	private long segmentoSolicitado;
+	private long bytesAcrescentados;
+	private boolean fechando;
+	private IOException falha;
+
+	private Diario(Path diretorio, long segmento) throws IOException {
+		this.diretorio = diretorio;
+		this.segmentoAtual = segmento;
+		this.segmentoSolicitado = segmento;
+		this.canal = criarSegmento(diretorio, segmento);
+		this.gravador = new Thread(this::gravar, "diario-gravador");
+		this.gravador.setDaemon(true);
+	}
+
+	static Diario abrir(Path diretorio, long segmento) throws IOException {
+		Diario diario = new Diario(diretorio, segmento);
+		diario.gravador.start();
+		return diario;
+	}
+
+	static Path arquivoSegmento(Path diretorio, long segmento) {
+		return diretorio.resolve(String.format("diario-%016d.log", segmento));
+	}
+
+	/**
+	 * Números dos segmentos existentes no diretório, em ordem crescente.
+	 */
+	static long[] listarSegmentos(Path diretorio) throws IOException {
+		List<Long> numeros = new ArrayList<>();
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			arquivos.forEach(arquivo -> {
+				String nome = arquivo.getFileName().toString();
+				if (nome.matches("diario-\\d{16}\\.log")) {
+					numeros.add(Long.parseLong(nome.substring(7, 23)));
+				}
+			});
+		}
+		long[] segmentos = numeros.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(segmentos);
+		return segmentos;
+	}
+
+	synchronized long acrescentar(byte tipo, byte[] dados, int tamanho) throws IOException {
+		if (falha != null) {
+			throw new IOException("Diário indisponível", falha);
+		}
+		if (fechando) {
+			throw new IOException("Diário fechado");
+		}
+		int necessario = tamanhoPendente + CABECALHO_REGISTRO + tamanho;
+		if (necessario > pendente.length) {
+			pendente = Arrays.copyOf(pendente, Math.max(necessario, pendente.length * 2));
+		}
+		crc.reset();
+		crc.update(tipo);
+		crc.update(dados, 0, tamanho);
+		ByteBuffer destino = ByteBuffer.wrap(pendente, tamanhoPendente, CABECALHO_REGISTRO);
+		destino.putInt(tamanho).putInt((int) crc.getValue()).put(tipo);
+		System.arraycopy(dados, 0, pendente, tamanhoPendente + CABECALHO_REGISTRO, tamanho);
+		tamanhoPendente = necessario;
+		bytesAcrescentados += CABECALHO_REGISTRO + tamanho;
+		notifyAll();
+		return ++ultimaSequencia;
+	}
+
+	synchronized void aguardarDurabilidade(long sequencia) throws IOException {
+		while (sequenciaDuravel < sequencia) {
+			if (falha != null) {
+				throw new IOException("Falha ao gravar o diário", falha);
+			}
+			esperar();
+		}
+	}
+
+	synchronized long rotacionar() throws IOException {
+		long novo = segmentoSolicitado + 1;
+		segmentoSolicitado = novo;
+		notifyAll();
+		while (segmentoAtual < novo) {
+			if (falha != null) {
+				throw new IOException("Falha ao rotacionar o diário", falha);
+			}
+			esperar();
+		}
+		return novo;
+	}
+
+	/**
+	 * Bytes acrescentados desde a abertura; usado para decidir quando gerar um snapshot.
+	 */
+	synchronized long getBytesAcrescentados() {
+		return bytesAcrescentados;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			fechando = true;
+			notifyAll();
+		}
+		try {
+			gravador.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido ao fechar o diário");
+		}
+		canal.close();
+		synchronized (this) {
+			if (falha != null) {
+				throw new IOException("Falha ao gravar o diário", falha);
+			}
+		}
+	}
+
+	private void esperar() throws InterruptedIOException {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido aguardando o diário");
+		}
+	}
+
+	// Laço da thread gravadora: pega o lote pendente, grava, faz fsync e libera quem espera
+	private void gravar() {
+		while (true) {
+			byte[] lote;
+			int tamanho;
+			long alvo;
+			long segmentoDoCanal;
+			long proximoSegmento;
+			synchronized (this) {
+				while (tamanhoPendente == 0 && segmentoSolicitado == segmentoAtual && !fechando) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// A thread só termina pelo fechamento do diário
+					}
+				}
+				if (tamanhoPendente == 0 && segmentoSolicitado == segmentoAtual) {
+					return;
+				}
+				lote = pendente;
+				tamanho = tamanhoPendente;
+				pendente = livre;
+				tamanhoPendente = 0;
+				alvo = ultimaSequencia;
+				segmentoDoCanal = segmentoAtual;
+				proximoSegmento = segmentoSolicitado;
+			}
+
+			try {
+				if (tamanho > 0) {
+					ByteBuffer buffer = ByteBuffer.wrap(lote, 0, tamanho);
+					while (buffer.hasRemaining()) {
+						canal.write(buffer);
+					}
+					canal.force(false);
+				}
+				if (proximoSegmento != segmentoDoCanal) {
+					FileChannel novo = criarSegmento(diretorio, proximoSegmento);
+					canal.close();
+					canal = novo;
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					falha = e;
+					notifyAll();
+				}
+				return;
+			}
+
+			synchronized (this) {
+				livre = lote;
+				sequenciaDuravel = alvo;
+				segmentoAtual = proximoSegmento;
+				notifyAll();
+			}
+		}
+	}
+
+	private static FileChannel criarSegmento(Path diretorio, long segmento) throws IOException {
+		FileChannel canal = FileChannel.open(arquivoSegmento(diretorio, segmento), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+		ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+		cabecalho.putInt(MAGICO).putInt(VERSAO).putLong(segmento).flip();
+		while (cabecalho.hasRemaining()) {
+			canal.write(cabecalho);
+		}
+		canal.force(true);
+		sincronizarDiretorio(diretorio);
+		return canal;
+	}
+
+	/**
+	 * Faz o fsync do diretório para que arquivos criados ou renomeados sobrevivam a
+	 * uma queda. Em sistemas que não permitem abrir diretórios, não faz nada.
+	 */
+	static void sincronizarDiretorio(Path diretorio) {
+		try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+			canal.force(true);
+		} catch (IOException e) {
+			// Não suportado (ex.: Windows); o rename continua atômico
+		}
+	}
+
+	/**
+	 * Reaplica os registros dos segmentos a partir de {@code aPartirDe} e retorna o
+	 * número do próximo segmento livre.
+	 */
+	static long reproduzir(Path diretorio, long aPartirDe, LeitorRegistros leitor) throws IOException {
+		long proximo = aPartirDe;
+		CRC32C crc = new CRC32C();
+		for (long segmento : listarSegmentos(diretorio)) {
+			proximo = Math.max(proximo, segmento + 1);
+			if (segmento < aPartirDe) {
+				continue;
+			}
+			reproduzirSegmento(arquivoSegmento(diretorio, segmento), segmento, crc, leitor);
+		}
+		return proximo;
+	}
+
+	private static void reproduzirSegmento(Path arquivo, long segmento, CRC32C crc, LeitorRegistros leitor)
+			throws IOException {
+		long valido;
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long tamanhoArquivo = canal.size();
+			if (tamanhoArquivo < TAMANHO_CABECALHO) {
+				// Segmento criado mas sem cabeçalho completo: não tem registros
+				valido = 0;
+			} else {
+				// Lido para a memória (e não mapeado) para poder truncar o arquivo em seguida
+				ByteBuffer conteudo = ByteBuffer.allocate((int) tamanhoArquivo);
+				while (conteudo.hasRemaining() && canal.read(conteudo) >= 0) {
+				}
+				conteudo.flip();
+				if (conteudo.getInt() != MAGICO || conteudo.getInt() != VERSAO || conteudo.getLong() != segmento) {
+					throw new IOException("Cabeçalho inválido no diário: " + arquivo);
+				}
+				valido = lerRegistros(conteudo, crc, leitor);
+			}
+			if (valido < tamanhoArquivo) {
+				canal.truncate(valido);
+				canal.force(true);
+			}
+		}
+		if (valido == 0) {
+			Files.delete(arquivo);
+		}
+	}
+
+	// Aplica os registros íntegros e retorna onde termina o último deles
+	private static long lerRegistros(ByteBuffer conteudo, CRC32C crc, LeitorRegistros leitor) throws IOException {
+		while (conteudo.remaining() >= CABECALHO_REGISTRO) {
+			int inicio = conteudo.position();
+			int tamanho = conteudo.getInt();
+			int esperado = conteudo.getInt();
+			byte tipo = conteudo.get();
+			if (tamanho < 0 || tamanho > TAMANHO_MAXIMO_REGISTRO || tamanho > conteudo.remaining()) {
+				return inicio;
+			}
+			byte[] dados = new byte[tamanho];
+			conteudo.get(dados);
+			crc.reset();
+			crc.update(tipo);
+			crc.update(dados);
+			if ((int) crc.getValue() != esperado) {
+				return inicio;
+			}
+			leitor.aplicar(tipo, new DataInputStream(new ByteArrayInputStream(dados)));
+		}
+		return conteudo.position();
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * EstadoRecuperado
+ *
+ * Descrição geral:
+ * - Estado montado durante a recuperação: primeiro com o snapshot e depois com os
+ *   registros do diário, antes de ser entregue aos serviços.
+ * - Os registros são atribuições (participa/não participa, curtiu/não curtiu...) e os
+ *   acréscimos levam a posição esperada, então reaplicar um registro que o snapshot
+ *   já contém não muda nada.
+ *
+ * Estruturas principais:
+ * - usuarios, eventos: mapas por id.
+ * - notificacoes: usuarioId -> notificações em ordem de chegada.
+ * - salasChat: eventoId -> cauda e contadores do chat (ver SalaChatGravada).
+ * - ultimoIdEvento: maior id de evento já gerado (inclusive de eventos removidos).
+ *
+ * Métodos e funcionalidades:
+ *
+ * aplicar(byte tipo, DataInput dados)
+ * - Reaplica um registro do diário.
+ *
+ * referencia(int usuarioId)
+ * - Usuário com o id informado; se ele ainda não foi lido, um objeto só com o id.
+ *
+ * resolverOrganizadores()
+ * - Troca as referências provisórias de organizador pelos usuários recuperados.
+ */
+
+package persistencia;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Comentario;
+import model.Evento;
+import model.Notificacao;
+import model.Usuario;
+
+final class EstadoRecuperado {
+
+	final Map<Integer, Usuario> usuarios = new LinkedHashMap<>();
+	final Map<Integer, Evento> eventos = new HashMap<>();
+	final Map<Integer, List<Notificacao>> notificacoes = new HashMap<>();
+	final Map<Integer, SalaChatGravada> salasChat = new HashMap<>();
+	int ultimoIdEvento;
+	long registrosAplicados;
+
+	Usuario referencia(int usuarioId) {
+		Usuario usuario = usuarios.get(usuarioId);
+		if (usuario == null) {
+			usuario = new Usuario();
+			usuario.setId(usuarioId);
+		}
+		return usuario;
+	}
+
+	List<Notificacao> notificacoes(int usuarioId) {
+		return notificacoes.computeIfAbsent(usuarioId, k -> new ArrayList<>());
+	}
+
+	SalaChatGravada salaChat(int eventoId) {
+		return salasChat.computeIfAbsent(eventoId, id -> new SalaChatGravada(id, 1));
+	}
+
+	void aplicar(byte tipo, DataInput dados) throws IOException {
+		registrosAplicados++;
+		switch (tipo) {
+		case CodecRegistros.USUARIO_SALVO -> {
+			Usuario usuario = CodecRegistros.lerUsuario(dados);
+			usuarios.put(usuario.getId(), usuario);
+		}
+		case CodecRegistros.EVENTO_SALVO -> {
+			int id = dados.readInt();
+			Evento evento = eventos.computeIfAbsent(id, k -> new Evento());
+			evento.setId(id);
+			CodecRegistros.lerEvento(dados, evento, this::referencia);
+			ultimoIdEvento = Math.max(ultimoIdEvento, id);
+		}
+		case CodecRegistros.EVENTO_REMOVIDO -> eventos.remove(dados.readInt());
+		case CodecRegistros.PARTICIPACAO -> {
+			Evento evento = eventos.get(dados.readInt());
+			Usuario usuario = referencia(dados.readInt());
+			if (evento != null) {
+				if (dados.readBoolean()) {
+					evento.adicionarParticipante(usuario);
+				} else {
+					evento.removerParticipante(usuario);
+				}
+			}
+		}
+		case CodecRegistros.PRESENCA -> {
+			Evento evento = eventos.get(dados.readInt());
+			int usuarioId = dados.readInt();
+			boolean presente = dados.readBoolean();
+			if (evento != null) {
+				evento.setPresenca(usuarioId, presente);
+			}
+		}
+		case CodecRegistros.CURTIDA -> {
+			Evento evento = eventos.get(dados.readInt());
+			Usuario usuario = referencia(dados.readInt());
+			if (evento != null) {
+				if (dados.readBoolean()) {
+					evento.curtirEvento(usuario);
+				} else {
+					evento.descurtirEvento(usuario);
+				}
+			}
+		}
+		case CodecRegistros.COMENTARIO -> {
+			Evento evento = eventos.get(dados.readInt());
+			int posicao = dados.readInt();
+			int usuarioId = dados.readInt();
+			String texto = CodecRegistros.lerTexto(dados);
+			if (evento != null && evento.getComentarios().size() == posicao) {
+				evento.adicionarComentario(new Comentario(texto, usuarioId));
+			}
+		}
+		case CodecRegistros.NOTIFICACAO -> {
+			List<Notificacao> lista = notificacoes(dados.readInt());
+			int posicao = dados.readInt();
+			Notificacao notificacao = CodecRegistros.lerNotificacao(dados);
+			if (lista.size() == posicao) {
+				lista.add(notificacao);
+			}
+		}
+		case CodecRegistros.MENSAGEM_CHAT -> {
+			SalaChatGravada sala = salaChat(dados.readInt());
+			long sequencia = dados.readLong();
+			int usuarioId = dados.readInt();
+			sala.aplicarMensagem(sequencia, usuarioId, CodecRegistros.lerTexto(dados));
+		}
+		case CodecRegistros.REMOCAO_CHAT -> {
+			SalaChatGravada sala = salaChat(dados.readInt());
+			long sequencia = dados.readLong();
+			long removida = dados.readLong();
+			sala.aplicarRemocao(sequencia, removida, dados.readInt());
+		}
+		case CodecRegistros.MAOS_LEVANTADAS -> {
+			SalaChatGravada sala = salaChat(dados.readInt());
+			sala.getMaosPorUsuario().put(dados.readInt(), dados.readInt());
+		}
+		default -> throw new IOException("Tipo de registro desconhecido no diário: " + tipo);
+		}
+	}
+
+	void resolverOrganizadores() {
+		for (Evento evento : eventos.values()) {
+			Usuario organizador = evento.getOrganizador();
+			if (organizador != null) {
+				Usuario recuperado = usuarios.get(organizador.getId());
+				if (recuperado != null) {
+					evento.setOrganizador(recuperado);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,371 @@
+/*
+ * Persistencia
+ *
+ * Descrição geral:
+ * - Armazenamento durável de usuários, eventos, notificações e do chat dos eventos.
+ *   Implementa o padrão Singleton, como os serviços que a usam.
+ * - Os serviços continuam guardando tudo em memória; cada alteração também vira um
+ *   registro no Diario (write-ahead log) e, de tempos em tempos, o estado inteiro é
+ *   gravado em um ArquivoSnapshot. Ao reiniciar: carrega o snapshot e reaplica o diário
+ *   a partir dele.
+ * - Enquanto iniciar() não for chamado, os métodos registrar*() não fazem nada (uso em
+ *   memória, como antes).
+ *
+ * Métodos e funcionalidades:
+ *
+ * iniciar(Path diretorio)
+ * - Recupera o estado salvo, entrega aos serviços e abre um novo segmento do diário. O
+ *   chat é restaurado com os segmentos arquivados em <diretorio>/chat (ArquivoChat).
+ * - Retorna false se o diretório não tinha dados (primeira execução).
+ *
+ * registrarUsuario(), registrarEvento(), registrarRemocaoEvento(), registrarParticipacao(),
+ * registrarPresenca(), registrarCurtida(), registrarComentario(), registrarNotificacao(),
+ * registrarMensagemChat(), registrarRemocaoChat(), registrarMaosLevantadas()
+ * - Acrescentam o registro ao diário. São chamados pelos serviços dentro da trava que
+ *   protege a alteração, para que a ordem no diário seja a ordem em memória.
+ *
+ * aguardarGravacao()
+ * - Espera o fsync dos registros acrescentados pela thread atual. Os serviços chamam
+ *   depois de soltar a trava, para o fsync não segurar outras alterações.
+ *
+ * dispensarEsperaNaThreadAtual()
+ * - Durabilidade relaxada para a thread atual (a do JavaFX, chamado pelo Main): o registro vai
+ *   para o diário na mesma ordem, mas aguardarGravacao() volta sem esperar o fsync, para um
+ *   clique não travar a tela. A thread gravadora faz o fsync logo em seguida, então uma queda
+ *   só perde o que estava no lote ainda não gravado (alguns milissegundos de alterações da
+ *   tela). Uma falha de gravação aparece na próxima alteração, que o diário recusa.
+ *
+ * gerarSnapshot(), fechar()
+ * - Snapshot sob demanda (também agendado por tamanho do diário e por tempo) e
+ *   encerramento, que grava um snapshot final. O chat vai em um arquivo à parte
+ *   (ArquivoSnapshotChat), gravado antes do snapshot principal.
+ *
+ * Técnicas utilizadas:
+ * - Group commit no Diario: várias threads esperando compartilham o mesmo fsync.
+ * - Snapshot "difuso": o diário é rotacionado e o estado é lido sem parar os serviços.
+ *   Alterações que caírem nos dois lugares são reaplicadas sem efeito, porque todo
+ *   registro é idempotente (ver EstadoRecuperado).
+ * - Buffer de codificação por thread, para não alocar um a cada registro.
+ *
+ * Tempo de recuperação (bench/persistencia/TempoRecuperacao, 1 CPU, 20 mil operações no
+ * fim do diário):
+ * - A meta de reiniciar em menos de 1 s com 1 milhão de eventos não é atingida por este
+ *   desenho: os serviços reconstroem no heap todos os objetos e índices, então o tempo cresce
+ *   com o número de eventos. Medido: 100 mil eventos em ~3,7 s, 500 mil em ~14,8 s e 1 milhão
+ *   em 26 a 31 s; com 1 milhão, a primeira pesquisa por texto ainda espera ~42 s pelo índice
+ *   montado em segundo plano.
+ * - Com 1 milhão, ler o snapshot leva ~6 s, EventoService.restaurar() ~18 s e reaplicar o
+ *   diário ~0,25 s. Chegar a 1 s exigiria gravar os índices junto com o snapshot e ler os
+ *   eventos sob demanda do arquivo mapeado, em vez de carregá-los inteiros.
+ */
+
+package persistencia;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import model.Comentario;
+import model.Evento;
+import model.Notificacao;
+import model.Usuario;
+import service.ChatService;
+import service.EventoService;
+import service.NotificacaoService;
+import service.UsuarioService;
+
+public final class Persistencia {
+
+	private static final long BYTES_POR_SNAPSHOT = 64L * 1024 * 1024;
+	private static final long MINUTOS_POR_SNAPSHOT = 10;
+
+	private static volatile Persistencia instancia;
+
+	private volatile Diario diario;
+	private Path diretorio;
+	private ScheduledExecutorService agendador;
+	private long bytesNoUltimoSnapshot;
+	private long ultimoSnapshot;
+
+	private final ThreadLocal<BufferRegistro> buffers = ThreadLocal.withInitial(BufferRegistro::new);
+	private final ThreadLocal<long[]> pendentes = ThreadLocal.withInitial(() -> new long[1]);
+	private final ThreadLocal<Boolean> semEspera = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	private interface Escritor {
+		void escrever(DataOutput saida) throws IOException;
+	}
+
+	// ByteArrayOutputStream com acesso direto ao array, reaproveitado pela thread
+	private static final class BufferRegistro extends ByteArrayOutputStream {
+		private final DataOutputStream saida = new DataOutputStream(this);
+
+		private BufferRegistro() {
+			super(256);
+		}
+
+		private byte[] bytes() {
+			return buf;
+		}
+	}
+
+	private Persistencia() {
+	}
+
+	public static Persistencia getInstance() {
+		if (instancia == null) {
+			synchronized (Persistencia.class) {
+				if (instancia == null) {
+					instancia = new Persistencia();
+				}
+			}
+		}
+		return instancia;
+	}
+
+	public synchronized boolean iniciar(Path diretorio) throws IOException {
+		if (diario != null) {
+			throw new IllegalStateException("Persistência já iniciada em " + this.diretorio);
+		}
+		Files.createDirectories(diretorio);
+
+		EstadoRecuperado estado = new EstadoRecuperado();
+		Path snapshot = ArquivoSnapshot.maisRecente(diretorio);
+		long aPartirDe = 1;
+		if (snapshot != null) {
+			aPartirDe = ArquivoSnapshot.ler(snapshot, estado);
+			ArquivoSnapshotChat.ler(diretorio, aPartirDe, estado);
+		}
+		long proximoSegmento = Diario.reproduzir(diretorio, aPartirDe, estado::aplicar);
+		boolean encontrouDados = snapshot != null || estado.registrosAplicados > 0;
+
+		if (encontrouDados) {
+			estado.resolverOrganizadores();
+			UsuarioService.getInstance().restaurar(estado.usuarios.values());
+			EventoService.getInstance().restaurar(estado.eventos.values(), estado.ultimoIdEvento);
+			NotificacaoService.getInstance().restaurar(estado.notificacoes);
+		}
+		// Também na primeira execução, para descartar segmentos de chat que sobraram no diretório
+		ChatService.getInstancia().restaurar(estado.salasChat.values(), diretorio.resolve("chat"));
+
+		this.diretorio = diretorio;
+		this.diario = Diario.abrir(diretorio, proximoSegmento);
+		this.bytesNoUltimoSnapshot = 0;
+		this.ultimoSnapshot = System.currentTimeMillis();
+
+		agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+			Thread thread = new Thread(tarefa, "persistencia-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		agendador.scheduleWithFixedDelay(this::snapshotAgendado, 30, 30, TimeUnit.SECONDS);
+		return encontrouDados;
+	}
+
+	public boolean isIniciada() {
+		return diario != null;
+	}
+
+	// Registros das alterações
+
+	public void registrarUsuario(Usuario usuario) {
+		registrar(CodecRegistros.USUARIO_SALVO, saida -> CodecRegistros.escreverUsuario(saida, usuario));
+	}
+
+	public void registrarEvento(Evento evento) {
+		registrar(CodecRegistros.EVENTO_SALVO, saida -> CodecRegistros.escreverEvento(saida, evento));
+	}
+
+	public void registrarRemocaoEvento(int eventoId) {
+		registrar(CodecRegistros.EVENTO_REMOVIDO, saida -> saida.writeInt(eventoId));
+	}
+
+	public void registrarParticipacao(int eventoId, int usuarioId, boolean participa) {
+		registrarRelacao(CodecRegistros.PARTICIPACAO, eventoId, usuarioId, participa);
+	}
+
+	public void registrarPresenca(int eventoId, int usuarioId, boolean presente) {
+		registrarRelacao(CodecRegistros.PRESENCA, eventoId, usuarioId, presente);
+	}
+
+	public void registrarCurtida(int eventoId, int usuarioId, boolean curtiu) {
+		registrarRelacao(CodecRegistros.CURTIDA, eventoId, usuarioId, curtiu);
+	}
+
+	/**
+	 * @param posicao índice do comentário na lista do evento (tamanho da lista
+	 *                antes de adicioná-lo)
+	 */
+	public void registrarComentario(int eventoId, int posicao, Comentario comentario) {
+		registrar(CodecRegistros.COMENTARIO, saida -> {
+			saida.writeInt(eventoId);
+			saida.writeInt(posicao);
+			saida.writeInt(comentario.getUsuarioId());
+			CodecRegistros.escreverTexto(saida, comentario.getTexto());
+		});
+	}
+
+	public void registrarNotificacao(int usuarioId, int posicao, Notificacao notificacao) {
+		registrar(CodecRegistros.NOTIFICACAO, saida -> {
+			saida.writeInt(usuarioId);
+			saida.writeInt(posicao);
+			CodecRegistros.escreverNotificacao(saida, notificacao);
+		});
+	}
+
+	public void registrarMensagemChat(int eventoId, long sequencia, int usuarioId, String texto) {
+		registrar(CodecRegistros.MENSAGEM_CHAT, saida -> {
+			saida.writeInt(eventoId);
+			saida.writeLong(sequencia);
+			saida.writeInt(usuarioId);
+			CodecRegistros.escreverTexto(saida, texto);
+		});
+	}
+
+	/**
+	 * @param usuarioId remetente da mensagem removida (para descontar das mensagens dele)
+	 */
+	public void registrarRemocaoChat(int eventoId, long sequencia, long removida, int usuarioId) {
+		registrar(CodecRegistros.REMOCAO_CHAT, saida -> {
+			saida.writeInt(eventoId);
+			saida.writeLong(sequencia);
+			saida.writeLong(removida);
+			saida.writeInt(usuarioId);
+		});
+	}
+
+	public void registrarMaosLevantadas(int eventoId, int usuarioId, int total) {
+		registrar(CodecRegistros.MAOS_LEVANTADAS, saida -> {
+			saida.writeInt(eventoId);
+			saida.writeInt(usuarioId);
+			saida.writeInt(total);
+		});
+	}
+
+	private void registrarRelacao(byte tipo, int eventoId, int usuarioId, boolean ativo) {
+		registrar(tipo, saida -> {
+			saida.writeInt(eventoId);
+			saida.writeInt(usuarioId);
+			saida.writeBoolean(ativo);
+		});
+	}
+
+	private void registrar(byte tipo, Escritor escritor) {
+		Diario atual = diario;
+		if (atual == null) {
+			return;
+		}
+		BufferRegistro buffer = buffers.get();
+		buffer.reset();
+		try {
+			escritor.escrever(buffer.saida);
+			long sequencia = atual.acrescentar(tipo, buffer.bytes(), buffer.size());
+			long[] pendente = pendentes.get();
+			pendente[0] = Math.max(pendente[0], sequencia);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Erro ao gravar alteração no diário", e);
+		}
+	}
+
+	public void dispensarEsperaNaThreadAtual() {
+		semEspera.set(Boolean.TRUE);
+	}
+
+	public void aguardarGravacao() {
+		Diario atual = diario;
+		long[] pendente = pendentes.get();
+		long sequencia = pendente[0];
+		if (atual == null || sequencia == 0) {
+			return;
+		}
+		pendente[0] = 0;
+		if (semEspera.get()) {
+			return;
+		}
+		try {
+			atual.aguardarDurabilidade(sequencia);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Erro ao gravar alteração no diário", e);
+		}
+	}
+
+	// Snapshots
+
+	public synchronized void gerarSnapshot() throws IOException {
+		Diario atual = diario;
+		if (atual == null) {
+			return;
+		}
+		long bytes = atual.getBytesAcrescentados();
+		long segmento = atual.rotacionar();
+		ArquivoSnapshotChat.gravar(diretorio, segmento, ChatService.getInstancia()::percorrerSalas);
+		ArquivoSnapshot.gravar(diretorio, segmento, new ArquivoSnapshot.Fonte() {
+			@Override
+			public Collection<Usuario> usuarios() {
+				return UsuarioService.getInstance().getUsuarios();
+			}
+
+			@Override
+			public int ultimoIdEvento() {
+				return EventoService.getInstance().getUltimoIdEvento();
+			}
+
+			@Override
+			public void percorrerEventos(Consumer<Evento> visitante) {
+				EventoService.getInstance().percorrerEventos(visitante);
+			}
+
+			@Override
+			public void percorrerNotificacoes(BiConsumer<Integer, List<Notificacao>> visitante) {
+				NotificacaoService.getInstance().percorrerNotificacoes(visitante);
+			}
+		});
+		ArquivoSnapshot.apagarAnteriores(diretorio, segmento);
+		ArquivoSnapshotChat.apagarAnteriores(diretorio, segmento);
+		bytesNoUltimoSnapshot = bytes;
+		ultimoSnapshot = System.currentTimeMillis();
+	}
+
+	private synchronized void snapshotAgendado() {
+		Diario atual = diario;
+		if (atual == null) {
+			return;
+		}
+		long novosBytes = atual.getBytesAcrescentados() - bytesNoUltimoSnapshot;
+		long minutos = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - ultimoSnapshot);
+		if (novosBytes >= BYTES_POR_SNAPSHOT || (novosBytes > 0 && minutos >= MINUTOS_POR_SNAPSHOT)) {
+			try {
+				gerarSnapshot();
+			} catch (IOException e) {
+				System.err.println("Erro ao gerar snapshot: " + e.getMessage());
+				e.printStackTrace();
+			}
+		}
+	}
+
+	public synchronized void fechar() throws IOException {
+		Diario atual = diario;
+		if (atual == null) {
+			return;
+		}
+		agendador.shutdownNow();
+		try {
+			if (atual.getBytesAcrescentados() > bytesNoUltimoSnapshot) {
+				gerarSnapshot();
+			}
+		} finally {
+			diario = null;
+			atual.close();
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * PoolConexoes
+ *
+ * Descrição geral:
+ * - Pool pequeno de conexões JDBC para os repositórios em banco embutido (H2 em
+ *   arquivo, driver em rec/h2). O Main abre um pool em "jdbc:h2:./dados/banco" para as
+ *   notificações.
+ * - Cada conexão guarda os seus PreparedStatement por texto SQL, então um comando usado
+ *   com frequência é preparado uma vez por conexão e depois só recebe novos parâmetros.
+ *
+ * Estruturas principais:
+ * - livres: fila bloqueante com as conexões disponíveis.
+ * - Conexao.preparados: cache LRU (LinkedHashMap em ordem de acesso) de comandos
+ *   preparados; o mais antigo é fechado quando o limite é atingido.
+ *
+ * Métodos e funcionalidades:
+ *
+ * obter()
+ * - Empresta uma conexão, esperando até TEMPO_ESPERA_MS se todas estiverem em uso. Deve
+ *   ser usada em try-with-resources; close() devolve a conexão ao pool.
+ *
+ * Conexao.preparar(String sql)
+ * - Comando preparado (do cache, com os parâmetros limpos).
+ *
+ * Conexao.iniciarTransacao(), Conexao.confirmar()
+ * - Agrupam vários comandos (lotes) em uma transação; se a conexão for devolvida sem
+ *   confirmar, a transação é desfeita.
+ *
+ * close()
+ * - Fecha todas as conexões.
+ */
+
+package persistencia;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public final class PoolConexoes implements AutoCloseable {
+
+	private static final long TEMPO_ESPERA_MS = 5_000;
+	private static final int COMANDOS_POR_CONEXAO = 64;
+
+	private final String url;
+	private final String usuario;
+	private final String senha;
+	private final BlockingQueue<Conexao> livres;
+	private final List<Conexao> todas = new ArrayList<>();
+	private volatile boolean fechado;
+
+	public PoolConexoes(String url, String usuario, String senha, int tamanho) throws SQLException {
+		this.url = url;
+		this.usuario = usuario;
+		this.senha = senha;
+		this.livres = new ArrayBlockingQueue<>(tamanho);
+		try {
+			for (int i = 0; i < tamanho; i++) {
+				Conexao conexao = new Conexao(abrirConexao());
+				todas.add(conexao);
+				livres.add(conexao);
+			}
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	private Connection abrirConexao() throws SQLException {
+		Connection conexao = DriverManager.getConnection(url, usuario, senha);
+		conexao.setAutoCommit(true);
+		return conexao;
+	}
+
+	public Conexao obter() throws SQLException {
+		if (fechado) {
+			throw new IllegalStateException("Pool de conexões fechado");
+		}
+		Conexao conexao;
+		try {
+			conexao = livres.poll(TEMPO_ESPERA_MS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrompido esperando uma conexão", e);
+		}
+		if (conexao == null) {
+			throw new SQLException("Nenhuma conexão livre após " + TEMPO_ESPERA_MS + " ms");
+		}
+		try {
+			conexao.validar();
+		} catch (SQLException e) {
+			livres.add(conexao);
+			throw e;
+		}
+		return conexao;
+	}
+
+	@Override
+	public void close() {
+		fechado = true;
+		for (Conexao conexao : todas) {
+			conexao.fecharDeVez();
+		}
+	}
+
+	/**
+	 * Conexão emprestada pelo pool, com cache de comandos preparados. close() a
+	 * devolve ao pool em vez de fechá-la.
+	 */
+	public final class Conexao implements AutoCloseable {
+		private Connection conexao;
+		private final Map<String, PreparedStatement> preparados = new LinkedHashMap<>(16, 0.75f, true);
+
+		private Conexao(Connection conexao) {
+			this.conexao = conexao;
+		}
+
+		public PreparedStatement preparar(String sql) throws SQLException {
+			PreparedStatement comando = preparados.get(sql);
+			if (comando == null) {
+				comando = conexao.prepareStatement(sql);
+				preparados.put(sql, comando);
+				if (preparados.size() > COMANDOS_POR_CONEXAO) {
+					Iterator<PreparedStatement> maisAntigo = preparados.values().iterator();
+					fecharComando(maisAntigo.next());
+					maisAntigo.remove();
+				}
+			} else {
+				comando.clearParameters();
+			}
+			return comando;
+		}
+
+		public void iniciarTransacao() throws SQLException {
+			conexao.setAutoCommit(false);
+		}
+
+		public void confirmar() throws SQLException {
+			conexao.commit();
+			conexao.setAutoCommit(true);
+		}
+
+		public Connection getConnection() {
+			return conexao;
+		}
+
+		// Conexão fechada (por erro ou pelo banco): abre outra no lugar. Não usa isValid(),
+		// que custaria uma ida ao banco a cada empréstimo
+		private void validar() throws SQLException {
+			if (conexao.isClosed()) {
+				fecharDeVez();
+				conexao = abrirConexao();
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				if (!conexao.getAutoCommit()) {
+					conexao.rollback();
+					conexao.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				fecharDeVez();
+			}
+			if (!fechado) {
+				livres.add(this);
+			}
+		}
+
+		private void fecharDeVez() {
+			for (PreparedStatement comando : preparados.values()) {
+				fecharComando(comando);
+			}
+			preparados.clear();
+			try {
+				conexao.close();
+			} catch (SQLException e) {
+				System.err.println("Erro ao fechar conexão: " + e.getMessage());
+			}
+		}
+
+		private void fecharComando(PreparedStatement comando) {
+			try {
+				comando.close();
+			} catch (SQLException e) {
+				System.err.println("Erro ao fechar comando: " + e.getMessage());
+			}
+		}
+	}
+}
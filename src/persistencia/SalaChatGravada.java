@@ -0,0 +1,122 @@
+/*
+ * SalaChatGravada
+ *
+ * Descrição geral:
+ * - Estado do chat de um evento como a Persistencia o grava e o recupera: a cauda do
+ *   registro que ainda não foi para o ArquivoChat, as sequências removidas e os
+ *   contadores por usuário. O ChatService monta uma por sala para o snapshot e recebe
+ *   de volta as recuperadas em restaurar().
+ * - A parte já arquivada não passa por aqui: os segmentos do ArquivoChat são duráveis e
+ *   são reabertos na recuperação.
+ *
+ * Estruturas principais:
+ * - primeira: sequência da primeira entrada da cauda; a entrada i tem a sequência primeira + i.
+ * - textos/usuarios/removidasNaCauda: entradas da cauda; texto null indica uma remoção.
+ * - removidas, mensagensPorUsuario, maosPorUsuario: como na sala do ChatService.
+ *
+ * Métodos e funcionalidades:
+ *
+ * acrescentarMensagem(int usuarioId, String texto), acrescentarRemocao(long removida)
+ * - Acrescentam uma entrada no fim da cauda (usados pelo ChatService ao montar o snapshot).
+ *
+ * percorrer(ArquivoChat.Leitor leitor)
+ * - Entrega as entradas da cauda, em ordem, com as suas sequências.
+ *
+ * aplicarMensagem(), aplicarRemocao()
+ * - Reaplicação de um registro do diário: só entra se a sequência for a próxima da cauda;
+ *   uma sequência menor já está no snapshot ou no arquivo.
+ */
+
+package persistencia;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class SalaChatGravada {
+
+	private final int eventoId;
+	private final long primeira;
+	private final List<String> textos = new ArrayList<>();
+	private final List<Integer> usuarios = new ArrayList<>();
+	private final List<Long> removidasNaCauda = new ArrayList<>();
+	private final Set<Long> removidas = new HashSet<>();
+	private final Map<Integer, Integer> mensagensPorUsuario = new HashMap<>();
+	private final Map<Integer, Integer> maosPorUsuario = new HashMap<>();
+
+	public SalaChatGravada(int eventoId, long primeira) {
+		if (primeira < 1) {
+			throw new IllegalArgumentException("Sequência inicial inválida: " + primeira);
+		}
+		this.eventoId = eventoId;
+		this.primeira = primeira;
+	}
+
+	public int getEventoId() {
+		return eventoId;
+	}
+
+	public long getPrimeiraSequencia() {
+		return primeira;
+	}
+
+	public long getProximaSequencia() {
+		return primeira + textos.size();
+	}
+
+	public void acrescentarMensagem(int usuarioId, String texto) {
+		if (texto == null) {
+			throw new IllegalArgumentException("Mensagem sem texto na sequência " + getProximaSequencia());
+		}
+		textos.add(texto);
+		usuarios.add(usuarioId);
+		removidasNaCauda.add(0L);
+	}
+
+	public void acrescentarRemocao(long removida) {
+		textos.add(null);
+		usuarios.add(0);
+		removidasNaCauda.add(removida);
+	}
+
+	public void percorrer(ArquivoChat.Leitor leitor) {
+		for (int i = 0; i < textos.size(); i++) {
+			if (textos.get(i) == null) {
+				leitor.remocao(primeira + i, removidasNaCauda.get(i));
+			} else {
+				leitor.mensagem(primeira + i, usuarios.get(i), textos.get(i));
+			}
+		}
+	}
+
+	public Set<Long> getRemovidas() {
+		return removidas;
+	}
+
+	public Map<Integer, Integer> getMensagensPorUsuario() {
+		return mensagensPorUsuario;
+	}
+
+	public Map<Integer, Integer> getMaosPorUsuario() {
+		return maosPorUsuario;
+	}
+
+	void aplicarMensagem(long sequencia, int usuarioId, String texto) {
+		if (sequencia == getProximaSequencia()) {
+			acrescentarMensagem(usuarioId, texto);
+			mensagensPorUsuario.merge(usuarioId, 1, Integer::sum);
+		}
+	}
+
+	void aplicarRemocao(long sequencia, long removida, int usuarioId) {
+		if (sequencia == getProximaSequencia()) {
+			acrescentarRemocao(removida);
+			if (removidas.add(removida)) {
+				mensagensPorUsuario.computeIfPresent(usuarioId, (id, atual) -> atual > 1 ? atual - 1 : null);
+			}
+		}
+	}
+}
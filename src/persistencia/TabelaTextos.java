@@ -0,0 +1,60 @@
+/*
+ * TabelaTextos
+ *
+ * Descrição geral:
+ * - Tabela de textos do ArquivoSnapshot, lida direto do arquivo mapeado em memória.
+ *   Os registros de tamanho fixo guardam só o índice do texto; a String é montada no
+ *   primeiro pedido e guardada, então textos repetidos (categoria, local, palestrante...)
+ *   viram uma única instância.
+ *
+ * Estruturas principais:
+ * - dados: o arquivo mapeado (somente leitura, acessado por posição absoluta, então pode
+ *   ser lido por várias threads).
+ * - deslocamentos: int[quantidade + 1] no arquivo; o texto i ocupa os bytes UTF-8 entre
+ *   deslocamentos[i] e deslocamentos[i + 1], contados a partir do fim do vetor.
+ * - cache: textos já montados.
+ *
+ * Métodos e funcionalidades:
+ *
+ * texto(int indice)
+ * - Texto com o índice informado, ou null para o índice -1.
+ */
+
+package persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+final class TabelaTextos {
+
+	static final int NULO = -1;
+
+	private final ByteBuffer dados;
+	private final int posicaoDeslocamentos;
+	private final int posicaoBytes;
+	private final String[] cache;
+
+	TabelaTextos(ByteBuffer dados, int posicao, int quantidade) {
+		this.dados = dados;
+		this.posicaoDeslocamentos = posicao;
+		this.posicaoBytes = posicao + (quantidade + 1) * Integer.BYTES;
+		this.cache = new String[quantidade];
+	}
+
+	String texto(int indice) {
+		if (indice == NULO) {
+			return null;
+		}
+		// Corrida benigna: duas threads podem montar o mesmo texto, e String é imutável
+		String texto = cache[indice];
+		if (texto == null) {
+			int inicio = dados.getInt(posicaoDeslocamentos + indice * Integer.BYTES);
+			int fim = dados.getInt(posicaoDeslocamentos + (indice + 1) * Integer.BYTES);
+			byte[] bytes = new byte[fim - inicio];
+			dados.get(posicaoBytes + inicio, bytes);
+			texto = new String(bytes, StandardCharsets.UTF_8);
+			cache[indice] = texto;
+		}
+		return texto;
+	}
+}
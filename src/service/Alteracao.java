@@ -0,0 +1,83 @@
+/*
+ * Alteracao
+ *
+ * Descrição geral:
+ * - Uma alteração feita por um serviço, entregue aos assinantes do
+ *   BarramentoAlteracoes (telas, caches, índices ou réplicas futuras), para que
+ *   atualizem só o que mudou em vez de recarregar tudo.
+ * - Imutável. A sequência é crescente e sem buracos na ordem em que as alterações
+ *   aconteceram; um buraco visto pelo assinante significa que ele perdeu alterações.
+ *
+ * Campos por tipo:
+ * - EVENTO_CRIADO, EVENTO_ATUALIZADO, EVENTO_REMOVIDO: eventoId. Quando vem de editarEvento(),
+ *   EVENTO_ATUALIZADO traz em dado os campos alterados (EnumSet de EdicaoEvento.Campo).
+ * - PARTICIPANTE_ADICIONADO, PARTICIPANTE_REMOVIDO: eventoId, usuarioId.
+ * - PRESENCA_MARCADA, CURTIDA_ALTERADA: eventoId, usuarioId e ativo (presente/curtiu).
+ * - COMENTARIO_ADICIONADO: eventoId, usuarioId e dado (Comentario).
+ * - USUARIO_SALVO: usuarioId.
+ * - NOTIFICACAO_REGISTRADA: usuarioId (destinatário) e dado (Notificacao).
+ * - MENSAGEM_PUBLICADA: eventoId, usuarioId e dado (ChatService.MensagemChat).
+ */
+
+package service;
+
+public final class Alteracao {
+
+	public enum Tipo {
+		EVENTO_CRIADO, EVENTO_ATUALIZADO, EVENTO_REMOVIDO, PARTICIPANTE_ADICIONADO, PARTICIPANTE_REMOVIDO,
+		PRESENCA_MARCADA, CURTIDA_ALTERADA, COMENTARIO_ADICIONADO, USUARIO_SALVO, NOTIFICACAO_REGISTRADA,
+		MENSAGEM_PUBLICADA
+	}
+
+	private final long sequencia;
+	private final Tipo tipo;
+	private final int eventoId;
+	private final int usuarioId;
+	private final boolean ativo;
+	private final Object dado;
+
+	Alteracao(long sequencia, Tipo tipo, int eventoId, int usuarioId, boolean ativo, Object dado) {
+		this.sequencia = sequencia;
+		this.tipo = tipo;
+		this.eventoId = eventoId;
+		this.usuarioId = usuarioId;
+		this.ativo = ativo;
+		this.dado = dado;
+	}
+
+	public long getSequencia() {
+		return sequencia;
+	}
+
+	public Tipo getTipo() {
+		return tipo;
+	}
+
+	public int getEventoId() {
+		return eventoId;
+	}
+
+	public int getUsuarioId() {
+		return usuarioId;
+	}
+
+	public boolean isAtivo() {
+		return ativo;
+	}
+
+	/**
+	 * Comentario, Notificacao ou MensagemChat, conforme o tipo (null nos demais).
+	 */
+	public <T> T getDado(Class<T> classe) {
+		return classe.cast(dado);
+	}
+
+	public boolean isDoEvento(int id) {
+		return eventoId == id;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + sequencia + " " + tipo + " evento=" + eventoId + " usuario=" + usuarioId;
+	}
+}
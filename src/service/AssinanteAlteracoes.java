@@ -0,0 +1,71 @@
+/*
+ * AssinanteAlteracoes
+ *
+ * Descrição geral:
+ * - Base para assinantes do BarramentoAlteracoes. Pede um lote por vez e confere a
+ *   sequência: se houver buraco (lotes descartados porque o assinante ficou para trás),
+ *   chama ressincronizar() em vez de processar().
+ *
+ * Métodos e funcionalidades:
+ *
+ * processar(List<Alteracao> lote)
+ * - Aplica as alterações do lote, em ordem.
+ *
+ * ressincronizar()
+ * - Recarrega o estado completo (como era feito antes do barramento).
+ *
+ * cancelar()
+ * - Deixa de receber alterações.
+ */
+
+package service;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+public abstract class AssinanteAlteracoes implements Flow.Subscriber<List<Alteracao>> {
+
+	private volatile Flow.Subscription assinatura;
+	private long ultimaSequencia = -1;
+
+	protected abstract void processar(List<Alteracao> lote);
+
+	protected abstract void ressincronizar();
+
+	@Override
+	public void onSubscribe(Flow.Subscription assinatura) {
+		this.assinatura = assinatura;
+		assinatura.request(1);
+	}
+
+	@Override
+	public void onNext(List<Alteracao> lote) {
+		try {
+			long primeira = lote.get(0).getSequencia();
+			if (ultimaSequencia >= 0 && primeira != ultimaSequencia + 1) {
+				ressincronizar();
+			} else {
+				processar(lote);
+			}
+			ultimaSequencia = lote.get(lote.size() - 1).getSequencia();
+		} finally {
+			assinatura.request(1);
+		}
+	}
+
+	@Override
+	public void onError(Throwable erro) {
+		System.err.println("Assinante de alterações encerrado com erro: " + erro.getMessage());
+	}
+
+	@Override
+	public void onComplete() {
+	}
+
+	public void cancelar() {
+		Flow.Subscription atual = assinatura;
+		if (atual != null) {
+			atual.cancel();
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * BarramentoAlteracoes
+ *
+ * Descrição geral:
+ * - Fluxo de alterações (change data capture) dos serviços, em processo. EventoService,
+ *   UsuarioService, NotificacaoService e ChatService publicam cada alteração aqui,
+ *   dentro da mesma trava que a aplica, então a ordem das sequências é a ordem real.
+ * - Os assinantes recebem lotes de Alteracao de forma assíncrona, em threads do
+ *   barramento (telas JavaFX devem repassar com Platform.runLater).
+ * - Implementa o padrão Singleton, como os serviços.
+ *
+ * Estruturas principais:
+ * - pendentes: alterações publicadas que o despachante ainda não entregou.
+ * - publicador: SubmissionPublisher de lotes, com um buffer limitado por assinante.
+ *
+ * Métodos e funcionalidades:
+ *
+ * assinar(Flow.Subscriber<? super List<Alteracao>> assinante)
+ * - Registra um assinante (ver AssinanteAlteracoes). Assine antes de carregar o
+ *   estado inicial, para não perder alterações entre a carga e a assinatura.
+ *
+ * getUltimaSequencia()
+ * - Sequência da última alteração publicada.
+ *
+ * Contrapressão:
+ * - Cada assinante pede lotes com request(). Um assinante lento acumula até
+ *   LOTES_POR_ASSINANTE lotes; depois disso os lotes seguintes são descartados só para
+ *   ele, e o buraco na sequência o avisa para recarregar tudo. Quem publica nunca
+ *   espera, porque publica segurando a trava do serviço.
+ * - Sob carga, o despachante junta em um lote tudo o que chegou enquanto entregava o
+ *   anterior (até TAMANHO_MAXIMO_LOTE alterações). Se algum assinante já tem metade do
+ *   buffer ocupado, o despachante espera 1 ms antes do próximo lote, que sai maior.
+ * - Sem assinantes, publicar() só avança a sequência.
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+public final class BarramentoAlteracoes {
+
+	private static final int TAMANHO_MAXIMO_LOTE = 4096;
+	private static final int LOTES_POR_ASSINANTE = 64;
+
+	private static volatile BarramentoAlteracoes instancia;
+
+	private final SubmissionPublisher<List<Alteracao>> publicador;
+	private final List<Alteracao> pendentes = new ArrayList<>();
+	private long sequencia;
+
+	private BarramentoAlteracoes() {
+		ExecutorService entrega = Executors.newCachedThreadPool(tarefa -> {
+			Thread thread = new Thread(tarefa, "alteracoes-entrega");
+			thread.setDaemon(true);
+			return thread;
+		});
+		publicador = new SubmissionPublisher<>(entrega, LOTES_POR_ASSINANTE);
+
+		Thread despachante = new Thread(this::despachar, "alteracoes-despachante");
+		despachante.setDaemon(true);
+		despachante.start();
+	}
+
+	public static BarramentoAlteracoes getInstance() {
+		if (instancia == null) {
+			synchronized (BarramentoAlteracoes.class) {
+				if (instancia == null) {
+					instancia = new BarramentoAlteracoes();
+				}
+			}
+		}
+		return instancia;
+	}
+
+	public void assinar(Flow.Subscriber<? super List<Alteracao>> assinante) {
+		publicador.subscribe(assinante);
+	}
+
+	public synchronized long getUltimaSequencia() {
+		return sequencia;
+	}
+
+	void publicar(Alteracao.Tipo tipo, int eventoId, int usuarioId) {
+		publicar(tipo, eventoId, usuarioId, true, null);
+	}
+
+	void publicar(Alteracao.Tipo tipo, int eventoId, int usuarioId, boolean ativo, Object dado) {
+		synchronized (this) {
+			sequencia++;
+			if (!publicador.hasSubscribers()) {
+				return;
+			}
+			pendentes.add(new Alteracao(sequencia, tipo, eventoId, usuarioId, ativo, dado));
+			if (pendentes.size() == 1) {
+				notifyAll();
+			}
+		}
+	}
+
+	private void despachar() {
+		while (true) {
+			List<Alteracao> lote;
+			synchronized (this) {
+				while (pendentes.isEmpty()) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				int tamanho = Math.min(pendentes.size(), TAMANHO_MAXIMO_LOTE);
+				List<Alteracao> primeiras = pendentes.subList(0, tamanho);
+				lote = Collections.unmodifiableList(new ArrayList<>(primeiras));
+				primeiras.clear();
+			}
+			// offer não bloqueia: o lote é descartado só para quem está com o buffer cheio
+			int atraso = publicador.offer(lote, (assinante, descartado) -> false);
+			if (atraso >= LOTES_POR_ASSINANTE / 2) {
+				// Assinantes atrasados: dá uma folga a eles e junta mais alterações no próximo lote
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+}
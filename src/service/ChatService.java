@@ -4,10 +4,25 @@
  * Descrição geral:
  * - Serviço singleton responsável por gerenciar o chat dos eventos.
  * - Armazena as mensagens e informações de "mãos levantadas" por evento.
+ * - O estado é guardado pelo id do evento, não pelo objeto Evento: o chat não depende da
+ *   identidade do objeto Evento.
  * 
  * Estruturas principais:
- * - mensagensPorEvento: mapeia cada Evento para uma lista de mensagens enviadas nele.
- * - maosLevantadasPorEvento: mapeia cada Evento para um mapa que associa usuárioId à quantidade de vezes que levantou a mão.
+ * - salas: eventoId -> SalaChat, com as mensagens do evento e, por usuarioId, quantas
+ *   mensagens ele tem no chat e quantas vezes levantou a mão. Os contadores são ajustados a cada
+ *   mensagem incluída ou removida, então as contagens não percorrem as mensagens.
+ * - Cada sala tem também um registro só de acréscimo: cada mensagem enviada e cada remoção
+ *   (lápide) ganha a próxima sequência do evento (1, 2, 3...). Só a cauda recente do registro
+ *   fica no heap (entre CAUDA_EM_MEMORIA e CAUDA_EM_MEMORIA + ENTRADAS_POR_SEGMENTO entradas);
+ *   o começo vai para o disco em segmentos de ENTRADAS_POR_SEGMENTO (ArquivoChat), lidos
+ *   mapeados em memória. Na cauda, a sequência n fica na posição n - base, então "o que
+ *   mudou depois de n" começa direto na posição certa; no arquivo, pelo índice esparso.
+ * - removidas: sequências das mensagens removidas, arquivadas ou não, para as leituras
+ *   pularem o que saiu do chat sem reescrever segmentos.
+ * - Com a Persistencia iniciada, o chat é durável: mensagens, remoções e mãos levantadas
+ *   vão para o diário (dentro da trava da sala, com a espera pelo fsync depois dela), o
+ *   snapshot guarda a cauda e os contadores de cada sala (percorrerSalas) e os segmentos
+ *   arquivados são reabertos na recuperação (restaurar).
  * 
  * Métodos e funcionalidades:
  * 
@@ -15,57 +30,103 @@
  * - Retorna a instância única (singleton) do ChatService, criando-a se necessário.
  * 
  * Classe interna MensagemChat
- * - Representa uma mensagem do chat, com o id do usuário remetente e o texto da mensagem.
+ * - Representa uma mensagem do chat, com o id do usuário remetente, o texto da mensagem e a
+ *   sequência recebida no registro do evento.
  * 
  * adicionarMensagem(Evento evento, int usuarioId, String mensagem)
- * - Adiciona uma nova mensagem para o evento especificado.
- * - Cria a lista de mensagens para o evento caso não exista.
+ * - Adiciona uma nova mensagem para o evento especificado, já moderada (FiltroModeracao:
+ *   termos bloqueados e links mascarados).
+ * - Cria a sala do evento caso não exista e soma 1 às mensagens do usuário.
+ * - Mensagem null é recusada (IllegalArgumentException).
+ * - Publica a mensagem no BarramentoAlteracoes (MENSAGEM_PUBLICADA).
  * 
  * getMensagens(Evento evento)
- * - Retorna a lista de mensagens associadas ao evento.
+ * - Retorna uma cópia das mensagens associadas ao evento, na ordem de envio, lendo também as
+ *   arquivadas (as telas usam buscarUltimas() e buscarAnteriores()).
  * - Retorna uma lista vazia caso o evento não tenha mensagens.
  * 
  * removerMensagem(Evento evento, MensagemChat mensagem)
- * - Remove uma mensagem específica da lista do evento, se existir.
+ * - Remove uma mensagem específica do evento, se existir, e desconta 1 das mensagens do
+ *   remetente. A remoção entra no registro como lápide.
  * 
  * registrarMaoLevantada(Evento evento, int usuarioId)
  * - Registra que um usuário levantou a mão no evento.
  * - Incrementa o contador de vezes que o usuário levantou a mão naquele evento.
- * - Cria o mapa de usuários para o evento caso não exista.
  * 
- * getQuantidadeMensagens(int eventoId, int usuarioId)
- * - Retorna a quantidade total de mensagens enviadas pelo usuário em um evento identificado pelo id.
- * - Busca o evento pelo id e conta as mensagens do usuário.
+ * getQuantidadeMensagens(int eventoId, int usuarioId), getQuantidadeMaosLevantadas(int eventoId, int usuarioId)
+ * - Contadores do usuário no evento, em O(1) (usados no ranking e no CSV de participantes,
+ *   uma vez por participante).
  * 
+ * buscarDesde(int eventoId, long desde, int maximo)
+ * - LoteChat com o que entrou no registro depois da sequência "desde": mensagens novas ainda
+ *   no chat e lápides das que quem já leu até "desde" pode estar exibindo.
+ *
+ * buscarUltimas(int eventoId, int quantidade), buscarAnteriores(int eventoId, long antesDe, int quantidade)
+ * - Última página do chat e a página antes de uma sequência (rolagem para trás), da mais
+ *   antiga para a mais nova. Custam a página lida, não o tamanho do histórico.
+ *
+ * setDiretorioArquivo(Path diretorio)
+ * - Onde os segmentos antigos são gravados (sem isso, um diretório temporário). Com a
+ *   Persistencia, é o "chat" dentro do diretório dela, definido por restaurar().
+ *
+ * restaurar(Collection<SalaChatGravada> recuperadas, Path diretorio), percorrerSalas(Consumer<SalaChatGravada>)
+ * - Carga e leitura do chat pela Persistencia. restaurar() reabre os segmentos de cada sala
+ *   (o que o arquivo já tem sai da cauda recuperada) e apaga as pastas de salas que não
+ *   foram recuperadas.
+ *
+ * assinar(int eventoId, long desde, Executor executor, Consumer<LoteChat> aoReceber)
+ * - Entrega continuamente o que chega depois de "desde", em lotes, pelo executor (as telas
+ *   passam Platform::runLater). Mensagens enviadas antes de o executor rodar a entrega saem
+ *   juntas no mesmo lote. Retorna a Assinatura, para cancelar ao fechar a tela.
+ *
  * Técnicas utilizadas:
  * - Singleton para garantir uma única instância de serviço.
- * - Uso de Mapas e Listas para armazenamento em memória.
- * - Uso de computeIfAbsent e merge para manipulação eficiente de coleções.
+ * - Mapa concorrente de salas; cada sala sincroniza as próprias alterações e publica no
+ *   barramento dentro da mesma trava.
+ * - Contadores mantidos junto com a lista (merge) em vez de recalculados.
+ * - Assinaturas avisadas fora da trava da sala; cada uma tem no máximo uma entrega agendada ou
+ *   rodando, mesmo com um executor de várias threads.
  */
 
 package service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import model.Evento;
+import persistencia.ArquivoChat;
+import persistencia.Persistencia;
+import persistencia.SalaChatGravada;
 
 public class ChatService {
 
 	private static ChatService instancia;
 
-	// Map evento -> lista de mensagens
-	// Vamos criar um modelo de mensagem para armazenar remetente e texto
-	private Map<Evento, List<MensagemChat>> mensagensPorEvento;
+	// Máximo de entradas do registro por lote entregue às assinaturas
+	private static final int TAMANHO_LOTE = 256;
+	// Entradas recentes que ficam sempre no heap e tamanho de cada segmento levado ao disco
+	private static final int CAUDA_EM_MEMORIA = 4096;
+	private static final int ENTRADAS_POR_SEGMENTO = 16384;
 
-	// Map evento -> map usuarioId -> qtd mãos levantadas
-	private Map<Evento, Map<Integer, Integer>> maosLevantadasPorEvento;
+	// eventoId -> mensagens e contadores do chat do evento
+	private final Map<Integer, SalaChat> salas = new ConcurrentHashMap<>();
+	private Path diretorioArquivo;
 
 	private ChatService() {
-		mensagensPorEvento = new HashMap<>();
-		maosLevantadasPorEvento = new HashMap<>();
 	}
 
 	public static ChatService getInstancia() {
@@ -79,12 +140,22 @@ public class ChatService {
 	public static class MensagemChat {
 		private int usuarioId;
 		private String texto;
+		private long sequencia;
 
 		public MensagemChat(int usuarioId, String texto) {
 			this.usuarioId = usuarioId;
 			this.texto = texto;
 		}
 
+		private MensagemChat(int usuarioId, String texto, long sequencia) {
+			this(usuarioId, texto);
+			this.sequencia = sequencia;
+		}
+
+		public long getSequencia() {
+			return sequencia;
+		}
+
 		public int getUsuarioId() {
 			return usuarioId;
 		}
@@ -94,41 +165,461 @@ public class ChatService {
 		}
 	}
 
+	// Entrada do registro: uma mensagem enviada ou a lápide de uma removida
+	private static final class Registro {
+		final MensagemChat mensagem;
+		final long removida;
+
+		Registro(MensagemChat mensagem, long removida) {
+			this.mensagem = mensagem;
+			this.removida = removida;
+		}
+	}
+
+	// Recebe as entradas de um trecho do registro, da memória ou do arquivo
+	private interface Visitante {
+		void mensagem(MensagemChat mensagem);
+
+		void remocao(long removida);
+	}
+
+	private final class SalaChat {
+		private final int eventoId;
+		// Cauda do registro em memória: registro.get(i) tem a sequência base + i
+		private final List<Registro> registro = new ArrayList<>();
+		private long base = 1;
+		// Sequências de todas as mensagens removidas (remoções são raras)
+		private final Set<Long> removidas = new HashSet<>();
+		// usuarioId -> quantidade; quem chega a zero sai do mapa
+		private final Map<Integer, Integer> mensagensPorUsuario = new HashMap<>();
+		private final Map<Integer, Integer> maosPorUsuario = new HashMap<>();
+		private final List<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+		private ArquivoChat arquivo;
+		private boolean arquivamentoDesligado;
+
+		SalaChat(int eventoId) {
+			this.eventoId = eventoId;
+		}
+
+		long proximaSequencia() {
+			return base + registro.size();
+		}
+
+		void acrescentar(Registro entrada) {
+			registro.add(entrada);
+			if (registro.size() >= CAUDA_EM_MEMORIA + ENTRADAS_POR_SEGMENTO && !arquivamentoDesligado) {
+				arquivarSegmento();
+			}
+		}
+
+		// Grava as ENTRADAS_POR_SEGMENTO entradas mais antigas da cauda e as tira do heap
+		private void arquivarSegmento() {
+			boolean[] remocoes = new boolean[ENTRADAS_POR_SEGMENTO];
+			int[] usuarios = new int[ENTRADAS_POR_SEGMENTO];
+			String[] textos = new String[ENTRADAS_POR_SEGMENTO];
+			long[] removidasDoSegmento = new long[ENTRADAS_POR_SEGMENTO];
+			for (int i = 0; i < ENTRADAS_POR_SEGMENTO; i++) {
+				Registro entrada = registro.get(i);
+				if (entrada.mensagem == null) {
+					remocoes[i] = true;
+					removidasDoSegmento[i] = entrada.removida;
+				} else {
+					usuarios[i] = entrada.mensagem.getUsuarioId();
+					textos[i] = entrada.mensagem.getTexto();
+				}
+			}
+			try {
+				if (arquivo == null) {
+					arquivo = ArquivoChat.abrir(diretorioArquivo().resolve("evento-" + eventoId));
+				}
+				arquivo.gravarSegmento(base, ENTRADAS_POR_SEGMENTO, remocoes, usuarios, textos,
+						removidasDoSegmento);
+			} catch (IOException | RuntimeException e) {
+				// Sem disco o chat continua funcionando, só que inteiro em memória
+				System.err.println("Chat do evento " + eventoId + " mantido em memória: " + e.getMessage());
+				arquivamentoDesligado = true;
+				return;
+			}
+			registro.subList(0, ENTRADAS_POR_SEGMENTO).clear();
+			base += ENTRADAS_POR_SEGMENTO;
+		}
+
+		// Entradas com sequência em [de, ate): as antigas vêm do arquivo, as outras da cauda
+		void percorrer(long de, long ate, Visitante visitante) {
+			long fimArquivo = Math.min(ate, base);
+			if (de < fimArquivo && arquivo != null) {
+				arquivo.ler(de, fimArquivo, new ArquivoChat.Leitor() {
+					@Override
+					public void mensagem(long sequencia, int usuarioId, String texto) {
+						visitante.mensagem(new MensagemChat(usuarioId, texto, sequencia));
+					}
+
+					@Override
+					public void remocao(long sequencia, long removida) {
+						visitante.remocao(removida);
+					}
+				});
+			}
+			long fim = Math.min(ate, proximaSequencia());
+			for (long sequencia = Math.max(de, base); sequencia < fim; sequencia++) {
+				Registro entrada = registro.get((int) (sequencia - base));
+				if (entrada.mensagem == null) {
+					visitante.remocao(entrada.removida);
+				} else {
+					visitante.mensagem(entrada.mensagem);
+				}
+			}
+		}
+
+		boolean isNoChat(MensagemChat mensagem) {
+			return !removidas.contains(mensagem.getSequencia());
+		}
+
+		void avisarAssinaturas() {
+			for (Assinatura assinatura : assinaturas) {
+				assinatura.agendar();
+			}
+		}
+	}
+
+	/**
+	 * Assinatura do chat de um evento (ver assinar()). Cancelada, não recebe mais lotes.
+	 */
+	public final class Assinatura {
+		private final int eventoId;
+		private final Executor executor;
+		private final Consumer<LoteChat> aoReceber;
+		// Ligada do agendamento até o fim da entrega, então no máximo uma entrega roda por vez,
+		// mesmo com um executor de várias threads
+		private final AtomicBoolean agendada = new AtomicBoolean();
+		private volatile boolean ativa = true;
+		// Só a entrega mexe no cursor; a próxima entrega o enxerga pela escrita em "agendada"
+		private long cursor;
+
+		private Assinatura(int eventoId, long desde, Executor executor, Consumer<LoteChat> aoReceber) {
+			this.eventoId = eventoId;
+			this.cursor = desde;
+			this.executor = executor;
+			this.aoReceber = aoReceber;
+		}
+
+		private void agendar() {
+			if (ativa && agendada.compareAndSet(false, true)) {
+				executor.execute(this::entregar);
+			}
+		}
+
+		private void entregar() {
+			if (!ativa) {
+				agendada.set(false);
+				return;
+			}
+			LoteChat lote = buscarDesde(eventoId, cursor, TAMANHO_LOTE);
+			cursor = lote.getUltimaSequencia();
+			if (!lote.isVazio()) {
+				aoReceber.accept(lote);
+			}
+			// Liberada só com o cursor já avançado. O aviso de uma mensagem que chegou durante a
+			// entrega encontrou a flag ligada e não agendou nada, por isso a nova conferência
+			agendada.set(false);
+			if (lote.temMais() || temNovidades()) {
+				agendar();
+			}
+		}
+
+		private boolean temNovidades() {
+			SalaChat sala = salas.get(eventoId);
+			if (sala == null) {
+				return false;
+			}
+			synchronized (sala) {
+				return sala.proximaSequencia() - 1 > cursor;
+			}
+		}
+
+		public void cancelar() {
+			ativa = false;
+			SalaChat sala = salas.get(eventoId);
+			if (sala != null) {
+				sala.assinaturas.remove(this);
+			}
+		}
+	}
+
 	public void adicionarMensagem(Evento evento, int usuarioId, String mensagem) {
-		mensagensPorEvento.computeIfAbsent(evento, k -> new ArrayList<>()).add(new MensagemChat(usuarioId, mensagem));
+		if (mensagem == null) {
+			throw new IllegalArgumentException("Mensagem não pode ser nula");
+		}
+		// Fora da trava da sala: a moderação não segura as outras mensagens
+		String moderada = FiltroModeracao.getInstance().moderar(mensagem);
+		SalaChat sala = sala(evento.getId());
+		synchronized (sala) {
+			MensagemChat nova = new MensagemChat(usuarioId, moderada, sala.proximaSequencia());
+			Persistencia.getInstance().registrarMensagemChat(evento.getId(), nova.getSequencia(), usuarioId, moderada);
+			sala.acrescentar(new Registro(nova, 0));
+			sala.mensagensPorUsuario.merge(usuarioId, 1, Integer::sum);
+			BarramentoAlteracoes.getInstance().publicar(Alteracao.Tipo.MENSAGEM_PUBLICADA, evento.getId(), usuarioId,
+					true, nova);
+		}
+		Persistencia.getInstance().aguardarGravacao();
+		sala.avisarAssinaturas();
 	}
 
+	// Todas as mensagens, inclusive as arquivadas (para telas, buscarUltimas/buscarAnteriores)
 	public List<MensagemChat> getMensagens(Evento evento) {
-		return mensagensPorEvento.getOrDefault(evento, new ArrayList<>());
+		List<MensagemChat> mensagens = new ArrayList<>();
+		SalaChat sala = salas.get(evento.getId());
+		if (sala == null) {
+			return mensagens;
+		}
+		synchronized (sala) {
+			sala.percorrer(1, sala.proximaSequencia(), new Visitante() {
+				@Override
+				public void mensagem(MensagemChat mensagem) {
+					if (sala.isNoChat(mensagem)) {
+						mensagens.add(mensagem);
+					}
+				}
+
+				@Override
+				public void remocao(long removida) {
+				}
+			});
+		}
+		return mensagens;
 	}
 
 	public void removerMensagem(Evento evento, MensagemChat mensagem) {
-		List<MensagemChat> mensagens = mensagensPorEvento.get(evento);
-		if (mensagens != null) {
-			mensagens.remove(mensagem);
+		SalaChat sala = salas.get(evento.getId());
+		if (sala == null) {
+			return;
+		}
+		synchronized (sala) {
+			long sequencia = mensagem.getSequencia();
+			if (sequencia < 1 || sequencia >= sala.proximaSequencia() || !sala.removidas.add(sequencia)) {
+				return;
+			}
+			Persistencia.getInstance().registrarRemocaoChat(evento.getId(), sala.proximaSequencia(), sequencia,
+					mensagem.getUsuarioId());
+			sala.acrescentar(new Registro(null, sequencia));
+			descontar(sala.mensagensPorUsuario, mensagem.getUsuarioId());
 		}
+		Persistencia.getInstance().aguardarGravacao();
+		sala.avisarAssinaturas();
 	}
 
-	// Registra que um usuário levantou a mão no evento
-	public void registrarMaoLevantada(Evento evento, int usuarioId) {
-		maosLevantadasPorEvento.computeIfAbsent(evento, k -> new HashMap<>()).merge(usuarioId, 1, Integer::sum);
+	public LoteChat buscarDesde(int eventoId, long desde, int maximo) {
+		List<MensagemChat> novas = new ArrayList<>();
+		List<Long> removidas = new ArrayList<>();
+		SalaChat sala = salas.get(eventoId);
+		if (sala == null) {
+			return new LoteChat(novas, removidas, desde, false);
+		}
+		synchronized (sala) {
+			long inicio = Math.max(0, desde) + 1;
+			long fim = Math.min(sala.proximaSequencia(), inicio + maximo);
+			sala.percorrer(inicio, fim, new Visitante() {
+				@Override
+				public void mensagem(MensagemChat mensagem) {
+					if (sala.isNoChat(mensagem)) {
+						novas.add(mensagem);
+					}
+				}
+
+				@Override
+				public void remocao(long removida) {
+					// Quem leu só até "desde" não viu as mensagens depois dele; a lápide não lhe interessa
+					if (removida <= desde) {
+						removidas.add(removida);
+					}
+				}
+			});
+			return new LoteChat(novas, removidas, Math.max(desde, fim - 1), fim < sala.proximaSequencia());
+		}
 	}
 
-	// Retorna a quantidade de mensagens enviadas pelo usuário no evento
-	public int getQuantidadeMensagens(int eventoId, int usuarioId) {
-		int total = 0;
-		for (Evento evento : mensagensPorEvento.keySet()) {
-			if (evento.getId() == eventoId) {
-				List<MensagemChat> mensagens = mensagensPorEvento.get(evento);
-				if (mensagens != null) {
-					for (MensagemChat msg : mensagens) {
-						if (msg.getUsuarioId() == usuarioId) {
-							total++;
+	public LoteChat buscarUltimas(int eventoId, int quantidade) {
+		return buscarAnteriores(eventoId, Long.MAX_VALUE, quantidade);
+	}
+
+	public LoteChat buscarAnteriores(int eventoId, long antesDe, int quantidade) {
+		SalaChat sala = salas.get(eventoId);
+		if (sala == null) {
+			return new LoteChat(new ArrayList<>(), new ArrayList<>(), 0, false);
+		}
+		synchronized (sala) {
+			List<MensagemChat> encontradas = new ArrayList<>();
+			long fim = Math.min(antesDe, sala.proximaSequencia());
+			// Janelas lidas de trás para frente; as lápides no caminho só aumentam a janela seguinte
+			while (encontradas.size() < quantidade && fim > 1) {
+				long inicio = Math.max(1, fim - (quantidade - encontradas.size()));
+				List<MensagemChat> janela = new ArrayList<>();
+				sala.percorrer(inicio, fim, new Visitante() {
+					@Override
+					public void mensagem(MensagemChat mensagem) {
+						if (sala.isNoChat(mensagem)) {
+							janela.add(mensagem);
 						}
 					}
+
+					@Override
+					public void remocao(long removida) {
+					}
+				});
+				janela.addAll(encontradas);
+				encontradas = janela;
+				fim = inicio;
+			}
+			if (encontradas.size() > quantidade) {
+				encontradas = new ArrayList<>(encontradas.subList(encontradas.size() - quantidade, encontradas.size()));
+			}
+			long primeira = encontradas.isEmpty() ? fim : encontradas.get(0).getSequencia();
+			return new LoteChat(encontradas, new ArrayList<>(), sala.proximaSequencia() - 1, primeira > 1);
+		}
+	}
+
+	/**
+	 * Diretório dos segmentos arquivados do chat (um subdiretório por evento). Sem isso, o
+	 * primeiro arquivamento usa um diretório temporário.
+	 */
+	public synchronized void setDiretorioArquivo(Path diretorio) {
+		this.diretorioArquivo = diretorio;
+	}
+
+	private synchronized Path diretorioArquivo() throws IOException {
+		if (diretorioArquivo == null) {
+			diretorioArquivo = Files.createTempDirectory("chat-eventos");
+		}
+		return diretorioArquivo;
+	}
+
+	public void restaurar(Collection<SalaChatGravada> recuperadas, Path diretorio) throws IOException {
+		setDiretorioArquivo(diretorio);
+		salas.clear();
+		Set<Path> pastas = new HashSet<>();
+		for (SalaChatGravada gravada : recuperadas) {
+			SalaChat sala = new SalaChat(gravada.getEventoId());
+			Path pasta = diretorio.resolve("evento-" + sala.eventoId);
+			pastas.add(pasta);
+			long arquivadas = 1;
+			if (Files.isDirectory(pasta)) {
+				sala.arquivo = ArquivoChat.reabrir(pasta, gravada.getProximaSequencia());
+				arquivadas = sala.arquivo.getProximaSequencia();
+			}
+			if (arquivadas < gravada.getPrimeiraSequencia()) {
+				// Segmentos apagados por fora: o que faltou não volta, e um segmento novo não
+				// continuaria o arquivo, então a sala fica inteira em memória
+				System.err.println("Chat do evento " + sala.eventoId + ": sequências " + arquivadas + " a "
+						+ (gravada.getPrimeiraSequencia() - 1) + " não estão no arquivo");
+				sala.arquivamentoDesligado = true;
+			}
+			sala.base = Math.max(arquivadas, gravada.getPrimeiraSequencia());
+			gravada.percorrer(new ArquivoChat.Leitor() {
+				@Override
+				public void mensagem(long sequencia, int usuarioId, String texto) {
+					if (sequencia >= sala.base) {
+						sala.registro.add(new Registro(new MensagemChat(usuarioId, texto, sequencia), 0));
+					}
+				}
+
+				@Override
+				public void remocao(long sequencia, long removida) {
+					if (sequencia >= sala.base) {
+						sala.registro.add(new Registro(null, removida));
+					}
+				}
+			});
+			sala.removidas.addAll(gravada.getRemovidas());
+			sala.mensagensPorUsuario.putAll(gravada.getMensagensPorUsuario());
+			sala.maosPorUsuario.putAll(gravada.getMaosPorUsuario());
+			salas.put(sala.eventoId, sala);
+		}
+		// Pastas sem sala recuperada: sobras de uma execução em que o chat não era gravado
+		if (Files.isDirectory(diretorio)) {
+			try (Stream<Path> existentes = Files.list(diretorio)) {
+				for (Path pasta : (Iterable<Path>) existentes::iterator) {
+					if (!pastas.contains(pasta) && pasta.getFileName().toString().startsWith("evento-")) {
+						apagarPasta(pasta);
+					}
 				}
 			}
 		}
-		return total;
+	}
+
+	private static void apagarPasta(Path pasta) throws IOException {
+		try (Stream<Path> arquivos = Files.list(pasta)) {
+			for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+				Files.deleteIfExists(arquivo);
+			}
+		}
+		Files.deleteIfExists(pasta);
+	}
+
+	public void percorrerSalas(Consumer<SalaChatGravada> visitante) {
+		for (SalaChat sala : salas.values()) {
+			SalaChatGravada gravada;
+			synchronized (sala) {
+				gravada = new SalaChatGravada(sala.eventoId, sala.base);
+				for (Registro entrada : sala.registro) {
+					if (entrada.mensagem == null) {
+						gravada.acrescentarRemocao(entrada.removida);
+					} else {
+						gravada.acrescentarMensagem(entrada.mensagem.getUsuarioId(), entrada.mensagem.getTexto());
+					}
+				}
+				gravada.getRemovidas().addAll(sala.removidas);
+				gravada.getMensagensPorUsuario().putAll(sala.mensagensPorUsuario);
+				gravada.getMaosPorUsuario().putAll(sala.maosPorUsuario);
+			}
+			visitante.accept(gravada);
+		}
+	}
+
+	public Assinatura assinar(int eventoId, long desde, Executor executor, Consumer<LoteChat> aoReceber) {
+		Assinatura assinatura = new Assinatura(eventoId, desde, executor, aoReceber);
+		sala(eventoId).assinaturas.add(assinatura);
+		// O que já chegou depois de "desde" sai na primeira entrega
+		assinatura.agendar();
+		return assinatura;
+	}
+
+	// Registra que um usuário levantou a mão no evento
+	public void registrarMaoLevantada(Evento evento, int usuarioId) {
+		SalaChat sala = sala(evento.getId());
+		synchronized (sala) {
+			int total = sala.maosPorUsuario.merge(usuarioId, 1, Integer::sum);
+			Persistencia.getInstance().registrarMaosLevantadas(evento.getId(), usuarioId, total);
+		}
+		Persistencia.getInstance().aguardarGravacao();
+	}
+
+	// Retorna a quantidade de mensagens enviadas pelo usuário no evento
+	public int getQuantidadeMensagens(int eventoId, int usuarioId) {
+		SalaChat sala = salas.get(eventoId);
+		if (sala == null) {
+			return 0;
+		}
+		synchronized (sala) {
+			return sala.mensagensPorUsuario.getOrDefault(usuarioId, 0);
+		}
+	}
+
+	// Retorna quantas vezes o usuário levantou a mão no evento
+	public int getQuantidadeMaosLevantadas(int eventoId, int usuarioId) {
+		SalaChat sala = salas.get(eventoId);
+		if (sala == null) {
+			return 0;
+		}
+		synchronized (sala) {
+			return sala.maosPorUsuario.getOrDefault(usuarioId, 0);
+		}
+	}
+
+	private SalaChat sala(int eventoId) {
+		return salas.computeIfAbsent(eventoId, SalaChat::new);
+	}
+
+	private static void descontar(Map<Integer, Integer> contagem, int usuarioId) {
+		contagem.computeIfPresent(usuarioId, (id, atual) -> atual > 1 ? atual - 1 : null);
 	}
 }
@@ -0,0 +1,34 @@
+/*
+ * ComentarioRepository
+ *
+ * Descrição geral:
+ * - Ponto de troca do armazenamento dos comentários de eventos (ver EventoRepository).
+ *
+ * Métodos e funcionalidades:
+ *
+ * adicionar(int eventoId, Comentario comentario)
+ * - Acrescenta o comentário no fim da lista do evento.
+ *
+ * listarPorEvento(int eventoId), contarPorEvento(int eventoId)
+ * - Comentários em ordem de chegada e a quantidade.
+ *
+ * removerDoEvento(int eventoId)
+ * - Apaga os comentários de um evento removido.
+ */
+
+package service;
+
+import java.util.List;
+
+import model.Comentario;
+
+public interface ComentarioRepository {
+
+	void adicionar(int eventoId, Comentario comentario);
+
+	List<Comentario> listarPorEvento(int eventoId);
+
+	int contarPorEvento(int eventoId);
+
+	void removerDoEvento(int eventoId);
+}
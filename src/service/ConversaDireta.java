@@ -0,0 +1,99 @@
+/*
+ * ConversaDireta
+ *
+ * Descrição geral:
+ * - Mensagens trocadas entre dois usuários, guardadas uma vez só para os dois lados (antes cada
+ *   mensagem ia, já formatada, para o histórico de cada um).
+ *
+ * Estruturas principais:
+ * - segmentos: blocos de TAMANHO_SEGMENTO mensagens em arrays paralelos (remetente, instante em
+ *   milissegundos e texto). Só o último bloco recebe mensagens; os cheios nunca mudam nem são
+ *   copiados quando a conversa cresce.
+ * - O bloco começa com CAPACIDADE_INICIAL posições e dobra até TAMANHO_SEGMENTO, então uma
+ *   conversa curta (a maioria) não paga um bloco inteiro. Só o último bloco cresce; a cópia ao
+ *   dobrar acontece no máximo log2(TAMANHO_SEGMENTO / CAPACIDADE_INICIAL) vezes por conversa.
+ * - A sequência de uma mensagem (0, 1, 2...) é a sua posição na conversa, e dela saem o bloco
+ *   (sequencia / TAMANHO_SEGMENTO) e a posição dentro dele.
+ *
+ * Métodos e funcionalidades:
+ *
+ * adicionar(int remetenteId, long instante, String texto)
+ * - Acrescenta no fim e retorna a mensagem com a sua sequência.
+ *
+ * anteriores(long antesDe, int quantidade)
+ * - As "quantidade" mensagens imediatamente antes da sequência antesDe, da mais antiga para a
+ *   mais nova. Lê só os blocos envolvidos, então abrir uma conversa longa custa uma página.
+ *
+ * Concorrência:
+ * - Métodos sincronizados; cada operação toca no máximo alguns blocos.
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import model.MensagemDireta;
+
+final class ConversaDireta {
+
+	static final int TAMANHO_SEGMENTO = 256;
+	static final int CAPACIDADE_INICIAL = 4;
+
+	private static final class Segmento {
+		int[] remetentes;
+		long[] instantes;
+		String[] textos;
+
+		Segmento(int capacidade) {
+			remetentes = new int[capacidade];
+			instantes = new long[capacidade];
+			textos = new String[capacidade];
+		}
+
+		void garantir(int posicao) {
+			if (posicao < textos.length) {
+				return;
+			}
+			int capacidade = Math.min(TAMANHO_SEGMENTO, textos.length * 2);
+			remetentes = Arrays.copyOf(remetentes, capacidade);
+			instantes = Arrays.copyOf(instantes, capacidade);
+			textos = Arrays.copyOf(textos, capacidade);
+		}
+	}
+
+	private final List<Segmento> segmentos = new ArrayList<>(1);
+	private long total;
+
+	synchronized MensagemDireta adicionar(int remetenteId, long instante, String texto) {
+		int posicao = (int) (total % TAMANHO_SEGMENTO);
+		if (posicao == 0) {
+			// Depois do primeiro bloco a conversa já é longa: os seguintes nascem cheios
+			segmentos.add(new Segmento(segmentos.isEmpty() ? CAPACIDADE_INICIAL : TAMANHO_SEGMENTO));
+		}
+		Segmento ultimo = segmentos.get(segmentos.size() - 1);
+		ultimo.garantir(posicao);
+		ultimo.remetentes[posicao] = remetenteId;
+		ultimo.instantes[posicao] = instante;
+		ultimo.textos[posicao] = texto;
+		return new MensagemDireta(remetenteId, instante, texto, total++);
+	}
+
+	synchronized List<MensagemDireta> anteriores(long antesDe, int quantidade) {
+		long fim = Math.min(antesDe, total);
+		long inicio = Math.max(0, fim - quantidade);
+		List<MensagemDireta> mensagens = new ArrayList<>((int) (fim - inicio));
+		for (long sequencia = inicio; sequencia < fim; sequencia++) {
+			Segmento segmento = segmentos.get((int) (sequencia / TAMANHO_SEGMENTO));
+			int posicao = (int) (sequencia % TAMANHO_SEGMENTO);
+			mensagens.add(new MensagemDireta(segmento.remetentes[posicao], segmento.instantes[posicao],
+					segmento.textos[posicao], sequencia));
+		}
+		return mensagens;
+	}
+
+	synchronized long total() {
+		return total;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * EventoRepository
+ *
+ * Descrição geral:
+ * - Ponto de troca do armazenamento de eventos e participações. O EventoService
+ *   continua em memória (com diário e snapshot); esta interface permite guardar os
+ *   mesmos dados em um banco, como faz JdbcEventoRepository.
+ * - Os eventos devolvidos trazem os dados descritivos; participantes, curtidas e
+ *   comentários são consultados à parte.
+ *
+ * Métodos e funcionalidades:
+ *
+ * salvar(Evento), remover(int), buscarPorId(int)
+ * - CRUD do evento (salvar insere ou atualiza).
+ *
+ * adicionarParticipacoes(int[] eventoIds, int[] usuarioIds, Permissao permissao)
+ * - Grava em lote os pares (eventoIds[i], usuarioIds[i]); um par que já existe fica
+ *   com a nova permissão e mantém a presença.
+ *
+ * removerParticipante(), listarParticipantes(), setPresenca()
+ * - Operações individuais de participação.
+ *
+ * listarParaUsuario(Usuario usuario, Evento depoisDe, int limite)
+ * - Equivalente a EventoService.listarEventosParaUsuario: eventos visíveis ao usuário
+ *   (públicos, organizados por ele ou em que participa) por data e id, a partir do
+ *   evento informado (null para a primeira página).
+ *
+ * pesquisar(String termo, Usuario usuario, int deslocamento, int limite)
+ * - Equivalente a EventoService.pesquisarEventos: cada palavra é prefixo, todas
+ *   precisam casar, ordem por relevância, data e id.
+ */
+
+package service;
+
+import java.util.List;
+
+import model.Evento;
+import model.Permissao;
+import model.Usuario;
+
+public interface EventoRepository {
+
+	void salvar(Evento evento);
+
+	boolean remover(int eventoId);
+
+	Evento buscarPorId(int eventoId);
+
+	void adicionarParticipacoes(int[] eventoIds, int[] usuarioIds, Permissao permissao);
+
+	boolean removerParticipante(int eventoId, int usuarioId);
+
+	int[] listarParticipantes(int eventoId);
+
+	void setPresenca(int eventoId, int usuarioId, boolean presente);
+
+	List<Evento> listarParaUsuario(Usuario usuario, Evento depoisDe, int limite);
+
+	List<Evento> pesquisar(String termo, Usuario usuario, int deslocamento, int limite);
+}
@@ -11,22 +11,59 @@
  * - Integração com serviços de usuário
  * 
  * Estruturas de dados principais:
- * - ArrayList<Evento>: Armazenamento dos eventos
+ * - ConcurrentHashMap<Integer, Evento>: Armazenamento dos eventos indexado pelo id
+ * - AtomicInteger: Sequência de ids dos eventos
+ * - IndiceDataEventos: Índice ordenado por data para listagens e consultas por período
+ * - IndiceTextoEventos: Índice invertido (sem acentos) para a pesquisa por termo
+ * - IndiceCategoriaEventos: Conjuntos de eventos por categoria normalizada e suas contagens
+ * - IndiceParticipacao: Relação bidirecional usuário <-> eventos (participação e organização)
+ * - IndiceAcessoEventos: Eventos privados visíveis por usuário
+ * - IndiceRankingEventos: Rankings por curtidas e "em alta" (curtidas e comentários recentes)
+ * - TravasEventos: Travas por faixa de id que serializam as alterações de cada evento
+ * - Persistencia: Diário de alterações e snapshots (pacote persistencia)
  * - HashMap (implícito): Controle de presenças e permissões
  * 
  * Métodos principais:
  * - criarEvento(), atualizarEvento(), removerEvento(): Operações básicas CRUD
+ * - editarEvento(): Edição parcial (EdicaoEvento) no próprio registro, com compare-and-set pela
+ *   versão do evento; só os índices que dependem dos campos alterados são atualizados
  * - listarEventos*(): Diversos métodos de listagem com filtros
  * - pesquisarEventos*(): Buscas por termo, data e categoria
+ * - listarEventosEntre(), listarEventosDoMes(): Consultas por período (calendário)
+ * - listarEventosPorCurtidas(), listarEventosEmAlta(): Rankings por curtidas e "em alta"
+ * - Sobrecargas (tamanho, cursor) das listagens e pesquisas: páginas com cursor (classe Pagina)
+ * - contarEventosPorCategoria(): Facetas de categoria com contagens
  * - adicionar/removerParticipante(): Gestão de participantes
+ * - listarEventosDoParticipante(), listarEventosDoOrganizador(): Eventos de um usuário
  * - getPermissao(): Controle de acesso a eventos
- * - getComentariosDoEvento(): Gestão de comentários
+ * - tentarCurtirEvento(), tentarDescurtirEvento(): Curtidas (atualizam o ranking)
+ * - getComentariosDoEvento(), adicionarComentarioAoEvento(): Gestão de comentários (moderados
+ *   pelo FiltroModeracao antes de entrar no evento)
+ * - carregarEventosDeExemplo(): Eventos de demonstração (só quando não há dados salvos)
+ * - restaurar(), percorrerEventos(): Carga e leitura do estado pela Persistencia (o índice de texto
+ *   da carga é montado em segundo plano)
  * 
  * Validações implementadas:
  * - Visibilidade de eventos (públicos/privados)
  * - Permissões de acesso (organizador/participante)
  * - Verificação de participação
  * 
+ * Concorrência:
+ * - O serviço é usado pela thread do JavaFX e pela thread do servidor HTTP de presença.
+ * - Toda alteração de um evento (CRUD, participantes, presença, curtidas, comentários) roda
+ *   dentro da trava do evento em TravasEventos, então Evento e índices mudam juntos.
+ * - Listagens e pesquisas não pegam trava: leem mapas concorrentes e o próprio Evento, que
+ *   usa leitura otimista (StampedLock) para participantes, presenças e curtidas.
+ * 
+ * Persistência:
+ * - Cada alteração é registrada no diário dentro da trava do evento (mesma ordem da memória)
+ *   e o método só retorna depois do fsync, que é aguardado já fora da trava. A exceção é a
+ *   thread do JavaFX, que não espera o fsync (Persistencia.dispensarEsperaNaThreadAtual).
+ * 
+ * Alterações:
+ * - Cada alteração também é publicada no BarramentoAlteracoes dentro da trava do evento, logo
+ *   depois do registro no diário (EVENTO_CRIADO, PARTICIPANTE_ADICIONADO, PRESENCA_MARCADA...).
+ * 
  * Padrões utilizados:
  * - Singleton: Controle de instância única
  * - Builder: Para criação de eventos (via classe Evento.Builder)
@@ -37,24 +74,57 @@ package service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 import model.Comentario;
+import model.EdicaoEvento;
 import model.Evento;
+import model.Permissao;
 import model.Usuario;
+import persistencia.Persistencia;
 
 public class EventoService {
 
-	private static EventoService instancia;
-	private List<Evento> eventos;
-	private int ultimoId = 0;
+	private static volatile EventoService instancia;
+	// Map id -> evento; as listagens são derivadas de eventos.values()
+	private final Map<Integer, Evento> eventos;
+	private final AtomicInteger sequenciaId = new AtomicInteger();
+	private final IndiceDataEventos indiceData = new IndiceDataEventos();
+	private final IndiceTextoEventos indiceTexto = new IndiceTextoEventos();
+	private final IndiceCategoriaEventos indiceCategoria = new IndiceCategoriaEventos();
+	private final IndiceParticipacao indiceParticipacao = new IndiceParticipacao();
+	private final IndiceAcessoEventos indiceAcesso = new IndiceAcessoEventos();
+	private final IndiceRankingEventos indiceRanking = new IndiceRankingEventos();
+	private final TravasEventos travas = new TravasEventos(64);
+	private final Persistencia persistencia = Persistencia.getInstance();
+	private final BarramentoAlteracoes alteracoes = BarramentoAlteracoes.getInstance();
+	// Entregue a cada evento registrado aqui, para Evento.getParticipantes() resolver os ids
+	private final IntFunction<Usuario> resolvedorUsuarios = id -> UsuarioService.getInstance().buscarPorId(id);
+
+	public static final long QUALQUER_VERSAO = -1;
+	private static final EnumSet<EdicaoEvento.Campo> CAMPOS_TEXTO = EnumSet.of(EdicaoEvento.Campo.TITULO,
+			EdicaoEvento.Campo.DESCRICAO, EdicaoEvento.Campo.CATEGORIA, EdicaoEvento.Campo.LOCAL,
+			EdicaoEvento.Campo.PALESTRANTE);
 
 	private EventoService() {
-		this.eventos = new ArrayList<>();
-		inicializarDadosExemplo();
+		this.eventos = new ConcurrentHashMap<>();
 	}
 
 	public static EventoService getInstance() {
@@ -68,7 +138,7 @@ public class EventoService {
 		return instancia;
 	}
 
-	private void inicializarDadosExemplo() {
+	public void carregarEventosDeExemplo() {
 		Usuario org1 = new Usuario();
 		org1.setId(1);
 		org1.setNome("Eduardo Enari");
@@ -167,156 +237,581 @@ public class EventoService {
 
 
 
+	/**
+	 * Carrega os eventos recuperados pela Persistencia. Deve ser chamado antes de
+	 * qualquer evento ser criado; os índices são montados sem gerar registros no
+	 * diário.
+	 */
+	public void restaurar(Collection<Evento> recuperados, int ultimoId) {
+		if (!eventos.isEmpty()) {
+			throw new IllegalStateException("Eventos já carregados; a restauração deve vir antes");
+		}
+		int maiorId = ultimoId;
+		for (Evento evento : recuperados) {
+			evento.setResolvedorUsuarios(resolvedorUsuarios);
+			eventos.put(evento.getId(), evento);
+			indiceData.indexar(evento);
+			indiceCategoria.indexar(evento);
+			indiceParticipacao.indexar(null, evento);
+			indiceAcesso.indexar(null, evento);
+			indiceRanking.indexar(evento);
+			maiorId = Math.max(maiorId, evento.getId());
+		}
+		sequenciaId.set(maiorId);
+
+		// O índice de texto é o mais caro de montar: fica para depois da abertura da aplicação,
+		// evento a evento sob a trava de cada um, e a pesquisa por termo espera terminar
+		indiceTexto.iniciarCarga();
+		Thread carga = new Thread(() -> {
+			try {
+				percorrerEventos(indiceTexto::indexar);
+			} finally {
+				indiceTexto.concluirCarga();
+			}
+		}, "indice-texto-carga");
+		carga.setDaemon(true);
+		carga.start();
+	}
+
+	/**
+	 * Visita cada evento segurando a trava dele, para o snapshot ler participantes,
+	 * curtidas e comentários de forma consistente.
+	 */
+	public void percorrerEventos(Consumer<Evento> visitante) {
+		for (Integer id : eventos.keySet()) {
+			travas.executar(id, () -> {
+				Evento evento = eventos.get(id);
+				if (evento != null) {
+					visitante.accept(evento);
+				}
+				return null;
+			});
+		}
+	}
+
+	public int getUltimoIdEvento() {
+		return sequenciaId.get();
+	}
+
+	// Executa a alteração na trava do evento e espera o diário gravá-la (fora da trava; na
+	// thread do JavaFX a espera é dispensada)
+	private <T> T alterar(int eventoId, Supplier<T> operacao) {
+		T resultado = travas.executar(eventoId, operacao);
+		persistencia.aguardarGravacao();
+		return resultado;
+	}
+
 	public Evento criarEvento(Evento evento) {
-		evento.setId(++ultimoId);
-		eventos.add(evento);
-		return evento;
+		evento.setId(sequenciaId.incrementAndGet());
+		evento.setResolvedorUsuarios(resolvedorUsuarios);
+		return alterar(evento.getId(), () -> {
+			eventos.put(evento.getId(), evento);
+			indiceData.indexar(evento);
+			indiceTexto.indexar(evento);
+			indiceCategoria.indexar(evento);
+			indiceParticipacao.indexar(null, evento);
+			indiceAcesso.indexar(null, evento);
+			indiceRanking.indexar(evento);
+			persistencia.registrarEvento(evento);
+			alteracoes.publicar(Alteracao.Tipo.EVENTO_CRIADO, evento.getId(), 0);
+			return evento;
+		});
 	}
 
 	public Evento atualizarEvento(Evento eventoAtualizado) {
-		for (int i = 0; i < eventos.size(); i++) {
-			if (eventos.get(i).getId() == eventoAtualizado.getId()) {
-				eventos.set(i, eventoAtualizado);
-				return eventoAtualizado;
+		eventoAtualizado.setResolvedorUsuarios(resolvedorUsuarios);
+		return alterar(eventoAtualizado.getId(), () -> {
+			Evento anterior = eventos.replace(eventoAtualizado.getId(), eventoAtualizado);
+			if (anterior == null) {
+				return null;
+			}
+			indiceData.indexar(eventoAtualizado);
+			indiceTexto.indexar(eventoAtualizado);
+			indiceCategoria.indexar(eventoAtualizado);
+			indiceParticipacao.indexar(anterior, eventoAtualizado);
+			indiceAcesso.indexar(anterior, eventoAtualizado);
+			indiceRanking.indexar(eventoAtualizado);
+			eventoAtualizado.avancarVersao();
+			persistencia.registrarEvento(eventoAtualizado);
+			alteracoes.publicar(Alteracao.Tipo.EVENTO_ATUALIZADO, eventoAtualizado.getId(), 0);
+			return eventoAtualizado;
+		});
+	}
+
+	/**
+	 * Aplica a edição no próprio evento se ele ainda estiver na versão lida por quem
+	 * edita (compare-and-set). Use QUALQUER_VERSAO para aplicar sem conferir.
+	 */
+	public ResultadoEdicao editarEvento(int eventoId, long versaoEsperada, EdicaoEvento edicao) {
+		return alterar(eventoId, () -> {
+			Evento evento = eventos.get(eventoId);
+			if (evento == null) {
+				return new ResultadoEdicao(ResultadoEdicao.Situacao.EVENTO_INEXISTENTE,
+						EnumSet.noneOf(EdicaoEvento.Campo.class), 0);
+			}
+			if (versaoEsperada != QUALQUER_VERSAO && evento.getVersao() != versaoEsperada) {
+				return new ResultadoEdicao(ResultadoEdicao.Situacao.VERSAO_DESATUALIZADA,
+						EnumSet.noneOf(EdicaoEvento.Campo.class), evento.getVersao());
 			}
+			EnumSet<EdicaoEvento.Campo> alterados = edicao.aplicar(evento);
+			if (alterados.isEmpty()) {
+				return new ResultadoEdicao(ResultadoEdicao.Situacao.SEM_MUDANCAS, alterados, evento.getVersao());
+			}
+			reindexar(evento, alterados);
+			long versao = evento.avancarVersao();
+			persistencia.registrarEvento(evento);
+			alteracoes.publicar(Alteracao.Tipo.EVENTO_ATUALIZADO, eventoId, 0, true, alterados);
+			return new ResultadoEdicao(ResultadoEdicao.Situacao.APLICADA, alterados, versao);
+		});
+	}
+
+	public ResultadoEdicao editarEvento(int eventoId, EdicaoEvento edicao) {
+		return editarEvento(eventoId, QUALQUER_VERSAO, edicao);
+	}
+
+	// Cada índice só é tocado se algum campo que ele usa mudou
+	private void reindexar(Evento evento, EnumSet<EdicaoEvento.Campo> alterados) {
+		if (alterados.contains(EdicaoEvento.Campo.DATA)) {
+			indiceData.indexar(evento);
+		}
+		if (!Collections.disjoint(alterados, CAMPOS_TEXTO)) {
+			indiceTexto.indexar(evento);
+		}
+		// As contagens de públicos por categoria dependem também da privacidade
+		if (alterados.contains(EdicaoEvento.Campo.CATEGORIA) || alterados.contains(EdicaoEvento.Campo.PRIVADO)) {
+			indiceCategoria.indexar(evento);
+		}
+		if (alterados.contains(EdicaoEvento.Campo.PRIVADO)) {
+			indiceAcesso.indexar(evento, evento);
 		}
-		return null;
 	}
 
 	public boolean removerEvento(int id) {
-		return eventos.removeIf(e -> e.getId() == id);
+		return alterar(id, () -> {
+			Evento removido = eventos.remove(id);
+			if (removido == null) {
+				return false;
+			}
+			indiceData.remover(id);
+			indiceTexto.remover(id);
+			indiceCategoria.remover(id);
+			indiceParticipacao.remover(removido);
+			indiceAcesso.remover(removido);
+			indiceRanking.remover(id);
+			persistencia.registrarRemocaoEvento(id);
+			alteracoes.publicar(Alteracao.Tipo.EVENTO_REMOVIDO, id, 0);
+			return true;
+		});
 	}
 
 	public Evento buscarEventoPorId(int id) {
-		return eventos.stream().filter(e -> e.getId() == id).findFirst().orElse(null);
+		return eventos.get(id);
 	}
 
 	// Métodos de listagem
 
 	public List<Evento> listarTodosEventos() {
-		return eventos.stream().sorted(Comparator.comparing(Evento::getData).reversed()).collect(Collectors.toList());
+		return new ArrayList<>(indiceData.emOrdemDecrescente());
 	}
 
 	public List<Evento> listarEventosPublicos() {
-		return eventos.stream().filter(e -> !e.isPrivado()).sorted(Comparator.comparing(Evento::getData))
-				.collect(Collectors.toList());
+		return indiceData.emOrdem().stream().filter(e -> !e.isPrivado()).collect(Collectors.toList());
 	}
 
 	public List<Evento> listarProximosEventos() {
-		return eventos.stream().filter(e -> e.getData().isAfter(LocalDateTime.now()))
-				.sorted(Comparator.comparing(Evento::getData)).collect(Collectors.toList());
+		return indiceData.proximos(LocalDateTime.now(), 0);
+	}
+
+	/**
+	 * Retorna os próximos {@code limite} eventos visíveis ao usuário a partir de
+	 * agora, em ordem de data. Percorre o índice só até juntar {@code limite}
+	 * eventos visíveis, sem copiar o restante do futuro.
+	 */
+	public List<Evento> listarProximosEventos(int limite, Usuario usuario) {
+		if (limite <= 0) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(indiceData
+				.pagina(null, false, LocalDateTime.now(), limite, e -> isVisivelParaUsuario(e, usuario)).getItens());
+	}
+
+	/**
+	 * Retorna os eventos visíveis ao usuário com data no intervalo [inicio, fim),
+	 * em ordem de data.
+	 */
+	public List<Evento> listarEventosEntre(LocalDateTime inicio, LocalDateTime fim, Usuario usuario) {
+		return indiceData.entre(inicio, fim).stream().filter(e -> isVisivelParaUsuario(e, usuario))
+				.collect(Collectors.toList());
+	}
+
+	public List<Evento> listarEventosDoMes(YearMonth mes, Usuario usuario) {
+		return listarEventosEntre(mes.atDay(1).atStartOfDay(), mes.plusMonths(1).atDay(1).atStartOfDay(), usuario);
 	}
 
 	public List<Evento> listarEventosPorCurtidas() {
-		return eventos.stream().sorted(Comparator.comparingInt(Evento::getCurtidas).reversed())
+		return indiceRanking.maisCurtidos().stream().map(eventos::get).filter(e -> e != null)
 				.collect(Collectors.toList());
 	}
+
+	public double getPontuacaoEmAlta(int eventoId) {
+		return indiceRanking.pontuacaoEmAlta(eventoId, System.currentTimeMillis());
+	}
+
+	// Curtidas do evento segundo o ranking (-1 fora dele); usado nas conferências de consistência
+	int getCurtidasNoRanking(int eventoId) {
+		return indiceRanking.curtidas(eventoId);
+	}
+
+	// Listagens paginadas: recebem o cursor da página anterior (null na primeira)
+
+	/**
+	 * Feed do usuário em ordem de data. Cada página percorre apenas o trecho do
+	 * índice de datas a partir do cursor.
+	 */
+	public Pagina<Evento> listarEventosParaUsuario(Usuario usuario, int tamanho, String cursor) {
+		return indiceData.pagina(cursor, false, null, tamanho, e -> isVisivelParaUsuario(e, usuario));
+	}
+
+	public Pagina<Evento> listarTodosEventos(int tamanho, String cursor) {
+		return indiceData.pagina(cursor, true, null, tamanho, e -> true);
+	}
+
+	public Pagina<Evento> listarProximosEventos(Usuario usuario, int tamanho, String cursor) {
+		return indiceData.pagina(cursor, false, LocalDateTime.now(), tamanho, e -> isVisivelParaUsuario(e, usuario));
+	}
+
+	/**
+	 * Ranking por curtidas (total acumulado) com os eventos visíveis ao usuário.
+	 */
+	public Pagina<Evento> listarEventosPorCurtidas(Usuario usuario, int tamanho, String cursor) {
+		return indiceRanking.pagina(false, cursor, tamanho, eventos::get, e -> isVisivelParaUsuario(e, usuario));
+	}
+
+	/**
+	 * Ranking "em alta": curtidas e comentários recentes pesam mais, com
+	 * meia-vida de 24 horas.
+	 */
+	public Pagina<Evento> listarEventosEmAlta(Usuario usuario, int tamanho, String cursor) {
+		return indiceRanking.pagina(true, cursor, tamanho, eventos::get, e -> isVisivelParaUsuario(e, usuario));
+	}
+
+	/**
+	 * Pesquisa paginada, em ordem de relevância e depois de data. Os candidatos
+	 * vêm do índice invertido e cada página seleciona só os {@code tamanho}
+	 * seguintes ao cursor, sem ordenar o resultado inteiro.
+	 */
+	public Pagina<Evento> pesquisarEventos(String termo, Usuario usuarioLogado, int tamanho, String cursor) {
+		if (termo == null || termo.trim().isEmpty()) {
+			return listarEventosParaUsuario(usuarioLogado, tamanho, cursor);
+		}
+		Map<Integer, Integer> pontuacao = indiceTexto.buscar(termo);
+		return selecionarPagina("busca", pontuacao.keySet(), pontuacao::get, usuarioLogado, tamanho, cursor);
+	}
+
+	public Pagina<Evento> pesquisarEventosPorCategoria(String categoria, Usuario usuarioLogado, int tamanho,
+			String cursor) {
+		return selecionarPagina("categoria", indiceCategoria.membros(categoria), id -> 0, usuarioLogado, tamanho,
+				cursor);
+	}
+
+	/**
+	 * Pesquisa paginada dentro de uma categoria: exatamente os eventos contados
+	 * para ela em contarEventosPorCategoria(termo, usuario). Com termo vazio é a
+	 * listagem da categoria.
+	 */
+	public Pagina<Evento> pesquisarEventos(String termo, String categoria, Usuario usuarioLogado, int tamanho,
+			String cursor) {
+		if (termo == null || termo.trim().isEmpty()) {
+			return pesquisarEventosPorCategoria(categoria, usuarioLogado, tamanho, cursor);
+		}
+		Map<Integer, Integer> pontuacao = indiceTexto.buscar(termo);
+		Set<Integer> daCategoria = indiceCategoria.membros(categoria);
+		// Interseção percorrendo o menor dos dois conjuntos
+		boolean categoriaMenor = daCategoria.size() < pontuacao.size();
+		List<Integer> candidatos = new ArrayList<>();
+		for (Integer id : categoriaMenor ? daCategoria : pontuacao.keySet()) {
+			if (categoriaMenor ? pontuacao.containsKey(id) : daCategoria.contains(id)) {
+				candidatos.add(id);
+			}
+		}
+		return selecionarPagina("busca", candidatos, pontuacao::get, usuarioLogado, tamanho, cursor);
+	}
+
+	// Chave de ordenação da pesquisa: pontuação desc, data asc (sem data por último), id asc
+	private static final class PosicaoBusca implements Comparable<PosicaoBusca> {
+		private final int pontuacao;
+		private final LocalDateTime data;
+		private final int id;
+
+		private PosicaoBusca(int pontuacao, LocalDateTime data, int id) {
+			this.pontuacao = pontuacao;
+			this.data = data != null ? data : LocalDateTime.MAX;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(PosicaoBusca outra) {
+			int cmp = Integer.compare(outra.pontuacao, pontuacao);
+			if (cmp == 0) {
+				cmp = data.compareTo(outra.data);
+			}
+			return cmp != 0 ? cmp : Integer.compare(id, outra.id);
+		}
+	}
+
+	private Pagina<Evento> selecionarPagina(String ordem, Collection<Integer> candidatos,
+			ToIntFunction<Integer> pontuacao, Usuario usuario, int tamanho, String cursor) {
+		PosicaoBusca apos = null;
+		if (cursor != null) {
+			String[] partes = Pagina.decodificarCursor(cursor, ordem);
+			try {
+				apos = new PosicaoBusca(Integer.parseInt(partes[0]), LocalDateTime.parse(partes[1]),
+						Integer.parseInt(partes[2]));
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+			}
+		}
+
+		// Heap com os "tamanho" menores candidatos depois do cursor: O(m log tamanho)
+		PriorityQueue<PosicaoBusca> selecionados = new PriorityQueue<>(Comparator.reverseOrder());
+		for (Integer id : candidatos) {
+			Evento evento = eventos.get(id);
+			if (evento == null || !isVisivelParaUsuario(evento, usuario)) {
+				continue;
+			}
+			PosicaoBusca posicao = new PosicaoBusca(pontuacao.applyAsInt(id), evento.getData(), id);
+			if (apos != null && posicao.compareTo(apos) <= 0) {
+				continue;
+			}
+			if (selecionados.size() < tamanho) {
+				selecionados.add(posicao);
+			} else if (tamanho > 0 && posicao.compareTo(selecionados.peek()) < 0) {
+				selecionados.poll();
+				selecionados.add(posicao);
+			}
+		}
+
+		List<PosicaoBusca> ordenados = new ArrayList<>(selecionados);
+		Collections.sort(ordenados);
+		List<Evento> itens = new ArrayList<>(ordenados.size());
+		for (PosicaoBusca posicao : ordenados) {
+			Evento evento = eventos.get(posicao.id);
+			if (evento != null) {
+				itens.add(evento);
+			}
+		}
+		String proximo = null;
+		if (tamanho > 0 && ordenados.size() == tamanho) {
+			PosicaoBusca ultima = ordenados.get(ordenados.size() - 1);
+			proximo = Pagina.codificarCursor(ordem, Integer.toString(ultima.pontuacao), ultima.data.toString(),
+					Integer.toString(ultima.id));
+		}
+		return new Pagina<>(itens, proximo);
+	}
+
 	// Métodos de pesquisa
 
+	/**
+	 * Pesquisa por termo usando o índice invertido. Cada palavra é tratada como
+	 * prefixo e todas precisam casar; acentos e maiúsculas são ignorados. O
+	 * resultado vem ordenado por relevância e, em caso de empate, por data.
+	 */
 	public List<Evento> pesquisarEventos(String termo, Usuario usuarioLogado) {
 		if (termo == null || termo.trim().isEmpty()) {
 			return listarEventosParaUsuario(usuarioLogado);
 		}
 
-		String termoLower = termo.toLowerCase();
-		return eventos.stream().filter(e -> correspondeTermo(e, termoLower))
-				.filter(e -> isVisivelParaUsuario(e, usuarioLogado)).sorted(Comparator.comparing(Evento::getData))
+		Map<Integer, Integer> pontuacao = indiceTexto.buscar(termo);
+		return pontuacao.keySet().stream().map(eventos::get).filter(e -> e != null)
+				.filter(e -> isVisivelParaUsuario(e, usuarioLogado))
+				.sorted(Comparator.comparing((Evento e) -> pontuacao.get(e.getId())).reversed()
+						.thenComparing(Evento::getData, Comparator.nullsLast(Comparator.naturalOrder()))
+						.thenComparingInt(Evento::getId))
 				.collect(Collectors.toList());
 	}
 
 	public List<Evento> pesquisarEventosPorData(LocalDate data, Usuario usuarioLogado) {
-		return eventos.stream().filter(e -> e.getData().toLocalDate().equals(data))
-				.filter(e -> isVisivelParaUsuario(e, usuarioLogado)).sorted(Comparator.comparing(Evento::getData))
+		return indiceData.doDia(data).stream().filter(e -> isVisivelParaUsuario(e, usuarioLogado))
 				.collect(Collectors.toList());
 	}
 
 	public List<Evento> pesquisarEventosPorCategoria(String categoria, Usuario usuarioLogado) {
-		return eventos.stream().filter(e -> e.getCategoria() != null && e.getCategoria().equalsIgnoreCase(categoria))
-				.filter(e -> isVisivelParaUsuario(e, usuarioLogado)).sorted(Comparator.comparing(Evento::getData))
+		return indiceCategoria.membros(categoria).stream().map(eventos::get).filter(e -> e != null)
+				.filter(e -> isVisivelParaUsuario(e, usuarioLogado))
+				.sorted(Comparator.comparing(Evento::getData, Comparator.nullsLast(Comparator.naturalOrder()))
+						.thenComparingInt(Evento::getId))
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Quantidade de eventos cadastrados em cada categoria, mantida pelo índice.
+	 */
+	public Map<String, Integer> contarEventosPorCategoria() {
+		return indiceCategoria.contagens();
+	}
+
+	/**
+	 * Facetas de categoria para um resultado já calculado (feed, pesquisa etc.),
+	 * sem varrer o catálogo.
+	 */
+	public Map<String, Integer> contarEventosPorCategoria(List<Evento> resultadoAtual) {
+		return indiceCategoria.contar(resultadoAtual);
+	}
+
+	/**
+	 * Facetas de categoria de uma pesquisa (ou do feed, com termo vazio) vista
+	 * pelo usuário. Trabalha só com ids, para a barra de categorias das listagens
+	 * paginadas.
+	 */
+	public Map<String, Integer> contarEventosPorCategoria(String termo, Usuario usuario) {
+		if (termo == null || termo.trim().isEmpty()) {
+			// Feed: contagens mantidas dos públicos mais os privados que o usuário vê
+			Map<String, Integer> contagens = indiceCategoria.contagensPublicas();
+			if (usuario != null) {
+				indiceCategoria.contarIds(indiceAcesso.privadosVisiveis(usuario.getId()))
+						.forEach((categoria, quantidade) -> contagens.merge(categoria, quantidade, Integer::sum));
+			}
+			return contagens;
+		}
+		return indiceCategoria.contarIds(idsVisiveis(termo, usuario));
+	}
+
+	/**
+	 * Quantidade de eventos de uma pesquisa (ou do feed, com termo vazio) visíveis
+	 * ao usuário. Sem termo, vem das contagens do índice de acesso.
+	 */
+	public int contarEventos(String termo, Usuario usuario) {
+		if (termo == null || termo.trim().isEmpty()) {
+			return indiceAcesso.contarVisiveis(usuario != null ? usuario.getId() : null);
+		}
+		return idsVisiveis(termo, usuario).size();
+	}
+
+	// Só para pesquisas com termo: percorre os resultados do índice invertido
+	private List<Integer> idsVisiveis(String termo, Usuario usuario) {
+		List<Integer> ids = new ArrayList<>();
+		for (Integer id : indiceTexto.buscar(termo).keySet()) {
+			boolean visivel = usuario == null ? !indiceAcesso.isPrivado(id) : indiceAcesso.isVisivel(id, usuario.getId());
+			if (visivel && eventos.containsKey(id)) {
+				ids.add(id);
+			}
+		}
+		return ids;
+	}
+
 	// Métodos auxiliares
 
 	public List<Evento> listarEventosParaUsuario(Usuario usuario) {
-		return eventos.stream().filter(e -> isVisivelParaUsuario(e, usuario))
-				.sorted(Comparator.comparing(Evento::getData)).collect(Collectors.toList());
+		return indiceData.emOrdem().stream().filter(e -> isVisivelParaUsuario(e, usuario))
+				.collect(Collectors.toList());
 	}
 
 	private boolean isVisivelParaUsuario(Evento evento, Usuario usuario) {
-		if (!evento.isPrivado()) {
-			return true;
-		}
 		if (usuario == null) {
-			return false;
+			return !indiceAcesso.isPrivado(evento.getId());
 		}
-		boolean isOrganizador = evento.getOrganizador() != null && evento.getOrganizador().equals(usuario);
-		boolean isParticipante = evento.getParticipantes() != null
-				&& evento.getParticipantes().stream().anyMatch(u -> u.equals(usuario));
-		return isOrganizador || isParticipante;
-	}
-
-	private boolean correspondeTermo(Evento evento, String termoLower) {
-		return (evento.getTitulo() != null && evento.getTitulo().toLowerCase().contains(termoLower))
-				|| (evento.getDescricao() != null && evento.getDescricao().toLowerCase().contains(termoLower))
-				|| (evento.getLocal() != null && evento.getLocal().toLowerCase().contains(termoLower))
-				|| (evento.getPalestrante() != null && evento.getPalestrante().toLowerCase().contains(termoLower))
-				|| (evento.getCategoria() != null && evento.getCategoria().toLowerCase().contains(termoLower));
+		return indiceAcesso.isVisivel(evento.getId(), usuario.getId());
 	}
 
 	// Métodos de participação
 
 	public boolean adicionarParticipante(int eventoId, int usuarioId) {
-		Evento evento = buscarEventoPorId(eventoId);
 		Usuario usuario = UsuarioService.getInstance().buscarPorId(usuarioId);
-
-		if (evento != null && usuario != null) {
-			boolean addedToEvent = evento.adicionarParticipante(usuario);
-			if (addedToEvent) {
-				usuario.participarEvento(evento);
-			}
-			return addedToEvent;
+		if (usuario == null) {
+			return false;
 		}
-		return false;
+		return alterar(eventoId, () -> {
+			Evento evento = buscarEventoPorId(eventoId);
+			if (evento == null || !evento.adicionarParticipante(usuario)) {
+				return false;
+			}
+			indiceParticipacao.adicionarParticipante(eventoId, usuarioId);
+			indiceAcesso.adicionarParticipante(eventoId, usuarioId);
+			persistencia.registrarParticipacao(eventoId, usuarioId, true);
+			alteracoes.publicar(Alteracao.Tipo.PARTICIPANTE_ADICIONADO, eventoId, usuarioId);
+			return true;
+		});
 	}
 
 	public boolean removerParticipante(int eventoId, int usuarioId) {
-		Evento evento = buscarEventoPorId(eventoId);
 		Usuario usuario = UsuarioService.getInstance().buscarPorId(usuarioId);
-
-		if (evento != null && usuario != null) {
-			return evento.removerParticipante(usuario);
+		if (usuario == null) {
+			return false;
 		}
-		return false;
+		return alterar(eventoId, () -> {
+			Evento evento = buscarEventoPorId(eventoId);
+			if (evento == null || !evento.removerParticipante(usuario)) {
+				return false;
+			}
+			indiceParticipacao.removerParticipante(eventoId, usuarioId);
+			indiceAcesso.removerParticipante(eventoId, usuarioId, indiceParticipacao.isOrganizador(eventoId, usuarioId));
+			persistencia.registrarParticipacao(eventoId, usuarioId, false);
+			alteracoes.publicar(Alteracao.Tipo.PARTICIPANTE_REMOVIDO, eventoId, usuarioId);
+			return true;
+		});
 	}
 
 	// Estatísticas
 
 	public int contarEventosOrganizadosPorUsuario(int usuarioId) {
-		return (int) eventos.stream().filter(e -> e.getOrganizador() != null && e.getOrganizador().getId() == usuarioId)
-				.count();
+		return indiceParticipacao.contarOrganizados(usuarioId);
 	}
 
 	public int contarParticipacoesUsuario(int usuarioId) {
-		return (int) eventos.stream().filter(e -> e.getParticipantes() != null
-				&& e.getParticipantes().stream().anyMatch(u -> u.getId() == usuarioId)).count();
+		return indiceParticipacao.contarParticipacoes(usuarioId);
+	}
+
+	/**
+	 * Para cada candidato, em quantos eventos do usuário ele também participa; usado pelo
+	 * UsuarioService para ordenar buscas e sugestões. Percorre os eventos do usuário uma vez,
+	 * conferindo os candidatos no ConjuntoIds de participantes de cada evento.
+	 */
+	int[] contarEventosEmComum(int usuarioId, int[] candidatos) {
+		int[] emComum = new int[candidatos.length];
+		for (Integer eventoId : indiceParticipacao.eventosDoParticipante(usuarioId)) {
+			Evento evento = eventos.get(eventoId);
+			if (evento != null) {
+				for (int i = 0; i < candidatos.length; i++) {
+					if (evento.isParticipante(candidatos[i])) {
+						emComum[i]++;
+					}
+				}
+			}
+		}
+		return emComum;
+	}
+
+	public List<Evento> listarEventosDoParticipante(int usuarioId) {
+		return resolverEmOrdemDeData(indiceParticipacao.eventosDoParticipante(usuarioId));
+	}
+
+	public List<Evento> listarEventosDoOrganizador(int usuarioId) {
+		return resolverEmOrdemDeData(indiceParticipacao.eventosDoOrganizador(usuarioId));
 	}
 
 	public boolean isParticipante(int eventoId, int usuarioId) {
 		Evento evento = buscarEventoPorId(eventoId);
-		if (evento == null || evento.getParticipantes() == null) {
-			return false;
-		}
-		return evento.getParticipantes().stream().anyMatch(u -> u.getId() == usuarioId);
+		return evento != null && evento.isParticipante(usuarioId);
+	}
+
+	private List<Evento> resolverEmOrdemDeData(Collection<Integer> ids) {
+		return ids.stream().map(eventos::get).filter(e -> e != null)
+				.sorted(Comparator.comparing(Evento::getData, Comparator.nullsLast(Comparator.naturalOrder())))
+				.collect(Collectors.toList());
 	}
 
 	// Presença
 
 	public void setPresenca(int eventoId, int usuarioId, boolean presente) {
-		Evento evento = buscarEventoPorId(eventoId);
-		if (evento != null && isParticipante(eventoId, usuarioId)) {
-			evento.setPresenca(usuarioId, presente);
-		}
+		alterar(eventoId, () -> {
+			Evento evento = buscarEventoPorId(eventoId);
+			if (evento != null && evento.isParticipante(usuarioId)) {
+				evento.setPresenca(usuarioId, presente);
+				persistencia.registrarPresenca(eventoId, usuarioId, presente);
+				alteracoes.publicar(Alteracao.Tipo.PRESENCA_MARCADA, eventoId, usuarioId, presente, null);
+			}
+			return null;
+		});
 	}
 
 	public boolean getPresenca(int eventoId, int usuarioId) {
@@ -328,75 +823,105 @@ public class EventoService {
 	}
 
 	/**
-	 * Retorna permissão do usuário para o evento: "organizador" se for organizador,
-	 * "participante" se for participante, "nenhuma" caso contrário. Eventos
-	 * públicos retornam "participante" para qualquer usuário.
+	 * Retorna permissão do usuário para o evento: ORGANIZADOR se for organizador,
+	 * PARTICIPANTE se for participante, NENHUMA caso contrário. Eventos públicos
+	 * retornam PARTICIPANTE para qualquer usuário.
 	 */
-	public String getPermissao(int eventoId, int usuarioId) {
+	public Permissao getPermissao(int eventoId, int usuarioId) {
 		Evento evento = buscarEventoPorId(eventoId);
 		if (evento == null) {
-			return "nenhuma";
-		}
-
-		if (!evento.isPrivado()) {
-			return "participante";
+			return Permissao.NENHUMA;
 		}
-
-		Usuario usuario = UsuarioService.getInstance().buscarPorId(usuarioId);
-		if (usuario == null) {
-			return "nenhuma";
+		if (!indiceAcesso.isPrivado(eventoId)) {
+			return Permissao.PARTICIPANTE;
 		}
-
-		if (evento.getOrganizador() != null && evento.getOrganizador().equals(usuario)) {
-			return "organizador";
-		}
-		if (evento.getParticipantes() != null && evento.getParticipantes().stream().anyMatch(u -> u.equals(usuario))) {
-			return "participante";
+		if (indiceParticipacao.isOrganizador(eventoId, usuarioId)) {
+			return Permissao.ORGANIZADOR;
 		}
-		return "nenhuma";
+		return evento.isParticipante(usuarioId) ? Permissao.PARTICIPANTE : Permissao.NENHUMA;
 	}
 
 	public boolean hasPermissao(int usuarioId, int eventoId) {
-		return !"nenhuma".equals(getPermissao(eventoId, usuarioId));
+		return getPermissao(eventoId, usuarioId) != Permissao.NENHUMA;
 	}
 
-	public void adicionarParticipanteComPermissao(int eventoId, int usuarioId, String permissao) {
-		Evento evento = buscarEventoPorId(eventoId);
+	public void adicionarParticipanteComPermissao(int eventoId, int usuarioId, Permissao permissao) {
 		Usuario usuario = UsuarioService.getInstance().buscarPorId(usuarioId);
-
-		if (evento == null || usuario == null) {
+		if (usuario == null) {
 			return;
 		}
 
-		if ("organizador".equalsIgnoreCase(permissao)) {
-			evento.setOrganizador(usuario); // Define como organizador
-			usuario.organizarEvento(evento); // Atualiza também na instância do usuário
-			// Não adiciona como participante!
-		} else if ("participante".equalsIgnoreCase(permissao)) {
-			if (evento.adicionarParticipante(usuario)) {
-				usuario.participarEvento(evento);
+		alterar(eventoId, () -> {
+			Evento evento = buscarEventoPorId(eventoId);
+			if (evento == null) {
+				return null;
 			}
-		}
+			if (permissao == Permissao.ORGANIZADOR) {
+				evento.setOrganizador(usuario); // Define como organizador
+				Integer anterior = indiceParticipacao.definirOrganizador(eventoId, usuarioId);
+				indiceAcesso.trocarOrganizador(eventoId, anterior, anterior != null && evento.isParticipante(anterior),
+						usuarioId);
+				persistencia.registrarEvento(evento);
+				alteracoes.publicar(Alteracao.Tipo.EVENTO_ATUALIZADO, eventoId, usuarioId);
+				// Não adiciona como participante!
+			} else if (permissao == Permissao.PARTICIPANTE) {
+				if (evento.adicionarParticipante(usuario)) {
+					indiceParticipacao.adicionarParticipante(eventoId, usuarioId);
+					indiceAcesso.adicionarParticipante(eventoId, usuarioId);
+					persistencia.registrarParticipacao(eventoId, usuarioId, true);
+					alteracoes.publicar(Alteracao.Tipo.PARTICIPANTE_ADICIONADO, eventoId, usuarioId);
+				}
+			}
+			return null;
+		});
 	}
 
 	public void marcarPresenca(int eventoId, int usuarioId) {
-		Evento evento = buscarEventoPorId(eventoId);
-		if (evento != null) {
-			evento.setPresenca(usuarioId, true);
+		boolean registrada = alterar(eventoId, () -> {
+			Evento evento = buscarEventoPorId(eventoId);
+			// Presença só de participante (quem saiu do evento não é marcado pelo QR antigo)
+			if (evento == null || !evento.setPresenca(usuarioId, true)) {
+				return false;
+			}
+			persistencia.registrarPresenca(eventoId, usuarioId, true);
+			alteracoes.publicar(Alteracao.Tipo.PRESENCA_MARCADA, eventoId, usuarioId);
+			return true;
+		});
+		if (registrada) {
 			System.out.println("Presença registrada para usuário " + usuarioId + " no evento " + eventoId);
 		}
 	}
 
 	public List<Integer> getParticipantesDoEvento(int eventoId) {
 		Evento evento = buscarEventoPorId(eventoId);
-		if (evento != null && evento.getParticipantes() != null) {
-			return evento.getParticipantes().stream().map(Usuario::getId).collect(Collectors.toList());
+		if (evento != null) {
+			return Arrays.stream(evento.getIdsParticipantes()).boxed().collect(Collectors.toList());
 		}
 		return new ArrayList<>();
 	}
 
 	public boolean tentarCurtirEvento(Evento evento, Usuario usuario) {
-		return evento.curtirEvento(usuario);
+		return alterar(evento.getId(), () -> {
+			boolean curtiu = evento.curtirEvento(usuario);
+			if (curtiu) {
+				indiceRanking.registrarCurtida(evento, System.currentTimeMillis());
+				persistencia.registrarCurtida(evento.getId(), usuario.getId(), true);
+				alteracoes.publicar(Alteracao.Tipo.CURTIDA_ALTERADA, evento.getId(), usuario.getId(), true, null);
+			}
+			return curtiu;
+		});
+	}
+
+	public boolean tentarDescurtirEvento(Evento evento, Usuario usuario) {
+		return alterar(evento.getId(), () -> {
+			boolean descurtiu = evento.descurtirEvento(usuario);
+			if (descurtiu) {
+				indiceRanking.registrarDescurtida(evento, System.currentTimeMillis());
+				persistencia.registrarCurtida(evento.getId(), usuario.getId(), false);
+				alteracoes.publicar(Alteracao.Tipo.CURTIDA_ALTERADA, evento.getId(), usuario.getId(), false, null);
+			}
+			return descurtiu;
+		});
 	}
 
 	public List<Comentario> getComentariosDoEvento(int eventoId) {
@@ -407,11 +932,22 @@ public class EventoService {
 		return new ArrayList<>();
 	}
 
-	public void adicionarComentarioAoEvento(int eventoId, Comentario comentario) {
-		Evento evento = buscarEventoPorId(eventoId);
-		if (evento != null) {
-			evento.adicionarComentario(comentario);
-		}
+	public void adicionarComentarioAoEvento(int eventoId, Comentario comentarioOriginal) {
+		String moderado = FiltroModeracao.getInstance().moderar(comentarioOriginal.getTexto());
+		Comentario comentario = moderado == comentarioOriginal.getTexto() ? comentarioOriginal
+				: new Comentario(moderado, comentarioOriginal.getUsuarioId());
+		alterar(eventoId, () -> {
+			Evento evento = buscarEventoPorId(eventoId);
+			if (evento != null) {
+				int posicao = evento.getComentarios().size();
+				evento.adicionarComentario(comentario);
+				indiceRanking.registrarComentario(eventoId, System.currentTimeMillis());
+				persistencia.registrarComentario(eventoId, posicao, comentario);
+				alteracoes.publicar(Alteracao.Tipo.COMENTARIO_ADICIONADO, eventoId, comentario.getUsuarioId(), true,
+						comentario);
+			}
+			return null;
+		});
 	}
 
 }
@@ -0,0 +1,376 @@
+/*
+ * FiltroModeracao
+ *
+ * Descrição geral:
+ * - Moderação automática do chat ao vivo (ChatService) e dos comentários dos eventos
+ *   (EventoService): termos bloqueados viram asteriscos e links viram "[link removido]".
+ * - A lista de termos é configurável (um por linha, "#" para comentários) e pode ser
+ *   recarregada com o sistema rodando; sem configuração vale a lista padrão em
+ *   /resources/moderacao/termos.txt.
+ *
+ * Estruturas principais:
+ * - Automato: autômato de Aho–Corasick já convertido em tabela de transições (DFA), com os
+ *   termos e os começos de link ("http://", "https://", "www.") como padrões. Cada
+ *   caractere da mensagem custa uma consulta ao símbolo e uma à tabela, então a mensagem é
+ *   percorrida uma vez só, qualquer que seja a quantidade de termos.
+ * - DOBRADO: cada char já em minúscula e sem acento ("Ótário" casa com "otario"). A troca é
+ *   de um caractere por um, então as posições do texto dobrado são as do original.
+ * - simbolos: char -> símbolo do alfabeto do autômato (0 para os que não aparecem em nenhum
+ *   padrão, que sempre voltam à raiz).
+ *
+ * Métodos e funcionalidades:
+ *
+ * getInstance()
+ * - Instância única, com a lista padrão.
+ *
+ * moderar(String texto)
+ * - Texto com os termos (palavra inteira) e links mascarados. Sem nada a mascarar, devolve a
+ *   própria String recebida, sem alocar nada.
+ *
+ * definirTermos(Collection<String> termos), carregar(Path arquivo)
+ * - Montam um autômato novo e trocam o atual de uma vez; mensagens em andamento terminam
+ *   com o anterior.
+ *
+ * observar(Path arquivo)
+ * - Carrega o arquivo (se existir) e passa a recarregá-lo sempre que ele mudar, por uma
+ *   thread daemon com WatchService.
+ *
+ * Concorrência:
+ * - O autômato é imutável e publicado por um campo volatile; moderar() não pega trava.
+ */
+
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class FiltroModeracao {
+
+	private static final String LISTA_PADRAO = "/resources/moderacao/termos.txt";
+	private static final String[] INICIOS_DE_LINK = { "http://", "https://", "www." };
+	private static final String LINK_REMOVIDO = "[link removido]";
+	private static final char[] DOBRADO = new char[Character.MAX_VALUE + 1];
+
+	static {
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			char letra = (char) c;
+			// Acentos só nos alfabetos ocidentais; o resto (CJK, hangul...) só passa por minúscula
+			if (c >= 0x2000 || !Character.isLetter(letra)) {
+				DOBRADO[c] = Character.toLowerCase(letra);
+				continue;
+			}
+			String decomposta = Normalizer.normalize(String.valueOf(letra), Normalizer.Form.NFD);
+			DOBRADO[c] = Character.toLowerCase(decomposta.charAt(0));
+		}
+	}
+
+	private static volatile FiltroModeracao instancia;
+
+	private volatile Automato automato;
+	private Thread observador;
+
+	private FiltroModeracao() {
+		automato = new Automato(lerListaPadrao());
+	}
+
+	public static FiltroModeracao getInstance() {
+		if (instancia == null) {
+			synchronized (FiltroModeracao.class) {
+				if (instancia == null) {
+					instancia = new FiltroModeracao();
+				}
+			}
+		}
+		return instancia;
+	}
+
+	public String moderar(String texto) {
+		return texto == null || texto.isEmpty() ? texto : automato.moderar(texto);
+	}
+
+	public int getQuantidadeTermos() {
+		return automato.quantidadeTermos;
+	}
+
+	public void definirTermos(Collection<String> termos) {
+		automato = new Automato(termos);
+	}
+
+	public void carregar(Path arquivo) throws IOException {
+		try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+			definirTermos(lerTermos(leitor));
+		}
+	}
+
+	public synchronized void observar(Path arquivo) throws IOException {
+		if (Files.exists(arquivo)) {
+			carregar(arquivo);
+		}
+		if (observador != null) {
+			observador.interrupt();
+		}
+		Path absoluto = arquivo.toAbsolutePath();
+		Files.createDirectories(absoluto.getParent());
+		WatchService servico = FileSystems.getDefault().newWatchService();
+		absoluto.getParent().register(servico, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+		observador = new Thread(() -> acompanhar(servico, absoluto), "moderacao-lista");
+		observador.setDaemon(true);
+		observador.start();
+	}
+
+	private void acompanhar(WatchService servico, Path arquivo) {
+		try (servico) {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey chave = servico.take();
+				boolean mudou = false;
+				for (WatchEvent<?> evento : chave.pollEvents()) {
+					mudou |= arquivo.getFileName().equals(evento.context());
+				}
+				chave.reset();
+				if (mudou) {
+					try {
+						carregar(arquivo);
+					} catch (IOException e) {
+						// Arquivo no meio de uma gravação: a próxima modificação recarrega
+						System.err.println("Lista de moderação não recarregada: " + e.getMessage());
+					}
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			System.err.println("Observação da lista de moderação encerrada: " + e.getMessage());
+		}
+	}
+
+	private static List<String> lerListaPadrao() {
+		InputStream entrada = FiltroModeracao.class.getResourceAsStream(LISTA_PADRAO);
+		if (entrada == null) {
+			return new ArrayList<>();
+		}
+		try (BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+			return lerTermos(leitor);
+		} catch (IOException e) {
+			return new ArrayList<>();
+		}
+	}
+
+	private static List<String> lerTermos(BufferedReader leitor) throws IOException {
+		List<String> termos = new ArrayList<>();
+		for (String linha = leitor.readLine(); linha != null; linha = leitor.readLine()) {
+			String termo = linha.trim();
+			if (!termo.isEmpty() && !termo.startsWith("#")) {
+				termos.add(termo);
+			}
+		}
+		return termos;
+	}
+
+	static String dobrar(String texto) {
+		char[] letras = new char[texto.length()];
+		for (int i = 0; i < letras.length; i++) {
+			letras[i] = DOBRADO[texto.charAt(i)];
+		}
+		return new String(letras);
+	}
+
+	/*
+	 * Autômato imutável. Os padrões 0..quantidadeTermos-1 são termos, os seguintes são começos
+	 * de link.
+	 */
+	private static final class Automato {
+		final int quantidadeTermos;
+		final int[] tamanhos;
+		final char[] simbolos = new char[Character.MAX_VALUE + 1];
+		final int largura;
+		// transicoes[estado * largura + simbolo] -> próximo estado
+		final int[] transicoes;
+		// Padrão mais longo que termina no estado, ou -1
+		final int[] padraoDoEstado;
+		// Próximo estado (pelas falhas) com padrão, ou -1; "onde há saída" a partir deste estado
+		final int[] saida;
+		final int[] proximaSaida;
+
+		Automato(Collection<String> termos) {
+			Set<String> padroes = new LinkedHashSet<>();
+			for (String termo : termos) {
+				String dobrado = dobrar(termo.trim());
+				if (!dobrado.isEmpty()) {
+					padroes.add(dobrado);
+				}
+			}
+			quantidadeTermos = padroes.size();
+			for (String inicio : INICIOS_DE_LINK) {
+				padroes.add(inicio);
+			}
+
+			// Alfabeto: só os chars (já dobrados) que aparecem em algum padrão, mais o 0 para o resto
+			char[] alfabeto = new char[Character.MAX_VALUE + 1];
+			int quantidadeSimbolos = 1;
+			for (String padrao : padroes) {
+				for (int i = 0; i < padrao.length(); i++) {
+					char letra = padrao.charAt(i);
+					if (alfabeto[letra] == 0) {
+						alfabeto[letra] = (char) quantidadeSimbolos++;
+					}
+				}
+			}
+			// Cada char vai direto ao símbolo do seu caractere dobrado
+			for (int c = 0; c <= Character.MAX_VALUE; c++) {
+				simbolos[c] = alfabeto[DOBRADO[c]];
+			}
+			largura = quantidadeSimbolos;
+
+			// Trie
+			List<int[]> filhos = new ArrayList<>();
+			List<Integer> padraoPorEstado = new ArrayList<>();
+			filhos.add(new int[largura]);
+			padraoPorEstado.add(-1);
+			tamanhos = new int[padroes.size()];
+			int indice = 0;
+			for (String padrao : padroes) {
+				int estado = 0;
+				for (int i = 0; i < padrao.length(); i++) {
+					int simbolo = simbolos[padrao.charAt(i)];
+					if (filhos.get(estado)[simbolo] == 0) {
+						filhos.get(estado)[simbolo] = filhos.size();
+						filhos.add(new int[largura]);
+						padraoPorEstado.add(-1);
+					}
+					estado = filhos.get(estado)[simbolo];
+				}
+				padraoPorEstado.set(estado, indice);
+				tamanhos[indice++] = padrao.length();
+			}
+
+			// Falhas em largura, completando as transições que faltam (vira DFA)
+			int estados = filhos.size();
+			transicoes = new int[estados * largura];
+			padraoDoEstado = new int[estados];
+			saida = new int[estados];
+			proximaSaida = new int[estados];
+			int[] falha = new int[estados];
+			ArrayDeque<Integer> fila = new ArrayDeque<>();
+			for (int estado = 0; estado < estados; estado++) {
+				padraoDoEstado[estado] = padraoPorEstado.get(estado);
+			}
+			for (int simbolo = 0; simbolo < largura; simbolo++) {
+				int filho = filhos.get(0)[simbolo];
+				transicoes[simbolo] = filho;
+				if (filho != 0) {
+					fila.add(filho);
+				}
+			}
+			saida[0] = -1;
+			proximaSaida[0] = -1;
+			while (!fila.isEmpty()) {
+				int estado = fila.poll();
+				int[] deste = filhos.get(estado);
+				for (int simbolo = 0; simbolo < largura; simbolo++) {
+					int filho = deste[simbolo];
+					if (filho != 0) {
+						falha[filho] = transicoes[falha[estado] * largura + simbolo];
+						transicoes[estado * largura + simbolo] = filho;
+						fila.add(filho);
+					} else {
+						transicoes[estado * largura + simbolo] = transicoes[falha[estado] * largura + simbolo];
+					}
+				}
+				int anterior = saida[falha[estado]];
+				proximaSaida[estado] = anterior;
+				saida[estado] = padraoDoEstado[estado] >= 0 ? estado : anterior;
+			}
+		}
+
+		String moderar(String texto) {
+			int[] trechos = null;
+			int quantidade = 0;
+			int estado = 0;
+			int tamanhoTexto = texto.length();
+			for (int i = 0; i < tamanhoTexto; i++) {
+				estado = transicoes[estado * largura + simbolos[texto.charAt(i)]];
+				// Quase sempre -1: uma comparação por caractere
+				for (int comPadrao = saida[estado]; comPadrao >= 0; comPadrao = proximaSaida[comPadrao]) {
+					int padrao = padraoDoEstado[comPadrao];
+					int inicio = i + 1 - tamanhos[padrao];
+					int fim;
+					if (padrao >= quantidadeTermos) {
+						fim = fimDoLink(texto, i + 1);
+					} else if (palavraInteira(texto, inicio, i + 1)) {
+						fim = i + 1;
+					} else {
+						continue;
+					}
+					if (trechos == null) {
+						trechos = new int[8];
+					} else if (quantidade + 3 > trechos.length) {
+						trechos = Arrays.copyOf(trechos, trechos.length * 2);
+					}
+					trechos[quantidade++] = inicio;
+					trechos[quantidade++] = fim;
+					trechos[quantidade++] = padrao >= quantidadeTermos ? 1 : 0;
+				}
+			}
+			return trechos == null ? texto : mascarar(texto, trechos, quantidade);
+		}
+
+		private static boolean palavraInteira(String texto, int inicio, int fim) {
+			return (inicio == 0 || !Character.isLetterOrDigit(texto.charAt(inicio - 1)))
+					&& (fim == texto.length() || !Character.isLetterOrDigit(texto.charAt(fim)));
+		}
+
+		private static int fimDoLink(String texto, int posicao) {
+			while (posicao < texto.length() && !Character.isWhitespace(texto.charAt(posicao))) {
+				posicao++;
+			}
+			return posicao;
+		}
+
+		// Trechos (início, fim, é link), ordenados pelo início; sobrepostos são unidos
+		private static String mascarar(String texto, int[] trechos, int quantidade) {
+			int[][] ordenados = new int[quantidade / 3][];
+			for (int t = 0; t < ordenados.length; t++) {
+				ordenados[t] = new int[] { trechos[3 * t], trechos[3 * t + 1], trechos[3 * t + 2] };
+			}
+			Arrays.sort(ordenados, (a, b) -> Integer.compare(a[0], b[0]));
+			StringBuilder moderado = new StringBuilder(texto.length());
+			int copiado = 0;
+			for (int[] trecho : ordenados) {
+				int inicio = Math.max(trecho[0], copiado);
+				if (trecho[1] <= inicio) {
+					continue;
+				}
+				moderado.append(texto, copiado, inicio);
+				if (trecho[2] == 1) {
+					moderado.append(LINK_REMOVIDO);
+				} else {
+					for (int i = inicio; i < trecho[1]; i++) {
+						moderado.append(Character.isWhitespace(texto.charAt(i)) ? texto.charAt(i) : '*');
+					}
+				}
+				copiado = trecho[1];
+			}
+			return moderado.append(texto, copiado, texto.length()).toString();
+		}
+	}
+}
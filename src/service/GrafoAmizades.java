@@ -0,0 +1,282 @@
+/*
+ * GrafoAmizades
+ *
+ * Descrição geral:
+ * - Amizades e pedidos de amizade do UsuarioService, guardados só pelos ids dos usuários.
+ *   Substitui as listas de Usuario que ficavam no próprio modelo, onde cada conferência era
+ *   um contains linear com Usuario.equals.
+ * - Mantém, para quem pediu sugestões recentemente, a contagem de amigos em comum com cada
+ *   amigo de amigo ("pessoas que você talvez conheça").
+ *
+ * Estruturas principais:
+ * - amigos, pedidosEnviados, pedidosRecebidos: usuarioId -> ConjuntoIds (int[] com hash
+ *   aberto), com contem() em O(1).
+ * - amigosDeAmigos: usuarioId -> (candidatoId -> amigos em comum). Cache LRU limitado a
+ *   SUGESTOES_EM_CACHE usuários, montado na primeira consulta percorrendo só os amigos e os
+ *   amigos deles, e depois atualizado a cada amizade feita ou desfeita.
+ *
+ * Métodos e funcionalidades:
+ *
+ * enviarPedido(), aceitarPedido(), recusarPedido(), desfazerAmizade()
+ * - Alteram o grafo; retornam false quando a operação não se aplica (pedido repetido, já são
+ *   amigos, pedido inexistente...).
+ *
+ * saoAmigos(), temPedido(), amigos(), pedidosRecebidos(), pedidosEnviados()
+ * - Consultas; as listas saem como int[] ordenados.
+ *
+ * contarAmigosEmComum(int usuarioA, int usuarioB)
+ * - Percorre o menor dos dois conjuntos de amigos.
+ *
+ * amigosDeAmigos(int usuarioId, int maximo)
+ * - Candidatos (ids e amigos em comum em arrays paralelos), sem o próprio usuário, os amigos
+ *   dele e quem já tem pedido pendente com ele. Passando de "maximo", ficam os que têm mais
+ *   amigos em comum, escolhidos por histograma das contagens em vez de ordenação.
+ *
+ * Técnicas utilizadas:
+ * - Atualização incremental: quando A e B viram amigos, só mudam as contagens de A (ganha os
+ *   amigos de B), de B (os de A), dos amigos de A (ganham B) e dos amigos de B (ganham A), e
+ *   só nos caches existentes. Custo O(amigos de A + amigos de B), sem percorrer o grafo.
+ *
+ * Concorrência:
+ * - Todos os métodos são sincronizados; as operações são curtas.
+ */
+
+package service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.ConjuntoIds;
+
+class GrafoAmizades {
+
+	private static final int SUGESTOES_EM_CACHE = 4096;
+	private static final int[] NENHUM = new int[0];
+
+	private final Map<Integer, ConjuntoIds> amigos = new HashMap<>();
+	private final Map<Integer, ConjuntoIds> pedidosEnviados = new HashMap<>();
+	private final Map<Integer, ConjuntoIds> pedidosRecebidos = new HashMap<>();
+	private final Map<Integer, Map<Integer, Integer>> amigosDeAmigos = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Map<Integer, Integer>> maisAntigo) {
+			return size() > SUGESTOES_EM_CACHE;
+		}
+	};
+
+	synchronized boolean enviarPedido(int remetente, int destino) {
+		if (remetente == destino || contem(amigos, remetente, destino) || contem(pedidosEnviados, remetente, destino)) {
+			return false;
+		}
+		conjunto(pedidosEnviados, remetente).adicionar(destino);
+		conjunto(pedidosRecebidos, destino).adicionar(remetente);
+		return true;
+	}
+
+	synchronized boolean aceitarPedido(int remetente, int destino) {
+		if (!contem(pedidosRecebidos, destino, remetente)) {
+			return false;
+		}
+		// Pedidos cruzados (os dois pediram) são resolvidos juntos
+		retirarPedido(remetente, destino);
+		retirarPedido(destino, remetente);
+		conjunto(amigos, remetente).adicionar(destino);
+		conjunto(amigos, destino).adicionar(remetente);
+		ajustarAmigosDeAmigos(remetente, destino, 1);
+		return true;
+	}
+
+	synchronized boolean recusarPedido(int remetente, int destino) {
+		return retirarPedido(remetente, destino);
+	}
+
+	synchronized boolean desfazerAmizade(int usuarioA, int usuarioB) {
+		if (!contem(amigos, usuarioA, usuarioB)) {
+			return false;
+		}
+		// Com a aresta ainda no grafo, como na inclusão
+		ajustarAmigosDeAmigos(usuarioA, usuarioB, -1);
+		amigos.get(usuarioA).remover(usuarioB);
+		amigos.get(usuarioB).remover(usuarioA);
+		return true;
+	}
+
+	synchronized boolean saoAmigos(int usuarioA, int usuarioB) {
+		return contem(amigos, usuarioA, usuarioB);
+	}
+
+	synchronized boolean temPedido(int remetente, int destino) {
+		return contem(pedidosEnviados, remetente, destino);
+	}
+
+	synchronized int[] amigos(int usuarioId) {
+		return paraArray(amigos, usuarioId);
+	}
+
+	synchronized int[] pedidosRecebidos(int usuarioId) {
+		return paraArray(pedidosRecebidos, usuarioId);
+	}
+
+	synchronized int[] pedidosEnviados(int usuarioId) {
+		return paraArray(pedidosEnviados, usuarioId);
+	}
+
+	synchronized int contarAmigosEmComum(int usuarioA, int usuarioB) {
+		ConjuntoIds amigosA = amigos.get(usuarioA);
+		ConjuntoIds amigosB = amigos.get(usuarioB);
+		if (amigosA == null || amigosB == null) {
+			return 0;
+		}
+		ConjuntoIds menor = amigosA.tamanho() <= amigosB.tamanho() ? amigosA : amigosB;
+		ConjuntoIds maior = menor == amigosA ? amigosB : amigosA;
+		int[] comum = new int[1];
+		menor.paraCada(id -> {
+			if (maior.contem(id)) {
+				comum[0]++;
+			}
+		});
+		return comum[0];
+	}
+
+	/**
+	 * Amigos de amigos de um usuário e quantos amigos cada um tem em comum com ele. Ids e
+	 * contagens em posições correspondentes.
+	 */
+	static final class Candidatos {
+		final int[] ids;
+		final int[] amigosEmComum;
+
+		Candidatos(int[] ids, int[] amigosEmComum) {
+			this.ids = ids;
+			this.amigosEmComum = amigosEmComum;
+		}
+
+		/*
+		 * Os "maximo" primeiros com mais amigos em comum, sem ordenar: as contagens vão no máximo
+		 * até o grau do usuário, então um histograma acha o corte em O(total).
+		 */
+		Candidatos maiores(int total, int maximo, int maiorContagem) {
+			int[] porContagem = new int[maiorContagem + 1];
+			for (int i = 0; i < total; i++) {
+				porContagem[amigosEmComum[i]]++;
+			}
+			int corte = maiorContagem;
+			int acima = 0;
+			while (acima + porContagem[corte] < maximo) {
+				acima += porContagem[corte--];
+			}
+			int vagasNoCorte = maximo - acima;
+			int[] idsEscolhidos = new int[maximo];
+			int[] contagensEscolhidas = new int[maximo];
+			int escolhidos = 0;
+			for (int i = 0; i < total; i++) {
+				int contagem = amigosEmComum[i];
+				if (contagem > corte || (contagem == corte && vagasNoCorte-- > 0)) {
+					idsEscolhidos[escolhidos] = ids[i];
+					contagensEscolhidas[escolhidos++] = contagem;
+				}
+			}
+			return new Candidatos(idsEscolhidos, contagensEscolhidas);
+		}
+	}
+
+	synchronized Candidatos amigosDeAmigos(int usuarioId, int maximo) {
+		Map<Integer, Integer> contagem = amigosDeAmigos.get(usuarioId);
+		if (contagem == null) {
+			contagem = calcularAmigosDeAmigos(usuarioId);
+			amigosDeAmigos.put(usuarioId, contagem);
+		}
+		// O cache conta também os amigos (a contagem deles muda junto); aqui eles saem
+		ConjuntoIds meusAmigos = amigos.get(usuarioId);
+		ConjuntoIds enviados = pedidosEnviados.get(usuarioId);
+		ConjuntoIds recebidos = pedidosRecebidos.get(usuarioId);
+		int[] ids = new int[contagem.size()];
+		int[] emComum = new int[contagem.size()];
+		int total = 0;
+		int maiorContagem = 0;
+		for (Map.Entry<Integer, Integer> candidato : contagem.entrySet()) {
+			int id = candidato.getKey();
+			if (!contem(meusAmigos, id) && !contem(enviados, id) && !contem(recebidos, id)) {
+				ids[total] = id;
+				emComum[total] = candidato.getValue();
+				maiorContagem = Math.max(maiorContagem, emComum[total]);
+				total++;
+			}
+		}
+		if (total <= maximo) {
+			return new Candidatos(Arrays.copyOf(ids, total), Arrays.copyOf(emComum, total));
+		}
+		return new Candidatos(ids, emComum).maiores(total, maximo, maiorContagem);
+	}
+
+	private Map<Integer, Integer> calcularAmigosDeAmigos(int usuarioId) {
+		Map<Integer, Integer> contagem = new HashMap<>();
+		ConjuntoIds meusAmigos = amigos.get(usuarioId);
+		if (meusAmigos != null) {
+			meusAmigos.paraCada(amigo -> amigos.get(amigo).paraCada(candidato -> {
+				if (candidato != usuarioId) {
+					contagem.merge(candidato, 1, Integer::sum);
+				}
+			}));
+		}
+		return contagem;
+	}
+
+	// Chamado com a aresta a-b presente no grafo; delta +1 ao ligar, -1 antes de desligar
+	private void ajustarAmigosDeAmigos(int a, int b, int delta) {
+		ConjuntoIds amigosA = amigos.get(a);
+		ConjuntoIds amigosB = amigos.get(b);
+		Map<Integer, Integer> contagemA = amigosDeAmigos.get(a);
+		Map<Integer, Integer> contagemB = amigosDeAmigos.get(b);
+		amigosB.paraCada(y -> {
+			if (y != a) {
+				contar(contagemA, y, delta);
+				contar(amigosDeAmigos.get(y), a, delta);
+			}
+		});
+		amigosA.paraCada(x -> {
+			if (x != b) {
+				contar(contagemB, x, delta);
+				contar(amigosDeAmigos.get(x), b, delta);
+			}
+		});
+	}
+
+	private static void contar(Map<Integer, Integer> contagem, int candidato, int delta) {
+		if (contagem != null) {
+			contagem.compute(candidato, (id, atual) -> {
+				int nova = (atual == null ? 0 : atual) + delta;
+				return nova > 0 ? nova : null;
+			});
+		}
+	}
+
+	private boolean retirarPedido(int remetente, int destino) {
+		ConjuntoIds enviados = pedidosEnviados.get(remetente);
+		if (enviados == null || !enviados.remover(destino)) {
+			return false;
+		}
+		pedidosRecebidos.get(destino).remover(remetente);
+		return true;
+	}
+
+	private static boolean contem(Map<Integer, ConjuntoIds> mapa, int usuarioId, int outroId) {
+		return contem(mapa.get(usuarioId), outroId);
+	}
+
+	private static boolean contem(ConjuntoIds ids, int outroId) {
+		return ids != null && ids.contem(outroId);
+	}
+
+	private static ConjuntoIds conjunto(Map<Integer, ConjuntoIds> mapa, int usuarioId) {
+		return mapa.computeIfAbsent(usuarioId, k -> new ConjuntoIds());
+	}
+
+	private static int[] paraArray(Map<Integer, ConjuntoIds> mapa, int usuarioId) {
+		ConjuntoIds ids = mapa.get(usuarioId);
+		return ids == null ? NENHUM : ids.paraArray();
+	}
+}
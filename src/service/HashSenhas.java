@@ -0,0 +1,162 @@
+/*
+ * HashSenhas
+ *
+ * Descrição geral:
+ * - Geração e conferência dos hashes de senha do UsuarioService, com custo configurável
+ *   e versão gravada no próprio hash.
+ * - Formato atual: "v2$<iterações>$<sal + digest SHA-256 em Base64>", gerado pelo
+ *   StandardStringDigester do jasypt. Hashes sem prefixo são os antigos do
+ *   BasicPasswordEncryptor (MD5, 1000 iterações) e continuam sendo aceitos.
+ * - As conferências e gerações rodam em um executor próprio e limitado (uma thread por
+ *   núcleo), para não travar a thread do JavaFX nem disparar uma thread por login.
+ * - A importação em massa usa um segundo executor, com um núcleo a menos (mínimo 1), para um
+ *   CSV grande não ocupar todas as threads de hash e deixar os logins esperando na fila.
+ *
+ * Métodos e funcionalidades:
+ *
+ * gerar(String senha)
+ * - Hash no formato atual, com o custo configurado.
+ *
+ * conferir(String senha, String hash)
+ * - Compara a senha com um hash de qualquer versão.
+ *
+ * precisaAtualizar(String hash)
+ * - true para hashes antigos ou com outro número de iterações; o UsuarioService troca o
+ *   hash depois de um login bem-sucedido, quando tem a senha em mãos.
+ *
+ * executar(Supplier<T> tarefa)
+ * - Roda a tarefa no executor de hashes. Com a fila cheia, o futuro falha com
+ *   RejectedExecutionException em vez de acumular trabalho sem limite.
+ *
+ * executarEmLote(Supplier<T> tarefa), getThreadsLote()
+ * - O mesmo, no executor da importação, e quantas threads ele tem (em quantas partes vale
+ *   dividir um bloco).
+ *
+ * setIteracoes(int iteracoes)
+ * - Custo dos novos hashes. O padrão pode ser trocado pela propriedade de sistema
+ *   "evenmorefun.senha.iteracoes".
+ */
+
+package service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.jasypt.digest.StandardStringDigester;
+import org.jasypt.util.password.BasicPasswordEncryptor;
+
+final class HashSenhas {
+
+	private static final String PREFIXO = "v2$";
+	private static final int ITERACOES_PADRAO = 50_000;
+	private static final int TAREFAS_NA_FILA = 1024;
+
+	private static final BasicPasswordEncryptor legado = new BasicPasswordEncryptor();
+
+	private volatile int iteracoes = Integer.getInteger("evenmorefun.senha.iteracoes", ITERACOES_PADRAO);
+	private final Map<Integer, StandardStringDigester> digestores = new ConcurrentHashMap<>();
+	private final ThreadPoolExecutor executor;
+	private final ThreadPoolExecutor executorLote;
+
+	// Hash de uma senha qualquer, conferido quando o e-mail não existe, para o tempo de
+	// resposta não revelar quais e-mails estão cadastrados
+	private volatile String hashFicticio;
+
+	HashSenhas() {
+		int nucleos = Runtime.getRuntime().availableProcessors();
+		executor = criarExecutor(nucleos, "hash-senhas-");
+		executorLote = criarExecutor(Math.max(1, nucleos - 1), "hash-importacao-");
+	}
+
+	private static ThreadPoolExecutor criarExecutor(int threads, String prefixo) {
+		AtomicInteger contador = new AtomicInteger();
+		ThreadPoolExecutor novo = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(TAREFAS_NA_FILA), tarefa -> {
+					Thread thread = new Thread(tarefa, prefixo + contador.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		novo.allowCoreThreadTimeOut(true);
+		return novo;
+	}
+
+	<T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+		return CompletableFuture.supplyAsync(tarefa, executor);
+	}
+
+	<T> CompletableFuture<T> executarEmLote(Supplier<T> tarefa) {
+		return CompletableFuture.supplyAsync(tarefa, executorLote);
+	}
+
+	int getThreadsLote() {
+		return executorLote.getMaximumPoolSize();
+	}
+
+	String gerar(String senha) {
+		int custo = iteracoes;
+		return PREFIXO + custo + "$" + digestor(custo).digest(senha);
+	}
+
+	boolean conferir(String senha, String hash) {
+		if (senha == null || hash == null) {
+			return false;
+		}
+		if (!hash.startsWith(PREFIXO)) {
+			return legado.checkPassword(senha, hash);
+		}
+		int separador = hash.indexOf('$', PREFIXO.length());
+		if (separador < 0) {
+			return false;
+		}
+		int custo;
+		try {
+			custo = Integer.parseInt(hash.substring(PREFIXO.length(), separador));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		return digestor(custo).matches(senha, hash.substring(separador + 1));
+	}
+
+	boolean precisaAtualizar(String hash) {
+		return hash == null || !hash.startsWith(PREFIXO + iteracoes + "$");
+	}
+
+	// Mesmo custo de uma conferência real, para e-mails inexistentes
+	void conferirFicticio(String senha) {
+		String hash = hashFicticio;
+		if (hash == null || precisaAtualizar(hash)) {
+			hash = gerar("senha-ficticia");
+			hashFicticio = hash;
+		}
+		conferir(senha, hash);
+	}
+
+	void setIteracoes(int iteracoes) {
+		if (iteracoes < 1) {
+			throw new IllegalArgumentException("Número de iterações inválido: " + iteracoes);
+		}
+		this.iteracoes = iteracoes;
+	}
+
+	int getIteracoes() {
+		return iteracoes;
+	}
+
+	// StandardStringDigester é seguro para várias threads depois de inicializado
+	private StandardStringDigester digestor(int custo) {
+		return digestores.computeIfAbsent(custo, c -> {
+			StandardStringDigester digestor = new StandardStringDigester();
+			digestor.setAlgorithm("SHA-256");
+			digestor.setIterations(c);
+			digestor.setSaltSizeBytes(16);
+			digestor.initialize();
+			return digestor;
+		});
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * ImportadorUsuarios
+ *
+ * Descrição geral:
+ * - Importação de usuários em massa a partir de um CSV (turmas inteiras de uma escola),
+ *   usada por UsuarioService.importarUsuarios().
+ * - O arquivo é lido em blocos de TAMANHO_BLOCO linhas, sem carregar tudo na memória.
+ *   Cada bloco é validado e tem as senhas criptografadas em paralelo (uma parte por thread
+ *   do executor de importação do HashSenhas, separado do usado nos logins) e depois é
+ *   incluído de uma vez pelo UsuarioService. Enquanto um bloco é gravado, o seguinte já está
+ *   sendo validado.
+ *
+ * Formato:
+ * - Primeira linha com os nomes das colunas, em qualquer ordem, separadas por "," ou ";".
+ *   Obrigatórias: nome, username, email, senha. Opcionais: sobrenome, cpf, telefone,
+ *   dataNascimento (aaaa-mm-dd ou dd/mm/aaaa) e genero.
+ * - Campos com separador ou aspas vão entre aspas, com aspas internas dobradas.
+ *
+ * Linhas recusadas:
+ * - Campos obrigatórios vazios, e-mail, senha, CPF, telefone ou data inválidos (mesmas regras
+ *   do cadastro pela tela), e-mail ou username repetidos no arquivo ou já cadastrados. Cada
+ *   uma vira um erro no RelatorioImportacao, e as demais seguem.
+ */
+
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import model.Usuario;
+
+class ImportadorUsuarios {
+
+	private static final int TAMANHO_BLOCO = 1000;
+	private static final String FOTO_PADRAO = "/resources/profile/iconFotoPerfilDefault.png";
+	private static final DateTimeFormatter DATA_BRASILEIRA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+	private static final String NOME = "nome";
+	private static final String SOBRENOME = "sobrenome";
+	private static final String USERNAME = "username";
+	private static final String EMAIL = "email";
+	private static final String SENHA = "senha";
+	private static final String CPF = "cpf";
+	private static final String TELEFONE = "telefone";
+	private static final String NASCIMENTO = "datanascimento";
+	private static final String GENERO = "genero";
+	private static final String[] OBRIGATORIAS = { NOME, USERNAME, EMAIL, SENHA };
+
+	private final UsuarioService servico;
+	private final HashSenhas hashSenhas;
+
+	private final List<RelatorioImportacao.Erro> erros = new ArrayList<>();
+	private final Set<String> emailsNoArquivo = new HashSet<>();
+	private final Set<String> usernamesNoArquivo = new HashSet<>();
+	private Map<String, Integer> colunas;
+	private char separador;
+	private int numeroLinha;
+	private int linhasLidas;
+	private int importados;
+
+	// Uma linha de dados e o que foi feito dela
+	private static final class Linha {
+		private final int numero;
+		private final List<String> campos;
+		private Usuario usuario;
+		private String erro;
+
+		private Linha(int numero, List<String> campos) {
+			this.numero = numero;
+			this.campos = campos;
+		}
+	}
+
+	ImportadorUsuarios(UsuarioService servico, HashSenhas hashSenhas) {
+		this.servico = servico;
+		this.hashSenhas = hashSenhas;
+	}
+
+	RelatorioImportacao importar(Reader entrada) throws IOException {
+		long inicio = System.nanoTime();
+		BufferedReader leitor = entrada instanceof BufferedReader br ? br : new BufferedReader(entrada, 1 << 16);
+		lerCabecalho(leitor);
+
+		CompletableFuture<List<Linha>> emAndamento = null;
+		while (true) {
+			List<Linha> bloco = lerBloco(leitor);
+			CompletableFuture<List<Linha>> proximo = bloco.isEmpty() ? null : preparar(bloco);
+			if (emAndamento != null) {
+				gravar(aguardar(emAndamento));
+			}
+			if (proximo == null) {
+				break;
+			}
+			emAndamento = proximo;
+		}
+
+		erros.sort(Comparator.comparingInt(RelatorioImportacao.Erro::getLinha));
+		return new RelatorioImportacao(linhasLidas, importados, erros, System.nanoTime() - inicio);
+	}
+
+	private void lerCabecalho(BufferedReader leitor) throws IOException {
+		String cabecalho = leitor.readLine();
+		numeroLinha = 1;
+		if (cabecalho == null) {
+			throw new IllegalArgumentException("Arquivo de importação vazio");
+		}
+		if (!cabecalho.isEmpty() && cabecalho.charAt(0) == '\uFEFF') {
+			cabecalho = cabecalho.substring(1);
+		}
+		separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+		colunas = new HashMap<>();
+		List<String> nomes = dividir(cabecalho);
+		for (int i = 0; i < nomes.size(); i++) {
+			colunas.putIfAbsent(normalizarColuna(nomes.get(i)), i);
+		}
+		for (String obrigatoria : OBRIGATORIAS) {
+			if (!colunas.containsKey(obrigatoria)) {
+				throw new IllegalArgumentException("Coluna obrigatória ausente no cabeçalho: " + obrigatoria);
+			}
+		}
+	}
+
+	// Lê até TAMANHO_BLOCO linhas; repetições de e-mail/username no próprio arquivo já saem
+	// daqui como erro, antes de gastar um hash com elas
+	private List<Linha> lerBloco(BufferedReader leitor) throws IOException {
+		List<Linha> bloco = new ArrayList<>(TAMANHO_BLOCO);
+		String texto;
+		while (bloco.size() < TAMANHO_BLOCO && (texto = leitor.readLine()) != null) {
+			numeroLinha++;
+			if (texto.isBlank()) {
+				continue;
+			}
+			linhasLidas++;
+			Linha linha = new Linha(numeroLinha, dividir(texto));
+			String email = IndiceUsuarios.normalizar(campo(linha, EMAIL));
+			String username = IndiceUsuarios.normalizar(campo(linha, USERNAME));
+			if (email != null && !email.isEmpty() && !emailsNoArquivo.add(email)) {
+				linha.erro = "E-mail repetido no arquivo";
+			} else if (username != null && !username.isEmpty() && !usernamesNoArquivo.add(username)) {
+				linha.erro = "Username repetido no arquivo";
+			}
+			bloco.add(linha);
+		}
+		return bloco;
+	}
+
+	// Valida e criptografa as senhas do bloco em paralelo, uma parte por thread de importação
+	private CompletableFuture<List<Linha>> preparar(List<Linha> bloco) {
+		int partes = Math.min(hashSenhas.getThreadsLote(), bloco.size());
+		int tamanhoParte = (bloco.size() + partes - 1) / partes;
+		List<CompletableFuture<Void>> tarefas = new ArrayList<>(partes);
+		for (int inicio = 0; inicio < bloco.size(); inicio += tamanhoParte) {
+			List<Linha> parte = bloco.subList(inicio, Math.min(inicio + tamanhoParte, bloco.size()));
+			tarefas.add(hashSenhas.executarEmLote(() -> {
+				for (Linha linha : parte) {
+					if (linha.erro == null) {
+						validar(linha);
+					}
+				}
+				return null;
+			}));
+		}
+		return CompletableFuture.allOf(tarefas.toArray(new CompletableFuture<?>[0])).thenApply(v -> bloco);
+	}
+
+	private void validar(Linha linha) {
+		for (String obrigatoria : OBRIGATORIAS) {
+			String valor = campo(linha, obrigatoria);
+			if (valor == null || valor.isEmpty()) {
+				linha.erro = "Campo obrigatório vazio: " + obrigatoria;
+				return;
+			}
+		}
+		String email = campo(linha, EMAIL);
+		String username = campo(linha, USERNAME);
+		String senha = campo(linha, SENHA);
+		String cpf = campo(linha, CPF);
+		String telefone = campo(linha, TELEFONE);
+		String genero = campo(linha, GENERO);
+		String textoNascimento = campo(linha, NASCIMENTO);
+
+		if (!servico.validarEmail(email)) {
+			linha.erro = "E-mail inválido: " + email;
+			return;
+		}
+		if (!servico.isEmailDisponivel(email, null)) {
+			linha.erro = "E-mail já cadastrado: " + email;
+			return;
+		}
+		if (!servico.isUsernameDisponivel(username, null)) {
+			linha.erro = "Username já cadastrado: " + username;
+			return;
+		}
+		if (!servico.validarSenha(senha)) {
+			linha.erro = "Senha fraca (mínimo 8 caracteres, com maiúscula, minúscula, número e especial)";
+			return;
+		}
+		if (cpf != null && !cpf.isEmpty() && !servico.validarCPF(cpf)) {
+			linha.erro = "CPF inválido: " + cpf;
+			return;
+		}
+		if (telefone != null && !telefone.isEmpty() && !servico.validarTelefone(telefone)) {
+			linha.erro = "Telefone inválido: " + telefone;
+			return;
+		}
+		LocalDate nascimento = null;
+		if (textoNascimento != null && !textoNascimento.isEmpty()) {
+			nascimento = lerData(textoNascimento);
+			if (nascimento == null || !servico.validarDataNascimento(nascimento)) {
+				linha.erro = "Data de nascimento inválida ou menor de 14 anos: " + textoNascimento;
+				return;
+			}
+		}
+
+		// Sobrenome é opcional no arquivo, mas o Usuario não aceita null
+		String sobrenome = campo(linha, SOBRENOME);
+		Usuario usuario = new Usuario(campo(linha, NOME), sobrenome == null ? "" : sobrenome, username, email,
+				hashSenhas.gerar(senha));
+		usuario.setCpf(vazioComoNulo(cpf));
+		usuario.setTelefone(vazioComoNulo(telefone));
+		usuario.setGenero(vazioComoNulo(genero));
+		usuario.setDataNascimento(nascimento);
+		usuario.setCaminhoFotoPerfil(FOTO_PADRAO);
+		linha.usuario = usuario;
+	}
+
+	private void gravar(List<Linha> bloco) {
+		List<Linha> validas = new ArrayList<>(bloco.size());
+		List<Usuario> usuarios = new ArrayList<>(bloco.size());
+		for (Linha linha : bloco) {
+			if (linha.erro != null) {
+				erros.add(new RelatorioImportacao.Erro(linha.numero, linha.erro));
+			} else {
+				validas.add(linha);
+				usuarios.add(linha.usuario);
+			}
+		}
+		boolean[] incluidos = servico.incluirLote(usuarios);
+		for (int i = 0; i < incluidos.length; i++) {
+			if (incluidos[i]) {
+				importados++;
+			} else {
+				// Cadastrado por outra via entre a validação e a gravação
+				erros.add(new RelatorioImportacao.Erro(validas.get(i).numero, "E-mail ou username já cadastrado"));
+			}
+		}
+	}
+
+	private static <T> T aguardar(CompletableFuture<T> futuro) {
+		try {
+			return futuro.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+
+	private String campo(Linha linha, String coluna) {
+		Integer indice = colunas.get(coluna);
+		if (indice == null || indice >= linha.campos.size()) {
+			return null;
+		}
+		return linha.campos.get(indice).trim();
+	}
+
+	private static String vazioComoNulo(String valor) {
+		return valor == null || valor.isEmpty() ? null : valor;
+	}
+
+	private static LocalDate lerData(String texto) {
+		try {
+			return texto.indexOf('/') >= 0 ? LocalDate.parse(texto, DATA_BRASILEIRA) : LocalDate.parse(texto);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private static String normalizarColuna(String nome) {
+		StringBuilder normalizado = new StringBuilder(nome.length());
+		for (char c : nome.trim().toLowerCase(Locale.ROOT).toCharArray()) {
+			if (Character.isLetter(c)) {
+				normalizado.append(c == 'ê' ? 'e' : c);
+			}
+		}
+		return normalizado.toString();
+	}
+
+	// Divide uma linha CSV respeitando campos entre aspas ("" dentro das aspas vira ")
+	private List<String> dividir(String texto) {
+		List<String> campos = new ArrayList<>();
+		StringBuilder atual = new StringBuilder();
+		boolean entreAspas = false;
+		for (int i = 0; i < texto.length(); i++) {
+			char c = texto.charAt(i);
+			if (entreAspas) {
+				if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+					atual.append('"');
+					i++;
+				} else if (c == '"') {
+					entreAspas = false;
+				} else {
+					atual.append(c);
+				}
+			} else if (c == '"') {
+				entreAspas = true;
+			} else if (c == separador) {
+				campos.add(atual.toString());
+				atual.setLength(0);
+			} else {
+				atual.append(c);
+			}
+		}
+		campos.add(atual.toString());
+		return campos;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * IndiceAcessoEventos
+ *
+ * Descrição geral:
+ * - Índice de controle de acesso usado pelo EventoService para decidir, em O(1),
+ *   se um usuário pode ver um evento privado.
+ * - Quem organiza ou participa vem do IndiceParticipacao e do próprio Evento; aqui
+ *   fica apenas o que é derivado para a visibilidade.
+ *
+ * Estruturas principais:
+ * - privados: ids dos eventos privados.
+ * - privadosVisiveisPorUsuario: usuarioId -> ids dos eventos privados que ele pode ver
+ *   (organiza ou participa).
+ * - publicos: quantidade de eventos públicos indexados, mantida a cada indexação e remoção.
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Evento anterior, Evento novo), remover(Evento evento)
+ * - Recalculam a visibilidade do evento.
+ *
+ * adicionarParticipante(), removerParticipante(), trocarOrganizador()
+ * - Atualizações incrementais feitas pelo EventoService.
+ *
+ * isVisivel(int eventoId, int usuarioId), isPrivado(int eventoId)
+ * - Consultas de visibilidade sem percorrer a lista de participantes.
+ *
+ * contarVisiveis(Integer usuarioId), privadosVisiveis(int usuarioId)
+ * - Quantos eventos o usuário vê (públicos + privados dele; null conta só os públicos) e
+ *   quais privados são esses, em O(1) e O(privados do usuário). É o total do feed sem termo,
+ *   sem percorrer o catálogo.
+ */
+
+package service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Evento;
+
+class IndiceAcessoEventos {
+
+	private final Set<Integer> privados = ConcurrentHashMap.newKeySet();
+	private final Map<Integer, Set<Integer>> privadosVisiveisPorUsuario = new ConcurrentHashMap<>();
+	private final AtomicInteger publicos = new AtomicInteger();
+
+	// anterior == null: evento ainda não indexado. Senão a classe anterior (público ou privado)
+	// é a registrada em "privados", que só muda aqui e em remover()
+	void indexar(Evento anterior, Evento novo) {
+		boolean eraPublico = anterior != null && !privados.contains(novo.getId());
+		if (anterior != null) {
+			retirarVisibilidade(anterior);
+		}
+		if (novo.isPrivado()) {
+			privados.add(novo.getId());
+			concederVisibilidade(novo);
+			if (eraPublico) {
+				publicos.decrementAndGet();
+			}
+		} else {
+			privados.remove(novo.getId());
+			if (!eraPublico) {
+				publicos.incrementAndGet();
+			}
+		}
+	}
+
+	void remover(Evento evento) {
+		retirarVisibilidade(evento);
+		if (!privados.remove(evento.getId())) {
+			publicos.decrementAndGet();
+		}
+	}
+
+	void adicionarParticipante(int eventoId, int usuarioId) {
+		if (privados.contains(eventoId)) {
+			visiveis(usuarioId).add(eventoId);
+		}
+	}
+
+	void removerParticipante(int eventoId, int usuarioId, boolean isOrganizador) {
+		if (privados.contains(eventoId) && !isOrganizador) {
+			visiveis(usuarioId).remove(eventoId);
+		}
+	}
+
+	void trocarOrganizador(int eventoId, Integer anterior, boolean anteriorParticipa, int novo) {
+		if (!privados.contains(eventoId)) {
+			return;
+		}
+		if (anterior != null && anterior != novo && !anteriorParticipa) {
+			visiveis(anterior).remove(eventoId);
+		}
+		visiveis(novo).add(eventoId);
+	}
+
+	boolean isPrivado(int eventoId) {
+		return privados.contains(eventoId);
+	}
+
+	boolean isVisivel(int eventoId, int usuarioId) {
+		if (!privados.contains(eventoId)) {
+			return true;
+		}
+		return privadosVisiveisPorUsuario.getOrDefault(usuarioId, Collections.emptySet()).contains(eventoId);
+	}
+
+	int contarVisiveis(Integer usuarioId) {
+		int total = publicos.get();
+		if (usuarioId != null) {
+			total += privadosVisiveisPorUsuario.getOrDefault(usuarioId, Collections.emptySet()).size();
+		}
+		return total;
+	}
+
+	Set<Integer> privadosVisiveis(int usuarioId) {
+		return Collections.unmodifiableSet(privadosVisiveisPorUsuario.getOrDefault(usuarioId, Collections.emptySet()));
+	}
+
+	private Set<Integer> visiveis(int usuarioId) {
+		return privadosVisiveisPorUsuario.computeIfAbsent(usuarioId, k -> ConcurrentHashMap.newKeySet());
+	}
+
+	private void concederVisibilidade(Evento evento) {
+		if (evento.getOrganizador() != null) {
+			visiveis(evento.getOrganizador().getId()).add(evento.getId());
+		}
+		for (int usuarioId : evento.getIdsParticipantes()) {
+			visiveis(usuarioId).add(evento.getId());
+		}
+	}
+
+	private void retirarVisibilidade(Evento evento) {
+		if (!privados.contains(evento.getId())) {
+			return;
+		}
+		if (evento.getOrganizador() != null) {
+			visiveis(evento.getOrganizador().getId()).remove(evento.getId());
+		}
+		for (int usuarioId : evento.getIdsParticipantes()) {
+			visiveis(usuarioId).remove(evento.getId());
+		}
+	}
+}
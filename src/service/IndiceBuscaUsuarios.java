@@ -0,0 +1,497 @@
+/*
+ * IndiceBuscaUsuarios
+ *
+ * Descrição geral:
+ * - Índice de busca de usuários por prefixo, usado na busca de amigos enquanto se digita e no
+ *   autocompletar de @menções em comentários e no chat ao vivo.
+ * - Chaves normalizadas (minúsculas e sem acento): o username e o nome completo a partir de
+ *   cada palavra ("ana maria silva", "maria silva", "silva"), então "silv" acha Ana Maria Silva.
+ * - Tolera erros de digitação: se o prefixo exato não der resultados suficientes, procura
+ *   chaves a até 1 edição (consultas de 3 a 5 letras) ou 2 edições (6 letras ou mais).
+ *
+ * Estruturas principais:
+ * - Trie compactada (radix): cada nó guarda o trecho da aresta que leva até ele, os filhos
+ *   ordenados pela primeira letra (busca binária) e os usuários cujas chaves terminam ali.
+ *   Sequências sem ramificação ocupam um nó só.
+ * - chavesPorId: chaves com que cada usuário foi indexado, para reindexar depois de uma troca
+ *   de nome ou username (mapa concorrente, lido sem trava por casaPrefixo).
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Usuario usuario), carregar(Collection<Usuario> usuarios)
+ * - (Re)indexa um usuário; reconstrói o índice. Chamados pelo IndiceUsuarios, junto com os
+ *   índices por id, e-mail e username.
+ *
+ * carregarEmSegundoPlano(Collection<Usuario> usuarios)
+ * - Carga pela Persistencia, fora da thread que abre a aplicação (como o índice de texto dos
+ *   eventos); buscas e reindexações feitas antes do fim esperam por ela.
+ *
+ * buscar(String consulta, int limite)
+ * - Até limite usuários cujas chaves começam pela consulta (ou quase, com erros de digitação),
+ *   com a distância de edição e se casou pelo username. A ordenação final (amizade, eventos em
+ *   comum) fica com o UsuarioService.
+ *
+ * casaPrefixo(int usuarioId, String chave)
+ * - Se alguma chave do usuário começa pela consulta (já normalizada); usado para conferir os amigos de quem
+ *   busca, que entram no resultado mesmo quando o prefixo é muito comum.
+ *
+ * Técnicas utilizadas:
+ * - Prefixo exato: desce pela consulta e colhe a subárvore em largura (chaves curtas
+ *   primeiro), parando ao atingir o limite.
+ * - Aproximada: Levenshtein sobre a trie, uma linha da tabela por letra percorrida; o ramo é
+ *   abandonado quando o menor valor da linha passa da distância máxima, e a subárvore inteira
+ *   é colhida quando a consulta toda cabe na distância.
+ *
+ * Concorrência:
+ * - Alterações com a trava de escrita; buscas com a de leitura (várias ao mesmo tempo).
+ */
+
+package service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import model.Usuario;
+
+class IndiceBuscaUsuarios {
+
+	private static final char[] SEM_INICIAIS = new char[0];
+	private static final No[] SEM_FILHOS = new No[0];
+	private static final int[] SEM_VALORES = new int[0];
+	private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+	/**
+	 * Usuário encontrado: distância de edição até a consulta (0 = prefixo exato), se casou
+	 * pelo username e se a consulta é a chave inteira.
+	 */
+	static final class Casamento {
+		final int usuarioId;
+		final int distancia;
+		final boolean username;
+		final boolean completo;
+
+		Casamento(int usuarioId, int distancia, boolean username, boolean completo) {
+			this.usuarioId = usuarioId;
+			this.distancia = distancia;
+			this.username = username;
+			this.completo = completo;
+		}
+
+		private boolean melhorQue(Casamento outro) {
+			if (distancia != outro.distancia) {
+				return distancia < outro.distancia;
+			}
+			if (completo != outro.completo) {
+				return completo;
+			}
+			return username && !outro.username;
+		}
+	}
+
+	// Valores dos nós: (usuarioId << 1) | 1 quando a chave é o username
+	private static final class No {
+		private String rotulo;
+		private char[] iniciais = SEM_INICIAIS;
+		private No[] filhos = SEM_FILHOS;
+		private int[] valores = SEM_VALORES;
+		private int quantidade;
+
+		private No(String rotulo) {
+			this.rotulo = rotulo;
+		}
+
+		private int posicao(char letra) {
+			return Arrays.binarySearch(iniciais, letra);
+		}
+	}
+
+	private No raiz = new No("");
+	private final Map<Integer, String[]> chavesPorId = new ConcurrentHashMap<>();
+	private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+	private volatile CountDownLatch carga;
+
+	void indexar(Usuario usuario) {
+		aguardarCarga();
+		String[] chaves = chaves(usuario);
+		trava.writeLock().lock();
+		try {
+			String[] anteriores = chavesPorId.put(usuario.getId(), chaves);
+			if (anteriores != null) {
+				for (int i = 0; i < anteriores.length; i++) {
+					retirar(anteriores[i], valor(usuario.getId(), i == 0));
+				}
+			}
+			inserirChaves(usuario.getId(), chaves);
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Monta o índice em uma thread separada, para a carga de muitos usuários não atrasar a
+	 * abertura da aplicação. Até terminar, buscar() e indexar() esperam.
+	 */
+	void carregarEmSegundoPlano(Collection<Usuario> usuarios) {
+		List<Usuario> copia = new ArrayList<>(usuarios);
+		CountDownLatch pendente = new CountDownLatch(1);
+		carga = pendente;
+		Thread thread = new Thread(() -> {
+			try {
+				carregar(copia);
+			} finally {
+				carga = null;
+				pendente.countDown();
+			}
+		}, "indice-busca-usuarios-carga");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void carregar(Collection<Usuario> usuarios) {
+		trava.writeLock().lock();
+		try {
+			raiz = new No("");
+			chavesPorId.clear();
+			for (Usuario usuario : usuarios) {
+				String[] chaves = chaves(usuario);
+				chavesPorId.put(usuario.getId(), chaves);
+				inserirChaves(usuario.getId(), chaves);
+			}
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	private void aguardarCarga() {
+		CountDownLatch pendente = carga;
+		if (pendente != null) {
+			try {
+				pendente.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	List<Casamento> buscar(String consulta, int limite) {
+		String chave = normalizarConsulta(consulta);
+		if (chave.isEmpty() || limite <= 0) {
+			return new ArrayList<>();
+		}
+		aguardarCarga();
+		Map<Integer, Casamento> encontrados = new LinkedHashMap<>();
+		trava.readLock().lock();
+		try {
+			No no = raiz;
+			int i = 0;
+			boolean completo = true;
+			while (no != null && i < chave.length()) {
+				int pos = no.posicao(chave.charAt(i));
+				No filho = pos < 0 ? null : no.filhos[pos];
+				int comum = filho == null ? 0 : prefixoComum(filho.rotulo, chave, i);
+				if (filho == null || (comum < filho.rotulo.length() && i + comum < chave.length())) {
+					no = null;
+				} else {
+					// Terminar no meio de uma aresta: as chaves da subárvore são todas mais longas
+					completo = comum == filho.rotulo.length();
+					no = filho;
+					i += comum;
+				}
+			}
+			if (no != null) {
+				colher(no, 0, completo, encontrados, limite);
+			}
+			if (encontrados.size() < limite && chave.length() >= 3) {
+				buscarAproximado(chave, chave.length() >= 6 ? 2 : 1, encontrados, limite);
+			}
+		} finally {
+			trava.readLock().unlock();
+		}
+		return new ArrayList<>(encontrados.values());
+	}
+
+	// Lê só o mapa concorrente de chaves, sem a trava da trie
+	boolean casaPrefixo(int usuarioId, String chave) {
+		String[] chaves = chavesPorId.get(usuarioId);
+		if (chaves != null && !chave.isEmpty()) {
+			for (String existente : chaves) {
+				if (existente != null && existente.startsWith(chave)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	// Busca aproximada
+
+	private void buscarAproximado(String chave, int maximo, Map<Integer, Casamento> encontrados, int limite) {
+		int[] inicial = new int[chave.length() + 1];
+		for (int j = 0; j < inicial.length; j++) {
+			inicial[j] = j;
+		}
+		for (No filho : raiz.filhos) {
+			percorrer(filho, inicial, chave, maximo, encontrados, limite);
+			if (encontrados.size() >= limite) {
+				return;
+			}
+		}
+	}
+
+	private void percorrer(No no, int[] anterior, String chave, int maximo, Map<Integer, Casamento> encontrados,
+			int limite) {
+		int[] linha = anterior;
+		for (int c = 0; c < no.rotulo.length(); c++) {
+			linha = proximaLinha(linha, no.rotulo.charAt(c), chave);
+			int distancia = linha[chave.length()];
+			int menor = menor(linha);
+			if (distancia <= maximo && distancia == menor) {
+				// A consulta inteira cabe na distância e descer mais não a reduz: toda a subárvore
+				// casa com ela. Com distância 0 é o prefixo exato, já colhido
+				if (distancia > 0) {
+					colher(no, distancia, false, encontrados, limite);
+				}
+				return;
+			}
+			if (menor > maximo) {
+				return;
+			}
+		}
+		// Chaves que terminam aqui; as mais longas podem ficar mais perto da consulta
+		if (linha[chave.length()] <= maximo) {
+			incluirValores(no, linha[chave.length()], false, encontrados, limite);
+		}
+		for (No filho : no.filhos) {
+			percorrer(filho, linha, chave, maximo, encontrados, limite);
+			if (encontrados.size() >= limite) {
+				return;
+			}
+		}
+	}
+
+	private static int[] proximaLinha(int[] anterior, char letra, String chave) {
+		int[] linha = new int[anterior.length];
+		linha[0] = anterior[0] + 1;
+		for (int j = 1; j < linha.length; j++) {
+			int substituicao = anterior[j - 1] + (chave.charAt(j - 1) == letra ? 0 : 1);
+			linha[j] = Math.min(substituicao, Math.min(anterior[j] + 1, linha[j - 1] + 1));
+		}
+		return linha;
+	}
+
+	private static int menor(int[] linha) {
+		int menor = linha[0];
+		for (int valor : linha) {
+			menor = Math.min(menor, valor);
+		}
+		return menor;
+	}
+
+	// Colhe a subárvore em largura até juntar limite usuários distintos
+	private static void colher(No inicio, int distancia, boolean completo, Map<Integer, Casamento> encontrados,
+			int limite) {
+		ArrayDeque<No> fila = new ArrayDeque<>();
+		fila.add(inicio);
+		boolean primeiro = true;
+		while (!fila.isEmpty() && encontrados.size() < limite) {
+			No no = fila.poll();
+			incluirValores(no, distancia, primeiro && completo, encontrados, limite);
+			primeiro = false;
+			fila.addAll(Arrays.asList(no.filhos));
+		}
+	}
+
+	private static void incluirValores(No no, int distancia, boolean completo, Map<Integer, Casamento> encontrados,
+			int limite) {
+		for (int i = 0; i < no.quantidade && encontrados.size() < limite; i++) {
+			int valor = no.valores[i];
+			Casamento novo = new Casamento(valor >>> 1, distancia, (valor & 1) == 1, completo);
+			Casamento atual = encontrados.get(novo.usuarioId);
+			if (atual == null || novo.melhorQue(atual)) {
+				encontrados.put(novo.usuarioId, novo);
+			}
+		}
+	}
+
+	// Trie
+
+	private void inserirChaves(int usuarioId, String[] chaves) {
+		for (int i = 0; i < chaves.length; i++) {
+			if (chaves[i] != null && !chaves[i].isEmpty()) {
+				inserir(chaves[i], valor(usuarioId, i == 0));
+			}
+		}
+	}
+
+	private void inserir(String chave, int valor) {
+		No no = raiz;
+		int i = 0;
+		while (i < chave.length()) {
+			int pos = no.posicao(chave.charAt(i));
+			if (pos < 0) {
+				No folha = new No(chave.substring(i));
+				adicionarValor(folha, valor);
+				incluirFilho(no, -pos - 1, folha);
+				return;
+			}
+			No filho = no.filhos[pos];
+			int comum = prefixoComum(filho.rotulo, chave, i);
+			if (comum < filho.rotulo.length()) {
+				// Divide a aresta no ponto em que a chave se separa dela
+				No meio = new No(filho.rotulo.substring(0, comum));
+				filho.rotulo = filho.rotulo.substring(comum);
+				meio.iniciais = new char[] { filho.rotulo.charAt(0) };
+				meio.filhos = new No[] { filho };
+				no.filhos[pos] = meio;
+				filho = meio;
+			}
+			no = filho;
+			i += comum;
+		}
+		adicionarValor(no, valor);
+	}
+
+	private void retirar(String chave, int valor) {
+		if (chave == null || chave.isEmpty()) {
+			return;
+		}
+		No pai = null;
+		int posicaoNoPai = -1;
+		No no = raiz;
+		int i = 0;
+		while (i < chave.length()) {
+			int pos = no.posicao(chave.charAt(i));
+			if (pos < 0 || !chave.startsWith(no.filhos[pos].rotulo, i)) {
+				return;
+			}
+			pai = no;
+			posicaoNoPai = pos;
+			no = no.filhos[pos];
+			i += no.rotulo.length();
+		}
+		if (!retirarValor(no, valor)) {
+			return;
+		}
+		// Mantém a trie compactada: nó vazio sai, nó sem usuários com um só filho é fundido a ele
+		if (no.quantidade == 0 && no.filhos.length == 0) {
+			excluirFilho(pai, posicaoNoPai);
+			if (pai != raiz && pai.quantidade == 0 && pai.filhos.length == 1) {
+				fundir(pai);
+			}
+		} else if (no.quantidade == 0 && no.filhos.length == 1) {
+			fundir(no);
+		}
+	}
+
+	private static void fundir(No no) {
+		No unico = no.filhos[0];
+		no.rotulo = no.rotulo + unico.rotulo;
+		no.iniciais = unico.iniciais;
+		no.filhos = unico.filhos;
+		no.valores = unico.valores;
+		no.quantidade = unico.quantidade;
+	}
+
+	private static void incluirFilho(No no, int pos, No filho) {
+		int tamanho = no.filhos.length;
+		char[] iniciais = new char[tamanho + 1];
+		No[] filhos = new No[tamanho + 1];
+		System.arraycopy(no.iniciais, 0, iniciais, 0, pos);
+		System.arraycopy(no.filhos, 0, filhos, 0, pos);
+		iniciais[pos] = filho.rotulo.charAt(0);
+		filhos[pos] = filho;
+		System.arraycopy(no.iniciais, pos, iniciais, pos + 1, tamanho - pos);
+		System.arraycopy(no.filhos, pos, filhos, pos + 1, tamanho - pos);
+		no.iniciais = iniciais;
+		no.filhos = filhos;
+	}
+
+	private static void excluirFilho(No no, int pos) {
+		int tamanho = no.filhos.length;
+		char[] iniciais = new char[tamanho - 1];
+		No[] filhos = new No[tamanho - 1];
+		System.arraycopy(no.iniciais, 0, iniciais, 0, pos);
+		System.arraycopy(no.filhos, 0, filhos, 0, pos);
+		System.arraycopy(no.iniciais, pos + 1, iniciais, pos, tamanho - pos - 1);
+		System.arraycopy(no.filhos, pos + 1, filhos, pos, tamanho - pos - 1);
+		no.iniciais = iniciais.length == 0 ? SEM_INICIAIS : iniciais;
+		no.filhos = filhos.length == 0 ? SEM_FILHOS : filhos;
+	}
+
+	// As chaves de um usuário são distintas entre si, então o valor nunca se repete no nó
+	private static void adicionarValor(No no, int valor) {
+		if (no.quantidade == no.valores.length) {
+			no.valores = Arrays.copyOf(no.valores, Math.max(2, no.quantidade * 2));
+		}
+		no.valores[no.quantidade++] = valor;
+	}
+
+	private static boolean retirarValor(No no, int valor) {
+		for (int i = 0; i < no.quantidade; i++) {
+			if (no.valores[i] == valor) {
+				no.valores[i] = no.valores[--no.quantidade];
+				if (no.quantidade == 0) {
+					no.valores = SEM_VALORES;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Quantas letras do rótulo coincidem com a chave a partir de inicio
+	private static int prefixoComum(String rotulo, String chave, int inicio) {
+		int limite = Math.min(rotulo.length(), chave.length() - inicio);
+		int i = 0;
+		while (i < limite && rotulo.charAt(i) == chave.charAt(inicio + i)) {
+			i++;
+		}
+		return i;
+	}
+
+	// Chaves
+
+	private static int valor(int usuarioId, boolean username) {
+		return (usuarioId << 1) | (username ? 1 : 0);
+	}
+
+	/**
+	 * Chaves do usuário: [0] o username, depois o nome completo a partir de cada palavra.
+	 */
+	static String[] chaves(Usuario usuario) {
+		String username = usuario.getUsername() == null ? null : normalizarConsulta(usuario.getUsername());
+		String nome = usuario.getNome() == null ? "" : usuario.getNome();
+		String sobrenome = usuario.getSobrenome() == null ? "" : usuario.getSobrenome();
+		List<String> palavras = IndiceTextoEventos.tokenizar(nome + " " + sobrenome);
+		String[] chaves = new String[palavras.size() + 1];
+		chaves[0] = username;
+		for (int i = 0; i < palavras.size(); i++) {
+			chaves[i + 1] = String.join(" ", palavras.subList(i, palavras.size()));
+		}
+		return chaves;
+	}
+
+	/**
+	 * Consulta na forma das chaves: sem "@" no início, minúsculas, sem acento e com um espaço
+	 * entre as palavras.
+	 */
+	static String normalizarConsulta(String consulta) {
+		if (consulta == null) {
+			return "";
+		}
+		String texto = consulta.strip();
+		if (texto.startsWith("@")) {
+			texto = texto.substring(1);
+		}
+		return ESPACOS.matcher(IndiceTextoEventos.normalizar(texto).strip()).replaceAll(" ");
+	}
+}
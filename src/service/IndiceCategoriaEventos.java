@@ -0,0 +1,149 @@
+/*
+ * IndiceCategoriaEventos
+ *
+ * Descrição geral:
+ * - Índice de categorias usado pelo EventoService para filtrar por categoria e
+ *   exibir a contagem de eventos de cada categoria (facetas) sem varrer o catálogo.
+ * - As categorias são normalizadas (sem acento, minúsculas), então "Educacao" e
+ *   "Educação" caem no mesmo grupo.
+ *
+ * Estruturas principais:
+ * - membros: categoria normalizada -> conjunto de ids de eventos.
+ * - rotulos: categoria normalizada -> nome exibido (o primeiro cadastrado).
+ * - categoriaPorEvento: eventoId -> categoria normalizada, para reindexar e contar facetas.
+ * - publicosPorCategoria: quantos eventos públicos cada categoria tem, e privados: ids
+ *   indexados como privados. Mantidos a cada indexação, para as facetas do feed sem termo
+ *   (públicos por categoria + os privados que o usuário vê) não percorrerem o catálogo.
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Evento evento), remover(int eventoId)
+ * - Mantêm os conjuntos e contagens atualizados.
+ *
+ * membros(String categoria)
+ * - Ids dos eventos da categoria.
+ *
+ * contagens(), contagensPublicas()
+ * - Quantidade de eventos por categoria (tamanho dos conjuntos) e só dos públicos.
+ *
+ * contar(Collection<Evento> resultado), contarIds(Collection<Integer> ids)
+ * - Facetas de um resultado já calculado, em O(k).
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Evento;
+
+class IndiceCategoriaEventos {
+
+	private final Map<String, Set<Integer>> membros = new ConcurrentHashMap<>();
+	private final Map<String, String> rotulos = new ConcurrentHashMap<>();
+	private final Map<Integer, String> categoriaPorEvento = new ConcurrentHashMap<>();
+	private final Map<String, Integer> publicosPorCategoria = new ConcurrentHashMap<>();
+	private final Set<Integer> privados = ConcurrentHashMap.newKeySet();
+
+	// Chamado de novo quando muda a categoria ou a privacidade do evento
+	void indexar(Evento evento) {
+		String categoria = normalizar(evento.getCategoria());
+		boolean privado = evento.isPrivado();
+		String anterior = categoria == null ? categoriaPorEvento.remove(evento.getId())
+				: categoriaPorEvento.put(evento.getId(), categoria);
+		boolean eraPrivado = privado ? !privados.add(evento.getId()) : privados.remove(evento.getId());
+		if (anterior != null && !anterior.equals(categoria)) {
+			retirar(anterior, evento.getId());
+		}
+		if (anterior != null && !eraPrivado) {
+			somarPublicos(anterior, -1);
+		}
+		if (categoria != null && !privado) {
+			somarPublicos(categoria, 1);
+		}
+		if (categoria != null) {
+			rotulos.putIfAbsent(categoria, evento.getCategoria().trim());
+			// add dentro do compute para não correr com o retirar() da mesma categoria
+			int id = evento.getId();
+			membros.compute(categoria, (k, ids) -> {
+				Set<Integer> conjunto = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+				conjunto.add(id);
+				return conjunto;
+			});
+		}
+	}
+
+	void remover(int eventoId) {
+		String anterior = categoriaPorEvento.remove(eventoId);
+		boolean eraPrivado = privados.remove(eventoId);
+		if (anterior != null) {
+			retirar(anterior, eventoId);
+			if (!eraPrivado) {
+				somarPublicos(anterior, -1);
+			}
+		}
+	}
+
+	Set<Integer> membros(String categoria) {
+		String chave = normalizar(categoria);
+		if (chave == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(membros.getOrDefault(chave, Collections.emptySet()));
+	}
+
+	Map<String, Integer> contagens() {
+		Map<String, Integer> resultado = new TreeMap<>();
+		membros.forEach((categoria, ids) -> resultado.put(rotulos.get(categoria), ids.size()));
+		return resultado;
+	}
+
+	Map<String, Integer> contagensPublicas() {
+		Map<String, Integer> resultado = new TreeMap<>();
+		publicosPorCategoria.forEach((categoria, quantidade) -> resultado.put(rotulos.get(categoria), quantidade));
+		return resultado;
+	}
+
+	Map<String, Integer> contar(Collection<Evento> resultadoAtual) {
+		List<Integer> ids = new ArrayList<>(resultadoAtual.size());
+		for (Evento evento : resultadoAtual) {
+			ids.add(evento.getId());
+		}
+		return contarIds(ids);
+	}
+
+	Map<String, Integer> contarIds(Collection<Integer> ids) {
+		Map<String, Integer> resultado = new TreeMap<>();
+		for (Integer id : ids) {
+			String categoria = categoriaPorEvento.get(id);
+			if (categoria != null) {
+				resultado.merge(rotulos.get(categoria), 1, Integer::sum);
+			}
+		}
+		return resultado;
+	}
+
+	private void retirar(String categoria, int eventoId) {
+		membros.computeIfPresent(categoria, (k, ids) -> {
+			ids.remove(eventoId);
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+
+	private void somarPublicos(String categoria, int delta) {
+		publicosPorCategoria.merge(categoria, delta, (atual, soma) -> atual + soma == 0 ? null : atual + soma);
+	}
+
+	private static String normalizar(String categoria) {
+		if (categoria == null || categoria.isBlank()) {
+			return null;
+		}
+		return IndiceTextoEventos.normalizar(categoria.trim());
+	}
+}
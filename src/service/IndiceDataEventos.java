@@ -0,0 +1,158 @@
+/*
+ * IndiceDataEventos
+ *
+ * Descrição geral:
+ * - Índice ordenado por data usado pelo EventoService para responder listagens
+ *   e consultas por período sem reordenar o catálogo a cada chamada.
+ *
+ * Estruturas principais:
+ * - porData: ConcurrentSkipListMap ordenado por (data, id) apontando para o evento.
+ * - chavePorEvento: guarda a chave com que cada evento foi indexado, para que a
+ *   entrada antiga possa ser removida mesmo quando o evento é alterado no lugar.
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Evento evento)
+ * - Insere o evento ou move sua entrada para a nova data.
+ *
+ * remover(int eventoId)
+ * - Retira o evento do índice.
+ *
+ * proximos(LocalDateTime agora, int limite)
+ * - Retorna os próximos eventos a partir de "agora" (limite <= 0 retorna todos).
+ *
+ * entre(LocalDateTime inicio, LocalDateTime fim)
+ * - Retorna os eventos no intervalo [inicio, fim), em ordem de data.
+ *
+ * doDia(LocalDate dia)
+ * - Retorna os eventos de um dia.
+ *
+ * emOrdem(), emOrdemDecrescente()
+ * - Visões do catálogo inteiro em ordem de data.
+ *
+ * pagina(String cursor, boolean decrescente, LocalDateTime aPartirDe, int tamanho, Predicate<Evento> filtro)
+ * - Próxima página em ordem de data, continuando logo após a chave (data, id) do cursor.
+ *
+ * Técnicas utilizadas:
+ * - Consultas por intervalo com subMap/tailMap: O(log n + k), sem ordenação.
+ */
+
+package service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import model.Evento;
+
+class IndiceDataEventos {
+
+	private final ConcurrentSkipListMap<ChaveData, Evento> porData = new ConcurrentSkipListMap<>();
+	private final Map<Integer, ChaveData> chavePorEvento = new ConcurrentHashMap<>();
+
+	// Chave composta (data, id): eventos na mesma data não se sobrescrevem
+	private static final class ChaveData implements Comparable<ChaveData> {
+		private final LocalDateTime data;
+		private final int id;
+
+		private ChaveData(LocalDateTime data, int id) {
+			this.data = data != null ? data : LocalDateTime.MIN;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(ChaveData outra) {
+			int cmp = data.compareTo(outra.data);
+			return cmp != 0 ? cmp : Integer.compare(id, outra.id);
+		}
+	}
+
+	void indexar(Evento evento) {
+		ChaveData nova = new ChaveData(evento.getData(), evento.getId());
+		ChaveData antiga = chavePorEvento.put(evento.getId(), nova);
+		if (antiga != null) {
+			porData.remove(antiga);
+		}
+		porData.put(nova, evento);
+	}
+
+	void remover(int eventoId) {
+		ChaveData antiga = chavePorEvento.remove(eventoId);
+		if (antiga != null) {
+			porData.remove(antiga);
+		}
+	}
+
+	List<Evento> proximos(LocalDateTime agora, int limite) {
+		Collection<Evento> depois = porData.tailMap(new ChaveData(agora, Integer.MAX_VALUE)).values();
+		List<Evento> resultado = new ArrayList<>();
+		for (Evento evento : depois) {
+			if (limite > 0 && resultado.size() >= limite) {
+				break;
+			}
+			resultado.add(evento);
+		}
+		return resultado;
+	}
+
+	List<Evento> entre(LocalDateTime inicio, LocalDateTime fim) {
+		if (!inicio.isBefore(fim)) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(
+				porData.subMap(new ChaveData(inicio, Integer.MIN_VALUE), new ChaveData(fim, Integer.MIN_VALUE)).values());
+	}
+
+	List<Evento> doDia(LocalDate dia) {
+		return entre(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+	}
+
+	Collection<Evento> emOrdem() {
+		return porData.values();
+	}
+
+	Collection<Evento> emOrdemDecrescente() {
+		return porData.descendingMap().values();
+	}
+
+	Pagina<Evento> pagina(String cursor, boolean decrescente, LocalDateTime aPartirDe, int tamanho,
+			Predicate<Evento> filtro) {
+		String ordem = decrescente ? "data-desc" : "data";
+		NavigableMap<ChaveData, Evento> faixa = decrescente ? porData.descendingMap() : porData;
+		if (aPartirDe != null) {
+			ChaveData limite = new ChaveData(aPartirDe, decrescente ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+			faixa = decrescente ? faixa.headMap(limite, false) : faixa.tailMap(limite, false);
+		}
+		if (cursor != null) {
+			String[] partes = Pagina.decodificarCursor(cursor, ordem);
+			try {
+				faixa = faixa.tailMap(new ChaveData(LocalDateTime.parse(partes[0]), Integer.parseInt(partes[1])), false);
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+			}
+		}
+
+		List<Evento> itens = new ArrayList<>();
+		ChaveData ultima = null;
+		for (Map.Entry<ChaveData, Evento> entrada : faixa.entrySet()) {
+			if (itens.size() >= tamanho) {
+				break;
+			}
+			if (filtro.test(entrada.getValue())) {
+				itens.add(entrada.getValue());
+				ultima = entrada.getKey();
+			}
+		}
+		String proximo = itens.size() == tamanho && ultima != null
+				? Pagina.codificarCursor(ordem, ultima.data.toString(), Integer.toString(ultima.id))
+				: null;
+		return new Pagina<>(itens, proximo);
+	}
+}
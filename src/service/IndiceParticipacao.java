@@ -0,0 +1,136 @@
+/*
+ * IndiceParticipacao
+ *
+ * Descrição geral:
+ * - Índice bidirecional de participação usado pelo EventoService. É a única cópia
+ *   da relação usuário -> eventos; o lado evento -> participantes é o ConjuntoIds
+ *   do próprio Evento, mantido em conjunto pelo serviço.
+ *
+ * Estruturas principais:
+ * - eventosPorParticipante: usuarioId -> ids dos eventos em que participa.
+ * - organizadorPorEvento: eventoId -> id do organizador.
+ * - eventosPorOrganizador: usuarioId -> ids dos eventos que organiza.
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Evento anterior, Evento novo), remover(Evento evento)
+ * - Sincronizam o índice quando um evento é criado, substituído ou removido.
+ *
+ * adicionarParticipante(), removerParticipante(), definirOrganizador()
+ * - Atualizações incrementais.
+ *
+ * eventosDoParticipante(), eventosDoOrganizador()
+ * - Ids dos eventos do usuário, em O(k).
+ *
+ * contarParticipacoes(), contarOrganizados()
+ * - Contadores em O(1).
+ */
+
+package service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Evento;
+
+class IndiceParticipacao {
+
+	private final Map<Integer, Set<Integer>> eventosPorParticipante = new ConcurrentHashMap<>();
+	private final Map<Integer, Integer> organizadorPorEvento = new ConcurrentHashMap<>();
+	private final Map<Integer, Set<Integer>> eventosPorOrganizador = new ConcurrentHashMap<>();
+
+	void indexar(Evento anterior, Evento novo) {
+		if (anterior != null && anterior != novo) {
+			for (int usuarioId : anterior.getIdsParticipantes()) {
+				retirar(eventosPorParticipante, usuarioId, anterior.getId());
+			}
+		}
+		for (int usuarioId : novo.getIdsParticipantes()) {
+			adicionarParticipante(novo.getId(), usuarioId);
+		}
+		if (novo.getOrganizador() != null) {
+			definirOrganizador(novo.getId(), novo.getOrganizador().getId());
+		} else {
+			retirarOrganizador(novo.getId());
+		}
+	}
+
+	void remover(Evento evento) {
+		for (int usuarioId : evento.getIdsParticipantes()) {
+			retirar(eventosPorParticipante, usuarioId, evento.getId());
+		}
+		retirarOrganizador(evento.getId());
+	}
+
+	void adicionarParticipante(int eventoId, int usuarioId) {
+		acrescentar(eventosPorParticipante, usuarioId, eventoId);
+	}
+
+	void removerParticipante(int eventoId, int usuarioId) {
+		retirar(eventosPorParticipante, usuarioId, eventoId);
+	}
+
+	/**
+	 * Define o organizador do evento e retorna o id do organizador anterior (ou
+	 * null).
+	 */
+	Integer definirOrganizador(int eventoId, int usuarioId) {
+		Integer anterior = organizadorPorEvento.put(eventoId, usuarioId);
+		if (anterior != null && anterior != usuarioId) {
+			retirar(eventosPorOrganizador, anterior, eventoId);
+		}
+		acrescentar(eventosPorOrganizador, usuarioId, eventoId);
+		return anterior;
+	}
+
+	Integer organizador(int eventoId) {
+		return organizadorPorEvento.get(eventoId);
+	}
+
+	boolean isOrganizador(int eventoId, int usuarioId) {
+		return Objects.equals(organizadorPorEvento.get(eventoId), usuarioId);
+	}
+
+	Set<Integer> eventosDoParticipante(int usuarioId) {
+		return Collections.unmodifiableSet(eventosPorParticipante.getOrDefault(usuarioId, Collections.emptySet()));
+	}
+
+	Set<Integer> eventosDoOrganizador(int usuarioId) {
+		return Collections.unmodifiableSet(eventosPorOrganizador.getOrDefault(usuarioId, Collections.emptySet()));
+	}
+
+	int contarParticipacoes(int usuarioId) {
+		return eventosPorParticipante.getOrDefault(usuarioId, Collections.emptySet()).size();
+	}
+
+	int contarOrganizados(int usuarioId) {
+		return eventosPorOrganizador.getOrDefault(usuarioId, Collections.emptySet()).size();
+	}
+
+	private void retirarOrganizador(int eventoId) {
+		Integer anterior = organizadorPorEvento.remove(eventoId);
+		if (anterior != null) {
+			retirar(eventosPorOrganizador, anterior, eventoId);
+		}
+	}
+
+	// O add fica dentro do compute: assim ele e o retirar() da mesma chave se serializam, e o
+	// id nunca cai num conjunto que outro evento acabou de esvaziar e tirar do mapa
+	private static void acrescentar(Map<Integer, Set<Integer>> mapa, int usuarioId, int eventoId) {
+		mapa.compute(usuarioId, (k, ids) -> {
+			Set<Integer> conjunto = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+			conjunto.add(eventoId);
+			return conjunto;
+		});
+	}
+
+	private static void retirar(Map<Integer, Set<Integer>> mapa, int usuarioId, int eventoId) {
+		mapa.computeIfPresent(usuarioId, (k, ids) -> {
+			ids.remove(eventoId);
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+}
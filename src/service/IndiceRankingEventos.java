@@ -0,0 +1,210 @@
+/*
+ * IndiceRankingEventos
+ *
+ * Descrição geral:
+ * - Ranking de eventos usado pelo EventoService para as listagens "por curtidas"
+ *   e "em alta", atualizado a cada curtida, descurtida e comentário em vez de
+ *   reordenar o catálogo a cada clique.
+ *
+ * Estruturas principais:
+ * - porCurtidas: ConcurrentSkipListMap ordenado por (curtidas desc, id) -> id do evento.
+ * - porTendencia: ConcurrentSkipListMap ordenado por (pontuação decaída desc, id) -> id.
+ * - chaveCurtidas / chaveTendencia: chave atual de cada evento nos dois mapas, para
+ *   mover a entrada quando a pontuação muda.
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Evento evento), remover(int eventoId)
+ * - Inserem ou retiram o evento dos dois rankings.
+ *
+ * registrarCurtida(), registrarDescurtida(), registrarComentario()
+ * - Atualizações incrementais em O(log n).
+ *
+ * maisCurtidos()
+ * - Ids do ranking por curtidas, do topo para baixo; não há ordenação na consulta.
+ *
+ * pagina(boolean emAlta, String cursor, int tamanho, IntFunction<Evento> resolvedor, Predicate<Evento> filtro)
+ * - Próxima página de um dos rankings, continuando logo após a chave (pontuação, id) do cursor.
+ *
+ * pontuacaoEmAlta(int eventoId, long agora)
+ * - Pontuação "em alta" do evento no instante informado.
+ *
+ * curtidas(int eventoId)
+ * - Curtidas com que o evento está no ranking (-1 se não está), para conferir o ranking
+ *   contra o próprio evento.
+ *
+ * Técnicas utilizadas:
+ * - Decaimento exponencial com meia-vida de 24h: cada interação soma peso * 2^((t - t0) / meiaVida)
+ *   em relação a um instante fixo t0. Como todas as pontuações decaem pelo mesmo fator,
+ *   a ordem não muda com o passar do tempo e nada precisa ser recalculado.
+ * - A pontuação é guardada em escala logarítmica (log-soma-exp) para não estourar o double.
+ * - Pesos: curtida 1, comentário 2. Descurtir retira o peso de uma curtida no instante atual.
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+import model.Evento;
+
+class IndiceRankingEventos {
+
+	private static final long MEIA_VIDA_MILLIS = 24L * 60 * 60 * 1000;
+	private static final double LAMBDA = Math.log(2) / MEIA_VIDA_MILLIS;
+	private static final double PESO_CURTIDA = 1;
+	private static final double PESO_COMENTARIO = 2;
+
+	private final long origem;
+
+	private final ConcurrentSkipListMap<Chave, Integer> porCurtidas = new ConcurrentSkipListMap<>();
+	private final ConcurrentSkipListMap<Chave, Integer> porTendencia = new ConcurrentSkipListMap<>();
+	private final Map<Integer, Chave> chaveCurtidas = new ConcurrentHashMap<>();
+	private final Map<Integer, Chave> chaveTendencia = new ConcurrentHashMap<>();
+
+	// Chave (valor desc, id asc); para a tendência o valor é o log da pontuação
+	private static final class Chave implements Comparable<Chave> {
+		private final double valor;
+		private final int id;
+
+		private Chave(double valor, int id) {
+			this.valor = valor;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Chave outra) {
+			int c = Double.compare(outra.valor, valor);
+			return c != 0 ? c : Integer.compare(id, outra.id);
+		}
+	}
+
+	IndiceRankingEventos() {
+		this(System.currentTimeMillis());
+	}
+
+	IndiceRankingEventos(long origem) {
+		this.origem = origem;
+	}
+
+	synchronized void indexar(Evento evento) {
+		mover(porCurtidas, chaveCurtidas, new Chave(evento.getCurtidas(), evento.getId()));
+		chaveTendencia.computeIfAbsent(evento.getId(), id -> {
+			Chave chave = new Chave(Double.NEGATIVE_INFINITY, id);
+			porTendencia.put(chave, id);
+			return chave;
+		});
+	}
+
+	synchronized void remover(int eventoId) {
+		Chave curtidas = chaveCurtidas.remove(eventoId);
+		if (curtidas != null) {
+			porCurtidas.remove(curtidas);
+		}
+		Chave tendencia = chaveTendencia.remove(eventoId);
+		if (tendencia != null) {
+			porTendencia.remove(tendencia);
+		}
+	}
+
+	synchronized void registrarCurtida(Evento evento, long agora) {
+		if (chaveCurtidas.containsKey(evento.getId())) {
+			mover(porCurtidas, chaveCurtidas, new Chave(evento.getCurtidas(), evento.getId()));
+			somar(evento.getId(), PESO_CURTIDA, agora);
+		}
+	}
+
+	synchronized void registrarDescurtida(Evento evento, long agora) {
+		if (chaveCurtidas.containsKey(evento.getId())) {
+			mover(porCurtidas, chaveCurtidas, new Chave(evento.getCurtidas(), evento.getId()));
+			subtrair(evento.getId(), PESO_CURTIDA, agora);
+		}
+	}
+
+	synchronized void registrarComentario(int eventoId, long agora) {
+		if (chaveTendencia.containsKey(eventoId)) {
+			somar(eventoId, PESO_COMENTARIO, agora);
+		}
+	}
+
+	List<Integer> maisCurtidos() {
+		return new ArrayList<>(porCurtidas.values());
+	}
+
+	Pagina<Evento> pagina(boolean emAlta, String cursor, int tamanho, IntFunction<Evento> resolvedor,
+			Predicate<Evento> filtro) {
+		String ordem = emAlta ? "alta" : "curtidas";
+		NavigableMap<Chave, Integer> faixa = emAlta ? porTendencia : porCurtidas;
+		if (cursor != null) {
+			String[] partes = Pagina.decodificarCursor(cursor, ordem);
+			try {
+				faixa = faixa.tailMap(new Chave(Double.parseDouble(partes[0]), Integer.parseInt(partes[1])), false);
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+			}
+		}
+
+		List<Evento> itens = new ArrayList<>();
+		Chave ultima = null;
+		for (Chave chave : faixa.keySet()) {
+			if (itens.size() >= tamanho) {
+				break;
+			}
+			Evento evento = resolvedor.apply(chave.id);
+			if (evento != null && filtro.test(evento)) {
+				itens.add(evento);
+				ultima = chave;
+			}
+		}
+		String proximo = itens.size() == tamanho && ultima != null
+				? Pagina.codificarCursor(ordem, Double.toString(ultima.valor), Integer.toString(ultima.id))
+				: null;
+		return new Pagina<>(itens, proximo);
+	}
+
+	int curtidas(int eventoId) {
+		Chave chave = chaveCurtidas.get(eventoId);
+		return chave == null ? -1 : (int) chave.valor;
+	}
+
+	double pontuacaoEmAlta(int eventoId, long agora) {
+		Chave chave = chaveTendencia.get(eventoId);
+		if (chave == null) {
+			return 0;
+		}
+		return Math.exp(chave.valor - LAMBDA * (agora - origem));
+	}
+
+	private void somar(int eventoId, double peso, long agora) {
+		Chave atual = chaveTendencia.get(eventoId);
+		double termo = Math.log(peso) + LAMBDA * (agora - origem);
+		double a = Math.max(atual.valor, termo);
+		double b = Math.min(atual.valor, termo);
+		double novo = b == Double.NEGATIVE_INFINITY ? a : a + Math.log1p(Math.exp(b - a));
+		mover(porTendencia, chaveTendencia, new Chave(novo, eventoId));
+	}
+
+	private void subtrair(int eventoId, double peso, long agora) {
+		Chave atual = chaveTendencia.get(eventoId);
+		double termo = Math.log(peso) + LAMBDA * (agora - origem);
+		// Se a pontuação restante for menor que o peso retirado, o evento volta ao fim do ranking
+		double novo = termo >= atual.valor ? Double.NEGATIVE_INFINITY
+				: atual.valor + Math.log1p(-Math.exp(termo - atual.valor));
+		mover(porTendencia, chaveTendencia, new Chave(novo, eventoId));
+	}
+
+	private static void mover(ConcurrentSkipListMap<Chave, Integer> ranking, Map<Integer, Chave> chaves,
+			Chave nova) {
+		Chave antiga = chaves.put(nova.id, nova);
+		if (antiga != null) {
+			ranking.remove(antiga);
+		}
+		ranking.put(nova, nova.id);
+	}
+}
@@ -0,0 +1,279 @@
+/*
+ * IndiceTextoEventos
+ *
+ * Descrição geral:
+ * - Índice invertido usado pelo EventoService na pesquisa de eventos por texto.
+ * - Os campos título, descrição, local, palestrante e categoria são quebrados em
+ *   termos normalizados (minúsculos e sem acento), então "negocios" encontra "Negócios".
+ *
+ * Estruturas principais:
+ * - postings: ConcurrentSkipListMap termo -> (eventoId -> peso). A ordenação por termo
+ *   permite consultas por prefixo com subMap.
+ * - termosPorEvento: termos com que cada evento foi indexado, para atualização e remoção
+ *   incrementais.
+ * - travasTermos: travas por faixa de termo. As travas dos eventos não protegem um termo
+ *   compartilhado por vários eventos, e o compute do ConcurrentSkipListMap não é atômico;
+ *   sem elas um evento podia entrar na lista de um termo que outro acabou de esvaziar e
+ *   tirar do mapa, e sumir da pesquisa.
+ *
+ * Métodos e funcionalidades:
+ *
+ * indexar(Evento evento)
+ * - (Re)indexa o evento; termos que deixaram de existir são retirados.
+ *
+ * remover(int eventoId)
+ * - Retira todos os termos do evento.
+ *
+ * iniciarCarga(), concluirCarga()
+ * - Marcam a montagem inicial feita em segundo plano (ao restaurar os dados salvos).
+ *   Enquanto ela não termina, buscar() espera; indexar() e remover() funcionam normalmente.
+ *
+ * buscar(String consulta)
+ * - Cada palavra da consulta é tratada como prefixo; todas precisam casar (AND).
+ * - Retorna eventoId -> pontuação (soma dos pesos dos campos, termo exato vale o dobro).
+ * - O resultado da última consulta fica guardado até o índice mudar, então as páginas
+ *   seguintes de uma mesma pesquisa não refazem a busca.
+ *
+ * normalizar(String texto), tokenizar(String texto), termosPonderados(Evento evento)
+ * - Remove acentos e converte para minúsculas; quebra em termos; termos do evento com
+ *   os pesos dos campos.
+ *
+ * Técnicas utilizadas:
+ * - Pesos por campo: título 5, categoria 3, palestrante 2, local 2, descrição 1.
+ * - A consulta só percorre as listas de postings dos termos envolvidos.
+ * - normalizar() tira os acentos do Latin-1 por tabela e só recorre ao Normalizer (NFD) quando
+ *   o texto tem outros caracteres.
+ */
+
+package service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import model.Evento;
+
+class IndiceTextoEventos {
+
+	private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+	// À..ÿ sem acento e em minúsculas; "." onde a letra não se decompõe (Æ, Ø, ß, ×...)
+	private static final String LATIN1_SEM_ACENTO = "aaaaaa.ceeeeiiii" + ".nooooo..uuuuy.." + "aaaaaa.ceeeeiiii"
+			+ ".nooooo..uuuuy.y";
+
+	private static final int PESO_TITULO = 5;
+	private static final int PESO_CATEGORIA = 3;
+	private static final int PESO_PALESTRANTE = 2;
+	private static final int PESO_LOCAL = 2;
+	private static final int PESO_DESCRICAO = 1;
+
+	private final ConcurrentSkipListMap<String, Map<Integer, Integer>> postings = new ConcurrentSkipListMap<>();
+	private final Map<Integer, Map<String, Integer>> termosPorEvento = new ConcurrentHashMap<>();
+	private final Object[] travasTermos = new Object[64];
+	private final AtomicLong versao = new AtomicLong();
+	private volatile UltimaBusca ultimaBusca;
+	private volatile CountDownLatch carga;
+
+	{
+		for (int i = 0; i < travasTermos.length; i++) {
+			travasTermos[i] = new Object();
+		}
+	}
+
+	// Resultado imutável da última consulta e a versão do índice em que foi calculado
+	private static final class UltimaBusca {
+		private final List<String> termos;
+		private final long versao;
+		private final Map<Integer, Integer> resultado;
+
+		private UltimaBusca(List<String> termos, long versao, Map<Integer, Integer> resultado) {
+			this.termos = termos;
+			this.versao = versao;
+			this.resultado = resultado;
+		}
+	}
+
+	void indexar(Evento evento) {
+		Map<String, Integer> termos = termosPonderados(evento);
+		int id = evento.getId();
+		Map<String, Integer> anteriores = termosPorEvento.put(id, termos);
+		if (anteriores != null) {
+			for (String termo : anteriores.keySet()) {
+				if (!termos.containsKey(termo)) {
+					retirarPosting(termo, id);
+				}
+			}
+		}
+		for (Map.Entry<String, Integer> termo : termos.entrySet()) {
+			synchronized (trava(termo.getKey())) {
+				postings.computeIfAbsent(termo.getKey(), k -> new ConcurrentHashMap<>()).put(id, termo.getValue());
+			}
+		}
+		// Incrementada depois de atualizar os postings para invalidar a última busca
+		versao.incrementAndGet();
+	}
+
+	void remover(int eventoId) {
+		Map<String, Integer> anteriores = termosPorEvento.remove(eventoId);
+		if (anteriores != null) {
+			for (String termo : anteriores.keySet()) {
+				retirarPosting(termo, eventoId);
+			}
+			versao.incrementAndGet();
+		}
+	}
+
+	void iniciarCarga() {
+		carga = new CountDownLatch(1);
+	}
+
+	void concluirCarga() {
+		CountDownLatch atual = carga;
+		carga = null;
+		if (atual != null) {
+			atual.countDown();
+		}
+	}
+
+	Map<Integer, Integer> buscar(String consulta) {
+		List<String> termos = tokenizar(consulta);
+		if (termos.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		CountDownLatch pendente = carga;
+		if (pendente != null) {
+			try {
+				pendente.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		long versaoAtual = versao.get();
+		UltimaBusca anterior = ultimaBusca;
+		if (anterior != null && anterior.versao == versaoAtual && anterior.termos.equals(termos)) {
+			return anterior.resultado;
+		}
+
+		Map<Integer, Integer> resultado = null;
+		for (String termo : termos) {
+			Map<Integer, Integer> casados = buscarPrefixo(termo);
+			if (resultado == null) {
+				resultado = casados;
+			} else {
+				// AND: mantém apenas os eventos que casaram com todos os termos
+				Map<Integer, Integer> menor = casados.size() < resultado.size() ? casados : resultado;
+				Map<Integer, Integer> maior = menor == casados ? resultado : casados;
+				Map<Integer, Integer> intersecao = new HashMap<>();
+				for (Map.Entry<Integer, Integer> e : menor.entrySet()) {
+					Integer outro = maior.get(e.getKey());
+					if (outro != null) {
+						intersecao.put(e.getKey(), e.getValue() + outro);
+					}
+				}
+				resultado = intersecao;
+			}
+			if (resultado.isEmpty()) {
+				break;
+			}
+		}
+		resultado = Collections.unmodifiableMap(resultado);
+		ultimaBusca = new UltimaBusca(termos, versaoAtual, resultado);
+		return resultado;
+	}
+
+	private Map<Integer, Integer> buscarPrefixo(String prefixo) {
+		Map<Integer, Integer> casados = new HashMap<>();
+		Map<String, Map<Integer, Integer>> faixa = postings.subMap(prefixo, true, prefixo + Character.MAX_VALUE,
+				false);
+		for (Map.Entry<String, Map<Integer, Integer>> termo : faixa.entrySet()) {
+			int multiplicador = termo.getKey().length() == prefixo.length() ? 2 : 1;
+			for (Map.Entry<Integer, Integer> posting : termo.getValue().entrySet()) {
+				casados.merge(posting.getKey(), posting.getValue() * multiplicador, Math::max);
+			}
+		}
+		return casados;
+	}
+
+	private void retirarPosting(String termo, int eventoId) {
+		synchronized (trava(termo)) {
+			Map<Integer, Integer> eventos = postings.get(termo);
+			if (eventos != null) {
+				eventos.remove(eventoId);
+				if (eventos.isEmpty()) {
+					postings.remove(termo);
+				}
+			}
+		}
+	}
+
+	private Object trava(String termo) {
+		return travasTermos[termo.hashCode() & (travasTermos.length - 1)];
+	}
+
+	/**
+	 * Termos do evento com o peso somado dos campos em que aparecem; também usado
+	 * pelo JdbcEventoRepository para gravar a mesma pesquisa no banco.
+	 */
+	static Map<String, Integer> termosPonderados(Evento evento) {
+		Map<String, Integer> termos = new HashMap<>();
+		acumular(termos, evento.getTitulo(), PESO_TITULO);
+		acumular(termos, evento.getCategoria(), PESO_CATEGORIA);
+		acumular(termos, evento.getPalestrante(), PESO_PALESTRANTE);
+		acumular(termos, evento.getLocal(), PESO_LOCAL);
+		acumular(termos, evento.getDescricao(), PESO_DESCRICAO);
+		return termos;
+	}
+
+	private static void acumular(Map<String, Integer> termos, String campo, int peso) {
+		for (String termo : tokenizar(campo)) {
+			termos.merge(termo, peso, Integer::sum);
+		}
+	}
+
+	static String normalizar(String texto) {
+		if (texto == null) {
+			return "";
+		}
+		// Texto só com caracteres Latin-1 (o caso comum em português) dispensa o Normalizer
+		char[] letras = new char[texto.length()];
+		for (int i = 0; i < letras.length; i++) {
+			char letra = texto.charAt(i);
+			if (letra > '\u00FF') {
+				return normalizarUnicode(texto);
+			}
+			char base = letra >= '\u00C0' ? LATIN1_SEM_ACENTO.charAt(letra - '\u00C0') : '.';
+			letras[i] = base != '.' ? base : Character.toLowerCase(letra);
+		}
+		return new String(letras);
+	}
+
+	private static String normalizarUnicode(String texto) {
+		String semAcento = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+				.replaceAll("");
+		return semAcento.toLowerCase(Locale.ROOT);
+	}
+
+	static List<String> tokenizar(String texto) {
+		List<String> termos = new ArrayList<>();
+		String normalizado = normalizar(texto);
+		int inicio = -1;
+		for (int i = 0; i <= normalizado.length(); i++) {
+			boolean letra = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+			if (letra && inicio < 0) {
+				inicio = i;
+			} else if (!letra && inicio >= 0) {
+				termos.add(normalizado.substring(inicio, i));
+				inicio = -1;
+			}
+		}
+		return termos;
+	}
+}
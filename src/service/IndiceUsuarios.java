@@ -0,0 +1,174 @@
+/*
+ * IndiceUsuarios
+ *
+ * Descrição geral:
+ * - Índices do UsuarioService por id, e-mail e username, para login, cadastro, busca de
+ *   amigos e resolução de autores sem percorrer a lista de usuários.
+ * - E-mail e username são comparados sem diferenciar maiúsculas (como o
+ *   equalsIgnoreCase usado antes) e sem espaços nas pontas.
+ *
+ * Estruturas principais:
+ * - porId, porEmail, porUsername: mapas concorrentes para as consultas, que não pegam trava.
+ * - chavesPorId: e-mail e username com que cada usuário foi indexado. As telas alteram o
+ *   Usuario antes de salvar, então é daqui que saem as chaves antigas a retirar.
+ * - busca: IndiceBuscaUsuarios (prefixo e erros de digitação sobre username e nome), mantido
+ *   junto com os demais em toda inclusão, atualização e carga.
+ *
+ * Métodos e funcionalidades:
+ *
+ * registrar(Usuario usuario)
+ * - Indexa um usuário novo se o e-mail e o username estiverem livres; senão não altera nada
+ *   e retorna false. A verificação e a inclusão são atômicas.
+ *
+ * atualizar(Usuario usuario)
+ * - Reindexa um usuário existente depois de alterado (troca de e-mail ou username). Falha,
+ *   sem alterar nada, se a nova chave pertencer a outro usuário.
+ *
+ * carregar(Collection<Usuario> usuarios)
+ * - Reconstrói os índices (carga pela Persistencia). Em dados antigos com e-mail ou username
+ *   repetido, vale o primeiro.
+ *
+ * porId(), porEmail(), porUsername(), isEmailDisponivel(), isUsernameDisponivel()
+ * - Consultas O(1).
+ *
+ * Concorrência:
+ * - As alterações são serializadas pela trava do índice (cadastros e edições são raros); as
+ *   consultas leem os mapas concorrentes direto.
+ */
+
+package service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Usuario;
+
+class IndiceUsuarios {
+
+	private static final int EMAIL = 0;
+	private static final int USERNAME = 1;
+
+	private final Map<Integer, Usuario> porId = new ConcurrentHashMap<>();
+	private final Map<String, Usuario> porEmail = new ConcurrentHashMap<>();
+	private final Map<String, Usuario> porUsername = new ConcurrentHashMap<>();
+	private final Map<Integer, String[]> chavesPorId = new ConcurrentHashMap<>();
+	private final IndiceBuscaUsuarios busca = new IndiceBuscaUsuarios();
+
+	synchronized boolean registrar(Usuario usuario) {
+		String email = normalizar(usuario.getEmail());
+		String username = normalizar(usuario.getUsername());
+		if (porId.containsKey(usuario.getId()) || ocupada(porEmail, email, usuario)
+				|| ocupada(porUsername, username, usuario)) {
+			return false;
+		}
+		incluir(usuario, email, username);
+		return true;
+	}
+
+	synchronized boolean atualizar(Usuario usuario) {
+		String email = normalizar(usuario.getEmail());
+		String username = normalizar(usuario.getUsername());
+		if (ocupada(porEmail, email, usuario) || ocupada(porUsername, username, usuario)) {
+			return false;
+		}
+		String[] anteriores = chavesPorId.get(usuario.getId());
+		if (anteriores != null) {
+			retirar(porEmail, anteriores[EMAIL], usuario.getId());
+			retirar(porUsername, anteriores[USERNAME], usuario.getId());
+		}
+		incluir(usuario, email, username);
+		return true;
+	}
+
+	synchronized void carregar(Collection<Usuario> usuarios) {
+		porId.clear();
+		porEmail.clear();
+		porUsername.clear();
+		chavesPorId.clear();
+		for (Usuario usuario : usuarios) {
+			String email = normalizar(usuario.getEmail());
+			String username = normalizar(usuario.getUsername());
+			porId.put(usuario.getId(), usuario);
+			if (email != null) {
+				porEmail.putIfAbsent(email, usuario);
+			}
+			if (username != null) {
+				porUsername.putIfAbsent(username, usuario);
+			}
+			chavesPorId.put(usuario.getId(), new String[] { email, username });
+		}
+		busca.carregarEmSegundoPlano(usuarios);
+	}
+
+	private void incluir(Usuario usuario, String email, String username) {
+		porId.put(usuario.getId(), usuario);
+		if (email != null) {
+			porEmail.put(email, usuario);
+		}
+		if (username != null) {
+			porUsername.put(username, usuario);
+		}
+		chavesPorId.put(usuario.getId(), new String[] { email, username });
+		busca.indexar(usuario);
+	}
+
+	// A chave pertence a outro usuário (o próprio usuário pode manter a sua)
+	private static boolean ocupada(Map<String, Usuario> indice, String chave, Usuario usuario) {
+		if (chave == null) {
+			return false;
+		}
+		Usuario dono = indice.get(chave);
+		return dono != null && dono.getId() != usuario.getId();
+	}
+
+	private static void retirar(Map<String, Usuario> indice, String chave, int usuarioId) {
+		if (chave != null) {
+			Usuario dono = indice.get(chave);
+			if (dono != null && dono.getId() == usuarioId) {
+				indice.remove(chave);
+			}
+		}
+	}
+
+	Usuario porId(int id) {
+		return porId.get(id);
+	}
+
+	Usuario porEmail(String email) {
+		String chave = normalizar(email);
+		return chave == null ? null : porEmail.get(chave);
+	}
+
+	Usuario porUsername(String username) {
+		String chave = normalizar(username);
+		return chave == null ? null : porUsername.get(chave);
+	}
+
+	boolean isEmailDisponivel(String email, Usuario usuario) {
+		Usuario dono = porEmail(email);
+		return dono == null || (usuario != null && dono.getId() == usuario.getId());
+	}
+
+	boolean isUsernameDisponivel(String username, Usuario usuario) {
+		Usuario dono = porUsername(username);
+		return dono == null || (usuario != null && dono.getId() == usuario.getId());
+	}
+
+	IndiceBuscaUsuarios busca() {
+		return busca;
+	}
+
+	/**
+	 * Visão somente leitura do índice de usernames (chaves em minúsculas).
+	 */
+	Map<String, Usuario> mapaPorUsername() {
+		return Collections.unmodifiableMap(porUsername);
+	}
+
+	static String normalizar(String chave) {
+		return chave == null ? null : chave.trim().toLowerCase(Locale.ROOT);
+	}
+}
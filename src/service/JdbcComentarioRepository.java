@@ -0,0 +1,86 @@
+/*
+ * JdbcComentarioRepository
+ *
+ * Descrição geral:
+ * - ComentarioRepository em banco embutido (H2 em arquivo), usando o PoolConexoes.
+ *
+ * Tabelas e índices:
+ * - comentarios: id gerado pelo banco (ordem de chegada), evento, autor e texto;
+ *   comentarios_evento (evento_id, id) entrega os comentários de um evento já em ordem.
+ */
+
+package service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Comentario;
+import persistencia.PoolConexoes;
+
+public final class JdbcComentarioRepository implements ComentarioRepository {
+
+	private static final String[] ESQUEMA = {
+			"CREATE TABLE IF NOT EXISTS comentarios (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+					+ "evento_id INT NOT NULL, usuario_id INT NOT NULL, texto VARCHAR)",
+			"CREATE INDEX IF NOT EXISTS comentarios_evento ON comentarios (evento_id, id)" };
+
+	private static final String INSERIR = "INSERT INTO comentarios (evento_id, usuario_id, texto) VALUES (?, ?, ?)";
+	private static final String LISTAR = "SELECT usuario_id, texto FROM comentarios WHERE evento_id = ? ORDER BY id";
+	private static final String CONTAR = "SELECT COUNT(*) FROM comentarios WHERE evento_id = ?";
+	private static final String REMOVER = "DELETE FROM comentarios WHERE evento_id = ?";
+
+	private final PoolConexoes pool;
+
+	public JdbcComentarioRepository(PoolConexoes pool) {
+		this.pool = pool;
+		SuporteJdbc.criarEsquema(pool, ESQUEMA);
+	}
+
+	@Override
+	public void adicionar(int eventoId, Comentario comentario) {
+		SuporteJdbc.comConexao(pool, "gravar comentário", conexao -> {
+			PreparedStatement comando = conexao.preparar(INSERIR);
+			comando.setInt(1, eventoId);
+			comando.setInt(2, comentario.getUsuarioId());
+			comando.setString(3, comentario.getTexto());
+			return comando.executeUpdate();
+		});
+	}
+
+	@Override
+	public List<Comentario> listarPorEvento(int eventoId) {
+		return SuporteJdbc.comConexao(pool, "listar comentários", conexao -> {
+			PreparedStatement comando = conexao.preparar(LISTAR);
+			comando.setInt(1, eventoId);
+			List<Comentario> comentarios = new ArrayList<>();
+			try (ResultSet linhas = comando.executeQuery()) {
+				while (linhas.next()) {
+					comentarios.add(new Comentario(linhas.getString(2), linhas.getInt(1)));
+				}
+			}
+			return comentarios;
+		});
+	}
+
+	@Override
+	public int contarPorEvento(int eventoId) {
+		return SuporteJdbc.comConexao(pool, "contar comentários", conexao -> {
+			PreparedStatement comando = conexao.preparar(CONTAR);
+			comando.setInt(1, eventoId);
+			try (ResultSet linhas = comando.executeQuery()) {
+				return linhas.next() ? linhas.getInt(1) : 0;
+			}
+		});
+	}
+
+	@Override
+	public void removerDoEvento(int eventoId) {
+		SuporteJdbc.comConexao(pool, "remover comentários", conexao -> {
+			PreparedStatement comando = conexao.preparar(REMOVER);
+			comando.setInt(1, eventoId);
+			return comando.executeUpdate();
+		});
+	}
+}
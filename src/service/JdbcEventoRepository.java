@@ -0,0 +1,329 @@
+/*
+ * JdbcEventoRepository
+ *
+ * Descrição geral:
+ * - EventoRepository em banco embutido (H2 em arquivo), usando o PoolConexoes.
+ *
+ * Tabelas e índices:
+ * - eventos: dados descritivos. ordem_data guarda a data em segundos (ou o menor long
+ *   quando não há data) e, com o id, forma a ordem das listagens, indexada em
+ *   eventos_ordem. Os eventos sem data vêm primeiro, como no IndiceDataEventos.
+ * - participacoes: chave (evento_id, usuario_id), com permissão e presença; o índice
+ *   participacoes_usuario atende "eventos em que o usuário participa".
+ * - termos_eventos: (termo, evento_id, peso), o mesmo índice invertido do
+ *   IndiceTextoEventos. A chave começa pelo termo, então "termo LIKE 'abc%'" percorre
+ *   só a faixa do prefixo.
+ *
+ * Técnicas utilizadas:
+ * - Comandos preparados reaproveitados pelo cache de cada conexão.
+ * - Participações e termos gravados com executeBatch() em uma transação, em lotes de
+ *   SuporteJdbc.TAMANHO_LOTE; as participações, em ordem de chave.
+ * - Paginação das listagens por chave (ordem_data, id) do último evento entregue, sem
+ *   OFFSET; a pesquisa, ordenada por relevância, usa deslocamento.
+ */
+
+package service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import model.Evento;
+import model.Permissao;
+import model.Usuario;
+import persistencia.PoolConexoes;
+
+public final class JdbcEventoRepository implements EventoRepository {
+
+	private static final String[] ESQUEMA = {
+			"CREATE TABLE IF NOT EXISTS eventos (id INT PRIMARY KEY, organizador_id INT, titulo VARCHAR, "
+					+ "descricao VARCHAR, local_evento VARCHAR, imagem VARCHAR, categoria VARCHAR, palestrante VARCHAR, "
+					+ "badge VARCHAR, url_video VARCHAR, tipo VARCHAR, data_evento TIMESTAMP, data_criacao TIMESTAMP, "
+					+ "privado BOOLEAN NOT NULL, acesso_liberado BOOLEAN NOT NULL, curtidas INT NOT NULL, "
+					+ "ordem_data BIGINT NOT NULL)",
+			"CREATE INDEX IF NOT EXISTS eventos_ordem ON eventos (ordem_data, id)",
+			"CREATE INDEX IF NOT EXISTS eventos_organizador ON eventos (organizador_id)",
+			"CREATE TABLE IF NOT EXISTS participacoes (evento_id INT NOT NULL, usuario_id INT NOT NULL, "
+					+ "permissao VARCHAR, presente BOOLEAN DEFAULT FALSE NOT NULL, PRIMARY KEY (evento_id, usuario_id))",
+			"CREATE INDEX IF NOT EXISTS participacoes_usuario ON participacoes (usuario_id, evento_id)",
+			"CREATE TABLE IF NOT EXISTS termos_eventos (termo VARCHAR NOT NULL, evento_id INT NOT NULL, "
+					+ "peso INT NOT NULL, PRIMARY KEY (termo, evento_id))",
+			"CREATE INDEX IF NOT EXISTS termos_eventos_evento ON termos_eventos (evento_id)" };
+
+	private static final String COLUNAS = "e.id, e.organizador_id, e.titulo, e.descricao, e.local_evento, e.imagem, "
+			+ "e.categoria, e.palestrante, e.badge, e.url_video, e.tipo, e.data_evento, e.data_criacao, e.privado, "
+			+ "e.acesso_liberado, e.curtidas";
+
+	private static final String SALVAR = "MERGE INTO eventos (id, organizador_id, titulo, descricao, local_evento, "
+			+ "imagem, categoria, palestrante, badge, url_video, tipo, data_evento, data_criacao, privado, "
+			+ "acesso_liberado, curtidas, ordem_data) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String APAGAR_TERMOS = "DELETE FROM termos_eventos WHERE evento_id = ?";
+	private static final String INSERIR_TERMO = "INSERT INTO termos_eventos (termo, evento_id, peso) VALUES (?, ?, ?)";
+	private static final String REMOVER = "DELETE FROM eventos WHERE id = ?";
+	private static final String REMOVER_PARTICIPACOES = "DELETE FROM participacoes WHERE evento_id = ?";
+	private static final String BUSCAR = "SELECT " + COLUNAS + " FROM eventos e WHERE e.id = ?";
+
+	private static final String SALVAR_PARTICIPACAO = "MERGE INTO participacoes (evento_id, usuario_id, permissao) "
+			+ "KEY (evento_id, usuario_id) VALUES (?, ?, ?)";
+	private static final String REMOVER_PARTICIPANTE = "DELETE FROM participacoes WHERE evento_id = ? AND usuario_id = ?";
+	private static final String LISTAR_PARTICIPANTES = "SELECT usuario_id FROM participacoes WHERE evento_id = ? "
+			+ "ORDER BY usuario_id";
+	private static final String SALVAR_PRESENCA = "UPDATE participacoes SET presente = ? WHERE evento_id = ? "
+			+ "AND usuario_id = ?";
+
+	// Mesma regra do IndiceAcessoEventos: público, organizado pelo usuário ou com participação dele
+	private static final String VISIVEL = "(e.privado = FALSE OR e.organizador_id = ? OR EXISTS (SELECT 1 FROM "
+			+ "participacoes p WHERE p.evento_id = e.id AND p.usuario_id = ?))";
+	private static final String LISTAR_PRIMEIRA_PAGINA = "SELECT " + COLUNAS + " FROM eventos e WHERE " + VISIVEL
+			+ " ORDER BY e.ordem_data, e.id FETCH FIRST ? ROWS ONLY";
+	private static final String LISTAR_DEPOIS_DE = "SELECT " + COLUNAS + " FROM eventos e WHERE " + VISIVEL
+			+ " AND (e.ordem_data > ? OR (e.ordem_data = ? AND e.id > ?)) ORDER BY e.ordem_data, e.id "
+			+ "FETCH FIRST ? ROWS ONLY";
+
+	private final PoolConexoes pool;
+	private final IntFunction<Usuario> resolvedorUsuarios;
+
+	/**
+	 * @param resolvedorUsuarios converte o organizador_id gravado no Usuario do
+	 *                           evento devolvido
+	 */
+	public JdbcEventoRepository(PoolConexoes pool, IntFunction<Usuario> resolvedorUsuarios) {
+		this.pool = pool;
+		this.resolvedorUsuarios = resolvedorUsuarios;
+		SuporteJdbc.criarEsquema(pool, ESQUEMA);
+	}
+
+	@Override
+	public void salvar(Evento evento) {
+		SuporteJdbc.emTransacao(pool, "salvar o evento " + evento.getId(), conexao -> {
+			PreparedStatement comando = conexao.preparar(SALVAR);
+			comando.setInt(1, evento.getId());
+			comando.setInt(2, evento.getOrganizador() != null ? evento.getOrganizador().getId() : 0);
+			comando.setString(3, evento.getTitulo());
+			comando.setString(4, evento.getDescricao());
+			comando.setString(5, evento.getLocal());
+			comando.setString(6, evento.getImagem());
+			comando.setString(7, evento.getCategoria());
+			comando.setString(8, evento.getPalestrante());
+			comando.setString(9, evento.getBadgePath());
+			comando.setString(10, evento.getUrlVideo());
+			comando.setString(11, evento.getTipo());
+			comando.setTimestamp(12, SuporteJdbc.timestamp(evento.getData()));
+			comando.setTimestamp(13, SuporteJdbc.timestamp(evento.getDataCriacao()));
+			comando.setBoolean(14, evento.isPrivado());
+			comando.setBoolean(15, evento.isAcessoLiberado());
+			comando.setInt(16, evento.getCurtidas());
+			comando.setLong(17, ordemData(evento.getData()));
+			comando.executeUpdate();
+
+			PreparedStatement apagar = conexao.preparar(APAGAR_TERMOS);
+			apagar.setInt(1, evento.getId());
+			apagar.executeUpdate();
+			PreparedStatement inserir = conexao.preparar(INSERIR_TERMO);
+			for (Map.Entry<String, Integer> termo : IndiceTextoEventos.termosPonderados(evento).entrySet()) {
+				inserir.setString(1, termo.getKey());
+				inserir.setInt(2, evento.getId());
+				inserir.setInt(3, termo.getValue());
+				inserir.addBatch();
+			}
+			inserir.executeBatch();
+			return null;
+		});
+	}
+
+	@Override
+	public boolean remover(int eventoId) {
+		return SuporteJdbc.emTransacao(pool, "remover o evento " + eventoId, conexao -> {
+			for (String sql : new String[] { APAGAR_TERMOS, REMOVER_PARTICIPACOES }) {
+				PreparedStatement comando = conexao.preparar(sql);
+				comando.setInt(1, eventoId);
+				comando.executeUpdate();
+			}
+			PreparedStatement comando = conexao.preparar(REMOVER);
+			comando.setInt(1, eventoId);
+			return comando.executeUpdate() > 0;
+		});
+	}
+
+	@Override
+	public Evento buscarPorId(int eventoId) {
+		return SuporteJdbc.comConexao(pool, "buscar o evento " + eventoId, conexao -> {
+			PreparedStatement comando = conexao.preparar(BUSCAR);
+			comando.setInt(1, eventoId);
+			List<Evento> eventos = lerEventos(comando);
+			return eventos.isEmpty() ? null : eventos.get(0);
+		});
+	}
+
+	@Override
+	public void adicionarParticipacoes(int[] eventoIds, int[] usuarioIds, Permissao permissao) {
+		if (eventoIds.length != usuarioIds.length) {
+			throw new IllegalArgumentException("eventoIds e usuarioIds precisam ter o mesmo tamanho");
+		}
+		// Em ordem de chave, as inserções vão quase sempre para o fim das páginas da árvore (no H2,
+		// cerca de metade do tempo de pares em ordem aleatória)
+		long[] pares = new long[eventoIds.length];
+		for (int i = 0; i < pares.length; i++) {
+			pares[i] = ((long) eventoIds[i] << 32) | (usuarioIds[i] & 0xFFFFFFFFL);
+		}
+		Arrays.sort(pares);
+		SuporteJdbc.emTransacao(pool, "gravar " + eventoIds.length + " participações", conexao -> {
+			PreparedStatement comando = conexao.preparar(SALVAR_PARTICIPACAO);
+			for (int i = 0; i < pares.length; i++) {
+				comando.setInt(1, (int) (pares[i] >> 32));
+				comando.setInt(2, (int) pares[i]);
+				comando.setString(3, permissao != null ? permissao.name() : null);
+				comando.addBatch();
+				if ((i + 1) % SuporteJdbc.TAMANHO_LOTE == 0) {
+					comando.executeBatch();
+				}
+			}
+			comando.executeBatch();
+			return null;
+		});
+	}
+
+	@Override
+	public boolean removerParticipante(int eventoId, int usuarioId) {
+		return SuporteJdbc.comConexao(pool, "remover participante", conexao -> {
+			PreparedStatement comando = conexao.preparar(REMOVER_PARTICIPANTE);
+			comando.setInt(1, eventoId);
+			comando.setInt(2, usuarioId);
+			return comando.executeUpdate() > 0;
+		});
+	}
+
+	@Override
+	public int[] listarParticipantes(int eventoId) {
+		return SuporteJdbc.comConexao(pool, "listar participantes", conexao -> {
+			PreparedStatement comando = conexao.preparar(LISTAR_PARTICIPANTES);
+			comando.setInt(1, eventoId);
+			int[] ids = new int[16];
+			int quantidade = 0;
+			try (ResultSet linhas = comando.executeQuery()) {
+				while (linhas.next()) {
+					if (quantidade == ids.length) {
+						ids = Arrays.copyOf(ids, quantidade * 2);
+					}
+					ids[quantidade++] = linhas.getInt(1);
+				}
+			}
+			return Arrays.copyOf(ids, quantidade);
+		});
+	}
+
+	@Override
+	public void setPresenca(int eventoId, int usuarioId, boolean presente) {
+		SuporteJdbc.comConexao(pool, "marcar presença", conexao -> {
+			PreparedStatement comando = conexao.preparar(SALVAR_PRESENCA);
+			comando.setBoolean(1, presente);
+			comando.setInt(2, eventoId);
+			comando.setInt(3, usuarioId);
+			return comando.executeUpdate();
+		});
+	}
+
+	@Override
+	public List<Evento> listarParaUsuario(Usuario usuario, Evento depoisDe, int limite) {
+		return SuporteJdbc.comConexao(pool, "listar eventos", conexao -> {
+			PreparedStatement comando = conexao.preparar(depoisDe == null ? LISTAR_PRIMEIRA_PAGINA : LISTAR_DEPOIS_DE);
+			int indice = definirVisibilidade(comando, 1, usuario);
+			if (depoisDe != null) {
+				long ordem = ordemData(depoisDe.getData());
+				comando.setLong(indice++, ordem);
+				comando.setLong(indice++, ordem);
+				comando.setInt(indice++, depoisDe.getId());
+			}
+			comando.setInt(indice, limite);
+			return lerEventos(comando);
+		});
+	}
+
+	@Override
+	public List<Evento> pesquisar(String termo, Usuario usuario, int deslocamento, int limite) {
+		List<String> termos = IndiceTextoEventos.tokenizar(termo);
+		if (termos.isEmpty()) {
+			return deslocamento == 0 ? listarParaUsuario(usuario, null, limite) : List.of();
+		}
+		return SuporteJdbc.comConexao(pool, "pesquisar eventos", conexao -> {
+			// Um comando por quantidade de palavras, reaproveitado pelo cache da conexão
+			PreparedStatement comando = conexao.preparar(sqlPesquisa(termos.size()));
+			int indice = 1;
+			for (String palavra : termos) {
+				comando.setString(indice++, palavra);
+				comando.setString(indice++, palavra + "%");
+			}
+			indice = definirVisibilidade(comando, indice, usuario);
+			comando.setInt(indice++, deslocamento);
+			comando.setInt(indice, limite);
+			return lerEventos(comando);
+		});
+	}
+
+	/*
+	 * Para cada palavra, a pontuação de um evento é a do melhor termo que começa com
+	 * ela (termo exato vale o dobro); o evento precisa casar com todas as palavras
+	 * e a pontuação final é a soma, como em IndiceTextoEventos.buscar().
+	 */
+	private static String sqlPesquisa(int palavras) {
+		StringBuilder casados = new StringBuilder();
+		for (int i = 0; i < palavras; i++) {
+			if (i > 0) {
+				casados.append(" UNION ALL ");
+			}
+			casados.append("SELECT evento_id, MAX(CASE WHEN termo = ? THEN 2 * peso ELSE peso END) AS pontos ")
+					.append("FROM termos_eventos WHERE termo LIKE ? GROUP BY evento_id");
+		}
+		return "SELECT " + COLUNAS + " FROM eventos e JOIN (SELECT evento_id, SUM(pontos) AS pontos FROM (" + casados
+				+ ") c GROUP BY evento_id HAVING COUNT(*) = " + palavras + ") b ON b.evento_id = e.id WHERE " + VISIVEL
+				+ " ORDER BY b.pontos DESC, e.ordem_data, e.id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+	}
+
+	// Sem usuário, só os eventos públicos (nenhum id casa com -1)
+	private static int definirVisibilidade(PreparedStatement comando, int indice, Usuario usuario)
+			throws SQLException {
+		int usuarioId = usuario != null ? usuario.getId() : -1;
+		comando.setInt(indice, usuarioId);
+		comando.setInt(indice + 1, usuarioId);
+		return indice + 2;
+	}
+
+	private static long ordemData(LocalDateTime data) {
+		return data != null ? data.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+	}
+
+	private List<Evento> lerEventos(PreparedStatement comando) throws SQLException {
+		List<Evento> eventos = new ArrayList<>();
+		try (ResultSet linhas = comando.executeQuery()) {
+			while (linhas.next()) {
+				Evento evento = new Evento();
+				evento.setId(linhas.getInt(1));
+				int organizadorId = linhas.getInt(2);
+				evento.setOrganizador(organizadorId != 0 ? resolvedorUsuarios.apply(organizadorId) : null);
+				evento.setTitulo(linhas.getString(3));
+				evento.setDescricao(linhas.getString(4));
+				evento.setLocal(linhas.getString(5));
+				evento.setImagem(linhas.getString(6));
+				evento.setCategoria(linhas.getString(7));
+				evento.setPalestrante(linhas.getString(8));
+				evento.setBadgePath(linhas.getString(9));
+				evento.setUrlVideo(linhas.getString(10));
+				evento.setTipo(linhas.getString(11));
+				evento.setData(SuporteJdbc.data(linhas.getTimestamp(12)));
+				evento.setDataCriacao(SuporteJdbc.data(linhas.getTimestamp(13)));
+				evento.setPrivado(linhas.getBoolean(14));
+				evento.setAcessoLiberado(linhas.getBoolean(15));
+				evento.setCurtidas(linhas.getInt(16));
+				eventos.add(evento);
+			}
+		}
+		return eventos;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * JdbcNotificacaoRepository
+ *
+ * Descrição geral:
+ * - NotificacaoRepository em banco embutido (H2 em arquivo), usando o PoolConexoes. É o
+ *   armazenamento do NotificacaoService no aplicativo (configurado no Main).
+ *
+ * Tabelas e índices:
+ * - notificacoes: id gerado pelo banco, destinatário e campos de Notificacao;
+ *   notificacoes_usuario (usuario_id, data_hora) atende a listagem por usuário.
+ *
+ * Técnicas utilizadas:
+ * - adicionarParaUsuarios() e importar() gravam com executeBatch() em uma transação, em
+ *   lotes de SuporteJdbc.TAMANHO_LOTE.
+ */
+
+package service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import model.Notificacao;
+import persistencia.PoolConexoes;
+
+public final class JdbcNotificacaoRepository implements NotificacaoRepository {
+
+	private static final String[] ESQUEMA = {
+			"CREATE TABLE IF NOT EXISTS notificacoes (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+					+ "usuario_id INT NOT NULL, mensagem VARCHAR, data_hora TIMESTAMP, por_email BOOLEAN NOT NULL, "
+					+ "tipo VARCHAR, remetente VARCHAR)",
+			"CREATE INDEX IF NOT EXISTS notificacoes_usuario ON notificacoes (usuario_id, data_hora)" };
+
+	private static final String INSERIR = "INSERT INTO notificacoes (usuario_id, mensagem, data_hora, por_email, "
+			+ "tipo, remetente) VALUES (?, ?, ?, ?, ?, ?)";
+	private static final String COLUNAS = "SELECT mensagem, data_hora, por_email, tipo, remetente FROM notificacoes "
+			+ "WHERE usuario_id = ?";
+	private static final String LISTAR = COLUNAS + " ORDER BY data_hora DESC, id DESC";
+	private static final String LISTAR_POR_TIPO = COLUNAS + " AND tipo = ? ORDER BY data_hora DESC, id DESC";
+
+	private final PoolConexoes pool;
+
+	public JdbcNotificacaoRepository(PoolConexoes pool) {
+		this.pool = pool;
+		SuporteJdbc.criarEsquema(pool, ESQUEMA);
+	}
+
+	@Override
+	public void adicionar(int usuarioId, Notificacao notificacao) {
+		adicionarParaUsuarios(new int[] { usuarioId }, notificacao);
+	}
+
+	@Override
+	public void adicionarParaUsuarios(int[] usuarioIds, Notificacao notificacao) {
+		SuporteJdbc.emTransacao(pool, "gravar " + usuarioIds.length + " notificações", conexao -> {
+			PreparedStatement comando = conexao.preparar(INSERIR);
+			for (int i = 0; i < usuarioIds.length; i++) {
+				acrescentarAoLote(comando, usuarioIds[i], notificacao);
+				if ((i + 1) % SuporteJdbc.TAMANHO_LOTE == 0) {
+					comando.executeBatch();
+				}
+			}
+			comando.executeBatch();
+			return null;
+		});
+	}
+
+	@Override
+	public void importar(Map<Integer, List<Notificacao>> porUsuario) {
+		SuporteJdbc.emTransacao(pool, "importar notificações", conexao -> {
+			PreparedStatement comando = conexao.preparar(INSERIR);
+			int noLote = 0;
+			for (Map.Entry<Integer, List<Notificacao>> usuario : porUsuario.entrySet()) {
+				for (Notificacao notificacao : usuario.getValue()) {
+					acrescentarAoLote(comando, usuario.getKey(), notificacao);
+					if (++noLote == SuporteJdbc.TAMANHO_LOTE) {
+						comando.executeBatch();
+						noLote = 0;
+					}
+				}
+			}
+			comando.executeBatch();
+			return null;
+		});
+	}
+
+	private static void acrescentarAoLote(PreparedStatement comando, int usuarioId, Notificacao notificacao)
+			throws SQLException {
+		comando.setInt(1, usuarioId);
+		comando.setString(2, notificacao.getMensagem());
+		comando.setTimestamp(3, SuporteJdbc.timestamp(notificacao.getDataHora()));
+		comando.setBoolean(4, notificacao.isPorEmail());
+		comando.setString(5, notificacao.getTipo() != null ? notificacao.getTipo().name() : null);
+		comando.setString(6, notificacao.getRemetente());
+		comando.addBatch();
+	}
+
+	@Override
+	public List<Notificacao> listarPorUsuario(int usuarioId, Notificacao.Tipo tipo) {
+		return SuporteJdbc.comConexao(pool, "listar notificações", conexao -> {
+			PreparedStatement comando = conexao.preparar(tipo == null ? LISTAR : LISTAR_POR_TIPO);
+			comando.setInt(1, usuarioId);
+			if (tipo != null) {
+				comando.setString(2, tipo.name());
+			}
+			return lerNotificacoes(comando);
+		});
+	}
+
+	private static List<Notificacao> lerNotificacoes(PreparedStatement comando) throws SQLException {
+		List<Notificacao> notificacoes = new ArrayList<>();
+		try (ResultSet linhas = comando.executeQuery()) {
+			while (linhas.next()) {
+				String tipo = linhas.getString(4);
+				notificacoes.add(new Notificacao(linhas.getString(1), SuporteJdbc.data(linhas.getTimestamp(2)),
+						linhas.getBoolean(3), tipo != null ? Notificacao.Tipo.valueOf(tipo) : null, linhas.getString(5)));
+			}
+		}
+		return notificacoes;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * JdbcUsuarioRepository
+ *
+ * Descrição geral:
+ * - UsuarioRepository em banco embutido (H2 em arquivo), usando o PoolConexoes.
+ *
+ * Tabelas e índices:
+ * - usuarios: uma linha por usuário. email_busca e username_busca guardam os valores
+ *   em minúsculas e são indexados, para as buscas sem diferenciar maiúsculas não
+ *   precisarem aplicar LOWER() em cada linha.
+ */
+
+package service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import model.Usuario;
+import persistencia.PoolConexoes;
+
+public final class JdbcUsuarioRepository implements UsuarioRepository {
+
+	private static final String[] ESQUEMA = {
+			"CREATE TABLE IF NOT EXISTS usuarios (id INT PRIMARY KEY, username VARCHAR, nome VARCHAR, "
+					+ "sobrenome VARCHAR, email VARCHAR, senha VARCHAR, telefone VARCHAR, cpf VARCHAR, genero VARCHAR, "
+					+ "data_nascimento DATE, data_criacao TIMESTAMP, foto VARCHAR, email_busca VARCHAR, "
+					+ "username_busca VARCHAR)",
+			"CREATE INDEX IF NOT EXISTS usuarios_email ON usuarios (email_busca)",
+			"CREATE INDEX IF NOT EXISTS usuarios_username ON usuarios (username_busca)" };
+
+	private static final String COLUNAS = "id, username, nome, sobrenome, email, senha, telefone, cpf, genero, "
+			+ "data_nascimento, data_criacao, foto";
+
+	private static final String SALVAR = "MERGE INTO usuarios (" + COLUNAS + ", email_busca, username_busca) "
+			+ "KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String BUSCAR_POR_ID = "SELECT " + COLUNAS + " FROM usuarios WHERE id = ?";
+	private static final String BUSCAR_POR_EMAIL = "SELECT " + COLUNAS + " FROM usuarios WHERE email_busca = ? "
+			+ "ORDER BY id FETCH FIRST 1 ROW ONLY";
+	private static final String BUSCAR_POR_USERNAME = "SELECT " + COLUNAS + " FROM usuarios WHERE username_busca = ? "
+			+ "ORDER BY id FETCH FIRST 1 ROW ONLY";
+	private static final String LISTAR = "SELECT " + COLUNAS + " FROM usuarios ORDER BY id";
+
+	private final PoolConexoes pool;
+
+	public JdbcUsuarioRepository(PoolConexoes pool) {
+		this.pool = pool;
+		SuporteJdbc.criarEsquema(pool, ESQUEMA);
+	}
+
+	@Override
+	public void salvar(Usuario usuario) {
+		SuporteJdbc.comConexao(pool, "salvar o usuário " + usuario.getId(), conexao -> {
+			PreparedStatement comando = conexao.preparar(SALVAR);
+			comando.setInt(1, usuario.getId());
+			comando.setString(2, usuario.getUsername());
+			comando.setString(3, usuario.getNome());
+			comando.setString(4, usuario.getSobrenome());
+			comando.setString(5, usuario.getEmail());
+			comando.setString(6, usuario.getSenha());
+			comando.setString(7, usuario.getTelefone());
+			comando.setString(8, usuario.getCpf());
+			comando.setString(9, usuario.getGenero());
+			comando.setDate(10, usuario.getDataNascimento() != null ? Date.valueOf(usuario.getDataNascimento()) : null);
+			comando.setTimestamp(11, SuporteJdbc.timestamp(usuario.getDataCriacao()));
+			comando.setString(12, usuario.getCaminhoFotoPerfil());
+			comando.setString(13, chaveBusca(usuario.getEmail()));
+			comando.setString(14, chaveBusca(usuario.getUsername()));
+			return comando.executeUpdate();
+		});
+	}
+
+	@Override
+	public Usuario buscarPorId(int id) {
+		return SuporteJdbc.comConexao(pool, "buscar o usuário " + id, conexao -> {
+			PreparedStatement comando = conexao.preparar(BUSCAR_POR_ID);
+			comando.setInt(1, id);
+			return primeiro(lerUsuarios(comando));
+		});
+	}
+
+	@Override
+	public Usuario buscarPorEmail(String email) {
+		return buscarPorChave(BUSCAR_POR_EMAIL, email);
+	}
+
+	@Override
+	public Usuario buscarPorUsername(String username) {
+		return buscarPorChave(BUSCAR_POR_USERNAME, username);
+	}
+
+	@Override
+	public List<Usuario> listarTodos() {
+		return SuporteJdbc.comConexao(pool, "listar usuários", conexao -> lerUsuarios(conexao.preparar(LISTAR)));
+	}
+
+	private Usuario buscarPorChave(String sql, String valor) {
+		if (valor == null) {
+			return null;
+		}
+		return SuporteJdbc.comConexao(pool, "buscar usuário", conexao -> {
+			PreparedStatement comando = conexao.preparar(sql);
+			comando.setString(1, chaveBusca(valor));
+			return primeiro(lerUsuarios(comando));
+		});
+	}
+
+	private static String chaveBusca(String valor) {
+		return valor != null ? valor.toLowerCase(Locale.ROOT) : null;
+	}
+
+	private static Usuario primeiro(List<Usuario> usuarios) {
+		return usuarios.isEmpty() ? null : usuarios.get(0);
+	}
+
+	private static List<Usuario> lerUsuarios(PreparedStatement comando) throws SQLException {
+		List<Usuario> usuarios = new ArrayList<>();
+		try (ResultSet linhas = comando.executeQuery()) {
+			while (linhas.next()) {
+				Usuario usuario = new Usuario();
+				usuario.setId(linhas.getInt(1));
+				usuario.setUsername(linhas.getString(2));
+				usuario.setNome(linhas.getString(3));
+				usuario.setSobrenome(linhas.getString(4));
+				usuario.setEmail(linhas.getString(5));
+				String senha = linhas.getString(6);
+				if (senha != null) {
+					usuario.setSenha(senha);
+				}
+				usuario.setTelefone(linhas.getString(7));
+				usuario.setCpf(linhas.getString(8));
+				usuario.setGenero(linhas.getString(9));
+				Date nascimento = linhas.getDate(10);
+				usuario.setDataNascimento(nascimento != null ? nascimento.toLocalDate() : null);
+				usuario.setDataCriacao(SuporteJdbc.data(linhas.getTimestamp(11)));
+				String foto = linhas.getString(12);
+				if (foto != null) {
+					usuario.setCaminhoFotoPerfil(foto);
+				}
+				usuarios.add(usuario);
+			}
+		}
+		return usuarios;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * LoteChat
+ *
+ * Descrição geral:
+ * - Resultado de ChatService.buscarDesde() e o que as assinaturas do chat recebem: o que
+ *   aconteceu no chat de um evento depois de uma sequência.
+ * - Também é o resultado de buscarUltimas() e buscarAnteriores() (rolagem para trás): aí
+ *   vem só getMensagens(), e temMais() diz se há mensagens mais antigas.
+ *
+ * Métodos e funcionalidades:
+ *
+ * getMensagens()
+ * - Mensagens novas, na ordem de envio (as que já foram removidas não vêm).
+ *
+ * getRemovidas()
+ * - Sequências de mensagens entregues antes e removidas depois (lápides); a tela tira esses
+ *   balões.
+ *
+ * getUltimaSequencia(), temMais()
+ * - Cursor para o próximo buscarDesde() (ou assinar()) e se o lote parou no máximo pedido.
+ */
+
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+import service.ChatService.MensagemChat;
+
+public final class LoteChat {
+
+	private final List<MensagemChat> mensagens;
+	private final List<Long> removidas;
+	private final long ultimaSequencia;
+	private final boolean temMais;
+
+	LoteChat(List<MensagemChat> mensagens, List<Long> removidas, long ultimaSequencia, boolean temMais) {
+		this.mensagens = Collections.unmodifiableList(mensagens);
+		this.removidas = Collections.unmodifiableList(removidas);
+		this.ultimaSequencia = ultimaSequencia;
+		this.temMais = temMais;
+	}
+
+	public List<MensagemChat> getMensagens() {
+		return mensagens;
+	}
+
+	public List<Long> getRemovidas() {
+		return removidas;
+	}
+
+	public long getUltimaSequencia() {
+		return ultimaSequencia;
+	}
+
+	public boolean temMais() {
+		return temMais;
+	}
+
+	public boolean isVazio() {
+		return mensagens.isEmpty() && removidas.isEmpty();
+	}
+}
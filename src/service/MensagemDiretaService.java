@@ -0,0 +1,121 @@
+/*
+ * MensagemDiretaService
+ *
+ * Descrição geral:
+ * - Serviço singleton das conversas privadas entre amigos (tela de Amizades).
+ * - Cada conversa é guardada uma vez, pelo par de ids sem ordem (A com B é a mesma conversa de
+ *   B com A), e cada mensagem guarda só remetente, instante e texto; quem monta "Você: ..." ou
+ *   "Fulano: ..." é a tela.
+ *
+ * Estruturas principais:
+ * - conversas: chave do par (menor id nos 32 bits altos, maior nos baixos) -> ConversaDireta,
+ *   que guarda as mensagens em blocos só de acréscimo.
+ *
+ * Métodos e funcionalidades:
+ *
+ * getInstance()
+ * - Retorna a instância única do serviço.
+ *
+ * enviar(Usuario remetente, Usuario destinatario, String texto)
+ * - Acrescenta a mensagem na conversa dos dois e a retorna (com a sua sequência).
+ *
+ * ultimasMensagens(Usuario a, Usuario b, int quantidade)
+ * - Última página da conversa, da mais antiga para a mais nova. O cursor da página leva às
+ *   mensagens anteriores (null quando a página já começa na primeira mensagem).
+ *
+ * mensagensAnteriores(Usuario a, Usuario b, String cursor, int quantidade)
+ * - Página imediatamente anterior ao cursor. Como as mensagens só são acrescentadas no fim, o
+ *   cursor (sequência da mensagem mais antiga já entregue) continua válido com a conversa
+ *   recebendo mensagens novas.
+ *
+ * contarMensagens(Usuario a, Usuario b)
+ * - Total de mensagens da conversa.
+ *
+ * Concorrência:
+ * - Mapa concorrente de conversas; cada conversa sincroniza as próprias leituras e escritas.
+ */
+
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.MensagemDireta;
+import model.Usuario;
+
+public class MensagemDiretaService {
+
+	private static final String ORDEM_CURSOR = "conversa";
+
+	private static volatile MensagemDiretaService instancia;
+
+	private final Map<Long, ConversaDireta> conversas = new ConcurrentHashMap<>();
+
+	private MensagemDiretaService() {
+	}
+
+	public static MensagemDiretaService getInstance() {
+		if (instancia == null) {
+			synchronized (MensagemDiretaService.class) {
+				if (instancia == null) {
+					instancia = new MensagemDiretaService();
+				}
+			}
+		}
+		return instancia;
+	}
+
+	public MensagemDireta enviar(Usuario remetente, Usuario destinatario, String texto) {
+		if (remetente == null || destinatario == null || remetente.getId() == destinatario.getId()) {
+			throw new IllegalArgumentException("Remetente e destinatário devem ser usuários diferentes");
+		}
+		if (texto == null || texto.isBlank()) {
+			throw new IllegalArgumentException("Mensagem vazia");
+		}
+		ConversaDireta conversa = conversas.computeIfAbsent(chave(remetente.getId(), destinatario.getId()),
+				k -> new ConversaDireta());
+		return conversa.adicionar(remetente.getId(), System.currentTimeMillis(), texto);
+	}
+
+	public Pagina<MensagemDireta> ultimasMensagens(Usuario a, Usuario b, int quantidade) {
+		return pagina(a, b, Long.MAX_VALUE, quantidade);
+	}
+
+	public Pagina<MensagemDireta> mensagensAnteriores(Usuario a, Usuario b, String cursor, int quantidade) {
+		if (cursor == null) {
+			return ultimasMensagens(a, b, quantidade);
+		}
+		String[] partes = Pagina.decodificarCursor(cursor, ORDEM_CURSOR);
+		try {
+			return pagina(a, b, Long.parseLong(partes[0]), quantidade);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+		}
+	}
+
+	public long contarMensagens(Usuario a, Usuario b) {
+		ConversaDireta conversa = conversa(a, b);
+		return conversa == null ? 0 : conversa.total();
+	}
+
+	private Pagina<MensagemDireta> pagina(Usuario a, Usuario b, long antesDe, int quantidade) {
+		ConversaDireta conversa = conversa(a, b);
+		if (conversa == null || quantidade <= 0) {
+			return new Pagina<>(new ArrayList<>(), null);
+		}
+		List<MensagemDireta> mensagens = conversa.anteriores(antesDe, quantidade);
+		long primeira = mensagens.isEmpty() ? 0 : mensagens.get(0).getSequencia();
+		String cursor = primeira > 0 ? Pagina.codificarCursor(ORDEM_CURSOR, String.valueOf(primeira)) : null;
+		return new Pagina<>(mensagens, cursor);
+	}
+
+	private ConversaDireta conversa(Usuario a, Usuario b) {
+		return a == null || b == null ? null : conversas.get(chave(a.getId(), b.getId()));
+	}
+
+	private static long chave(int usuarioA, int usuarioB) {
+		return ((long) Math.min(usuarioA, usuarioB) << 32) | (Math.max(usuarioA, usuarioB) & 0xFFFFFFFFL);
+	}
+}
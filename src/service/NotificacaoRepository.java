@@ -0,0 +1,41 @@
+/*
+ * NotificacaoRepository
+ *
+ * Descrição geral:
+ * - Ponto de troca do armazenamento de notificações (ver EventoRepository).
+ *
+ * Métodos e funcionalidades:
+ *
+ * adicionar(int usuarioId, Notificacao notificacao)
+ * - Acrescenta uma notificação para um usuário.
+ *
+ * adicionarParaUsuarios(int[] usuarioIds, Notificacao notificacao)
+ * - A mesma notificação para vários usuários, gravada em lote (ex.: aviso aos
+ *   participantes de um evento).
+ *
+ * importar(Map<Integer, List<Notificacao>> porUsuario)
+ * - Grava de uma vez as notificações de vários usuários, na ordem de cada lista (usado ao
+ *   passar as notificações que estavam em memória para o banco).
+ *
+ * listarPorUsuario(int usuarioId, Notificacao.Tipo tipo)
+ * - Notificações do usuário, mais recentes primeiro (como NotificacaoService.getNotificacoes);
+ *   tipo null traz todas.
+ */
+
+package service;
+
+import java.util.List;
+import java.util.Map;
+
+import model.Notificacao;
+
+public interface NotificacaoRepository {
+
+	void adicionar(int usuarioId, Notificacao notificacao);
+
+	void adicionarParaUsuarios(int[] usuarioIds, Notificacao notificacao);
+
+	void importar(Map<Integer, List<Notificacao>> porUsuario);
+
+	List<Notificacao> listarPorUsuario(int usuarioId, Notificacao.Tipo tipo);
+}
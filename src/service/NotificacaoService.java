@@ -3,10 +3,12 @@
  *
  * Descrição geral:
  * - Serviço singleton responsável por gerenciar notificações dos usuários.
- * - Armazena as notificações em memória, organizadas por ID de usuário.
+ * - Armazena as notificações em memória, organizadas por ID de usuário, ou, depois de
+ *   usarRepositorio(), em um NotificacaoRepository (no aplicativo, o banco H2 configurado no Main).
  *
  * Estruturas principais:
  * - notificacoesPorUsuario: Map que relaciona o ID do usuário a uma lista de notificações.
+ * - repositorio: armazenamento em banco; null enquanto as notificações ficam em memória.
  *
  * Métodos e funcionalidades:
  *
@@ -14,6 +16,11 @@
  * - Retorna a instância única (singleton) do serviço.
  * - Cria a instância caso ainda não exista.
  *
+ * usarRepositorio(NotificacaoRepository repositorio)
+ * - Passa a gravar e ler as notificações no repositório. As que estavam em memória (vindas do
+ *   snapshot e do diário) são importadas para ele, e um snapshot novo, já sem elas, é gerado
+ *   em seguida; sem isso o diário as traria de volta no próximo início.
+ *
  * registrarNotificacao(int userId, Notificacao notificacao)
  * - Adiciona uma nova notificação para o usuário especificado pelo userId.
  * - Se o usuário ainda não tem notificações registradas, cria a lista.
@@ -21,7 +28,12 @@
  * enviarNotificacaoParaParticipantes(int eventoId, String mensagem, boolean porEmail, String remetente)
  * - Obtém os participantes de um evento pelo eventoId.
  * - Para cada participante, cria uma notificação do tipo ALERTA, usando a mensagem e remetente fornecidos.
- * - Registra essa notificação para cada participante.
+ * - Com repositório, a notificação de todos os participantes é gravada em um único lote.
+ *
+ * restaurar(Map<Integer, List<Notificacao>>), percorrerNotificacoes(BiConsumer)
+ * - Carga e leitura das notificações pela Persistencia.
+ * - Sem repositório, cada notificação registrada também vai para o diário, com a sua posição na
+ *   lista do usuário. Nos dois casos ela é publicada no BarramentoAlteracoes (NOTIFICACAO_REGISTRADA).
  *
  * getNotificacoes(int userId, Notificacao.Tipo tipo)
  * - Retorna a lista de notificações de um usuário filtradas por tipo (ex: ALERTA, HISTORICO).
@@ -36,6 +48,7 @@
 
 package service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -43,12 +56,15 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import model.Notificacao;
+import persistencia.Persistencia;
 
 public class NotificacaoService {
 	private static NotificacaoService instance;
 	private final Map<Integer, List<Notificacao>> notificacoesPorUsuario = new HashMap<>();
+	private volatile NotificacaoRepository repositorio;
 
 	private NotificacaoService() {
 	}
@@ -60,14 +76,62 @@ public class NotificacaoService {
 		return instance;
 	}
 
+	public void usarRepositorio(NotificacaoRepository repositorio) throws IOException {
+		boolean importou;
+		synchronized (this) {
+			importou = !notificacoesPorUsuario.isEmpty();
+			if (importou) {
+				repositorio.importar(notificacoesPorUsuario);
+				notificacoesPorUsuario.clear();
+			}
+			this.repositorio = repositorio;
+		}
+		if (importou) {
+			Persistencia.getInstance().gerarSnapshot();
+		}
+	}
+
 	public void registrarNotificacao(int userId, Notificacao notificacao) {
-		notificacoesPorUsuario.computeIfAbsent(userId, k -> new ArrayList<>()).add(notificacao);
+		NotificacaoRepository banco = repositorio;
+		if (banco != null) {
+			banco.adicionar(userId, notificacao);
+			BarramentoAlteracoes.getInstance().publicar(Alteracao.Tipo.NOTIFICACAO_REGISTRADA, 0, userId, true,
+					notificacao);
+			return;
+		}
+		synchronized (this) {
+			List<Notificacao> notificacoes = notificacoesPorUsuario.computeIfAbsent(userId, k -> new ArrayList<>());
+			Persistencia.getInstance().registrarNotificacao(userId, notificacoes.size(), notificacao);
+			notificacoes.add(notificacao);
+			BarramentoAlteracoes.getInstance().publicar(Alteracao.Tipo.NOTIFICACAO_REGISTRADA, 0, userId, true,
+					notificacao);
+		}
+		Persistencia.getInstance().aguardarGravacao();
+	}
+
+	public synchronized void restaurar(Map<Integer, List<Notificacao>> recuperadas) {
+		notificacoesPorUsuario.clear();
+		recuperadas.forEach((userId, lista) -> notificacoesPorUsuario.put(userId, new ArrayList<>(lista)));
+	}
+
+	public synchronized void percorrerNotificacoes(BiConsumer<Integer, List<Notificacao>> visitante) {
+		notificacoesPorUsuario.forEach(visitante);
 	}
 
 	public void enviarNotificacaoParaParticipantes(int eventoId, String mensagem, boolean porEmail, String remetente) {
 		List<Integer> participantes = EventoService.getInstance().getParticipantesDoEvento(eventoId);
 		LocalDateTime agora = LocalDateTime.now();
 
+		NotificacaoRepository banco = repositorio;
+		if (banco != null) {
+			Notificacao notificacao = new Notificacao(mensagem, agora, porEmail, Notificacao.Tipo.ALERTA, remetente);
+			banco.adicionarParaUsuarios(participantes.stream().mapToInt(Integer::intValue).toArray(), notificacao);
+			for (int userId : participantes) {
+				BarramentoAlteracoes.getInstance().publicar(Alteracao.Tipo.NOTIFICACAO_REGISTRADA, 0, userId, true,
+						notificacao);
+			}
+			return;
+		}
 		for (int userId : participantes) {
 			Notificacao notificacao = new Notificacao(mensagem, agora, porEmail, Notificacao.Tipo.ALERTA, remetente);
 			registrarNotificacao(userId, notificacao);
@@ -75,8 +139,14 @@ public class NotificacaoService {
 	}
 
 	public List<Notificacao> getNotificacoes(int userId, Notificacao.Tipo tipo) {
-		return notificacoesPorUsuario.getOrDefault(userId, Collections.emptyList()).stream()
-				.filter(n -> n.getTipo() == tipo).sorted(Comparator.comparing(Notificacao::getDataHora).reversed())
-				.toList();
+		NotificacaoRepository banco = repositorio;
+		if (banco != null) {
+			return banco.listarPorUsuario(userId, tipo);
+		}
+		synchronized (this) {
+			return notificacoesPorUsuario.getOrDefault(userId, Collections.emptyList()).stream()
+					.filter(n -> n.getTipo() == tipo).sorted(Comparator.comparing(Notificacao::getDataHora).reversed())
+					.toList();
+		}
 	}
 }
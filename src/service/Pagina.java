@@ -0,0 +1,75 @@
+/*
+ * Pagina
+ *
+ * Descrição geral:
+ * - Resultado das consultas paginadas do EventoService e do MensagemDiretaService: os
+ *   itens da página e o cursor para pedir a próxima.
+ * - O cursor é opaco para quem chama; internamente guarda a ordenação usada e a
+ *   chave (chave de ordenação + id) do último item entregue. A próxima página começa
+ *   logo depois dessa chave, então inserções concorrentes não deslocam nem repetem
+ *   itens já entregues.
+ *
+ * Métodos e funcionalidades:
+ *
+ * getItens(), getProximoCursor(), temProxima()
+ * - Itens da página e cursor da próxima (null quando não há mais).
+ *
+ * codificarCursor(String... partes), decodificarCursor(String cursor, String ordem)
+ * - Montam e leem o cursor (Base64 URL-safe de "ordem|chave...|id").
+ * - Um cursor gerado por outra ordenação, ou adulterado, gera IllegalArgumentException.
+ */
+
+package service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+public final class Pagina<T> {
+
+	private static final String SEPARADOR = "|";
+
+	private final List<T> itens;
+	private final String proximoCursor;
+
+	Pagina(List<T> itens, String proximoCursor) {
+		this.itens = Collections.unmodifiableList(itens);
+		this.proximoCursor = proximoCursor;
+	}
+
+	public List<T> getItens() {
+		return itens;
+	}
+
+	public String getProximoCursor() {
+		return proximoCursor;
+	}
+
+	public boolean temProxima() {
+		return proximoCursor != null;
+	}
+
+	static String codificarCursor(String... partes) {
+		byte[] bytes = String.join(SEPARADOR, partes).getBytes(StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	/**
+	 * Retorna as partes do cursor depois da ordenação, validando que ele foi
+	 * gerado pela ordenação esperada.
+	 */
+	static String[] decodificarCursor(String cursor, String ordem) {
+		String[] partes;
+		try {
+			partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+		}
+		if (partes.length < 2 || !partes[0].equals(ordem)) {
+			throw new IllegalArgumentException("Cursor inválido para a ordenação " + ordem + ": " + cursor);
+		}
+		return Arrays.copyOfRange(partes, 1, partes.length);
+	}
+}
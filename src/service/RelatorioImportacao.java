@@ -0,0 +1,100 @@
+/*
+ * RelatorioImportacao
+ *
+ * Descrição geral:
+ * - Resultado de UsuarioService.importarUsuarios(): quantos usuários entraram, quais linhas
+ *   foram recusadas e por quê, e a vazão da importação.
+ *
+ * Métodos e funcionalidades:
+ *
+ * getImportados(), getErros(), getLinhasLidas()
+ * - Contagens e lista de linhas recusadas (dado inválido ou duplicado), em ordem de linha.
+ *
+ * getUsuariosPorSegundo()
+ * - Usuários importados por segundo, do início da leitura até o último lote gravado.
+ *
+ * escreverErros(Writer saida)
+ * - Relatório de erros em CSV ("linha;motivo"), para devolver à escola.
+ */
+
+package service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+public final class RelatorioImportacao {
+
+	/**
+	 * Linha recusada: número da linha no arquivo (o cabeçalho é a linha 1) e motivo.
+	 */
+	public static final class Erro {
+		private final int linha;
+		private final String motivo;
+
+		Erro(int linha, String motivo) {
+			this.linha = linha;
+			this.motivo = motivo;
+		}
+
+		public int getLinha() {
+			return linha;
+		}
+
+		public String getMotivo() {
+			return motivo;
+		}
+
+		@Override
+		public String toString() {
+			return "Linha " + linha + ": " + motivo;
+		}
+	}
+
+	private final int linhasLidas;
+	private final int importados;
+	private final List<Erro> erros;
+	private final long duracaoNanos;
+
+	RelatorioImportacao(int linhasLidas, int importados, List<Erro> erros, long duracaoNanos) {
+		this.linhasLidas = linhasLidas;
+		this.importados = importados;
+		this.erros = Collections.unmodifiableList(erros);
+		this.duracaoNanos = duracaoNanos;
+	}
+
+	public int getLinhasLidas() {
+		return linhasLidas;
+	}
+
+	public int getImportados() {
+		return importados;
+	}
+
+	public List<Erro> getErros() {
+		return erros;
+	}
+
+	public long getDuracaoMs() {
+		return duracaoNanos / 1_000_000;
+	}
+
+	public double getUsuariosPorSegundo() {
+		return duracaoNanos == 0 ? 0 : importados * 1e9 / duracaoNanos;
+	}
+
+	public void escreverErros(Writer saida) throws IOException {
+		saida.write("linha;motivo\n");
+		for (Erro erro : erros) {
+			saida.write(erro.linha + ";" + erro.motivo.replace(';', ',') + "\n");
+		}
+		saida.flush();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d importados, %d recusados de %d linhas em %d ms (%.0f usuários/s)", importados,
+				erros.size(), linhasLidas, getDuracaoMs(), getUsuariosPorSegundo());
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * ResultadoEdicao
+ *
+ * Descrição geral:
+ * - Resposta do EventoService.editarEvento(): se a edição foi aplicada, quais campos
+ *   mudaram de fato e a versão do evento depois dela.
+ * - Com VERSAO_DESATUALIZADA nada foi escrito: o evento mudou depois que quem edita o
+ *   leu. getVersao() traz a versão atual, para recarregar os dados e tentar de novo.
+ */
+
+package service;
+
+import java.util.Collections;
+import java.util.Set;
+
+import model.EdicaoEvento;
+
+public final class ResultadoEdicao {
+
+	public enum Situacao {
+		APLICADA, SEM_MUDANCAS, VERSAO_DESATUALIZADA, EVENTO_INEXISTENTE
+	}
+
+	private final Situacao situacao;
+	private final Set<EdicaoEvento.Campo> camposAlterados;
+	private final long versao;
+
+	ResultadoEdicao(Situacao situacao, Set<EdicaoEvento.Campo> camposAlterados, long versao) {
+		this.situacao = situacao;
+		this.camposAlterados = Collections.unmodifiableSet(camposAlterados);
+		this.versao = versao;
+	}
+
+	public Situacao getSituacao() {
+		return situacao;
+	}
+
+	public boolean isAplicada() {
+		return situacao == Situacao.APLICADA || situacao == Situacao.SEM_MUDANCAS;
+	}
+
+	public Set<EdicaoEvento.Campo> getCamposAlterados() {
+		return camposAlterados;
+	}
+
+	public long getVersao() {
+		return versao;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * SuporteJdbc
+ *
+ * Descrição geral:
+ * - Código comum dos repositórios JDBC (JdbcEventoRepository, JdbcUsuarioRepository,
+ *   JdbcComentarioRepository e JdbcNotificacaoRepository).
+ * - Os comandos usam o dialeto do H2 (MERGE ... KEY, IDENTITY, FETCH FIRST).
+ *
+ * Métodos e funcionalidades:
+ *
+ * comConexao(PoolConexoes pool, String descricao, Operacao<T> operacao)
+ * - Empresta uma conexão do pool, executa e devolve. SQLException vira
+ *   IllegalStateException com a descrição da operação.
+ *
+ * emTransacao(PoolConexoes pool, String descricao, Operacao<T> operacao)
+ * - Igual, dentro de uma transação (usada pelas gravações em lote).
+ *
+ * criarEsquema(PoolConexoes pool, String... comandos)
+ * - Executa os CREATE ... IF NOT EXISTS de cada repositório.
+ *
+ * timestamp(), data()
+ * - Conversões entre LocalDateTime e Timestamp aceitando null.
+ */
+
+package service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import persistencia.PoolConexoes;
+
+final class SuporteJdbc {
+
+	// Linhas por executeBatch() nas gravações em lote
+	static final int TAMANHO_LOTE = 1_000;
+
+	interface Operacao<T> {
+		T executar(PoolConexoes.Conexao conexao) throws SQLException;
+	}
+
+	private SuporteJdbc() {
+	}
+
+	static <T> T comConexao(PoolConexoes pool, String descricao, Operacao<T> operacao) {
+		try (PoolConexoes.Conexao conexao = pool.obter()) {
+			return operacao.executar(conexao);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Erro no banco ao " + descricao + ": " + e.getMessage(), e);
+		}
+	}
+
+	static <T> T emTransacao(PoolConexoes pool, String descricao, Operacao<T> operacao) {
+		return comConexao(pool, descricao, conexao -> {
+			conexao.iniciarTransacao();
+			T resultado = operacao.executar(conexao);
+			conexao.confirmar();
+			return resultado;
+		});
+	}
+
+	static void criarEsquema(PoolConexoes pool, String... comandos) {
+		comConexao(pool, "criar as tabelas", conexao -> {
+			try (Statement comando = conexao.getConnection().createStatement()) {
+				for (String sql : comandos) {
+					comando.execute(sql);
+				}
+			}
+			return null;
+		});
+	}
+
+	static Timestamp timestamp(LocalDateTime data) {
+		return data != null ? Timestamp.valueOf(data) : null;
+	}
+
+	static LocalDateTime data(Timestamp timestamp) {
+		return timestamp != null ? timestamp.toLocalDateTime() : null;
+	}
+
+}
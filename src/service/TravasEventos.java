@@ -0,0 +1,53 @@
+/*
+ * TravasEventos
+ *
+ * Descrição geral:
+ * - Travas por faixa (lock striping) usadas pelo EventoService para serializar as
+ *   alterações de um mesmo evento: entrar, sair, presença, curtida, comentário e
+ *   atualização. Cada uma mexe no Evento e em vários índices, e precisa acontecer
+ *   por inteiro antes da próxima alteração do mesmo evento.
+ * - Eventos diferentes caem, na maioria das vezes, em travas diferentes e não
+ *   disputam entre si. Listagens e pesquisas não usam estas travas.
+ *
+ * Estruturas principais:
+ * - travas: vetor de ReentrantLock com tamanho potência de 2; o id do evento é
+ *   espalhado e mascarado para escolher a trava.
+ *
+ * Métodos e funcionalidades:
+ *
+ * executar(int eventoId, Supplier<T> operacao)
+ * - Executa a operação segurando a trava do evento e retorna o resultado.
+ */
+
+package service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+class TravasEventos {
+
+	private final ReentrantLock[] travas;
+
+	TravasEventos(int quantidade) {
+		int tamanho = Integer.highestOneBit(Math.max(1, quantidade - 1)) << 1;
+		this.travas = new ReentrantLock[tamanho];
+		for (int i = 0; i < tamanho; i++) {
+			travas[i] = new ReentrantLock();
+		}
+	}
+
+	<T> T executar(int eventoId, Supplier<T> operacao) {
+		ReentrantLock trava = travas[espalhar(eventoId) & (travas.length - 1)];
+		trava.lock();
+		try {
+			return operacao.get();
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	private static int espalhar(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * UsuarioRepository
+ *
+ * Descrição geral:
+ * - Ponto de troca do armazenamento de usuários (ver EventoRepository).
+ *
+ * Métodos e funcionalidades:
+ *
+ * salvar(Usuario)
+ * - Insere ou atualiza o usuário pelo id.
+ *
+ * buscarPorId(), buscarPorEmail(), buscarPorUsername(), listarTodos()
+ * - Consultas (e-mail e username sem diferenciar maiúsculas, como no UsuarioService).
+ */
+
+package service;
+
+import java.util.List;
+
+import model.Usuario;
+
+public interface UsuarioRepository {
+
+	void salvar(Usuario usuario);
+
+	Usuario buscarPorId(int id);
+
+	Usuario buscarPorEmail(String email);
+
+	Usuario buscarPorUsername(String username);
+
+	List<Usuario> listarTodos();
+}
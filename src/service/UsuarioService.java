@@ -11,16 +11,41 @@
  * - Controle de fluxos temporários (OTP, recuperação de senha)
  * 
  * Estruturas de dados principais:
- * - ArrayList<Usuario>: Armazenamento dos usuários
- * - BasicPasswordEncryptor: Criptografia de senhas
+ * - CopyOnWriteArrayList<Usuario>: Armazenamento dos usuários (lido também pelo snapshot da Persistencia)
+ * - IndiceUsuarios: Índices concorrentes por id, e-mail e username (sem diferenciar maiúsculas),
+ *   usados por login, cadastro, buscas e resolução de autores em O(1)
+ * - HashSenhas: Hashes de senha versionados (custo configurável) e executor limitado para calculá-los
+ * - GrafoAmizades: Amizades e pedidos por id (conjuntos de int), com contagem incremental de amigos
+ *   em comum para as sugestões
  * 
  * Métodos principais:
  * - iniciarCadastro(), completarCadastro(): Fluxo de cadastro em etapas
- * - fazerLogin(): Autenticação com email e senha
+ * - autenticar(), iniciarCadastroAsync(): Login e início de cadastro fora da thread do JavaFX
+ *   (CompletableFuture); o login confere no máximo um hash, o do usuário achado pelo e-mail, e
+ *   troca hashes antigos pelo formato atual quando a senha confere
+ * - fazerLogin(): Autenticação síncrona com email e senha
+ * - configurarCustoSenha(): Número de iterações dos novos hashes
  * - validar*(): Métodos de validação de CPF, email, senha, etc.
  * - registrarParticipacaoUsuario(): Vinculação usuário-eventos
- * - getUsuarioPorEmail(): Busca por email
+ * - getUsuarioPorEmail(), buscarPorUsername(), buscarPorId(): Buscas pelos índices
+ * - buscarUsuarios(): Busca enquanto se digita (amigos, @menções), por prefixo do username ou do
+ *   nome com tolerância a erros de digitação, ordenada por amizade e eventos em comum
+ * - isEmailDisponivel(), isUsernameDisponivel(): Conferência antes de trocar e-mail/username
+ * - enviar/aceitar/recusarPedidoDeAmizade(), desfazerAmizade(), saoAmigos(), listarAmigosDoUsuario():
+ *   Amizades, sem contains linear em listas de Usuario
+ * - contarAmigosEmComum(), sugerirAmigos(): Amigos em comum e "pessoas que você talvez conheça"
+ *   (amigos de amigos, pesados pelos eventos em comum)
  * - atualizarSenha(): Redefinição segura de senha
+ * - restaurar(): Carga dos usuários recuperados pela Persistencia
+ * - importarUsuarios(): Importação em massa de um CSV, com validação e hash em paralelo,
+ *   inclusão em lotes e relatório de erros (RelatorioImportacao)
+ * Cadastro, atualização e troca de senha são registrados no diário da Persistencia e publicados
+ * no BarramentoAlteracoes (USUARIO_SALVO).
+ * 
+ * Unicidade:
+ * - cadastrar() e completarCadastro() só incluem o usuário se o e-mail e o username estiverem
+ *   livres; a conferência e a inclusão no índice são atômicas, então dois cadastros simultâneos
+ *   com o mesmo e-mail não passam os dois.
  * 
  * Validações implementadas:
  * - Força da senha (complexidade)
@@ -37,27 +62,53 @@
 
 package service;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import java.util.HashMap;
 
-
-import org.jasypt.util.password.BasicPasswordEncryptor;
-
 import model.Evento;
 import model.Usuario;
 import otp.EmailConfirmationService;
+import persistencia.Persistencia;
 
 public class UsuarioService {
 
-	private int proximoId = 1;
+	private final AtomicInteger proximoId = new AtomicInteger(1);
 	private static UsuarioService instancia;
-	private static final BasicPasswordEncryptor passwordEncryptor = new BasicPasswordEncryptor();
-	private List<Usuario> listaUsuarios = new ArrayList<>();
+	private final HashSenhas hashSenhas = new HashSenhas();
+
+	// Padrões das validações, compilados uma vez (String.matches recompila a cada chamada)
+	private static final Pattern PADRAO_EMAIL = Pattern.compile(
+			"^(?:[a-zA-Z0-9_'^&amp;/+-])+(?:\\." + "[a-zA-Z0-9_'^&amp;/+-]+)*@" + "(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,}$");
+	private static final Pattern PADRAO_TELEFONE = Pattern.compile("\\d{10,11}");
+	private static final Pattern PADRAO_NAO_DIGITO = Pattern.compile("[^\\d]");
+	private static final Pattern PADRAO_DIGITOS_IGUAIS = Pattern.compile("(\\d)\\1{10}");
+	private static final Pattern PADRAO_MAIUSCULA = Pattern.compile("[A-Z]");
+	private static final Pattern PADRAO_MINUSCULA = Pattern.compile("[a-z]");
+	private static final Pattern PADRAO_NUMERO = Pattern.compile("[0-9]");
+	private static final Pattern PADRAO_ESPECIAL = Pattern.compile("[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?]");
+	private List<Usuario> listaUsuarios = new CopyOnWriteArrayList<>();
+	private final IndiceUsuarios indice = new IndiceUsuarios();
+	// Candidatos tirados do índice de busca antes da ordenação por relevância
+	private static final int CANDIDATOS_BUSCA = 64;
+	private final GrafoAmizades amizades = new GrafoAmizades();
+	// Sugestões de amizade: cada amigo em comum vale 3 eventos em comum (contados até 10)
+	private static final int CANDIDATOS_SUGESTAO = 200;
+	private static final int PESO_AMIGO_EM_COMUM = 3;
+	private static final int MAXIMO_EVENTOS_EM_COMUM = 10;
 
 	private Usuario usuarioTemporario;
 	private String otpTemporario;
@@ -75,13 +126,13 @@ public class UsuarioService {
 	public Usuario iniciarCadastro(String nome, String sobrenome, String username, String email, String senha) {
 		// Validações
 		// Verifica email existente
-		if (!validarEmail(email) || !validarSenha(senha)
-				|| listaUsuarios.stream().anyMatch(u -> u.getEmail().equalsIgnoreCase(email))) {
+		if (!validarEmail(email) || !validarSenha(senha) || !indice.isEmailDisponivel(email, null)
+				|| !indice.isUsernameDisponivel(username, null)) {
 			return null;
 		}
 
 		// Criptografa a senha
-		String senhaHash = passwordEncryptor.encryptPassword(senha);
+		String senhaHash = hashSenhas.gerar(senha);
 
 		// Cria usuário, mas NÃO adiciona à lista ainda
 		Usuario novo = new Usuario(nome, sobrenome, username, email, senhaHash);
@@ -94,41 +145,133 @@ public class UsuarioService {
 		return novo;
 	}
 
+	/**
+	 * iniciarCadastro() no executor de hashes, para a tela não travar enquanto a senha é
+	 * criptografada. O futuro termina com null se os dados forem inválidos.
+	 */
+	public CompletableFuture<Usuario> iniciarCadastroAsync(String nome, String sobrenome, String username, String email,
+			String senha) {
+		return hashSenhas.executar(() -> iniciarCadastro(nome, sobrenome, username, email, senha));
+	}
+
 	public boolean completarCadastro(Usuario usuario) {
 		if (usuario.getId() == 0) {
-			usuario.setId(proximoId++);
-			listaUsuarios.add(usuario);
+			if (!incluir(usuario)) {
+				return false;
+			}
 		} else {
-			// Atualiza usuário existente na lista
-			int idx = listaUsuarios.indexOf(usuario);
-			if (idx >= 0) {
-				listaUsuarios.set(idx, usuario);
-			} else {
+			// Atualiza usuário existente (normalmente a mesma instância, alterada pela tela)
+			Usuario atual = indice.porId(usuario.getId());
+			if (!indice.atualizar(usuario)) {
+				return false;
+			}
+			if (atual == null) {
 				listaUsuarios.add(usuario);
+				reservarId(usuario.getId());
+			} else if (atual != usuario) {
+				listaUsuarios.set(listaUsuarios.indexOf(atual), usuario);
 			}
 		}
 		// outras lógicas de validação, criptografia, etc, se necessário
 
+		salvar(usuario);
 		return true;
 	}
 
 	public boolean cadastrar(Usuario usuario) {
+		if (!indice.isEmailDisponivel(usuario.getEmail(), null)) {
+			return false;
+		}
 
-		for (Usuario u : listaUsuarios) {
-			if (u.getEmail().equalsIgnoreCase(usuario.getEmail())) {
-				return false;
+		String hash = hashSenhas.gerar(usuario.getSenha());
+		usuario.setSenha(hash);
+		if (!incluir(usuario)) {
+			return false;
+		}
+		salvar(usuario);
+		return true;
+	}
+
+	/**
+	 * Importa usuários de um CSV (ver ImportadorUsuarios para o formato). Linhas inválidas ou
+	 * duplicadas não interrompem a importação: vão para os erros do relatório.
+	 *
+	 * @throws IllegalArgumentException se o cabeçalho não tiver as colunas obrigatórias
+	 */
+	public RelatorioImportacao importarUsuarios(Reader csv) throws IOException {
+		return new ImportadorUsuarios(this, hashSenhas).importar(csv);
+	}
+
+	/**
+	 * Inclui um lote de usuários novos (senhas já criptografadas): uma cópia da lista para o
+	 * lote inteiro e uma única espera pela gravação do diário. Retorna, para cada usuário, se
+	 * ele foi incluído (false quando o e-mail ou o username já existem).
+	 */
+	boolean[] incluirLote(List<Usuario> lote) {
+		boolean[] incluidos = new boolean[lote.size()];
+		List<Usuario> aceitos = new ArrayList<>(lote.size());
+		for (int i = 0; i < lote.size(); i++) {
+			Usuario usuario = lote.get(i);
+			usuario.setId(proximoId.getAndIncrement());
+			if (indice.registrar(usuario)) {
+				incluidos[i] = true;
+				aceitos.add(usuario);
+			} else {
+				usuario.setId(0);
 			}
 		}
+		listaUsuarios.addAll(aceitos);
 
-		String hash = passwordEncryptor.encryptPassword(usuario.getSenha());
-		usuario.setSenha(hash);
-		listaUsuarios.add(usuario);
-		if (usuario.getId() == 0) {
-			usuario.setId(proximoId++);
+		Persistencia persistencia = Persistencia.getInstance();
+		BarramentoAlteracoes alteracoes = BarramentoAlteracoes.getInstance();
+		for (Usuario usuario : aceitos) {
+			persistencia.registrarUsuario(usuario);
+			alteracoes.publicar(Alteracao.Tipo.USUARIO_SALVO, 0, usuario.getId());
 		}
+		persistencia.aguardarGravacao();
+		return incluidos;
+	}
+
+	// Dá um id ao usuário (se ainda não tiver) e o inclui se e-mail e username estiverem livres
+	private boolean incluir(Usuario usuario) {
+		boolean novoId = usuario.getId() == 0;
+		if (novoId) {
+			usuario.setId(proximoId.getAndIncrement());
+		}
+		if (!indice.registrar(usuario)) {
+			if (novoId) {
+				usuario.setId(0);
+			}
+			return false;
+		}
+		reservarId(usuario.getId());
+		listaUsuarios.add(usuario);
 		return true;
 	}
 
+	// Ids informados de fora (usuários de teste, importação) não podem ser reaproveitados
+	private void reservarId(int id) {
+		proximoId.accumulateAndGet(id + 1, Math::max);
+	}
+
+	// Registra o estado atual do usuário no diário e espera a gravação
+	private void salvar(Usuario usuario) {
+		Persistencia persistencia = Persistencia.getInstance();
+		persistencia.registrarUsuario(usuario);
+		BarramentoAlteracoes.getInstance().publicar(Alteracao.Tipo.USUARIO_SALVO, 0, usuario.getId());
+		persistencia.aguardarGravacao();
+	}
+
+	/**
+	 * Carrega os usuários recuperados pela Persistencia, substituindo a lista atual.
+	 */
+	public void restaurar(Collection<Usuario> recuperados) {
+		listaUsuarios = new CopyOnWriteArrayList<>(recuperados);
+		indice.carregar(listaUsuarios);
+		int maiorId = listaUsuarios.stream().mapToInt(Usuario::getId).max().orElse(0);
+		proximoId.set(maiorId + 1);
+	}
+
 	public void cadastrarUsuario(String nome, String email, String senha) {
 		// ... cadastro no sistema
 		EmailConfirmationService.iniciarConfirmacaoEmail(email, nome);
@@ -154,18 +297,19 @@ public class UsuarioService {
 	}
 
 	public boolean validarEmail(String email) {
-		String regexRFC5322 = "^(?:[a-zA-Z0-9_'^&amp;/+-])+(?:\\." + "[a-zA-Z0-9_'^&amp;/+-]+)*@"
-				+ "(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,}$";
-		return email != null && email.matches(regexRFC5322);
+		return email != null && PADRAO_EMAIL.matcher(email).matches();
 	}
 
 	public boolean validarTelefone(String telefone) {
-		return telefone.matches("\\d{10,11}");
+		return telefone != null && PADRAO_TELEFONE.matcher(telefone).matches();
 	}
 
 	public boolean validarCPF(String cpf) {
-		cpf = cpf.replaceAll("[^\\d]", "");
-		if (cpf.length() != 11 || cpf.matches("(\\d)\\1{10}")) {
+		if (cpf == null) {
+			return false;
+		}
+		cpf = PADRAO_NAO_DIGITO.matcher(cpf).replaceAll("");
+		if (cpf.length() != 11 || PADRAO_DIGITOS_IGUAIS.matcher(cpf).matches()) {
 			return false;
 		}
 		try {
@@ -195,21 +339,50 @@ public class UsuarioService {
 			return false;
 		}
 
-		boolean temMaiuscula = senha.matches(".*[A-Z].*");
-		boolean temMinuscula = senha.matches(".*[a-z].*");
-		boolean temNumero = senha.matches(".*[0-9].*");
-		boolean temEspecial = senha.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*");
+		boolean temMaiuscula = PADRAO_MAIUSCULA.matcher(senha).find();
+		boolean temMinuscula = PADRAO_MINUSCULA.matcher(senha).find();
+		boolean temNumero = PADRAO_NUMERO.matcher(senha).find();
+		boolean temEspecial = PADRAO_ESPECIAL.matcher(senha).find();
 
 		return temMaiuscula && temMinuscula && temNumero && temEspecial;
 	}
 
 	public boolean fazerLogin(String email, String senhaDigitada) {
-		for (Usuario u : listaUsuarios) {
-			if (u.getEmail().equalsIgnoreCase(email) && passwordEncryptor.checkPassword(senhaDigitada, u.getSenha())) {
-				return true;
-			}
+		return verificarLogin(indice.porEmail(email), senhaDigitada) != null;
+	}
+
+	/**
+	 * Autentica no executor de hashes. O futuro termina com o usuário, ou null se o e-mail
+	 * não existir ou a senha não conferir.
+	 */
+	public CompletableFuture<Usuario> autenticar(String email, String senhaDigitada) {
+		Usuario usuario = indice.porEmail(email);
+		return hashSenhas.executar(() -> verificarLogin(usuario, senhaDigitada));
+	}
+
+	// Uma única conferência de hash; com a senha correta, atualiza um hash antigo ou mais fraco
+	private Usuario verificarLogin(Usuario usuario, String senhaDigitada) {
+		if (usuario == null) {
+			hashSenhas.conferirFicticio(senhaDigitada);
+			return null;
 		}
-		return false;
+		String hash = usuario.getSenha();
+		if (!hashSenhas.conferir(senhaDigitada, hash)) {
+			return null;
+		}
+		if (hashSenhas.precisaAtualizar(hash)) {
+			usuario.setSenha(hashSenhas.gerar(senhaDigitada));
+			salvar(usuario);
+		}
+		return usuario;
+	}
+
+	/**
+	 * Define o número de iterações dos hashes gerados daqui em diante. Hashes existentes com
+	 * outro custo são refeitos no próximo login de cada usuário.
+	 */
+	public void configurarCustoSenha(int iteracoes) {
+		hashSenhas.setIteracoes(iteracoes);
 	}
 
 	public List<Usuario> getUsuarios() {
@@ -313,10 +486,6 @@ public class UsuarioService {
 		Tester6.setSenha("Teste@123");
 		Tester6.setEmail("fmoura.dev@gmail.com");
 		this.cadastrar(Tester6);
-
-		int maiorId = listaUsuarios.stream().mapToInt(Usuario::getId).max().orElse(0);
-		proximoId = maiorId + 1;
-
 	}
 
 	public boolean dadosCompletosCadastrados(Usuario usuario) {
@@ -340,7 +509,7 @@ public class UsuarioService {
 	 * @return o usuário correspondente, ou null se não for encontrado
 	 */
 	public Usuario buscarPorId(int id) {
-		return listaUsuarios.stream().filter(u -> u.getId() == id).findFirst().orElse(null);
+		return indice.porId(id);
 	}
 
 	// MÉTODOS DE INTEGRAÇÃO COM EVENTOS
@@ -354,13 +523,8 @@ public class UsuarioService {
 	 * @return true se a participação foi bem-sucedida, false caso contrário
 	 */
 	public boolean registrarParticipacaoUsuario(int usuarioId, Evento evento) {
-		Usuario usuario = buscarPorId(usuarioId);
-		if (usuario != null && evento != null) {
-			boolean participou = usuario.participarEvento(evento);
-			if (participou) {
-				EventoService.getInstance().adicionarParticipante(evento.getId(), usuarioId);
-			}
-			return participou;
+		if (evento != null) {
+			return EventoService.getInstance().adicionarParticipante(evento.getId(), usuarioId);
 		}
 		return false;
 	}
@@ -373,9 +537,8 @@ public class UsuarioService {
 	 * @return true se a operação foi realizada com sucesso, false caso contrário
 	 */
 	public boolean removerParticipacaoUsuario(int usuarioId, Evento evento) {
-		Usuario usuario = buscarPorId(usuarioId);
-		if (usuario != null && evento != null) {
-			usuario.cancelarParticipacao(evento);
+		if (buscarPorId(usuarioId) != null && evento != null) {
+			EventoService.getInstance().removerParticipante(evento.getId(), usuarioId);
 			return true;
 		}
 		return false;
@@ -398,7 +561,7 @@ public class UsuarioService {
 			return Collections.emptyList();
 		}
 
-		List<Evento> eventos = usuario.getEventosParticipando();
+		List<Evento> eventos = EventoService.getInstance().listarEventosDoParticipante(usuarioId);
 		System.out.println("[DEBUG] Eventos encontrados: " + eventos.size());
 		eventos.forEach(e -> System.out.println(" - " + e.getTitulo()));
 
@@ -415,19 +578,26 @@ public class UsuarioService {
 
 	public List<Evento> getEventosOrganizandoUsuario(int usuarioId) {
 		Usuario usuario = buscarPorId(usuarioId);
-		return usuario != null ? usuario.getEventosOrganizados() : new ArrayList<>();
+		return usuario != null ? EventoService.getInstance().listarEventosDoOrganizador(usuarioId) : new ArrayList<>();
 		// operador ternário >> condição ? valor_se_verdadeiro : valor_se_falso;
 	}
 
 	// OTP - fluxo de redefinição de senha
 
 	public Usuario getUsuarioPorEmail(String email) {
-		for (Usuario u : listaUsuarios) {
-			if (u.getEmail().equalsIgnoreCase(email)) {
-				return u;
-			}
-		}
-		return null;
+		return indice.porEmail(email);
+	}
+
+	/**
+	 * Indica se o e-mail pode ser usado pelo usuário informado (livre ou já dele).
+	 * Use null para um usuário ainda não cadastrado.
+	 */
+	public boolean isEmailDisponivel(String email, Usuario usuario) {
+		return indice.isEmailDisponivel(email, usuario);
+	}
+
+	public boolean isUsernameDisponivel(String username, Usuario usuario) {
+		return indice.isUsernameDisponivel(username, usuario);
 	}
 
 	public void setUsuarioTemporario(Usuario usuario) {
@@ -452,8 +622,9 @@ public class UsuarioService {
 			return false;
 		}
 
-		String hash = passwordEncryptor.encryptPassword(novaSenha);
+		String hash = hashSenhas.gerar(novaSenha);
 		usuario.setSenha(hash);
+		salvar(usuario);
 		return true;
 	}
 
@@ -465,69 +636,193 @@ public class UsuarioService {
 	}
 	
 	public Usuario buscarPorUsername(String username) {
-	    return listaUsuarios.stream()
-	        .filter(u -> u.getUsername().equalsIgnoreCase(username))
-	        .findFirst()
-	        .orElse(null);
+	    return indice.porUsername(username);
+	}
+
+	/**
+	 * Busca de usuários enquanto se digita (busca de amigos, autocompletar de @menções): username
+	 * ou nome começando pelo texto, tolerando erros de digitação. Ordena pela qualidade do
+	 * casamento, amizade com quem busca e eventos em comum; quem busca não entra no resultado.
+	 *
+	 * @param texto     o que foi digitado, com ou sem "@"
+	 * @param quemBusca usuário logado (pode ser null)
+	 * @param limite    máximo de usuários retornados
+	 */
+	public List<Usuario> buscarUsuarios(String texto, Usuario quemBusca, int limite) {
+		IndiceBuscaUsuarios busca = indice.busca();
+		String chave = IndiceBuscaUsuarios.normalizarConsulta(texto);
+		Map<Integer, IndiceBuscaUsuarios.Casamento> casamentos = new HashMap<>();
+		for (IndiceBuscaUsuarios.Casamento casamento : busca.buscar(chave, CANDIDATOS_BUSCA)) {
+			casamentos.put(casamento.usuarioId, casamento);
+		}
+		Set<Integer> amigos = new HashSet<>();
+		if (quemBusca != null) {
+			for (int amigo : amizades.amigos(quemBusca.getId())) {
+				amigos.add(amigo);
+				// Amigos entram mesmo quando o prefixo é comum demais para caberem nos candidatos
+				if (!casamentos.containsKey(amigo) && busca.casaPrefixo(amigo, chave)) {
+					casamentos.put(amigo, new IndiceBuscaUsuarios.Casamento(amigo, 0, false, false));
+				}
+			}
+			casamentos.remove(quemBusca.getId());
+		}
+
+		List<IndiceBuscaUsuarios.Casamento> encontrados = new ArrayList<>(casamentos.values());
+		int[] ids = new int[encontrados.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = encontrados.get(i).usuarioId;
+		}
+		int[] emComum = eventosEmComum(quemBusca, ids);
+		List<Candidato> candidatos = new ArrayList<>(encontrados.size());
+		for (int i = 0; i < encontrados.size(); i++) {
+			IndiceBuscaUsuarios.Casamento casamento = encontrados.get(i);
+			Usuario usuario = indice.porId(casamento.usuarioId);
+			if (usuario != null) {
+				candidatos.add(new Candidato(usuario, relevancia(casamento, amigos.contains(usuario.getId()), emComum[i])));
+			}
+		}
+		candidatos.sort(null);
+		List<Usuario> resultado = new ArrayList<>();
+		for (int i = 0; i < candidatos.size() && i < limite; i++) {
+			resultado.add(candidatos.get(i).usuario);
+		}
+		return resultado;
+	}
+
+	// Mais relevante primeiro; no empate, o username mais curto
+	private static final class Candidato implements Comparable<Candidato> {
+		private final Usuario usuario;
+		private final int pontos;
+		private final int tamanhoUsername;
+
+		private Candidato(Usuario usuario, int pontos) {
+			this.usuario = usuario;
+			this.pontos = pontos;
+			this.tamanhoUsername = usuario.getUsername() == null ? Integer.MAX_VALUE : usuario.getUsername().length();
+		}
+
+		@Override
+		public int compareTo(Candidato outro) {
+			if (pontos != outro.pontos) {
+				return Integer.compare(outro.pontos, pontos);
+			}
+			if (tamanhoUsername != outro.tamanhoUsername) {
+				return Integer.compare(tamanhoUsername, outro.tamanhoUsername);
+			}
+			return Integer.compare(usuario.getId(), outro.usuario.getId());
+		}
 	}
+
+	// Chave inteira > prefixo do username > prefixo do nome; cada erro de digitação custa mais
+	// que um evento em comum, e ser amigo pesa mais que tudo isso
+	private static int relevancia(IndiceBuscaUsuarios.Casamento casamento, boolean amigo, int eventosEmComum) {
+		int pontos = casamento.completo ? 40 : casamento.username ? 30 : 20;
+		pontos -= 15 * casamento.distancia;
+		pontos += 5 * Math.min(eventosEmComum, 5);
+		return amigo ? pontos + 50 : pontos;
+	}
+
+	/**
+	 * Visão somente leitura (e sempre atual) do índice username em minúsculas -> usuário.
+	 */
 	public Map<String, Usuario> getUsuariosMapeados() {
-	    return listaUsuarios.stream().collect(Collectors.toMap(
-	        u -> u.getUsername().toLowerCase(),
-	        u -> u,
-	        (u1, _) -> u1 // resolve duplicatas mantendo o primeiro
-	    ));
+	    return indice.mapaPorUsername();
 	}
+	// AMIZADES
+
 	public List<Usuario> listarAmigosDoUsuario(Usuario usuario) {
-	    if (usuario != null) {
-	        return new ArrayList<>(usuario.getAmigos());
-	    }
-	    return new ArrayList<>();
+		return usuario == null ? new ArrayList<>() : resolver(amizades.amigos(usuario.getId()));
+	}
+
+	public List<Usuario> listarPedidosRecebidos(Usuario usuario) {
+		return usuario == null ? new ArrayList<>() : resolver(amizades.pedidosRecebidos(usuario.getId()));
 	}
-	
-	public boolean enviarPedidoDeAmizade(String usernameRemetente, String usernameDestino) {
-	    Usuario remetente = buscarPorUsername(usernameRemetente);
-	    Usuario destino = buscarPorUsername(usernameDestino);
 
-	    if (remetente == null || destino == null || remetente.equals(destino)) {
-	        return false;
-	    }
+	public List<Usuario> listarPedidosRecebidos(String username) {
+		return listarPedidosRecebidos(buscarPorUsername(username));
+	}
 
-	    if (remetente.getAmigos().contains(destino)) {
-	        return false; // já são amigos
-	    }
+	public boolean enviarPedidoDeAmizade(Usuario remetente, Usuario destino) {
+		return remetente != null && destino != null && amizades.enviarPedido(remetente.getId(), destino.getId());
+	}
 
-	    if (!remetente.getPedidosEnviados().contains(destino)) {
-	        remetente.enviarPedido(destino);
-	        return true;
-	    }
+	public boolean enviarPedidoDeAmizade(String usernameRemetente, String usernameDestino) {
+		return enviarPedidoDeAmizade(buscarPorUsername(usernameRemetente), buscarPorUsername(usernameDestino));
+	}
 
-	    return false;
+	public boolean aceitarPedidoDeAmizade(Usuario remetente, Usuario destino) {
+		return remetente != null && destino != null && amizades.aceitarPedido(remetente.getId(), destino.getId());
 	}
 
 	public boolean aceitarPedidoDeAmizade(String usernameRemetente, String usernameDestino) {
-	    Usuario remetente = buscarPorUsername(usernameRemetente);
-	    Usuario destino = buscarPorUsername(usernameDestino);
+		return aceitarPedidoDeAmizade(buscarPorUsername(usernameRemetente), buscarPorUsername(usernameDestino));
+	}
 
-	    if (remetente == null || destino == null) {
-	        return false;
-	    }
+	public boolean recusarPedidoDeAmizade(Usuario remetente, Usuario destino) {
+		return remetente != null && destino != null && amizades.recusarPedido(remetente.getId(), destino.getId());
+	}
 
-	    if (destino.getPedidosRecebidos().contains(remetente)) {
-	        destino.aceitarPedido(remetente);
-	        return true;
-	    }
+	public boolean desfazerAmizade(Usuario usuario, Usuario amigo) {
+		return usuario != null && amigo != null && amizades.desfazerAmizade(usuario.getId(), amigo.getId());
+	}
 
-	    return false;
+	public boolean saoAmigos(Usuario usuario, Usuario outro) {
+		return usuario != null && outro != null && amizades.saoAmigos(usuario.getId(), outro.getId());
 	}
 
-	public List<Usuario> listarPedidosRecebidos(String username) {
-	    Usuario usuario = buscarPorUsername(username);
-	    if (usuario != null) {
-	        return new ArrayList<>(usuario.getPedidosRecebidos());
-	    }
-	    return new ArrayList<>();
+	public boolean temPedidoDeAmizade(Usuario remetente, Usuario destino) {
+		return remetente != null && destino != null && amizades.temPedido(remetente.getId(), destino.getId());
 	}
 
+	public int contarAmigosEmComum(Usuario usuario, Usuario outro) {
+		return usuario == null || outro == null ? 0 : amizades.contarAmigosEmComum(usuario.getId(), outro.getId());
+	}
 
+	/**
+	 * "Pessoas que você talvez conheça": amigos de amigos, ordenados pelos amigos em comum e
+	 * pelos eventos em comum. Só os CANDIDATOS_SUGESTAO com mais amigos em comum são pontuados
+	 * pelos eventos, para o custo não crescer com o tamanho da vizinhança.
+	 */
+	public List<Usuario> sugerirAmigos(Usuario usuario, int limite) {
+		if (usuario == null || limite <= 0) {
+			return new ArrayList<>();
+		}
+		GrafoAmizades.Candidatos porAmigosEmComum = amizades.amigosDeAmigos(usuario.getId(), CANDIDATOS_SUGESTAO);
+		int[] ids = porAmigosEmComum.ids;
+		int[] emComum = eventosEmComum(usuario, ids);
+		// Pontos e id numa chave só (empate: id menor primeiro); só os escolhidos são resolvidos
+		// no índice, que é a parte cara com centenas de candidatos
+		long[] chaves = new long[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			int pontos = PESO_AMIGO_EM_COMUM * porAmigosEmComum.amigosEmComum[i]
+					+ Math.min(emComum[i], MAXIMO_EVENTOS_EM_COMUM);
+			chaves[i] = ((long) pontos << 32) | (Integer.MAX_VALUE - ids[i]);
+		}
+		Arrays.sort(chaves);
+		List<Usuario> sugeridos = new ArrayList<>();
+		for (int i = chaves.length - 1; i >= 0 && sugeridos.size() < limite; i--) {
+			Usuario sugerido = indice.porId(Integer.MAX_VALUE - (int) chaves[i]);
+			if (sugerido != null) {
+				sugeridos.add(sugerido);
+			}
+		}
+		return sugeridos;
+	}
+
+	// Eventos em comum entre o usuário e cada candidato (zeros se não houver usuário)
+	private static int[] eventosEmComum(Usuario usuario, int[] candidatos) {
+		return usuario == null ? new int[candidatos.length]
+				: EventoService.getInstance().contarEventosEmComum(usuario.getId(), candidatos);
+	}
 
+	private List<Usuario> resolver(int[] ids) {
+		List<Usuario> usuarios = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			Usuario usuario = indice.porId(id);
+			if (usuario != null) {
+				usuarios.add(usuario);
+			}
+		}
+		return usuarios;
+	}
 }